@@ -59,27 +59,17 @@ public class CounterConfig extends AbstractTestElement
     // This class is not cloned per thread, so this is shared
     private long globalCounter = Long.MIN_VALUE;
 
-    // Used for per-thread/user numbers
-    private transient ThreadLocal<Long> perTheadNumber;
+    // Used for per-thread/user numbers, held in an array to avoid boxing at each iteration
+    private transient ThreadLocal<long[]> perTheadNumber;
 
     // Used for per-thread/user storage of increment in Thread Group Main loop
-    private transient ThreadLocal<Long> perTheadLastIterationNumber;
+    private transient ThreadLocal<long[]> perTheadLastIterationNumber;
 
     private static final Logger log = LoggerFactory.getLogger(CounterConfig.class);
 
     private void init() { // WARNING: called from ctor so must not be overridden (i.e. must be private or final)
-        perTheadNumber = new ThreadLocal<Long>() {
-            @Override
-            protected Long initialValue() {
-                return Long.valueOf(getStart());
-            }
-        };
-        perTheadLastIterationNumber = new ThreadLocal<Long>() {
-            @Override
-            protected Long initialValue() {
-                return Long.valueOf(1);
-            }
-        };
+        perTheadNumber = ThreadLocal.withInitial(() -> new long[] { getStart() });
+        perTheadLastIterationNumber = ThreadLocal.withInitial(() -> new long[] { 1 });
     }
 
 
@@ -103,30 +93,43 @@ public class CounterConfig extends AbstractTestElement
         long end = getEnd();
         long increment = getIncrement();
         if (!isPerUser()) {
+            long current;
             synchronized (this) {
                 if (globalCounter == Long.MIN_VALUE || globalCounter > end) {
                     globalCounter = start;
                 }
-                variables.put(getVarName(), formatNumber(globalCounter));
+                current = globalCounter;
                 globalCounter += increment;
             }
+            setVariable(variables, current);
         } else {
-            long current = perTheadNumber.get().longValue();
+            long[] number = perTheadNumber.get();
+            long current = number[0];
             if(isResetOnThreadGroupIteration()) {
                 int iteration = variables.getIteration();
-                Long lastIterationNumber = perTheadLastIterationNumber.get();
-                if(iteration != lastIterationNumber.longValue()) {
+                long[] lastIterationNumber = perTheadLastIterationNumber.get();
+                if(iteration != lastIterationNumber[0]) {
                     // reset
                     current = getStart();
                 }
-                perTheadLastIterationNumber.set(Long.valueOf(iteration));
+                lastIterationNumber[0] = iteration;
             }
-            variables.put(getVarName(), formatNumber(current));
+            setVariable(variables, current);
             current += increment;
             if (current > end) {
                 current = start;
             }
-            perTheadNumber.set(Long.valueOf(current));
+            number[0] = current;
+        }
+    }
+
+    // Without format, the counter is stored as a long and only converted to a String if it is read
+    private void setVariable(JMeterVariables variables, long value) {
+        String format = getFormat();
+        if (format == null || format.length() == 0) {
+            variables.putLong(getVarName(), value);
+        } else {
+            variables.put(getVarName(), formatNumber(value));
         }
     }
 
@@ -0,0 +1,538 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jmeter.engine.ShareImmutableProperties;
+import org.apache.jmeter.engine.StandardJMeterEngine;
+import org.apache.jmeter.engine.TreeCloner;
+import org.apache.jmeter.testelement.property.DoubleProperty;
+import org.apache.jmeter.testelement.property.IntegerProperty;
+import org.apache.jmeter.testelement.property.LongProperty;
+import org.apache.jmeter.timers.poissonarrivals.ConstantPoissonProcessGenerator;
+import org.apache.jmeter.timers.poissonarrivals.DurationProvider;
+import org.apache.jmeter.timers.poissonarrivals.EventProducer;
+import org.apache.jmeter.timers.poissonarrivals.ThroughputProvider;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.apache.jorphan.util.JMeterStopTestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread Group implementing an open workload model: iterations are started at a given arrival rate,
+ * whatever the response time of the server.
+ * <p>
+ * Arrivals follow a Poisson process with a constant rate, generated by {@link ConstantPoissonProcessGenerator}
+ * like for {@link org.apache.jmeter.timers.poissonarrivals.PreciseThroughputTimer}.
+ * Each arrival runs one iteration of the group, as a new {@link JMeterThread} (so with its own variables),
+ * on a pool of threads that grows on demand up to the maximum concurrency ({@link #NUM_THREADS}).
+ * When all these threads are busy, the arrival is not delayed but counted as missed,
+ * so that a slow server cannot reduce the load that is applied.
+ * @since 5.2
+ */
+public class ArrivalsThreadGroup extends AbstractThreadGroup implements ThroughputProvider, DurationProvider {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(ArrivalsThreadGroup.class);
+
+    private static final long WAIT_TO_DIE = JMeterUtils.getPropDefault("jmeterengine.threadstop.wait", 5 * 1000); // 5 seconds
+
+    /** Idle time after which a pooled thread is released */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /** Maximum number of events generated at once, see {@link ConstantPoissonProcessGenerator} */
+    private static final int EXACT_LIMIT = 10000;
+
+    /** Allowed surplus of generated events in percent, see {@link ConstantPoissonProcessGenerator} */
+    private static final double ALLOWED_THROUGHPUT_SURPLUS = 1.0d;
+
+    //+ JMX entries - do not change the string values
+
+    /** Number of arrivals per {@link #THROUGHPUT_PERIOD} */
+    public static final String THROUGHPUT = "ArrivalsThreadGroup.throughput"; // $NON-NLS-1$
+
+    /** Length of the throughput period in seconds */
+    public static final String THROUGHPUT_PERIOD = "ArrivalsThreadGroup.throughput_period"; // $NON-NLS-1$
+
+    /** Duration of the arrivals in seconds */
+    public static final String DURATION = "ArrivalsThreadGroup.duration"; // $NON-NLS-1$
+
+    /** Seed of the arrivals generator, 0 for a random seed */
+    public static final String RANDOM_SEED = "ArrivalsThreadGroup.random_seed"; // $NON-NLS-1$
+
+    //- JMX entries
+
+    private static final int DEFAULT_THROUGHPUT_PERIOD = 60;
+
+    /**
+     * Time source of the arrivals scheduler
+     */
+    interface Clock {
+        /**
+         * @return current time in milliseconds
+         */
+        long currentTimeMillis();
+
+        /**
+         * @param millis time to wait in milliseconds
+         * @throws InterruptedException if interrupted while waiting
+         */
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        }
+    };
+
+    /** Time source of the arrivals, set to the system clock when the group starts unless set by a test */
+    private transient Clock clock;
+
+    private transient volatile boolean running;
+
+    private transient Thread arrivalsScheduler;
+
+    private transient ThreadPoolExecutor executor;
+
+    /** Iterations that can still be started before the maximum concurrency is reached */
+    private transient Semaphore concurrency;
+
+    /** Iterations being run, with the thread running them */
+    private final ConcurrentHashMap<JMeterThread, Thread> activeThreads = new ConcurrentHashMap<>();
+
+    private final AtomicLong arrivals = new AtomicLong();
+
+    private final AtomicLong missedArrivals = new AtomicLong();
+
+    private transient int groupNumber;
+
+    private transient ListenerNotifier notifier;
+
+    private transient ListedHashTree threadGroupTree;
+
+    private transient StandardJMeterEngine engine;
+
+    /** Context of the thread starting the group, copied to each iteration */
+    private transient JMeterContext context;
+
+    /** End of the arrivals, also used as end time of the iterations */
+    private transient volatile long endTime;
+
+    public ArrivalsThreadGroup() {
+        super();
+    }
+
+    /**
+     * @return number of arrivals per throughput period
+     */
+    public double getTargetThroughput() {
+        return getPropertyAsDouble(THROUGHPUT);
+    }
+
+    /**
+     * @param throughput number of arrivals per throughput period
+     */
+    public void setTargetThroughput(double throughput) {
+        setProperty(new DoubleProperty(THROUGHPUT, throughput));
+    }
+
+    /**
+     * @return length of the throughput period in seconds
+     */
+    public int getThroughputPeriod() {
+        return getPropertyAsInt(THROUGHPUT_PERIOD, DEFAULT_THROUGHPUT_PERIOD);
+    }
+
+    /**
+     * @param period length of the throughput period in seconds
+     */
+    public void setThroughputPeriod(int period) {
+        setProperty(new IntegerProperty(THROUGHPUT_PERIOD, period));
+    }
+
+    /**
+     * @return duration of the arrivals in seconds
+     */
+    @Override
+    public long getDuration() {
+        return getPropertyAsLong(DURATION);
+    }
+
+    /**
+     * @param duration duration of the arrivals in seconds
+     */
+    public void setDuration(long duration) {
+        setProperty(new LongProperty(DURATION, duration));
+    }
+
+    /**
+     * @return seed of the arrivals generator, 0 for a random one
+     */
+    public long getRandomSeed() {
+        return getPropertyAsLong(RANDOM_SEED);
+    }
+
+    /**
+     * @param seed seed of the arrivals generator, 0 for a random one
+     */
+    public void setRandomSeed(long seed) {
+        setProperty(new LongProperty(RANDOM_SEED, seed));
+    }
+
+    /**
+     * @param clock time source of the arrivals, the system clock by default
+     */
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return target arrival rate per second
+     */
+    @Override
+    public double getThroughput() {
+        int period = getThroughputPeriod();
+        return period > 0 ? getTargetThroughput() / period : 0;
+    }
+
+    /**
+     * @return number of arrivals since the group was started
+     */
+    public long getArrivals() {
+        return arrivals.get();
+    }
+
+    /**
+     * @return number of arrivals that could not be run because the maximum concurrency was reached
+     */
+    public long getMissedArrivals() {
+        return missedArrivals.get();
+    }
+
+    @Override
+    public void start(int groupNum, ListenerNotifier notifier, ListedHashTree threadGroupTree, StandardJMeterEngine engine) {
+        int maxConcurrency = getNumThreads();
+        if (maxConcurrency <= 0) {
+            throw new JMeterStopTestException("Invalid maximum concurrency " + maxConcurrency
+                    + " set in Thread Group:" + getName());
+        }
+        if (getThroughput() <= 0) {
+            throw new JMeterStopTestException("Invalid throughput " + getTargetThroughput()
+                    + " per " + getThroughputPeriod() + " seconds set in Thread Group:" + getName());
+        }
+        if (getDuration() < 5) {
+            throw new JMeterStopTestException("Invalid duration " + getDuration()
+                    + " set in Thread Group:" + getName() + ", it must be at least 5 seconds");
+        }
+        this.running = true;
+        this.groupNumber = groupNum;
+        this.notifier = notifier;
+        this.threadGroupTree = threadGroupTree;
+        this.engine = engine;
+        this.context = JMeterContextService.getContext();
+        if (clock == null) {
+            clock = SYSTEM_CLOCK;
+        }
+        this.endTime = clock.currentTimeMillis() + getDuration() * 1000;
+        arrivals.set(0);
+        missedArrivals.set(0);
+        // Each arrival clones the tree, so make the copies as cheap as possible
+        threadGroupTree.traverse(new ShareImmutableProperties());
+        final boolean virtualThreads = VirtualThreadSupport.isEnabledByDefault();
+        final String groupName = getName();
+        final AtomicInteger workerNumber = new AtomicInteger();
+        concurrency = new Semaphore(maxConcurrency);
+        // The concurrency is limited by the semaphore: a worker that ended its iteration
+        // may not be waiting for the next one yet, so the pool itself is not bounded
+        executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> VirtualThreadSupport.newThread(runnable,
+                        groupName + " " + groupNum + "-worker-" + workerNumber.incrementAndGet(), virtualThreads));
+        log.info("Starting arrivals thread group... number={} rate={}/s duration={} maxConcurrency={}",
+                groupNumber, getThroughput(), getDuration(), maxConcurrency);
+        arrivalsScheduler = new Thread(new ArrivalsScheduler(), groupName + "-ArrivalsScheduler");
+        arrivalsScheduler.setDaemon(true);
+        arrivalsScheduler.start();
+        log.info("Started thread group number {}", groupNumber);
+    }
+
+    /**
+     * Run one iteration of the group if the maximum concurrency is not reached
+     * @param delay delay in milliseconds before the iteration is started
+     * @return the thread running the iteration, or null if the arrival was missed
+     */
+    private JMeterThread arrive(int delay) {
+        long arrival = arrivals.getAndIncrement();
+        // Reserved before the tree is cloned, so that missed arrivals cost nothing
+        if (!concurrency.tryAcquire()) {
+            missArrival();
+            return null;
+        }
+        JMeterThread jmThread;
+        try {
+            jmThread = makeThread(arrival);
+        } catch (RuntimeException e) {
+            concurrency.release();
+            throw e;
+        }
+        jmThread.setInitialDelay(delay);
+        try {
+            executor.execute(() -> {
+                try {
+                    activeThreads.put(jmThread, Thread.currentThread());
+                    // Checked after registration, so that stop() either sees this thread or is seen here
+                    if (running) {
+                        jmThread.run();
+                    } else {
+                        activeThreads.remove(jmThread);
+                    }
+                } finally {
+                    concurrency.release();
+                }
+            });
+            return jmThread;
+        } catch (RejectedExecutionException e) { // NOSONAR Counted as missed
+            concurrency.release();
+            missArrival();
+            return null;
+        }
+    }
+
+    private void missArrival() {
+        JMeterContextService.incrMissedArrivals();
+        if (missedArrivals.getAndIncrement() == 0) {
+            log.warn("Thread group {} reached its maximum concurrency of {}, arrivals are missed",
+                    getName(), getNumThreads());
+        }
+    }
+
+    /**
+     * Create a {@link JMeterThread} running one iteration on a clone of the tree
+     * @param arrival number of the arrival
+     * @return the thread
+     */
+    private JMeterThread makeThread(long arrival) {
+        final JMeterThread jmeterThread = new JMeterThread(cloneTree(threadGroupTree), this, notifier);
+        int threadNumber = (int) Math.min(arrival, Integer.MAX_VALUE);
+        jmeterThread.setThreadNum(threadNumber);
+        jmeterThread.setThreadGroup(this);
+        jmeterThread.setInitialContext(context);
+        String distributedPrefix =
+                JMeterUtils.getPropDefault(JMeterUtils.THREAD_GROUP_DISTRIBUTED_PREFIX_PROPERTY_NAME, "");
+        jmeterThread.setThreadName(distributedPrefix + (distributedPrefix.isEmpty() ? "" : "-")
+                + getName() + " " + groupNumber + "-" + (arrival + 1));
+        jmeterThread.setEngine(engine);
+        jmeterThread.setOnErrorStopTest(getOnErrorStopTest());
+        jmeterThread.setOnErrorStopTestNow(getOnErrorStopTestNow());
+        jmeterThread.setOnErrorStopThread(getOnErrorStopThread());
+        jmeterThread.setOnErrorStartNextLoop(getOnErrorStartNextLoop());
+        // An iteration still running at the end of the group stops after its current sample
+        jmeterThread.setScheduled(true);
+        jmeterThread.setEndTime(endTime);
+        return jmeterThread;
+    }
+
+    private static ListedHashTree cloneTree(ListedHashTree tree) {
+        TreeCloner cloner = new TreeCloner(true);
+        tree.traverse(cloner);
+        return cloner.getClonedTree();
+    }
+
+    /**
+     * Run an additional iteration, counted as an arrival
+     * @return the thread running the iteration, or null if the maximum concurrency is reached
+     */
+    @Override
+    public JMeterThread addNewThread(int delay, StandardJMeterEngine engine) {
+        JMeterThread jmThread = arrive(delay);
+        if (jmThread != null) {
+            log.info("Started new iteration in group {}", groupNumber);
+        }
+        return jmThread;
+    }
+
+    @Override
+    public boolean stopThread(String threadName, boolean now) {
+        for (Entry<JMeterThread, Thread> threadEntry : activeThreads.entrySet()) {
+            JMeterThread jMeterThread = threadEntry.getKey();
+            if (jMeterThread.getThreadName().equals(threadName)) {
+                stopThread(jMeterThread, threadEntry.getValue(), now);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void stopThread(JMeterThread jmeterThread, Thread jvmThread, boolean interrupt) {
+        jmeterThread.stop();
+        jmeterThread.interrupt(); // interrupt sampler if possible
+        if (interrupt && jvmThread != null) {
+            jvmThread.interrupt(); // also interrupt JVM thread
+        }
+    }
+
+    /**
+     * Called by JMeterThread when its iteration is finished
+     */
+    @Override
+    public void threadFinished(JMeterThread thread) {
+        if (log.isDebugEnabled()) {
+            log.debug("Ending thread {}", thread.getThreadName());
+        }
+        activeThreads.remove(thread);
+    }
+
+    @Override
+    public int numberOfActiveThreads() {
+        return activeThreads.size();
+    }
+
+    private void stopArrivals() {
+        running = false;
+        Thread scheduler = arrivalsScheduler;
+        if (scheduler != null) {
+            scheduler.interrupt();
+        }
+    }
+
+    @Override
+    public void tellThreadsToStop() {
+        stopArrivals();
+        activeThreads.forEach((key, value) -> stopThread(key, value, true));
+    }
+
+    @Override
+    public void stop() {
+        stopArrivals();
+        activeThreads.keySet().forEach(JMeterThread::stop);
+    }
+
+    @Override
+    public boolean verifyThreadsStopped() {
+        boolean stoppedAll = verifyThreadStopped(arrivalsScheduler);
+        for (Thread t : activeThreads.values()) {
+            stoppedAll = stoppedAll && verifyThreadStopped(t);
+        }
+        return stoppedAll;
+    }
+
+    private static boolean verifyThreadStopped(Thread thread) {
+        boolean stopped = true;
+        if (thread != null && thread.isAlive()) {
+            try {
+                thread.join(WAIT_TO_DIE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                stopped = false;
+                log.warn("Thread won't exit: {}", thread.getName());
+            }
+        }
+        return stopped;
+    }
+
+    @Override
+    public void waitThreadsStopped() {
+        waitThreadStopped(arrivalsScheduler);
+        // Pooled threads stay alive after their iteration, so wait for the iterations, not for the threads
+        while (!activeThreads.isEmpty()) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        ThreadPoolExecutor pool = executor;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static void waitThreadStopped(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        while (thread.isAlive()) {
+            try {
+                thread.join(WAIT_TO_DIE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Generates the arrivals and runs an iteration for each one
+     */
+    private class ArrivalsScheduler implements Runnable {
+        @Override
+        public void run() {
+            try {
+                // Copy in scheduler thread context from calling Thread
+                JMeterContextService.getContext().setVariables(context.getVariables());
+                long seed = getRandomSeed();
+                EventProducer events = new ConstantPoissonProcessGenerator(ArrivalsThreadGroup.this, 1, 0,
+                        ArrivalsThreadGroup.this, EXACT_LIMIT, ALLOWED_THROUGHPUT_SURPLUS,
+                        seed == 0 ? null : Long.valueOf(seed), true);
+                long startTime = endTime - getDuration() * 1000;
+                while (running) {
+                    long arrivalTime = startTime + (long) (events.next() * 1000);
+                    if (arrivalTime >= endTime) {
+                        break;
+                    }
+                    long delay = arrivalTime - clock.currentTimeMillis();
+                    if (delay > 0) {
+                        clock.sleep(delay);
+                    }
+                    if (running) {
+                        arrive(0);
+                    }
+                }
+            } catch (InterruptedException e) { // NOSONAR Group is stopped
+                log.debug("Arrivals scheduler of {} interrupted", getName());
+            } catch (Exception ex) {
+                log.error("An error occurred scheduling arrivals for Thread Group: {}", getName(), ex);
+            } finally {
+                running = false;
+                log.info("Thread group {}: {} arrivals, {} missed because the maximum concurrency ({}) was reached",
+                        getName(), arrivals.get(), missedArrivals.get(), getNumThreads());
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads.gui;
+
+import java.awt.BorderLayout;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.gui.util.VerticalPanel;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.threads.AbstractThreadGroup;
+import org.apache.jmeter.threads.ArrivalsThreadGroup;
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * GUI for {@link ArrivalsThreadGroup}
+ * @since 5.2
+ */
+public class ArrivalsThreadGroupGui extends AbstractThreadGroupGui {
+    private static final long serialVersionUID = 1L;
+
+    private JTextField throughput;
+
+    private JTextField throughputPeriod;
+
+    private JTextField duration;
+
+    private JTextField maxConcurrency;
+
+    private JTextField randomSeed;
+
+    public ArrivalsThreadGroupGui() {
+        super();
+        init();
+        initGui();
+    }
+
+    @Override
+    public TestElement createTestElement() {
+        ArrivalsThreadGroup tg = new ArrivalsThreadGroup();
+        modifyTestElement(tg);
+        return tg;
+    }
+
+    @Override
+    public void modifyTestElement(TestElement tg) {
+        super.configureTestElement(tg);
+        if (tg instanceof AbstractThreadGroup) {
+            // Each arrival runs a single iteration
+            LoopController looper = new LoopController();
+            looper.setLoops(1);
+            ((AbstractThreadGroup) tg).setSamplerController(looper);
+        }
+        tg.setProperty(ArrivalsThreadGroup.THROUGHPUT, throughput.getText());
+        tg.setProperty(ArrivalsThreadGroup.THROUGHPUT_PERIOD, throughputPeriod.getText());
+        tg.setProperty(ArrivalsThreadGroup.DURATION, duration.getText());
+        tg.setProperty(AbstractThreadGroup.NUM_THREADS, maxConcurrency.getText());
+        tg.setProperty(ArrivalsThreadGroup.RANDOM_SEED, randomSeed.getText());
+    }
+
+    @Override
+    public void configure(TestElement tg) {
+        super.configure(tg);
+        throughput.setText(tg.getPropertyAsString(ArrivalsThreadGroup.THROUGHPUT));
+        throughputPeriod.setText(tg.getPropertyAsString(ArrivalsThreadGroup.THROUGHPUT_PERIOD));
+        duration.setText(tg.getPropertyAsString(ArrivalsThreadGroup.DURATION));
+        maxConcurrency.setText(tg.getPropertyAsString(AbstractThreadGroup.NUM_THREADS));
+        randomSeed.setText(tg.getPropertyAsString(ArrivalsThreadGroup.RANDOM_SEED));
+    }
+
+    @Override
+    public String getLabelResource() {
+        return "arrivals_thread_group_title"; // $NON-NLS-1$
+    }
+
+    @Override
+    public void clearGui(){
+        super.clearGui();
+        initGui();
+    }
+
+    // Initialise the gui field values
+    private void initGui(){
+        throughput.setText("60"); // $NON-NLS-1$
+        throughputPeriod.setText("60"); // $NON-NLS-1$
+        duration.setText("60"); // $NON-NLS-1$
+        maxConcurrency.setText("100"); // $NON-NLS-1$
+        randomSeed.setText("0"); // $NON-NLS-1$
+    }
+
+    private void init() { // WARNING: called from ctor so must not be overridden (i.e. must be private or final)
+        VerticalPanel arrivalsPanel = new VerticalPanel();
+        arrivalsPanel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(),
+                JMeterUtils.getResString("arrivals_properties"))); // $NON-NLS-1$
+        throughput = new JTextField(5);
+        arrivalsPanel.add(createField("arrivals_throughput", throughput)); // $NON-NLS-1$
+        throughputPeriod = new JTextField(5);
+        arrivalsPanel.add(createField("arrivals_throughput_period", throughputPeriod)); // $NON-NLS-1$
+        duration = new JTextField(5);
+        arrivalsPanel.add(createField("arrivals_duration", duration)); // $NON-NLS-1$
+        maxConcurrency = new JTextField(5);
+        arrivalsPanel.add(createField("arrivals_max_concurrency", maxConcurrency)); // $NON-NLS-1$
+        randomSeed = new JTextField(5);
+        arrivalsPanel.add(createField("arrivals_random_seed", randomSeed)); // $NON-NLS-1$
+        add(arrivalsPanel, BorderLayout.CENTER);
+    }
+
+    private static JPanel createField(String labelResource, JTextField field) {
+        JPanel panel = new JPanel(new BorderLayout(5, 0));
+        JLabel label = new JLabel(JMeterUtils.getResString(labelResource));
+        label.setLabelFor(field);
+        panel.add(label, BorderLayout.WEST);
+        panel.add(field, BorderLayout.CENTER);
+        return panel;
+    }
+}
@@ -88,6 +88,11 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
      */
     private long previousTime = 0;
 
+    /**
+     * Time at which the sample delayed by the last call to {@link #delay()} was scheduled to start.
+     */
+    private long intendedStartTime = 0;
+
     private Mode mode = Mode.ThisThreadOnly;
 
     /**
@@ -152,13 +157,34 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
         long currentTarget = previousTime  + calculateDelay();
         if (currentTime > currentTarget) {
             // We're behind schedule -- try to catch up:
+            if (!isSharedMode()) {
+                // The sample was due at the target, unless this is the first one
+                intendedStartTime = previousTime == 0 ? currentTime : currentTarget;
+            }
             previousTime = currentTime; // assume the sample will run immediately
             return 0;
         }
+        if (!isSharedMode()) {
+            intendedStartTime = currentTarget;
+        }
         previousTime = currentTarget; // assume the sample will run as soon as the delay has expired
         return currentTarget - currentTime;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * In shared modes, this is the time scheduled for the thread among all the threads sharing the throughput.
+     */
+    @Override
+    public long getIntendedStartTime() {
+        return intendedStartTime;
+    }
+
+    private boolean isSharedMode() {
+        return mode == Mode.AllActiveThreads_Shared || mode == Mode.AllActiveThreadsInCurrentThreadGroup_Shared;
+    }
+
     /**
      * Calculate the target time by adding the result of private method
      * <code>calculateDelay()</code> to the given <code>currentTime</code>
@@ -220,6 +246,8 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
         //Multiple threads don't update the scheduled time simultaneously
         synchronized (info.MUTEX) {
             final long nextRequestTime = info.lastScheduledTime + milliSecPerRequest;
+            // The first request is due now, the next ones are due on schedule even if late
+            intendedStartTime = info.lastScheduledTime == 0 ? now : nextRequestTime;
             info.lastScheduledTime = Math.max(now, nextRequestTime);
             calculatedDelay = info.lastScheduledTime - now;
         }
@@ -234,6 +262,7 @@ public class ConstantThroughputTimer extends AbstractTestElement implements Time
         threadGroupsInfoMap.clear();
         // no need to sync as one per instance
         previousTime = 0;
+        intendedStartTime = 0;
     }
 
     /**
@@ -22,6 +22,6 @@ package org.apache.jmeter.timers.poissonarrivals;
  * @since 4.0
  */
 @FunctionalInterface
-interface DurationProvider {
+public interface DurationProvider {
     long getDuration();
 }
@@ -78,6 +78,11 @@ public class PreciseThroughputTimer extends AbstractTestElement implements Clone
     private int batchSize;
     private int batchThreadDelay;
 
+    /**
+     * Time at which the sample delayed by the last call to {@link #delay()} was scheduled to start.
+     */
+    private long intendedStartTime;
+
     @Override
     public Object clone() {
         final PreciseThroughputTimer newTimer = (PreciseThroughputTimer) super.clone();
@@ -113,7 +118,8 @@ public class PreciseThroughputTimer extends AbstractTestElement implements Clone
         synchronized (events) {
             nextEvent = events.next();
         }
-        long delay = (long) (nextEvent * TimeUnit.SECONDS.toMillis(1) + testStarted - System.currentTimeMillis());
+        intendedStartTime = (long) (nextEvent * TimeUnit.SECONDS.toMillis(1) + testStarted);
+        long delay = intendedStartTime - System.currentTimeMillis();
         if (log.isDebugEnabled()) {
             log.debug("Calculated delay is {}", delay);
         }
@@ -129,6 +135,11 @@ public class PreciseThroughputTimer extends AbstractTestElement implements Clone
         return delay;
     }
 
+    @Override
+    public long getIntendedStartTime() {
+        return intendedStartTime;
+    }
+
     private EventProducer getEventProducer() {
         AbstractThreadGroup tg = getThreadContext().getThreadGroup();
         Long seed = randomSeed == null || randomSeed == 0 ? null : randomSeed;
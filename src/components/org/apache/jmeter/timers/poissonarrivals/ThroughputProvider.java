@@ -23,6 +23,6 @@ package org.apache.jmeter.timers.poissonarrivals;
  *
  */
 @FunctionalInterface
-interface ThroughputProvider {
+public interface ThroughputProvider {
     double getThroughput();
 }
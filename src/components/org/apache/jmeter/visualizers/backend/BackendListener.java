@@ -33,8 +33,8 @@ import org.apache.jmeter.config.Arguments;
 import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
-import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.ThreadIndependentSampleListener;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestStateListener;
@@ -48,7 +48,7 @@ import org.slf4j.LoggerFactory;
  * @since 2.13
  */
 public class BackendListener extends AbstractTestElement
-    implements Backend, Serializable, SampleListener, 
+    implements Backend, Serializable, ThreadIndependentSampleListener, 
         TestStateListener, NoThreadClone, Remoteable {
 
     private static final class ListenerClientData {
@@ -27,6 +27,7 @@ import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.jmeter.control.TransactionController;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.math.LogHistogram;
 
 /**
  * Sampler metric
@@ -38,6 +39,11 @@ public class SamplerMetric {
 
     private static final WindowMode WINDOW_MODE = WindowMode.get();
 
+    /**
+     * Significant digits of the histograms used for percentiles, 0 to use the sliding windows
+     */
+    private static final int HISTOGRAM_DIGITS = JMeterUtils.getPropDefault("backend_metrics_histogram_digits", 0);
+
     /**
      * Response times for OK samples
      */
@@ -51,16 +57,30 @@ public class SamplerMetric {
      */
     private DescriptiveStatistics allResponsesStats = new DescriptiveStatistics(LARGE_SLIDING_WINDOW_SIZE);
     /**
-     *  OK, KO, ALL stats
+     * Response times corrected for coordinated omission, for samples paced by a timer
+     */
+    private DescriptiveStatistics correctedResponsesStats = new DescriptiveStatistics(LARGE_SLIDING_WINDOW_SIZE);
+    /**
+     *  OK, KO, ALL, corrected stats
      */
     private List<DescriptiveStatistics> windowedStats = initWindowedStats();
     /**
      * Timeboxed percentiles don't makes sense
      */
     private DescriptiveStatistics pctResponseStats = new DescriptiveStatistics(SLIDING_WINDOW_SIZE);
+    /**
+     * Histograms replacing the sliding windows for OK, KO, ALL and corrected percentiles,
+     * null unless backend_metrics_histogram_digits is set.
+     * They are cleared for each time slot in TIMED mode, except for ALL, and cover the whole run otherwise.
+     */
+    private final LogHistogram okHistogram = createHistogram();
+    private final LogHistogram koHistogram = createHistogram();
+    private final LogHistogram allHistogram = createHistogram();
+    private final LogHistogram correctedHistogram = createHistogram();
     private int successes;
     private int failures;
     private int hits;
+    private int corrected;
     private Map<ErrorMetric, Integer> errors = new HashMap<>();
     private long sentBytes;
     private long receivedBytes;
@@ -78,11 +98,21 @@ public class SamplerMetric {
         }
     }
 
+    private static LogHistogram createHistogram() {
+        return HISTOGRAM_DIGITS > 0 ? new LogHistogram(HISTOGRAM_DIGITS) : null;
+    }
+
+    private static void addValue(LogHistogram histogram, long value) {
+        if (histogram != null) {
+            histogram.addValue(value);
+        }
+    }
+
     /**
      * @return List of {@link DescriptiveStatistics}
      */
     private List<DescriptiveStatistics> initWindowedStats() {
-        return Arrays.asList(okResponsesStats, koResponsesStats, allResponsesStats);
+        return Arrays.asList(okResponsesStats, koResponsesStats, allResponsesStats, correctedResponsesStats);
     }
 
     /**
@@ -100,12 +130,20 @@ public class SamplerMetric {
         long time = result.getTime();
         allResponsesStats.addValue(time);
         pctResponseStats.addValue(time);
+        addValue(allHistogram, time);
         if(result.isSuccessful()) {
             // Should we also compute KO , all response time ?
             // only take successful requests for time computing
             okResponsesStats.addValue(time);
+            addValue(okHistogram, time);
         }else {
             koResponsesStats.addValue(time);
+            addValue(koHistogram, time);
+        }
+        if (result.getIntendedStartTime() > 0) {
+            corrected += result.getSampleCount();
+            correctedResponsesStats.addValue(result.getCorrectedTime());
+            addValue(correctedHistogram, result.getCorrectedTime());
         }
         addHits(result);
         addNetworkData(result);
@@ -149,6 +187,11 @@ public class SamplerMetric {
             for (DescriptiveStatistics stat : windowedStats) {
                 stat.clear();
             }
+            if (HISTOGRAM_DIGITS > 0) {
+                okHistogram.clear();
+                koHistogram.clear();
+                correctedHistogram.clear();
+            }
             break;
         default: 
             // This cannot happen
@@ -157,6 +200,7 @@ public class SamplerMetric {
         successes = 0;
         failures = 0;
         hits = 0;
+        corrected = 0;
         sentBytes = 0;
         receivedBytes = 0;
     }
@@ -226,6 +270,9 @@ public class SamplerMetric {
      *         values.
      */
     public double getOkPercentile(double percentile) {
+        if (okHistogram != null) {
+            return okHistogram.getPercentile(percentile);
+        }
         return okResponsesStats.getPercentile(percentile);
     }
 
@@ -267,6 +314,9 @@ public class SamplerMetric {
      *         values.
      */
     public double getKoPercentile(double percentile) {
+        if (koHistogram != null) {
+            return koHistogram.getPercentile(percentile);
+        }
         return koResponsesStats.getPercentile(percentile);
     }
     
@@ -308,9 +358,67 @@ public class SamplerMetric {
      *         values.
      */
     public double getAllPercentile(double percentile) {
+        if (allHistogram != null) {
+            return allHistogram.getPercentile(percentile);
+        }
         return pctResponseStats.getPercentile(percentile);
     }
 
+    /**
+     * Get the number of requests paced by a timer for the current time slot,
+     * for which a corrected response time is known
+     *
+     * @return number of requests with a corrected response time
+     */
+    public int getCorrected() {
+        return corrected;
+    }
+
+    /**
+     * Get the maximal response time corrected for coordinated omission within sliding window
+     *
+     * @return the maximal corrected response time, or <code>NaN</code> if no such
+     *         requests have been added yet
+     */
+    public double getCorrectedMaxTime() {
+        return correctedResponsesStats.getMax();
+    }
+
+    /**
+     * Get the minimal response time corrected for coordinated omission within sliding window
+     *
+     * @return the minimal corrected response time, or <code>NaN</code> if no such
+     *         requests have been added yet
+     */
+    public double getCorrectedMinTime() {
+        return correctedResponsesStats.getMin();
+    }
+
+    /**
+     * Get the arithmetic mean of the corrected response times
+     *
+     * @return The arithmetic mean of the corrected response times
+     */
+    public double getCorrectedMean() {
+        return correctedResponsesStats.getMean();
+    }
+
+    /**
+     * Returns an estimate for the requested percentile of the response times
+     * corrected for coordinated omission.
+     *
+     * @param percentile
+     *            the requested percentile (scaled from 0 - 100)
+     * @return Returns an estimate for the requested percentile of the corrected
+     *         response times.
+     */
+    public double getCorrectedPercentile(double percentile) {
+        if (correctedHistogram != null) {
+            return correctedHistogram.getPercentile(percentile);
+        }
+        return correctedResponsesStats.getPercentile(percentile);
+    }
+
     /**
      * Returns hits to server
      * @return the hits
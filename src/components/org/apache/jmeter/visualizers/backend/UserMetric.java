@@ -92,6 +92,22 @@ public class UserMetric {
         return JMeterContextService.getThreadCounts().startedThreads;
     }
     
+    /**
+     * @return number of threads the thread groups currently aim at
+     * @since 5.2
+     */
+    public int getTargetThreads() {
+        return JMeterContextService.getThreadCounts().targetThreads;
+    }
+
+    /**
+     * @return number of iterations the open model thread groups could not start
+     * @since 5.2
+     */
+    public long getMissedArrivals() {
+        return JMeterContextService.getThreadCounts().missedArrivals;
+    }
+
     /**
      * Clear stats
      */
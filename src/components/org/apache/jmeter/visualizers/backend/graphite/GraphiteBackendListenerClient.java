@@ -76,12 +76,15 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
     private static final String METRIC_MEAN_ACTIVE_THREADS = "meanAT"; //$NON-NLS-1$
     private static final String METRIC_STARTED_THREADS = "startedT"; //$NON-NLS-1$
     private static final String METRIC_FINISHED_THREADS = "endedT"; //$NON-NLS-1$
+    private static final String METRIC_TARGET_THREADS = "targetT"; //$NON-NLS-1$
+    private static final String METRIC_MISSED_ARRIVALS = "missedA"; //$NON-NLS-1$
     
     // Response time Metrics
     private static final String METRIC_SEPARATOR = "."; //$NON-NLS-1$
     private static final String METRIC_OK_PREFIX = "ok"; //$NON-NLS-1$
     private static final String METRIC_KO_PREFIX = "ko"; //$NON-NLS-1$
     private static final String METRIC_ALL_PREFIX = "a"; //$NON-NLS-1$
+    private static final String METRIC_CORRECTED_PREFIX = "co"; //$NON-NLS-1$
     private static final String METRIC_HITS_PREFIX = "h"; //$NON-NLS-1$
     private static final String METRIC_SENT_BYTES_PREFIX = "sb"; //$NON-NLS-1$
     private static final String METRIC_RECEIVED_BYTES_PREFIX = "rb"; //$NON-NLS-1$
@@ -111,6 +114,12 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
     private static final String METRIC_ALL_AVG_RESPONSE_TIME = METRIC_ALL_PREFIX+METRIC_SEPARATOR+METRIC_AVG_RESPONSE_TIME;
     private static final String METRIC_ALL_PERCENTILE_PREFIX = METRIC_ALL_PREFIX+METRIC_SEPARATOR+METRIC_PERCENTILE;
 
+    private static final String METRIC_CORRECTED_COUNT             = METRIC_CORRECTED_PREFIX+METRIC_SEPARATOR+METRIC_COUNT;
+    private static final String METRIC_CORRECTED_MIN_RESPONSE_TIME = METRIC_CORRECTED_PREFIX+METRIC_SEPARATOR+METRIC_MIN_RESPONSE_TIME;
+    private static final String METRIC_CORRECTED_MAX_RESPONSE_TIME = METRIC_CORRECTED_PREFIX+METRIC_SEPARATOR+METRIC_MAX_RESPONSE_TIME;
+    private static final String METRIC_CORRECTED_AVG_RESPONSE_TIME = METRIC_CORRECTED_PREFIX+METRIC_SEPARATOR+METRIC_AVG_RESPONSE_TIME;
+    private static final String METRIC_CORRECTED_PERCENTILE_PREFIX = METRIC_CORRECTED_PREFIX+METRIC_SEPARATOR+METRIC_PERCENTILE;
+
     private static final String METRIC_ALL_HITS_COUNT        = METRIC_HITS_PREFIX+METRIC_SEPARATOR+METRIC_COUNT;
     private static final String METRIC_ALL_SENT_BYTES        = METRIC_SENT_BYTES_PREFIX+METRIC_SEPARATOR+METRIC_BYTES;
     private static final String METRIC_ALL_RECEIVED_BYTES        = METRIC_RECEIVED_BYTES_PREFIX+METRIC_SEPARATOR+METRIC_BYTES;
@@ -131,6 +140,7 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
     private Map<String, Float> okPercentiles;
     private Map<String, Float> koPercentiles;
     private Map<String, Float> allPercentiles;
+    private Map<String, Float> correctedPercentiles;
     
 
     private GraphiteMetricsSender graphiteMetricsManager;
@@ -184,6 +194,12 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
         graphiteMetricsManager.addMetric(timestampInSeconds, TEST_CONTEXT_NAME,
                 METRIC_FINISHED_THREADS,
                 Integer.toString(userMetric.getFinishedThreads()));
+        graphiteMetricsManager.addMetric(timestampInSeconds, TEST_CONTEXT_NAME,
+                METRIC_TARGET_THREADS,
+                Integer.toString(userMetric.getTargetThreads()));
+        graphiteMetricsManager.addMetric(timestampInSeconds, TEST_CONTEXT_NAME,
+                METRIC_MISSED_ARRIVALS,
+                Long.toString(userMetric.getMissedArrivals()));
 
         graphiteMetricsManager.writeAndSendMetrics();
     }
@@ -258,6 +274,24 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
                         entry.getKey(), 
                         Double.toString(metric.getAllPercentile(entry.getValue().floatValue())));
             }
+            if (metric.getCorrected() > 0) {
+                graphiteMetricsManager.addMetric(timestampInSeconds, contextName,
+                        METRIC_CORRECTED_COUNT, Integer.toString(metric.getCorrected()));
+                graphiteMetricsManager.addMetric(timestampInSeconds, contextName,
+                        METRIC_CORRECTED_MIN_RESPONSE_TIME,
+                        Double.toString(metric.getCorrectedMinTime()));
+                graphiteMetricsManager.addMetric(timestampInSeconds, contextName,
+                        METRIC_CORRECTED_MAX_RESPONSE_TIME,
+                        Double.toString(metric.getCorrectedMaxTime()));
+                graphiteMetricsManager.addMetric(timestampInSeconds, contextName,
+                        METRIC_CORRECTED_AVG_RESPONSE_TIME,
+                        Double.toString(metric.getCorrectedMean()));
+                for (Map.Entry<String, Float> entry : correctedPercentiles.entrySet()) {
+                    graphiteMetricsManager.addMetric(timestampInSeconds, contextName,
+                            entry.getKey(),
+                            Double.toString(metric.getCorrectedPercentile(entry.getValue().floatValue())));
+                }
+            }
         }
     }
 
@@ -316,6 +350,7 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
         okPercentiles = new HashMap<>(percentilesStringArray.length);
         koPercentiles = new HashMap<>(percentilesStringArray.length);
         allPercentiles = new HashMap<>(percentilesStringArray.length);
+        correctedPercentiles = new HashMap<>(percentilesStringArray.length);
         DecimalFormat decimalFormat = new DecimalFormat("0.##");
         for (String percentilesString : percentilesStringArray) {
             if (!StringUtils.isEmpty(percentilesString.trim())) {
@@ -333,6 +368,9 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
                     allPercentiles.put(
                             METRIC_ALL_PERCENTILE_PREFIX + sanitizedFormattedPercentile,
                             percentileValue);
+                    correctedPercentiles.put(
+                            METRIC_CORRECTED_PERCENTILE_PREFIX + sanitizedFormattedPercentile,
+                            percentileValue);
 
                 } catch (Exception e) {
                     log.error("Error parsing percentile: '{}'", percentilesString, e);
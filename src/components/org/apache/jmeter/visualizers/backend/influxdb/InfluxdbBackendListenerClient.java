@@ -84,11 +84,14 @@ public class InfluxdbBackendListenerClient extends AbstractBackendListenerClient
     private static final String METRIC_MIN_ACTIVE_THREADS = "minAT=";
     private static final String METRIC_MEAN_ACTIVE_THREADS = "meanAT=";
     private static final String METRIC_STARTED_THREADS = "startedT=";
+    private static final String METRIC_TARGET_THREADS = "targetT=";
+    private static final String METRIC_MISSED_ARRIVALS = "missedA=";
     private static final String METRIC_ENDED_THREADS = "endedT=";
 
     private static final String TAG_OK = "ok";
     private static final String TAG_KO = "ko";
     private static final String TAG_ALL = "all";
+    private static final String TAG_CORRECTED = "corrected";
 
     private static final String CUMULATED_METRICS = "all";
     private static final long SEND_INTERVAL = JMeterUtils.getPropDefault("backend_influxdb.send_interval", 5);
@@ -163,6 +166,8 @@ public class InfluxdbBackendListenerClient extends AbstractBackendListenerClient
         field.append(METRIC_MAX_ACTIVE_THREADS).append(userMetrics.getMaxActiveThreads()).append(',');
         field.append(METRIC_MEAN_ACTIVE_THREADS).append(userMetrics.getMeanActiveThreads()).append(',');
         field.append(METRIC_STARTED_THREADS).append(userMetrics.getStartedThreads()).append(',');
+        field.append(METRIC_TARGET_THREADS).append(userMetrics.getTargetThreads()).append(',');
+        field.append(METRIC_MISSED_ARRIVALS).append(userMetrics.getMissedArrivals()).append(',');
         field.append(METRIC_ENDED_THREADS).append(userMetrics.getFinishedThreads());
 
         influxdbMetricsManager.addMetric(measurement, tag.toString(), field.toString());
@@ -190,6 +195,10 @@ public class InfluxdbBackendListenerClient extends AbstractBackendListenerClient
         // FOR KO STATUS
         addMetric(transaction, metric.getFailures(), null, null, TAG_KO, metric.getKoMean(), metric.getKoMinTime(),
                 metric.getKoMaxTime(), koPercentiles.values(), metric::getKoPercentile);
+        // FOR RESPONSE TIMES CORRECTED FOR COORDINATED OMISSION
+        addMetric(transaction, metric.getCorrected(), null, null, TAG_CORRECTED, metric.getCorrectedMean(),
+                metric.getCorrectedMinTime(), metric.getCorrectedMaxTime(), allPercentiles.values(),
+                metric::getCorrectedPercentile);
 
         metric.getErrors().forEach((error, count) -> addErrorMetric(transaction, error.getResponseCode(),
                     error.getResponseMessage(), count));
@@ -294,7 +294,10 @@ public class TransactionController extends GenericController implements SampleLi
             // We must set res to null now, before sending the event for the transaction,
             // so that we can ignore that event in our sampleOccured method
             res = null;
-            lnf.notifyListeners(event, pack.getSampleListeners());
+            // Use the notifier of the thread if any, so that listeners get the transaction after its samples
+            JMeterThread thread = JMeterContextService.getContext().getThread();
+            ListenerNotifier notifier = thread != null ? thread.getNotifier() : lnf;
+            notifier.notifyListeners(event, pack.getSampleListeners());
         }
     }
 
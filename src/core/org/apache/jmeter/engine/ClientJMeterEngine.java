@@ -18,20 +18,32 @@
 
 package org.apache.jmeter.engine;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.rmi.NotBoundException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.RemoteObject;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
 import org.apache.jmeter.rmi.RmiUtils;
 import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
 import org.slf4j.Logger;
@@ -56,6 +68,10 @@ public class ClientJMeterEngine implements JMeterEngine {
     
     private static RemoteJMeterEngine getEngine(String hostAndPort) 
             throws RemoteException, NotBoundException {
+        if (SocketEngineChannel.CHANNEL_SOCKET.equals(
+                JMeterUtils.getPropDefault(SocketEngineChannel.CHANNEL_PROPERTY, "rmi"))) { // $NON-NLS-1$
+            return SocketRemoteJMeterEngine.getEngine(hostAndPort);
+        }
         final String name = RemoteJMeterEngineImpl.JMETER_ENGINE_RMI_NAME; // $NON-NLS-1$ $NON-NLS-2$
         String host = hostAndPort;
         int port = RmiUtils.DEFAULT_RMI_PORT;
@@ -82,7 +98,12 @@ public class ClientJMeterEngine implements JMeterEngine {
     }
 
     public ClientJMeterEngine(String hostAndPort) throws NotBoundException, RemoteException {
-        this.remote = getEngine(hostAndPort);
+        this(hostAndPort, getEngine(hostAndPort));
+    }
+
+    // For unit tests
+    ClientJMeterEngine(String hostAndPort, RemoteJMeterEngine remote) {
+        this.remote = remote;
         this.hostAndPort = hostAndPort;
     }
 
@@ -123,35 +144,77 @@ public class ClientJMeterEngine implements JMeterEngine {
 
     @Override
     public void runTest() throws JMeterEngineException {
-        log.info("running clientengine run method");
-        
+        prepareTest();
+        startPreparedTest();
+    }
+
+    /**
+     * Sends the test plan and the properties to the server, without starting
+     * the test, see {@link #startPreparedTest()}.
+     * This allows to send the test plans to several servers before starting
+     * all of them at once.
+     *
+     * @throws JMeterEngineException if the server cannot be configured
+     * @since 5.2
+     */
+    public void prepareTest() throws JMeterEngineException {
         // See https://bz.apache.org/bugzilla/show_bug.cgi?id=55510
         JMeterContextService.clearTotalThreads();
-        HashTree testTree = test;
+        JMeterContextService.initClientSideVariables(compileTest());
+        JMeterContextService.startTest();
+        sendTest();
+    }
 
+    /**
+     * Prepares the client side test elements of the test plan.
+     * Unlike {@link #prepareTest()}, this does not change the state of
+     * {@link JMeterContextService}, which is shared by all the engines.
+     *
+     * @return the client side variables of the test plan
+     * @since 5.2
+     */
+    public JMeterVariables compileTest() {
+        HashTree testTree = test;
         synchronized(testTree) {
             PreCompiler compiler = new PreCompiler(true);
             testTree.traverse(compiler);  // limit the changes to client only test elements
-            JMeterContextService.initClientSideVariables(compiler.getClientSideVariables());
             testTree.traverse(new TurnElementsOn());
             testTree.traverse(new ConvertListeners());
+            return compiler.getClientSideVariables();
         }
+    }
 
+    /**
+     * Sends the test plan prepared by {@link #compileTest()} and the properties
+     * to the server, without starting the test.
+     * Unlike {@link #prepareTest()}, this does not change the state of
+     * {@link JMeterContextService}, so it can be called for several engines at once.
+     *
+     * @throws JMeterEngineException if the server cannot be configured
+     * @since 5.2
+     */
+    public void sendTest() throws JMeterEngineException {
+        log.info("preparing remote test on {}", hostAndPort);
+        HashTree testTree = test;
         String methodName="unknown";
         try {
-            JMeterContextService.startTest();
             /*
              * Add fix for Deadlocks, see:
-             * 
+             *
              * See https://bz.apache.org/bugzilla/show_bug.cgi?id=48350
-            */
+             *
+             * Only the serialization of the test plan is done under the lock,
+             * the copies are then sent to the servers at once.
+             */
             File baseDirRelative = FileServer.getFileServer().getBaseDirRelative();
             String scriptName = FileServer.getFileServer().getScriptName();
-            synchronized(LOCK)
-            {
-                methodName="rconfigure()"; // NOSONAR Used for tracing
-                remote.rconfigure(testTree, hostAndPort, baseDirRelative, scriptName);
+            HashTree copy;
+            synchronized(LOCK) {
+                methodName="copyTree()"; // NOSONAR Used for tracing
+                copy = copyTree(testTree);
             }
+            methodName="rconfigure()"; // NOSONAR Used for tracing
+            remote.rconfigure(copy, hostAndPort, baseDirRelative, scriptName);
             log.info("sent test to {} basedir='{}'", hostAndPort, baseDirRelative); // $NON-NLS-1$
             if(savep == null) {
                 savep = new Properties();
@@ -163,18 +226,107 @@ public class ClientJMeterEngine implements JMeterEngine {
             } catch (RemoteException e) {
                 log.warn("Could not set properties: {}, error:{}", savep, e.getMessage(), e);
             }
-            methodName="rrunTest()";
+        } catch (Exception ex) {
+            throw toEngineException(methodName, ex);
+        }
+    }
+
+    /**
+     * Starts the test sent to the server by {@link #prepareTest()}.
+     *
+     * @throws JMeterEngineException if the test cannot be started
+     * @since 5.2
+     */
+    public void startPreparedTest() throws JMeterEngineException {
+        try {
             remote.rrunTest();
             log.info("sent run command to {}", hostAndPort);
-        } catch (IllegalStateException ex) {
-            log.error("Error in {} method ", methodName, ex); // $NON-NLS-1$ $NON-NLS-2$
-            tidyRMI(log);
-            throw ex; // Don't wrap this error - display it as is
         } catch (Exception ex) {
-            log.error("Error in {} method", methodName, ex); // $NON-NLS-1$ $NON-NLS-2$
-            tidyRMI(log);
-            throw new JMeterEngineException("Error in "+methodName+" method "+ex, ex); // $NON-NLS-1$ $NON-NLS-2$
+            throw toEngineException("rrunTest()", ex);
+        }
+    }
+
+    /**
+     * Copies the test plan by serializing it. The remote objects of the plan,
+     * like the listeners of the client, are not copied, so that they are still
+     * exported when the copy is sent.
+     */
+    private static HashTree copyTree(HashTree testTree) throws IOException, ClassNotFoundException {
+        List<Remote> remotes = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new RemoteKeepingOutputStream(bytes, remotes)) {
+            out.writeObject(testTree);
+        }
+        try (ObjectInputStream in = new RemoteKeepingInputStream(new ByteArrayInputStream(bytes.toByteArray()), remotes)) {
+            return (HashTree) in.readObject();
+        }
+    }
+
+    /** Stands for a remote object while the test plan is copied */
+    private static final class RemoteIndex implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        private RemoteIndex(int index) {
+            this.index = index;
+        }
+    }
+
+    private static final class RemoteKeepingOutputStream extends ObjectOutputStream {
+        private final List<Remote> remotes;
+
+        private RemoteKeepingOutputStream(OutputStream out, List<Remote> remotes) throws IOException {
+            super(out);
+            this.remotes = remotes;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof Remote) {
+                remotes.add((Remote) obj);
+                return new RemoteIndex(remotes.size() - 1);
+            }
+            return obj;
+        }
+    }
+
+    private static final class RemoteKeepingInputStream extends ObjectInputStream {
+        private final List<Remote> remotes;
+
+        private RemoteKeepingInputStream(InputStream in, List<Remote> remotes) throws IOException {
+            super(in);
+            this.remotes = remotes;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            // The test elements of plugins may only be known to the context class loader
+            try {
+                return Class.forName(desc.getName(), false, Thread.currentThread().getContextClassLoader());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj instanceof RemoteIndex) {
+                return remotes.get(((RemoteIndex) obj).index);
+            }
+            return obj;
+        }
+    }
+
+    private static JMeterEngineException toEngineException(String methodName, Exception ex) {
+        log.error("Error in {} method", methodName, ex); // $NON-NLS-1$ $NON-NLS-2$
+        tidyRMI(log);
+        if (ex instanceof IllegalStateException) {
+            throw (IllegalStateException) ex; // Don't wrap this error - display it as is
         }
+        return new JMeterEngineException("Error in "+methodName+" method "+ex, ex); // $NON-NLS-1$ $NON-NLS-2$
     }
 
     private static final HashMap<String, String> toHashMapOfString(Properties properties) {
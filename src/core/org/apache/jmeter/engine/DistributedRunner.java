@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -30,7 +31,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
 import org.slf4j.Logger;
@@ -72,6 +80,12 @@ public class DistributedRunner {
         retriesDelay = JMeterUtils.getPropDefault(RETRIES_DELAY, 5000);
     }
 
+    /**
+     * Creates and configures the engines of the addresses, all at once.
+     *
+     * @param addresses list of the DNS names or IP addresses of the remote testing engines
+     * @param tree the test plan
+     */
     public void init(List<String> addresses, HashTree tree) {
         // converting list into mutable version
         List<String> addrs = new LinkedList<>(addresses);
@@ -86,19 +100,25 @@ public class DistributedRunner {
                 }
             }
 
-            int idx = 0;
-            while (idx < addrs.size()) {
-                String address = addrs.get(idx);
+            Map<String, JMeterEngine> configured = new ConcurrentHashMap<>();
+            Map<String, Exception> failures = new ConcurrentHashMap<>();
+            runOnAll(addrs, address -> {
                 println("Configuring remote engine: " + address);
-                JMeterEngine engine = getClientEngine(address.trim(), tree);
-                if (engine != null) {
-                    engines.put(address, engine);
-                    addrs.remove(address);
-                } else {
+                long start = System.nanoTime();
+                try {
+                    configured.put(address, getClientEngine(address.trim(), tree));
+                    println("Configured remote engine: " + address + " in " + elapsedMillis(start) + "ms");
+                } catch (Exception ex) {
+                    log.error("Failed to create engine at {}", address, ex);
+                    failures.put(address, ex);
                     println("Failed to configure " + address);
-                    idx++;
                 }
-            }
+            });
+            // Reported by the calling thread, as this may show a dialog
+            failures.forEach((address, ex) -> JMeterUtils.reportErrorToUser(ex.getMessage(),
+                    JMeterUtils.getResString("remote_error_init") + ": " + address)); // $NON-NLS-1$ $NON-NLS-2$
+            engines.putAll(configured);
+            addrs.removeAll(configured.keySet());
 
             if (addrs.isEmpty()) {
                 break;
@@ -118,26 +138,96 @@ public class DistributedRunner {
     }
 
     /**
-     * Starts a remote testing engines
+     * Starts a remote testing engines.
+     * <p>
+     * The test plans are sent to all the engines at once, then all the engines
+     * that received it are started at once.
      *
      * @param addresses list of the DNS names or IP addresses of the remote testing engines
      */
     public void start(List<String> addresses) {
         println("Starting remote engines");
-        long now = System.currentTimeMillis();
-        println("Starting the test @ " + new Date(now) + " (" + now + ")");
-        for (String address : addresses) {
+        Map<String, JMeterEngine> prepared = new ConcurrentHashMap<>();
+        Map<String, Exception> failures = new ConcurrentHashMap<>();
+        List<String> known = getKnownAddresses(addresses);
+        // The client side state of the test is shared by the engines, so it is initialized
+        // by the calling thread before the test plans are sent
+        // See https://bz.apache.org/bugzilla/show_bug.cgi?id=55510
+        JMeterContextService.clearTotalThreads();
+        JMeterVariables clientSideVariables = null;
+        List<String> compiled = new ArrayList<>(known.size());
+        for (String address : known) {
+            JMeterEngine engine = engines.get(address);
+            try {
+                if (engine instanceof ClientJMeterEngine) {
+                    JMeterVariables variables = ((ClientJMeterEngine) engine).compileTest();
+                    if (clientSideVariables == null) {
+                        clientSideVariables = variables;
+                    }
+                }
+                compiled.add(address);
+            } catch (RuntimeException e) { // NOSONAR reported to user below
+                log.error("Failed to prepare test for {}", address, e);
+                failures.put(address, e);
+            }
+        }
+        if (clientSideVariables != null) {
+            JMeterContextService.initClientSideVariables(clientSideVariables);
+            JMeterContextService.startTest();
+        }
+        runOnAll(compiled, address -> {
+            JMeterEngine engine = engines.get(address);
+            long start = System.nanoTime();
             try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).runTest();
-                } else {
-                    log.warn(HOST_NOT_FOUND_MESSAGE, address);
+                if (engine instanceof ClientJMeterEngine) {
+                    ((ClientJMeterEngine) engine).sendTest();
+                    println("Sent test to remote engine: " + address + " in " + elapsedMillis(start) + "ms");
                 }
-            } catch (IllegalStateException | JMeterEngineException e) { // NOSONAR already reported to user
-                JMeterUtils.reportErrorToUser(e.getMessage(), JMeterUtils.getResString("remote_error_starting")); // $NON-NLS-1$  
+                prepared.put(address, engine);
+            } catch (RuntimeException | JMeterEngineException e) { // NOSONAR reported to user below
+                log.error("Failed to send test to {}", address, e);
+                failures.put(address, e);
             }
+        });
+        if (!prepared.isEmpty()) {
+            // The run commands are only sent once all the threads are ready to send them
+            CyclicBarrier startBarrier = new CyclicBarrier(prepared.size(), () -> {
+                long now = System.currentTimeMillis();
+                println("Starting the test @ " + new Date(now) + " (" + now + ")");
+            });
+            runOnAll(prepared.keySet(), address -> {
+                try {
+                    startBarrier.await();
+                } catch (BrokenBarrierException e) { // NOSONAR start anyway
+                    log.warn("Start barrier broken, starting {} without waiting", address);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Interrupted before starting {}", address);
+                    return;
+                }
+                JMeterEngine engine = prepared.get(address);
+                long start = System.nanoTime();
+                try {
+                    if (engine instanceof ClientJMeterEngine) {
+                        ((ClientJMeterEngine) engine).startPreparedTest();
+                    } else {
+                        engine.runTest();
+                    }
+                    println("Started remote engine: " + address + " in " + elapsedMillis(start) + "ms");
+                } catch (RuntimeException | JMeterEngineException e) { // NOSONAR reported to user below
+                    log.error("Failed to start {}", address, e);
+                    failures.put(address, e);
+                }
+            });
+        }
+        // Reported by the calling thread, as this may show a dialog
+        failures.values().forEach(e ->
+                JMeterUtils.reportErrorToUser(e.getMessage(), JMeterUtils.getResString("remote_error_starting"))); // $NON-NLS-1$
+        if (failures.isEmpty()) {
+            println("Remote engines have been started");
+        } else {
+            println("Remote engines have been started, except: " + failures.keySet());
         }
-        println("Remote engines have been started");
     }
 
     /**
@@ -151,17 +241,13 @@ public class DistributedRunner {
 
     public void stop(List<String> addresses) {
         println("Stopping remote engines");
-        for (String address : addresses) {
+        runOnAll(getKnownAddresses(addresses), address -> {
             try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).stopTest(true);
-                } else {
-                    log.warn(HOST_NOT_FOUND_MESSAGE, address);
-                }
+                engines.get(address).stopTest(true);
             } catch (RuntimeException e) {
                 errln("Failed to stop test on " + address, e);
             }
-        }
+        });
         println("Remote engines have been stopped");
     }
 
@@ -176,52 +262,84 @@ public class DistributedRunner {
 
     public void shutdown(List<String> addresses) {
         println("Shutting down remote engines");
-        for (String address : addresses) {
+        runOnAll(getKnownAddresses(addresses), address -> {
             try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).stopTest(false);
-                } else {
-                    log.warn(HOST_NOT_FOUND_MESSAGE, address);
-                }
-
+                engines.get(address).stopTest(false);
             } catch (RuntimeException e) {
                 errln("Failed to shutdown test on " + address, e);
             }
-        }
+        });
         println("Remote engines have been shut down");
     }
 
     public void exit(List<String> addresses) {
         println("Exiting remote engines");
-        for (String address : addresses) {
+        runOnAll(getKnownAddresses(addresses), address -> {
             try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).exit();
-                } else {
-                    log.warn(HOST_NOT_FOUND_MESSAGE, address);
-                }
+                engines.get(address).exit();
             } catch (RuntimeException e) {
                 errln("Failed to exit on " + address, e);
             }
-        }
+        });
         println("Remote engines have been exited");
     }
 
-    private JMeterEngine getClientEngine(String address, HashTree testTree) {
-        JMeterEngine engine;
-        try {
-            engine = createEngine(address);
-            engine.configure(testTree);
-            if (!remoteProps.isEmpty()) {
-                engine.setProperties(remoteProps);
+    /**
+     * @param addresses the addresses
+     * @return the addresses having an engine, the other ones being logged
+     */
+    private List<String> getKnownAddresses(List<String> addresses) {
+        List<String> known = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            if (engines.containsKey(address)) {
+                known.add(address);
+            } else {
+                log.warn(HOST_NOT_FOUND_MESSAGE, address);
             }
-            return engine;
-        } catch (Exception ex) {
-            log.error("Failed to create engine at {}", address, ex);
-            JMeterUtils.reportErrorToUser(ex.getMessage(),
-                    JMeterUtils.getResString("remote_error_init") + ": " + address); // $NON-NLS-1$ $NON-NLS-2$
-            return null;
         }
+        return known;
+    }
+
+    /**
+     * Runs the action for each address in its own thread, so that slow hosts
+     * do not delay the other ones, and waits for all of them.
+     *
+     * @param addresses the addresses
+     * @param action the action to run for an address
+     */
+    private void runOnAll(Collection<String> addresses, Consumer<String> action) {
+        if (addresses.size() == 1) {
+            action.accept(addresses.iterator().next());
+            return;
+        }
+        List<Thread> threads = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            Thread thread = new Thread(() -> action.accept(address), "DistributedRunner " + address); // $NON-NLS-1$
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for remote engines: " + addresses, e);
+            }
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private JMeterEngine getClientEngine(String address, HashTree testTree)
+            throws RemoteException, NotBoundException {
+        JMeterEngine engine = createEngine(address);
+        engine.configure(testTree);
+        if (!remoteProps.isEmpty()) {
+            engine.setProperties(remoteProps);
+        }
+        return engine;
     }
 
     /**
@@ -75,6 +75,10 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
                 RmiUtils.DEFAULT_LOCAL_PORT, 
                 rmiRegistryPort);
         engine.init();
+        int socketPort = JMeterUtils.getPropDefault(SocketEngineChannel.PORT_PROPERTY, 0);
+        if (socketPort > 0) {
+            SocketJMeterEngineServer.startServer(engine, socketPort);
+        }
     }
 
     private void init() throws RemoteException {
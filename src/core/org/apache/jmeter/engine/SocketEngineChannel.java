@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.function.UnaryOperator;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Framing shared by {@link SocketRemoteJMeterEngine} and
+ * {@link SocketJMeterEngineServer}.
+ * <p>
+ * Each frame is a length prefixed Java serialization stream holding the frame
+ * type, a request or object id and the arguments of the frame. Frames are
+ * serialized by the thread sending them, so that the arguments can be reused
+ * as soon as the frame has been queued.
+ * <p>
+ * The {@link java.rmi.Remote} objects of the client (the remote listeners of
+ * the test plan) are replaced by {@link RemoteRef}s when the plan is sent.
+ * The server calls them back with {@link #INVOKE} frames on the same
+ * connection.
+ * <p>
+ * Frames longer than <code>server.socket.max_frame_size</code> are neither
+ * sent nor read: the connection is closed before the frame is allocated or
+ * deserialized.
+ *
+ * @since 5.2
+ */
+final class SocketEngineChannel {
+
+    /** Client property selecting the channel to the servers: rmi or socket */
+    static final String CHANNEL_PROPERTY = "client.channel"; // $NON-NLS-1$
+
+    static final String CHANNEL_SOCKET = "socket"; // $NON-NLS-1$
+
+    /** Port of the socket channel on the servers, 0 to disable it */
+    static final String PORT_PROPERTY = "server.socket.port"; // $NON-NLS-1$
+
+    /** Number of frames a server queues for the client before blocking the test threads */
+    static final String QUEUE_SIZE_PROPERTY = "server.socket.queue_size"; // $NON-NLS-1$
+
+    /** Maximum length in bytes of a frame, on the servers and on the client */
+    static final String MAX_FRAME_SIZE_PROPERTY = "server.socket.max_frame_size"; // $NON-NLS-1$
+
+    // Client to server frames, all answered by a REPLY frame with the same id
+    static final byte CONFIGURE = 1;
+    static final byte SET_PROPERTIES = 2;
+    static final byte RUN = 3;
+    static final byte RESET = 4;
+    static final byte STOP = 5;
+    static final byte EXIT = 6;
+
+    // Server to client frames
+    static final byte REPLY = 10;
+    static final byte INVOKE = 11;
+
+    private static final int MAX_FRAME_LENGTH =
+            JMeterUtils.getPropDefault(MAX_FRAME_SIZE_PROPERTY, 64 * 1024 * 1024);
+
+    private SocketEngineChannel() {
+        super();
+    }
+
+    /**
+     * Placeholder of a {@link java.rmi.Remote} object of the client in the
+     * frames sent to the server.
+     */
+    static final class RemoteRef implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int id;
+
+        final Class<?>[] interfaces;
+
+        RemoteRef(int id, Class<?>[] interfaces) {
+            this.id = id;
+            this.interfaces = interfaces;
+        }
+    }
+
+    /**
+     * A decoded frame.
+     */
+    static final class Frame {
+        final byte type;
+
+        final int id;
+
+        final Object[] args;
+
+        /** Set when the arguments could not be deserialized */
+        final Exception error;
+
+        Frame(byte type, int id, Object[] args, Exception error) {
+            this.type = type;
+            this.id = id;
+            this.args = args;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Serializes a frame.
+     *
+     * @param type     the type of the frame
+     * @param id       the id of the request or of the called object
+     * @param args     the arguments of the frame
+     * @param replacer replaces the objects written, or <code>null</code>
+     * @return the bytes of the frame, without the length prefix
+     * @throws IOException when an argument cannot be serialized, or the frame
+     *                     is longer than <code>server.socket.max_frame_size</code>
+     */
+    static byte[] encode(byte type, int id, Object[] args, UnaryOperator<Object> replacer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ReplacingObjectOutputStream(bytes, replacer)) {
+            out.writeByte(type);
+            out.writeInt(id);
+            out.writeInt(args.length);
+            for (Object arg : args) {
+                out.writeObject(arg);
+            }
+        }
+        if (bytes.size() > MAX_FRAME_LENGTH) {
+            throw new IOException("Frame of " + bytes.size() + " bytes exceeds "
+                    + MAX_FRAME_SIZE_PROPERTY + "=" + MAX_FRAME_LENGTH);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a frame.
+     *
+     * @param data     the bytes of the frame, without the length prefix
+     * @param resolver resolves the objects read, or <code>null</code>
+     * @return the frame, with its error set when the class of an argument is
+     *         unknown or cannot be deserialized
+     * @throws IOException when the frame is corrupted
+     */
+    static Frame decode(byte[] data, UnaryOperator<Object> resolver) throws IOException {
+        try (ObjectInputStream in = new ResolvingObjectInputStream(new ByteArrayInputStream(data), resolver)) {
+            byte type = in.readByte();
+            int id = in.readInt();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new StreamCorruptedException("Invalid argument count: " + count);
+            }
+            Object[] args = new Object[count];
+            try {
+                for (int i = 0; i < count; i++) {
+                    args[i] = in.readObject();
+                }
+            } catch (ClassNotFoundException | InvalidClassException | NotSerializableException e) {
+                return new Frame(type, id, args, e);
+            }
+            return new Frame(type, id, args, null);
+        }
+    }
+
+    static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+        out.writeInt(frame.length);
+        out.write(frame);
+        out.flush();
+    }
+
+    /**
+     * @param in the stream of the connection
+     * @return the bytes of the next frame
+     * @throws IOException when the connection is closed, the frame is corrupted
+     *                     or longer than <code>server.socket.max_frame_size</code>
+     */
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid frame length: " + length);
+        }
+        if (length > MAX_FRAME_LENGTH) {
+            throw new StreamCorruptedException("Frame of " + length + " bytes exceeds "
+                    + MAX_FRAME_SIZE_PROPERTY + "=" + MAX_FRAME_LENGTH);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    private static final class ReplacingObjectOutputStream extends ObjectOutputStream {
+        private final UnaryOperator<Object> replacer;
+
+        ReplacingObjectOutputStream(OutputStream out, UnaryOperator<Object> replacer) throws IOException {
+            super(out);
+            this.replacer = replacer;
+            if (replacer != null) {
+                enableReplaceObject(true);
+            }
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            return replacer.apply(obj);
+        }
+    }
+
+    private static final class ResolvingObjectInputStream extends ObjectInputStream {
+        private final UnaryOperator<Object> resolver;
+
+        ResolvingObjectInputStream(InputStream in, UnaryOperator<Object> resolver) throws IOException {
+            super(in);
+            this.resolver = resolver;
+            if (resolver != null) {
+                enableResolveObject(true);
+            }
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            return resolver.apply(obj);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.rmi.server.RMIServerSocketFactory;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.rmi.RmiUtils;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves a {@link RemoteJMeterEngine} on the socket channel, see
+ * {@link SocketEngineChannel}.
+ * <p>
+ * Each client keeps a single connection. Its requests are processed in order
+ * by the thread of the connection, which therefore owns the engine. The calls
+ * to the remote listeners of the client are queued and written by another
+ * thread; when the client does not read them fast enough the queue fills up
+ * and the threads of the test wait, as they would with RMI.
+ *
+ * @since 5.2
+ */
+final class SocketJMeterEngineServer implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(SocketJMeterEngineServer.class);
+
+    private static final int QUEUE_SIZE =
+            JMeterUtils.getPropDefault(SocketEngineChannel.QUEUE_SIZE_PROPERTY, 100);
+
+    /** How long a thread waiting for room in the queue of a client waits before checking the connection */
+    private static final long SEND_POLL_MILLIS = 100;
+
+    /** Queued to stop the writer of a closed connection */
+    private static final byte[] CLOSED = new byte[0];
+
+    private final RemoteJMeterEngine engine;
+
+    private final ServerSocket serverSocket;
+
+    private final int queueSize;
+
+    /**
+     * @param engine       the engine to serve
+     * @param serverSocket the socket to accept clients on
+     * @param queueSize    number of frames queued for a client before the threads of the test wait
+     */
+    SocketJMeterEngineServer(RemoteJMeterEngine engine, ServerSocket serverSocket, int queueSize) {
+        this.engine = engine;
+        this.serverSocket = serverSocket;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Serves the engine on the port, using SSL unless
+     * <code>server.rmi.ssl.disable</code> is <code>true</code>.
+     *
+     * @param engine the engine to serve
+     * @param port   the port to listen on
+     * @return the started server
+     * @throws RemoteException when the port cannot be opened
+     */
+    static SocketJMeterEngineServer startServer(RemoteJMeterEngine engine, int port) throws RemoteException {
+        RMIServerSocketFactory factory = RmiUtils.createServerSocketFactory();
+        ServerSocket serverSocket;
+        try {
+            serverSocket = factory == null ? new ServerSocket(port) : factory.createServerSocket(port);
+        } catch (IOException e) {
+            throw new RemoteException("Cannot listen on port " + port, e);
+        }
+        SocketJMeterEngineServer server = new SocketJMeterEngineServer(engine, serverSocket, QUEUE_SIZE);
+        server.start();
+        log.info("Listening for clients on port {}", port);
+        return server;
+    }
+
+    void start() {
+        Thread acceptor = new Thread(this, "SocketJMeterEngineServer"); // $NON-NLS-1$
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    void close() {
+        JOrphanUtils.closeQuietly(serverSocket);
+    }
+
+    @Override
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                new Connection(socket).start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.error("Error accepting connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The connection of a client.
+     */
+    private final class Connection implements Runnable {
+        private final Socket socket;
+
+        private final String client;
+
+        private final BlockingQueue<byte[]> outbound = new ArrayBlockingQueue<>(queueSize);
+
+        private volatile boolean closed;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+            this.client = socket.getRemoteSocketAddress().toString();
+        }
+
+        void start() {
+            log.info("Client connected from {}", client);
+            Thread reader = new Thread(this, "SocketJMeterEngineServer " + client); // $NON-NLS-1$
+            reader.setDaemon(true);
+            reader.start();
+            Thread writer = new Thread(this::write, "SocketJMeterEngineServer writer " + client); // $NON-NLS-1$
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        /**
+         * Processes the requests of the client.
+         */
+        @Override
+        public void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (!closed) {
+                    SocketEngineChannel.Frame frame =
+                            SocketEngineChannel.decode(SocketEngineChannel.readFrame(in), this::resolve);
+                    Exception error = frame.error;
+                    if (error == null) {
+                        try {
+                            process(frame);
+                        } catch (Exception e) { // NOSONAR returned to the client
+                            log.warn("Error processing request {} of {}", frame.type, client, e);
+                            error = e;
+                        }
+                    }
+                    reply(frame.id, error);
+                }
+            } catch (EOFException e) { // NOSONAR
+                log.info("Client {} closed the connection", client);
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Error reading from {}", client, e);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void process(SocketEngineChannel.Frame frame) throws Exception {
+            Object[] args = frame.args;
+            switch (frame.type) {
+                case SocketEngineChannel.CONFIGURE:
+                    engine.rconfigure((HashTree) args[0], (String) args[1], (File) args[2], (String) args[3]);
+                    break;
+                case SocketEngineChannel.SET_PROPERTIES:
+                    engine.rsetProperties((HashMap<String, String>) args[0]);
+                    break;
+                case SocketEngineChannel.RUN:
+                    engine.rrunTest();
+                    break;
+                case SocketEngineChannel.RESET:
+                    engine.rreset();
+                    break;
+                case SocketEngineChannel.STOP:
+                    engine.rstopTest((Boolean) args[0]);
+                    break;
+                case SocketEngineChannel.EXIT:
+                    engine.rexit();
+                    break;
+                default:
+                    throw new StreamCorruptedException("Unexpected request: " + frame.type);
+            }
+        }
+
+        private void reply(int id, Exception error) throws RemoteException {
+            byte[] frame;
+            try {
+                frame = SocketEngineChannel.encode(SocketEngineChannel.REPLY, id, new Object[]{error}, null);
+            } catch (IOException e) { // NOSONAR error holds something that cannot be serialized
+                try {
+                    frame = SocketEngineChannel.encode(SocketEngineChannel.REPLY, id,
+                            new Object[]{new RemoteException(String.valueOf(error))}, null);
+                } catch (IOException e1) {
+                    throw new RemoteException("Cannot encode reply", e1);
+                }
+            }
+            send(frame);
+        }
+
+        /**
+         * Queues a frame for the client, waiting for room in the queue.
+         *
+         * @param frame the frame to send
+         * @throws RemoteException when the connection is closed, also while waiting
+         */
+        void send(byte[] frame) throws RemoteException {
+            try {
+                do {
+                    if (closed) {
+                        throw new RemoteException("Connection to " + client + " is closed");
+                    }
+                } while (!outbound.offer(frame, SEND_POLL_MILLIS, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemoteException("Interrupted sending to " + client, e);
+            }
+        }
+
+        private void write() {
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                while (true) {
+                    byte[] frame = outbound.take();
+                    if (frame == CLOSED) {
+                        break;
+                    }
+                    SocketEngineChannel.writeFrame(out, frame);
+                }
+            } catch (InterruptedException e) { // NOSONAR the thread ends
+                log.warn("Writer to {} interrupted", client);
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Error writing to {}", client, e);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            JOrphanUtils.closeQuietly(socket);
+            outbound.clear();
+            outbound.offer(CLOSED);
+            log.info("Connection to {} closed", client);
+        }
+
+        /**
+         * Replaces the remote objects of the client by proxies calling them back
+         * through this connection.
+         */
+        private Object resolve(Object obj) {
+            if (obj instanceof SocketEngineChannel.RemoteRef) {
+                SocketEngineChannel.RemoteRef ref = (SocketEngineChannel.RemoteRef) obj;
+                return Proxy.newProxyInstance(SocketJMeterEngineServer.class.getClassLoader(),
+                        ref.interfaces, new Callback(ref.id));
+            }
+            return obj;
+        }
+
+        /**
+         * Calls a remote object of the client. Only methods returning nothing can
+         * be called, the calls being sent without waiting for their completion.
+         */
+        private final class Callback implements InvocationHandler {
+            private final int id;
+
+            Callback(int id) {
+                this.id = id;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals": // $NON-NLS-1$
+                            return proxy == args[0];
+                        case "hashCode": // $NON-NLS-1$
+                            return System.identityHashCode(proxy);
+                        default:
+                            return "Remote object " + id + " of " + client; // $NON-NLS-1$
+                    }
+                }
+                if (method.getReturnType() != Void.TYPE) {
+                    throw new UnsupportedOperationException("Cannot call " + method + " on the client");
+                }
+                byte[] frame;
+                try {
+                    frame = SocketEngineChannel.encode(SocketEngineChannel.INVOKE, id,
+                            new Object[]{method.getName(), method.getParameterTypes(),
+                                    args == null ? new Object[0] : args},
+                            null);
+                } catch (IOException e) {
+                    throw new RemoteException("Cannot send call to " + method.getName(), e);
+                }
+                send(frame);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.rmi.ConnectException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.RMIClientSocketFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.jmeter.rmi.RmiUtils;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side of the socket channel to a server, see
+ * {@link SocketEngineChannel}.
+ * <p>
+ * A single connection is kept per server and reused by the following tests,
+ * so that no registry lookup is needed. Stopping and exiting the server do not
+ * wait for the server, so that many servers are stopped at once. The calls of
+ * the server to the remote listeners are processed in order by the thread
+ * reading the connection, so that a slow listener slows the server down
+ * instead of filling the memory of the client.
+ *
+ * @since 5.2
+ */
+final class SocketRemoteJMeterEngine implements RemoteJMeterEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SocketRemoteJMeterEngine.class);
+
+    private static final Map<String, SocketRemoteJMeterEngine> ENGINES = new ConcurrentHashMap<>();
+
+    private final String hostAndPort;
+
+    private final Socket socket;
+
+    private final DataOutputStream out;
+
+    private final Map<Integer, CompletableFuture<Void>> pendingReplies = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Remote> exported = new ConcurrentHashMap<>();
+
+    private final AtomicInteger requestId = new AtomicInteger();
+
+    private final AtomicInteger exportId = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    SocketRemoteJMeterEngine(String hostAndPort, Socket socket) throws IOException {
+        this.hostAndPort = hostAndPort;
+        this.socket = socket;
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        Thread reader = new Thread(() -> read(in), "SocketRemoteJMeterEngine " + hostAndPort); // $NON-NLS-1$
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Returns the connection to the server, connecting to it if needed.
+     *
+     * @param hostAndPort host or host:port of the server, the port defaulting
+     *                    to <code>server.socket.port</code>
+     * @return the engine of the server
+     * @throws RemoteException when the server cannot be reached
+     */
+    static RemoteJMeterEngine getEngine(String hostAndPort) throws RemoteException {
+        try {
+            return ENGINES.compute(hostAndPort,
+                    (key, engine) -> engine != null && !engine.closed ? engine : connect(key));
+        } catch (UncheckedIOException e) {
+            throw new ConnectException("Cannot connect to " + hostAndPort, e.getCause());
+        }
+    }
+
+    private static SocketRemoteJMeterEngine connect(String hostAndPort) {
+        String host = hostAndPort;
+        int port = JMeterUtils.getPropDefault(SocketEngineChannel.PORT_PROPERTY, 0);
+        int indexOfSeparator = hostAndPort.indexOf(':');
+        if (indexOfSeparator >= 0) {
+            host = hostAndPort.substring(0, indexOfSeparator);
+            port = Integer.parseInt(hostAndPort.substring(indexOfSeparator + 1));
+        }
+        try {
+            if (port <= 0) {
+                throw new IOException("No port given and " + SocketEngineChannel.PORT_PROPERTY + " is not set");
+            }
+            RMIClientSocketFactory factory = RmiUtils.createClientSocketFactory();
+            Socket socket = factory == null ? new Socket(host, port) : factory.createSocket(host, port);
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            log.info("Connected to {}", hostAndPort);
+            return new SocketRemoteJMeterEngine(hostAndPort, socket);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void rconfigure(HashTree testTree, String host, File jmxBase, String scriptName) throws RemoteException {
+        int firstExportId = exportId.get() + 1;
+        await(send(SocketEngineChannel.CONFIGURE, testTree, host, jmxBase, scriptName));
+        // The listeners of the previous tests will not be called anymore
+        exported.keySet().removeIf(id -> id < firstExportId);
+    }
+
+    @Override
+    public void rrunTest() throws RemoteException, JMeterEngineException {
+        try {
+            send(SocketEngineChannel.RUN).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JMeterEngineException) {
+                throw (JMeterEngineException) e.getCause();
+            }
+            throw toRemoteException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted waiting for " + hostAndPort, e);
+        }
+    }
+
+    @Override
+    public void rstopTest(boolean now) throws RemoteException {
+        logFailure(send(SocketEngineChannel.STOP, now), "stop test");
+    }
+
+    @Override
+    public void rreset() throws RemoteException {
+        await(send(SocketEngineChannel.RESET));
+    }
+
+    @Override
+    public void rsetProperties(HashMap<String, String> p) throws RemoteException { // NOSONAR
+        await(send(SocketEngineChannel.SET_PROPERTIES, p));
+    }
+
+    @Override
+    public void rexit() throws RemoteException {
+        logFailure(send(SocketEngineChannel.EXIT), "exit");
+    }
+
+    private CompletableFuture<Void> send(byte type, Object... args) throws RemoteException {
+        if (closed) {
+            throw new ConnectException("Connection to " + hostAndPort + " is closed");
+        }
+        int id = requestId.incrementAndGet();
+        byte[] frame;
+        try {
+            frame = SocketEngineChannel.encode(type, id, args, this::export);
+        } catch (IOException e) {
+            throw new RemoteException("Cannot encode request to " + hostAndPort, e);
+        }
+        CompletableFuture<Void> reply = new CompletableFuture<>();
+        pendingReplies.put(id, reply);
+        try {
+            synchronized (out) {
+                SocketEngineChannel.writeFrame(out, frame);
+            }
+        } catch (IOException e) {
+            close();
+            throw new ConnectException("Cannot send request to " + hostAndPort, e);
+        }
+        if (closed) {
+            // The reader may have failed the pending replies before this one was added
+            reply.completeExceptionally(new ConnectException("Connection to " + hostAndPort + " is closed"));
+        }
+        return reply;
+    }
+
+    private void await(CompletableFuture<Void> reply) throws RemoteException {
+        try {
+            reply.get();
+        } catch (ExecutionException e) {
+            throw toRemoteException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted waiting for " + hostAndPort, e);
+        }
+    }
+
+    private void logFailure(CompletableFuture<Void> reply, String action) {
+        reply.whenComplete((result, error) -> {
+            if (error != null) {
+                log.error("Failed to {} on {}", action, hostAndPort, error);
+            }
+        });
+    }
+
+    private static RemoteException toRemoteException(Throwable error) {
+        if (error instanceof RemoteException) {
+            return (RemoteException) error;
+        }
+        if (error instanceof RuntimeException) {
+            // e.g. IllegalStateException when the engine is busy, reported as is
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        return new RemoteException(error.toString(), error);
+    }
+
+    /**
+     * Replaces the remote objects of the request by references that the server
+     * calls back through this connection.
+     */
+    private Object export(Object obj) {
+        if (obj instanceof Remote) {
+            List<Class<?>> interfaces = ClassUtils.getAllInterfaces(obj.getClass());
+            interfaces.removeIf(itf -> !Remote.class.isAssignableFrom(itf));
+            int id = exportId.incrementAndGet();
+            exported.put(id, (Remote) obj);
+            return new SocketEngineChannel.RemoteRef(id, interfaces.toArray(new Class<?>[interfaces.size()]));
+        }
+        return obj;
+    }
+
+    private void read(DataInputStream in) {
+        try {
+            while (!closed) {
+                SocketEngineChannel.Frame frame = SocketEngineChannel.decode(SocketEngineChannel.readFrame(in), null);
+                switch (frame.type) {
+                    case SocketEngineChannel.REPLY:
+                        processReply(frame);
+                        break;
+                    case SocketEngineChannel.INVOKE:
+                        processCall(frame);
+                        break;
+                    default:
+                        log.warn("Ignoring unexpected frame {} from {}", frame.type, hostAndPort);
+                }
+            }
+        } catch (EOFException e) { // NOSONAR
+            log.info("Server {} closed the connection", hostAndPort);
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Error reading from {}", hostAndPort, e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void processReply(SocketEngineChannel.Frame frame) {
+        CompletableFuture<Void> reply = pendingReplies.remove(frame.id);
+        if (reply == null) {
+            log.warn("Ignoring unexpected reply {} from {}", frame.id, hostAndPort);
+        } else if (frame.error != null) {
+            reply.completeExceptionally(frame.error);
+        } else if (frame.args[0] != null) {
+            reply.completeExceptionally((Throwable) frame.args[0]);
+        } else {
+            reply.complete(null);
+        }
+    }
+
+    private void processCall(SocketEngineChannel.Frame frame) {
+        Remote target = exported.get(frame.id);
+        if (target == null) {
+            log.warn("Ignoring call from {} to unknown remote object {}", hostAndPort, frame.id);
+            return;
+        }
+        if (frame.error != null) {
+            log.error("Cannot read call from {} to {}", hostAndPort, target, frame.error);
+            return;
+        }
+        String methodName = (String) frame.args[0];
+        try {
+            findMethod(target, methodName, (Class<?>[]) frame.args[1]).invoke(target, (Object[]) frame.args[2]);
+        } catch (InvocationTargetException e) {
+            log.error("Error calling {} on {}", methodName, target, e.getCause());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.error("Cannot call {} on {}", methodName, target, e);
+        }
+    }
+
+    private static Method findMethod(Remote target, String name, Class<?>[] parameterTypes)
+            throws NoSuchMethodException {
+        for (Class<?> itf : ClassUtils.getAllInterfaces(target.getClass())) {
+            if (Remote.class.isAssignableFrom(itf)) {
+                try {
+                    return itf.getMethod(name, parameterTypes);
+                } catch (NoSuchMethodException e) { // NOSONAR try the next interface
+                    // ignored
+                }
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    /**
+     * Closes the connection, failing the requests waiting for a reply.
+     */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ENGINES.remove(hostAndPort, this);
+        JOrphanUtils.closeQuietly(socket);
+        exported.clear();
+        ConnectException error = new ConnectException("Connection to " + hostAndPort + " closed");
+        pendingReplies.values().forEach(reply -> reply.completeExceptionally(error));
+        pendingReplies.clear();
+        log.info("Connection to {} closed", hostAndPort);
+    }
+}
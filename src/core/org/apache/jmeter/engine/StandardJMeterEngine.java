@@ -40,6 +40,7 @@ import org.apache.jmeter.threads.ListenerNotifier;
 import org.apache.jmeter.threads.PostThreadGroup;
 import org.apache.jmeter.threads.SetupThreadGroup;
 import org.apache.jmeter.threads.TestCompiler;
+import org.apache.jmeter.timers.TimerService;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
 import org.apache.jorphan.collections.ListedHashTree;
@@ -399,7 +400,7 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         Iterator<AbstractThreadGroup> iter = searcher.getSearchResults().iterator();
         Iterator<PostThreadGroup> postIter = postSearcher.getSearchResults().iterator();
 
-        ListenerNotifier notifier = new ListenerNotifier();
+        ListenerNotifier notifier = new ListenerNotifier(ListenerNotifier.isAsynchronousByDefault());
 
         int groupCount = 0;
         JMeterContextService.clearTotalThreads();
@@ -489,7 +490,9 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
             waitThreadsStopped(); // wait for Post threads to stop
         }
 
+        notifier.close(); // deliver the events still buffered before listeners are told the test ended
         notifyTestListenersOfEnd(testListeners);
+        TimerService.getInstance().logAndResetDrifts();
         JMeterContextService.endTest();
         if (JMeter.isNonGUI() && SYSTEM_EXIT_FORCED) {
             log.info("Forced JVM shutdown requested at end of test");
@@ -18,6 +18,7 @@
 
 package org.apache.jmeter.engine.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -30,6 +31,7 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.Sampler;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.reflect.ClassFinder;
 import org.slf4j.Logger;
@@ -56,6 +58,21 @@ public class CompoundVariable implements Function {
 
     private LinkedList<Object> compiledComponents = new LinkedList<>();
 
+    private static final Object[] EMPTY_PLAN = new Object[0];
+
+    /**
+     * Evaluation plan built from {@link #compiledComponents}: adjacent literals are merged
+     * and components are held in an array. It is never modified once built,
+     * as a CompoundVariable is shared by the clones of its {@link org.apache.jmeter.testelement.property.FunctionProperty}
+     */
+    private Object[] evaluationPlan = EMPTY_PLAN;
+
+    /** Total length of the literals of the plan, used to size the result */
+    private int literalsLength;
+
+    /** true if the plan contains a {@link SimpleVariable} */
+    private boolean hasVariable;
+
     static {
         try {
             final String contain = // Classnames must contain this string [.functions.]
@@ -125,29 +142,81 @@ public class CompoundVariable implements Function {
     /** {@inheritDoc} */
     @Override
     public String execute(SampleResult previousResult, Sampler currentSampler) {
-        if (compiledComponents == null || compiledComponents.isEmpty()) {
+        final Object[] plan = evaluationPlan;
+        if (plan.length == 0) {
+            return ""; // $NON-NLS-1$
+        }
+        JMeterVariables vars = hasVariable ? JMeterContextService.getContext().getVariables() : null;
+        if (plan.length == 1) {
+            // Most common cases: a literal, "${var}" or "${__function()}", no need for a buffer
+            String result = evaluate(plan[0], vars, previousResult, currentSampler);
+            if (!isDynamic) {
+                permanentResults = result;
+            }
+            return result;
+        }
+        // Reserve some room for each dynamic component to avoid resizing the buffer in most cases
+        StringBuilder results = new StringBuilder(literalsLength + 16 * plan.length);
+        for (Object item : plan) {
+            results.append(evaluate(item, vars, previousResult, currentSampler));
+        }
+        String result = results.toString();
+        if (!isDynamic) {
+            permanentResults = result;
+        }
+        return result;
+    }
+
+    private static String evaluate(Object item, JMeterVariables vars,
+            SampleResult previousResult, Sampler currentSampler) {
+        if (item instanceof String) {
+            return (String) item;
+        }
+        if (item instanceof SimpleVariable) {
+            return ((SimpleVariable) item).getValue(vars);
+        }
+        try {
+            return String.valueOf(((Function) item).execute(previousResult, currentSampler));
+        } catch (InvalidVariableException e) {
+            // TODO should level be more than debug ?
+            log.debug("Invalid variable: {}", item, e);
             return ""; // $NON-NLS-1$
         }
-        
-        StringBuilder results = new StringBuilder();
+    }
+
+    /**
+     * Build the evaluation plan from the compiled components:
+     * merge adjacent literals and compute the information needed to evaluate it cheaply.
+     */
+    private void buildEvaluationPlan() {
+        List<Object> plan = new ArrayList<>(compiledComponents.size());
+        StringBuilder literal = null;
+        int length = 0;
+        boolean variable = false;
         for (Object item : compiledComponents) {
-            if (item instanceof Function) {
-                try {
-                    results.append(((Function) item).execute(previousResult, currentSampler));
-                } catch (InvalidVariableException e) {
-                    // TODO should level be more than debug ?
-                    log.debug("Invalid variable: {}", item, e);
+            if (item instanceof Function || item instanceof SimpleVariable) {
+                if (literal != null) {
+                    plan.add(literal.toString());
+                    literal = null;
                 }
-            } else if (item instanceof SimpleVariable) {
-                results.append(((SimpleVariable) item).toString());
+                plan.add(item);
+                variable |= item instanceof SimpleVariable;
             } else {
-                results.append(item);
+                String text = String.valueOf(item);
+                length += text.length();
+                if (literal == null) {
+                    literal = new StringBuilder(text);
+                } else {
+                    literal.append(text);
+                }
             }
         }
-        if (!isDynamic) {
-            permanentResults = results.toString();
+        if (literal != null) {
+            plan.add(literal.toString());
         }
-        return results.toString();
+        evaluationPlan = plan.toArray();
+        literalsLength = length;
+        hasVariable = variable;
     }
 
     @SuppressWarnings("unchecked") // clone will produce correct type
@@ -157,6 +226,10 @@ public class CompoundVariable implements Function {
         func.rawParameters = rawParameters;
         func.hasFunction = hasFunction;
         func.isDynamic = isDynamic;
+        // The plan is immutable, so it can be shared
+        func.evaluationPlan = evaluationPlan;
+        func.literalsLength = literalsLength;
+        func.hasVariable = hasVariable;
         return func;
     }
 
@@ -170,6 +243,9 @@ public class CompoundVariable implements Function {
         // TODO should this also clear isDynamic, rawParameters, permanentResults?
         hasFunction = false;
         compiledComponents.clear();
+        evaluationPlan = EMPTY_PLAN;
+        literalsLength = 0;
+        hasVariable = false;
     }
 
     public void setParameters(String parameters) throws InvalidVariableException {
@@ -190,6 +266,7 @@ public class CompoundVariable implements Function {
                 break;
             }
         }
+        buildEvaluationPlan();
     }
 
     static Object getNamedFunction(String functionName) throws InvalidVariableException {
@@ -218,6 +295,19 @@ public class CompoundVariable implements Function {
         return hasFunction;
     }
 
+    /**
+     * @return the name of the variable if this is only a reference to a variable, like <code>${name}</code>,
+     *         null otherwise
+     * @since 5.2
+     */
+    public String getReferencedVariableName() {
+        final Object[] plan = evaluationPlan;
+        if (plan.length == 1 && plan[0] instanceof SimpleVariable) {
+            return ((SimpleVariable) plan[0]).getName();
+        }
+        return null;
+    }
+
     // Dummy methods needed by Function interface
 
     /** {@inheritDoc} */
@@ -26,12 +26,19 @@ public class SimpleVariable {
 
     private String name;
 
+    /**
+     * Slot of the variable in {@link JMeterVariables} in the low 32 bits, resolved when the reference is compiled,
+     * and generation of the slots in the high 32 bits, so that they are read together by the threads sharing the reference
+     */
+    private volatile long resolvedSlot;
+
     public SimpleVariable(String name) {
-        this.name = name;
+        setName(name);
     }
 
     public SimpleVariable() {
         this.name = ""; //$NON-NLS-1$
+        this.resolvedSlot = resolvedSlot(JMeterVariables.slotGeneration(), -1);
     }
 
     public String getName() {
@@ -40,6 +47,12 @@ public class SimpleVariable {
 
     public void setName(String name) {
         this.name = name;
+        int generation = JMeterVariables.slotGeneration();
+        this.resolvedSlot = resolvedSlot(generation, JMeterVariables.slotOf(name));
+    }
+
+    private static long resolvedSlot(int generation, int slot) {
+        return ((long) generation << 32) | (slot & 0xFFFFFFFFL);
     }
 
     /**
@@ -47,11 +60,26 @@ public class SimpleVariable {
      */
     @Override
     public String toString() {
+        return getValue(getVariables());
+    }
+
+    /**
+     * @param vars variables of the current thread, may be null
+     * @return the value of the variable, or its reference if it is not defined
+     */
+    String getValue(JMeterVariables vars) {
         String ret = null;
-        JMeterVariables vars = getVariables();
 
         if (vars != null) {
-            ret = vars.get(name);
+            long resolved = resolvedSlot;
+            int generation = JMeterVariables.slotGeneration();
+            if ((int) (resolved >>> 32) != generation) {
+                // Compiled by a previous test, whose slots have been cleared
+                resolved = resolvedSlot(generation, JMeterVariables.slotOf(name));
+                resolvedSlot = resolved;
+            }
+            int slot = (int) resolved;
+            ret = slot >= 0 ? vars.get(slot) : vars.get(name);
         }
 
         if (ret == null) {
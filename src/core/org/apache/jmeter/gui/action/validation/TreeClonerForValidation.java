@@ -84,6 +84,7 @@ public class TreeClonerForValidation extends TreeCloner {
                 tg.setNumThreads(VALIDATION_NUMBER_OF_THREADS);
                 tg.setScheduler(false);
                 tg.setProperty(ThreadGroup.DELAY, 0);
+                tg.setStages(""); // a staged load profile would override the number of threads
                 if(((AbstractThreadGroup)clonedNode).getSamplerController() instanceof LoopController) {
                     ((LoopController)((AbstractThreadGroup)clonedNode).getSamplerController()).setLoops(VALIDATION_ITERATIONS);
                 }
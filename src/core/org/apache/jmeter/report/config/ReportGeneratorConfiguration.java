@@ -81,6 +81,11 @@ public class ReportGeneratorConfiguration {
     private static final String REPORT_GENERATOR_KEY_EXCLUDE_TC_FROM_TOP5_ERRORS_BY_SAMPLER = REPORT_GENERATOR_KEY_PREFIX
             + KEY_DELIMITER + "exclude_tc_from_top5_errors_by_sampler";
 
+    // Number of threads consuming the samples
+    private static final String REPORT_GENERATOR_KEY_CONSUMER_THREADS = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "consumer_threads";
+    private static final Integer REPORT_GENERATOR_KEY_CONSUMER_THREADS_DEFAULT = Integer.valueOf(1);
+
     // Sample Filter
     private static final String REPORT_GENERATOR_KEY_SAMPLE_FILTER = REPORT_GENERATOR_KEY_PREFIX
             + KEY_DELIMITER + "sample_filter";
@@ -283,6 +288,7 @@ public class ReportGeneratorConfiguration {
     private Map<String, Long[]> apdexPerTransaction = new HashMap<>();
     private Pattern filteredSamplesPattern;
     private boolean ignoreTCFromTop5ErrorsBySampler;
+    private int consumerThreads;
     private Map<String, ExporterConfiguration> exportConfigurations = new HashMap<>();
     private Map<String, GraphConfiguration> graphConfigurations = new HashMap<>();
 
@@ -650,6 +656,13 @@ public class ReportGeneratorConfiguration {
                 Boolean.TRUE,
                 Boolean.class).booleanValue();
         configuration.setIgnoreTCFromTop5ErrorsBySampler(ignoreTCFromTop5ErrorsBySampler);
+
+        // Load number of threads consuming the samples
+        final int consumerThreads = getRequiredProperty(props,
+                REPORT_GENERATOR_KEY_CONSUMER_THREADS,
+                REPORT_GENERATOR_KEY_CONSUMER_THREADS_DEFAULT,
+                Integer.class).intValue();
+        configuration.setConsumerThreads(consumerThreads);
         
         // Load sample filter
         final String sampleFilter = getOptionalProperty(props,
@@ -825,4 +838,27 @@ public class ReportGeneratorConfiguration {
             boolean ignoreTCFromTop5ErrorsBySampler) {
         this.ignoreTCFromTop5ErrorsBySampler = ignoreTCFromTop5ErrorsBySampler;
     }
+
+    /**
+     * Gets the number of threads consuming the samples, 0 to use all the
+     * processors.
+     *
+     * @return the number of threads consuming the samples
+     * @since 5.2
+     */
+    public int getConsumerThreads() {
+        return consumerThreads;
+    }
+
+    /**
+     * Sets the number of threads consuming the samples.
+     *
+     * @param consumerThreads
+     *            the number of threads consuming the samples, 0 to use all
+     *            the processors
+     * @since 5.2
+     */
+    public void setConsumerThreads(int consumerThreads) {
+        this.consumerThreads = consumerThreads;
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.core;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.jmeter.save.BinaryResultReader;
+import org.apache.jmeter.save.BinaryResultWriter;
+import org.apache.jorphan.util.JOrphanUtils;
+
+/**
+ * Reader class for reading result files in the binary format written by {@link BinaryResultWriter}.
+ * <p>
+ * The metadata is built from the CSV header stored in the file, so samples are
+ * the same as the ones read by {@link CsvSampleReader} from the equivalent CSV file.
+ *
+ * @since 5.2
+ */
+public class BinarySampleReader implements SampleReader {
+
+    private final BinaryResultReader reader;
+    private final SampleMetadata metadata;
+    private long row;
+    private Sample lastSampleRead;
+    private final boolean storesStartTimeStamp = Sample.storesStartTimeStamp();
+    private final StringDictionary dictionary = new StringDictionary();
+
+    /**
+     * Instantiates a new binary sample reader.
+     *
+     * @param inputFile the input file (must not be {@code null})
+     */
+    public BinarySampleReader(File inputFile) {
+        if (!(inputFile.isFile() && inputFile.canRead())) {
+            throw new IllegalArgumentException(inputFile.getAbsolutePath()
+                    + " does not exist or is not readable");
+        }
+        try {
+            this.reader = new BinaryResultReader(inputFile);
+        } catch (IOException ex) {
+            throw new SampleException("Could not create file reader !", ex);
+        }
+        this.metadata = new SampleMetaDataParser(reader.getDelimiter()).parse(reader.getHeader());
+        this.lastSampleRead = nextSample();
+    }
+
+    private Sample nextSample() {
+        try {
+            String[] data = reader.readRecord();
+            return data == null ? null : new Sample(row++, metadata, storesStartTimeStamp, data, dictionary);
+        } catch (IOException e) {
+            throw new SampleException("Could not read sample <" + row + ">", e);
+        }
+    }
+
+    @Override
+    public SampleMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public Sample readSample() {
+        Sample out = lastSampleRead;
+        lastSampleRead = nextSample();
+        return out;
+    }
+
+    @Override
+    public Sample peek() {
+        return lastSampleRead;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lastSampleRead != null;
+    }
+
+    @Override
+    public void close() {
+        JOrphanUtils.closeQuietly(reader);
+    }
+}
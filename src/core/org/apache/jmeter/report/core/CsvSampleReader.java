@@ -18,21 +18,20 @@
 package org.apache.jmeter.report.core;
 
 import java.io.BufferedReader;
-import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
 import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.ResultFileSegments;
 import org.apache.jmeter.save.SaveService;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.util.JOrphanUtils;
@@ -41,18 +40,18 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * Reader class for reading CSV files.
+ * Reader class for reading CSV files, gzip compressed when their name ends with <code>.gz</code>.
  * <p>
  * Handles {@link SampleMetadata} reading and sample extraction.
  *
  * @since 3.0
  */
-public class CsvSampleReader implements Closeable{
+public class CsvSampleReader implements SampleReader {
 
     private static final Logger log = LoggerFactory.getLogger(CsvSampleReader.class);
 
     private static final int BUF_SIZE = 1024 * 1024;
-    private static final String CHARSET = SaveService.getFileEncoding(StandardCharsets.UTF_8.displayName());
+    static final String CHARSET = SaveService.getFileEncoding(StandardCharsets.UTF_8.displayName());
     private static final char DEFAULT_SEPARATOR =
             // Cannot use JMeterUtils#getPropDefault as it trims the value
             JMeterUtils.getDelimiter(
@@ -70,6 +69,8 @@ public class CsvSampleReader implements Closeable{
     private SampleMetadata metadata;
     private int columnCount;
     private Sample lastSampleRead;
+    private final boolean storesStartTimeStamp = Sample.storesStartTimeStamp();
+    private final StringDictionary dictionary = new StringDictionary();
     /**
      * Number of sample_variables if csv file has no header
      */
@@ -106,9 +107,13 @@ public class CsvSampleReader implements Closeable{
         this.file = inputFile;
         try {
             this.fis = new FileInputStream(file); 
+            if (ResultFileSegments.isCompressed(file)) {
+                // Segment of a rolled over result file
+                this.fis = new GZIPInputStream(fis, BUF_SIZE);
+            }
             this.isr = new InputStreamReader(fis, CHARSET);
             this.reader = new BufferedReader(isr, BUF_SIZE);
-        } catch (FileNotFoundException | UnsupportedEncodingException ex) {
+        } catch (IOException ex) {
             JOrphanUtils.closeQuietly(isr);
             JOrphanUtils.closeQuietly(fis);
             JOrphanUtils.closeQuietly(this.reader);
@@ -125,56 +130,89 @@ public class CsvSampleReader implements Closeable{
         this.columnCount = this.metadata.getColumnCount();
         this.separator = this.metadata.getSeparator();
         this.row = 0;
+        this.numberOfSampleVariablesInCsv = sampleVariablesCount(usingHeadersInCsv);
+        this.lastSampleRead = nextSample();
+    }
+
+    /**
+     * @param usingHeadersInCsv true if the file starts with the names of the columns
+     * @return number of sample variables to expect after the columns of the metadata
+     */
+    static int sampleVariablesCount(boolean usingHeadersInCsv) {
         if(!usingHeadersInCsv) {
             String vars = JMeterUtils.getProperty(SampleEvent.SAMPLE_VARIABLES);
             String[] variableNames=vars != null ? vars.split(",") : new String[0];
-            this.numberOfSampleVariablesInCsv = variableNames.length;
-        } else {
-            this.numberOfSampleVariablesInCsv = 0;
+            return variableNames.length;
         }
-        this.lastSampleRead = nextSample();
+        return 0;
     }
 
     private Pair<Boolean, SampleMetadata> readMetadata(char separator, boolean useSaveSampleCfg) {
         try {
-            SampleMetadata result;
             // Read first line
             String line = reader.readLine();
             if (line == null) {
                 throw new IllegalArgumentException("File is empty");
             }
-            boolean hasHeaders = false;
-            // When we can use sample save config and there is no header in csv file
-            if (useSaveSampleCfg
-                    && CSVSaveService.getSampleSaveConfiguration(
-                            line, file.getAbsolutePath()) == null) {
-                // Build metadata from default save config
-                if (log.isWarnEnabled()) {
-                    log.warn(
-                            "File '{}' does not contain the field names header, "
-                                    + "ensure the jmeter.save.saveservice.* properties are the same "
-                                    + "as when the CSV file was created or the file may be read incorrectly "
-                                    + "when generating report",
-                            file.getAbsolutePath());
-                }
-                System.out.println("File '"+file.getAbsolutePath()+"' does not contain the field names header, "
-                        + "ensure the jmeter.save.saveservice.* properties are the same "
-                        + "as when the CSV file was created or the file may be read incorrectly "
-                        + "when generating report");
-                result = new SampleMetadata(
-                        SampleSaveConfiguration.staticConfig());
-
-            } else {
-                // Build metadata from headers
-                result = new SampleMetaDataParser(separator).parse(line);
-                hasHeaders = true;
-            }
-            return Pair.of(hasHeaders, result);
+            return parseMetadata(file, line, separator, useSaveSampleCfg);
         } catch (Exception e) {
             throw new SampleException("Could not read metadata !", e);
         }
     }
 
+    /**
+     * Build the metadata of a CSV file from its first line
+     *
+     * @param file             the CSV file, for logging
+     * @param line             the first line of the file
+     * @param separator        the separator
+     * @param useSaveSampleCfg indicates whether the metadata comes from the jmeter
+     *                         SampleSaveConfiguration when the line is not a header
+     * @return true if the line is a header, and the metadata
+     */
+    static Pair<Boolean, SampleMetadata> parseMetadata(File file, String line, char separator,
+            boolean useSaveSampleCfg) {
+        SampleMetadata result;
+        boolean hasHeaders = false;
+        // When we can use sample save config and there is no header in csv file
+        if (useSaveSampleCfg
+                && CSVSaveService.getSampleSaveConfiguration(
+                        line, file.getAbsolutePath()) == null) {
+            // Build metadata from default save config
+            if (log.isWarnEnabled()) {
+                log.warn(
+                        "File '{}' does not contain the field names header, "
+                                + "ensure the jmeter.save.saveservice.* properties are the same "
+                                + "as when the CSV file was created or the file may be read incorrectly "
+                                + "when generating report",
+                        file.getAbsolutePath());
+            }
+            System.out.println("File '"+file.getAbsolutePath()+"' does not contain the field names header, "
+                    + "ensure the jmeter.save.saveservice.* properties are the same "
+                    + "as when the CSV file was created or the file may be read incorrectly "
+                    + "when generating report");
+            result = new SampleMetadata(
+                    SampleSaveConfiguration.staticConfig());
+
+        } else {
+            // Build metadata from headers
+            result = new SampleMetaDataParser(separator).parse(line);
+            hasHeaders = true;
+        }
+        return Pair.of(hasHeaders, result);
+    }
+
+    /**
+     * @param columnCount expected number of columns
+     * @param actual      number of columns of the line
+     * @return the exception thrown when a line does not have the expected number of columns
+     */
+    static SampleException columnMismatch(int columnCount, int actual) {
+        return new SampleException("Mismatch between expected number of columns:"+columnCount+" and columns in CSV file:"+actual+
+                ", check your jmeter.save.saveservice.* configuration or check line is complete");
+    }
+
+    @Override
     public SampleMetadata getMetadata() {
         return metadata;
     }
@@ -186,10 +224,9 @@ public class CsvSampleReader implements Closeable{
             Sample sample = null;
             if (data.length > 0) {
                 if (data.length != columnCount+numberOfSampleVariablesInCsv) {
-                    throw new SampleException("Mismatch between expected number of columns:"+columnCount+" and columns in CSV file:"+data.length+
-                            ", check your jmeter.save.saveservice.* configuration or check line is complete");
+                    throw columnMismatch(columnCount, data.length);
                 }
-                sample = new Sample(row++, metadata, data);
+                sample = new Sample(row++, metadata, storesStartTimeStamp, data, dictionary);
             }
             return sample;
         } catch (IOException e) {
@@ -200,6 +237,7 @@ public class CsvSampleReader implements Closeable{
     /**
      * @return next sample from the file.
      */
+    @Override
     public Sample readSample() {
         Sample out = lastSampleRead;
         lastSampleRead = nextSample();
@@ -209,6 +247,7 @@ public class CsvSampleReader implements Closeable{
     /**
      * @return next sample from file but keep the reading file position.
      */
+    @Override
     public Sample peek() {
         return lastSampleRead;
     }
@@ -216,6 +255,7 @@ public class CsvSampleReader implements Closeable{
     /**
      * @return flag, that indicates whether the file contains more samples
      */
+    @Override
     public boolean hasNext() {
         return lastSampleRead != null;
     }
@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jorphan.util.JOrphanUtils;
+
+/**
+ * Reader of CSV files that parses the file in parallel.
+ * <p>
+ * The file is memory mapped and split into ranges made of whole lines, which are
+ * parsed at the byte level by a pool of threads. Samples are returned in the order
+ * of the file, and are the same as the ones read by {@link CsvSampleReader}.
+ * <p>
+ * Only files whose encoding keeps the ASCII characters on single bytes that cannot
+ * be part of other characters (e.g. UTF-8 or ISO-8859-1) can be read,
+ * see {@link #canRead(char)}.
+ *
+ * @since 5.2
+ */
+public class MappedCsvSampleReader implements SampleReader {
+
+    /** Size of the ranges of the file parsed by each task */
+    private static final int RANGE_SIZE = 1024 * 1024;
+
+    private static final int MAX_LINE_LENGTH = Integer.MAX_VALUE - 8;
+
+    /** Longest value decoded without a charset decoder when it is made of ASCII characters */
+    private static final int MAX_ASCII_VALUE_LENGTH = 1024;
+
+    private static final byte QUOTE = (byte) CSVSaveService.QUOTING_CHAR;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private static final int INITIAL = 0;
+    private static final int PLAIN = 1;
+    private static final int QUOTED = 2;
+    private static final int EMBEDDED_QUOTE = 3;
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    /** Samples of a range of the file, with the error that stopped its parsing if any */
+    private static final class ParsedRange {
+        private final List<String[]> records;
+        private final IOException parseError;
+        private final SampleException sampleError;
+
+        ParsedRange(List<String[]> records, IOException parseError, SampleException sampleError) {
+            this.records = records;
+            this.parseError = parseError;
+            this.sampleError = sampleError;
+        }
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final long size;
+    private final Charset charset;
+    private final SampleMetadata metadata;
+    private final byte separator;
+    private final int columnCount;
+    private final int expectedColumns;
+    private final boolean storesStartTimeStamp;
+    private final StringDictionary dictionary = new StringDictionary();
+    private final ExecutorService executor;
+    private final int maxPendingRanges;
+    private final Deque<Future<ParsedRange>> pending = new ArrayDeque<>();
+    /** Start of the part of the file that is not split into ranges yet */
+    private long position;
+    private ParsedRange current;
+    private int index;
+    private long row;
+    private Sample lastSampleRead;
+
+    /**
+     * Instantiates a new mapped csv sample reader.
+     *
+     * @param inputFile        the input file (must not be {@code null})
+     * @param separator        the separator
+     * @param useSaveSampleCfg indicates whether the reader uses jmeter
+     *                         SampleSaveConfiguration to define metadata
+     * @param threads          number of threads parsing the file
+     */
+    public MappedCsvSampleReader(File inputFile, char separator, boolean useSaveSampleCfg, int threads) {
+        if (!(inputFile.isFile() && inputFile.canRead())) {
+            throw new IllegalArgumentException(inputFile.getAbsolutePath()
+                    + " does not exist or is not readable");
+        }
+        this.file = inputFile;
+        this.charset = Charset.forName(CsvSampleReader.CHARSET);
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.size = channel.size();
+        } catch (IOException ex) {
+            throw new SampleException("Could not create file reader !", ex);
+        }
+        Pair<Boolean, SampleMetadata> localMd;
+        try {
+            String line = readFirstLine();
+            if (line == null) {
+                throw new IllegalArgumentException("File is empty");
+            }
+            localMd = CsvSampleReader.parseMetadata(file, line, separator, useSaveSampleCfg);
+        } catch (Exception e) {
+            JOrphanUtils.closeQuietly(channel);
+            throw new SampleException("Could not read metadata !", e);
+        }
+        this.metadata = localMd.getRight();
+        if (!isSingleByte(metadata.getSeparator())) {
+            JOrphanUtils.closeQuietly(channel);
+            throw new IllegalArgumentException("Separator '" + metadata.getSeparator() + "' is not an ASCII character");
+        }
+        this.separator = (byte) metadata.getSeparator();
+        this.columnCount = metadata.getColumnCount();
+        this.expectedColumns = columnCount + CsvSampleReader.sampleVariablesCount(localMd.getLeft());
+        this.storesStartTimeStamp = Sample.storesStartTimeStamp();
+        int poolSize = Math.max(1, threads);
+        String poolName = "CsvParser-" + POOL_NUMBER.incrementAndGet() + "-"; // $NON-NLS-1$ // $NON-NLS-2$
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, poolName + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxPendingRanges = poolSize + 1;
+        try {
+            this.lastSampleRead = nextSample();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param separator the separator of the columns
+     * @return true if files written with the configured encoding and separator can be read
+     */
+    public static boolean canRead(char separator) {
+        Charset charset;
+        try {
+            charset = Charset.forName(CsvSampleReader.CHARSET);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return isSingleByte(separator)
+                && isSingleByte(SampleSaveConfiguration.staticConfig().getDelimiter().charAt(0))
+                && (StandardCharsets.UTF_8.equals(charset)
+                        || charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1f
+                                && Arrays.equals("\r\n\",;\t|".getBytes(charset), // $NON-NLS-1$
+                                        "\r\n\",;\t|".getBytes(StandardCharsets.US_ASCII))); // $NON-NLS-1$
+    }
+
+    private static boolean isSingleByte(char c) {
+        return c < 0x80;
+    }
+
+    /**
+     * Read the first line like {@link java.io.BufferedReader#readLine()}, and move after it
+     */
+    private String readFirstLine() throws IOException {
+        if (size == 0) {
+            return null;
+        }
+        int length = (int) Math.min(size, 65536);
+        while (true) {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, length);
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(i);
+                if (b == LF || b == CR && i + 1 < length) {
+                    position = b == CR && buffer.get(i + 1) == LF ? i + 2 : i + 1;
+                    return decode(buffer, i);
+                } else if (b == CR && length == size) {
+                    position = size;
+                    return decode(buffer, i);
+                }
+            }
+            if (length == size) {
+                position = size;
+                return decode(buffer, length);
+            }
+            if (length >= MAX_LINE_LENGTH) {
+                throw new IOException("First line is too long");
+            }
+            length = (int) Math.min(size, Math.min(MAX_LINE_LENGTH, 2L * length));
+        }
+    }
+
+    private String decode(MappedByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    @Override
+    public SampleMetadata getMetadata() {
+        return metadata;
+    }
+
+    private Sample nextSample() {
+        while (current == null || index >= current.records.size()) {
+            if (current != null) {
+                if (current.parseError != null) {
+                    throw new SampleException("Could not read sample <" + row + ">", current.parseError);
+                } else if (current.sampleError != null) {
+                    throw current.sampleError;
+                }
+            }
+            submitRanges();
+            Future<ParsedRange> next = pending.poll();
+            if (next == null) {
+                current = null;
+                return null;
+            }
+            current = get(next);
+            index = 0;
+        }
+        return new Sample(row++, metadata, storesStartTimeStamp, current.records.get(index++), dictionary);
+    }
+
+    private ParsedRange get(Future<ParsedRange> range) {
+        try {
+            return range.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SampleException("Interrupted while reading " + file, e);
+        } catch (ExecutionException e) {
+            throw new SampleException("Could not read sample <" + row + ">", e.getCause());
+        }
+    }
+
+    /**
+     * Split the file into ranges until enough of them are parsed
+     */
+    private void submitRanges() {
+        try {
+            while (pending.size() < maxPendingRanges && position < size) {
+                final long start = position;
+                final long end = nextRangeEnd(start);
+                final boolean last = end == size;
+                position = end;
+                pending.add(executor.submit(() -> parseRange(start, (int) (end - start), last)));
+            }
+        } catch (IOException e) {
+            throw new SampleException("Could not read sample <" + row + ">", e);
+        }
+    }
+
+    /**
+     * @return the end of the last line that starts in the range beginning at <code>start</code>
+     */
+    private long nextRangeEnd(long start) throws IOException {
+        long length = Math.min(RANGE_SIZE, size - start);
+        while (start + length < size) {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, start, length);
+            int end = lastLineEnd(buffer, (int) length);
+            if (end > 0) {
+                return start + end;
+            }
+            // A line longer than the range
+            if (length >= MAX_LINE_LENGTH) {
+                throw new IOException("Line starting at byte " + start + " is too long");
+            }
+            length = Math.min(size - start, Math.min(MAX_LINE_LENGTH, 2 * length));
+        }
+        return size;
+    }
+
+    /**
+     * @return the position after the last end of line that is not in a quoted field, 0 if there is none
+     */
+    private static int lastLineEnd(MappedByteBuffer buffer, int length) {
+        boolean quoted = false;
+        int end = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                quoted = !quoted;
+            } else if (!quoted) {
+                if (b == LF) {
+                    end = i + 1;
+                } else if (b == CR && i + 1 < length && buffer.get(i + 1) != LF) {
+                    end = i + 1;
+                }
+            }
+        }
+        return end;
+    }
+
+    private ParsedRange parseRange(long start, int length, boolean last) throws IOException {
+        byte[] bytes = new byte[length];
+        channel.map(MapMode.READ_ONLY, start, length).get(bytes);
+        return parse(bytes, last);
+    }
+
+    /**
+     * Parse the lines of a range like {@link CSVSaveService#csvReadFile(java.io.BufferedReader, char)}.
+     * The values are unquoted in place in the array.
+     */
+    private ParsedRange parse(byte[] b, boolean last) {
+        List<String[]> records = new ArrayList<>(b.length / 64 + 1);
+        List<String> fields = new ArrayList<>(expectedColumns);
+        char[] chars = new char[MAX_ASCII_VALUE_LENGTH];
+        int state = INITIAL;
+        int fieldStart = 0;
+        int w = 0;
+        boolean push = false;
+        int i = 0;
+        while (i < b.length) {
+            byte ch = b[i++];
+            push = false;
+            switch (state) {
+                case INITIAL:
+                    if (ch == QUOTE) {
+                        state = QUOTED;
+                    } else if (isDelimOrEOL(ch)) {
+                        push = true;
+                    } else {
+                        b[w++] = ch;
+                        state = PLAIN;
+                    }
+                    break;
+                case PLAIN:
+                    if (ch == QUOTE) {
+                        b[w++] = ch;
+                        return new ParsedRange(records, new IOException("Cannot have quote-char in plain field:["
+                                + new String(b, fieldStart, w - fieldStart, charset) + "]"), null);
+                    } else if (isDelimOrEOL(ch)) {
+                        push = true;
+                        state = INITIAL;
+                    } else {
+                        b[w++] = ch;
+                    }
+                    break;
+                case QUOTED:
+                    if (ch == QUOTE) {
+                        state = EMBEDDED_QUOTE;
+                    } else {
+                        b[w++] = ch;
+                    }
+                    break;
+                default: // EMBEDDED_QUOTE
+                    if (ch == QUOTE) {
+                        b[w++] = QUOTE; // doubled quote => quote
+                        state = QUOTED;
+                    } else if (isDelimOrEOL(ch)) {
+                        push = true;
+                        state = INITIAL;
+                    } else {
+                        b[w++] = QUOTE;
+                        return new ParsedRange(records, new IOException("Cannot have single quote-char in quoted field:["
+                                + new String(b, fieldStart, w - fieldStart, charset) + "]"), null);
+                    }
+                    break;
+            }
+            if (push) {
+                if (ch == CR && i < b.length && b[i] == LF) {
+                    i++; // Remove following \n
+                }
+                fields.add(decode(b, fieldStart, w - fieldStart, chars));
+                fieldStart = i;
+                w = i;
+            }
+            if ((ch == LF || ch == CR) && state != QUOTED) {
+                SampleException error = addRecord(records, fields);
+                if (error != null) {
+                    return new ParsedRange(records, null, error);
+                }
+                push = false;
+            }
+        }
+        if (last) {
+            if (state == QUOTED) {
+                return new ParsedRange(records, new IOException("Missing trailing quote-char in quoted field:[\""
+                        + new String(b, fieldStart, w - fieldStart, charset) + "]"), null);
+            }
+            // Do we have some data, or a trailing empty field?
+            if (w > fieldStart || push || state == EMBEDDED_QUOTE) {
+                fields.add(decode(b, fieldStart, w - fieldStart, chars));
+            }
+            if (!fields.isEmpty()) {
+                SampleException error = addRecord(records, fields);
+                if (error != null) {
+                    return new ParsedRange(records, null, error);
+                }
+            }
+        }
+        return new ParsedRange(records, null, null);
+    }
+
+    /**
+     * Decode a value, without a charset decoder when it is made of ASCII characters
+     */
+    private String decode(byte[] b, int start, int length, char[] chars) {
+        if (length > chars.length) {
+            return new String(b, start, length, charset);
+        }
+        for (int k = 0; k < length; k++) {
+            byte c = b[start + k];
+            if (c < 0) {
+                return new String(b, start, length, charset);
+            }
+            chars[k] = (char) c;
+        }
+        return new String(chars, 0, length);
+    }
+
+    private boolean isDelimOrEOL(byte ch) {
+        return ch == separator || ch == LF || ch == CR;
+    }
+
+    private SampleException addRecord(List<String[]> records, List<String> fields) {
+        String[] data = fields.toArray(new String[fields.size()]);
+        fields.clear();
+        if (data.length != expectedColumns) {
+            return CsvSampleReader.columnMismatch(columnCount, data.length);
+        }
+        records.add(data);
+        return null;
+    }
+
+    /**
+     * @return next sample from the file.
+     */
+    @Override
+    public Sample readSample() {
+        Sample out = lastSampleRead;
+        lastSampleRead = nextSample();
+        return out;
+    }
+
+    /**
+     * @return next sample from file but keep the reading file position.
+     */
+    @Override
+    public Sample peek() {
+        return lastSampleRead;
+    }
+
+    /**
+     * @return flag, that indicates whether the file contains more samples
+     */
+    @Override
+    public boolean hasNext() {
+        return lastSampleRead != null;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pending.clear();
+        JOrphanUtils.closeQuietly(channel);
+    }
+}
@@ -27,6 +27,12 @@ import org.apache.jmeter.util.JMeterUtils;
  * Getters with a string parameter are implemented for convenience but should be
  * avoided as they are inefficient
  * </p>
+ * <p>
+ * The numeric columns read by the typed getters (time stamp, elapsed time,
+ * latency...) are parsed once when the sample is built. A value that cannot be
+ * parsed is converted again when its getter is called, so that the getter
+ * fails as if the value had not been parsed before.
+ * </p>
  * 
  * @since 3.0
  */
@@ -38,11 +44,31 @@ public class Sample {
     
     private static final String EMPTY_CONTROLLER_PATTERN = "Number of samples in transaction : 0";
 
+    /** Value of the numeric columns that could not be parsed or are not in the metadata */
+    private static final long INVALID_LONG = Long.MIN_VALUE;
+
+    /** Value of the int columns that could not be parsed or are not in the metadata */
+    private static final int INVALID_INT = Integer.MIN_VALUE;
+
+    /** Longest number of digits that cannot overflow a long */
+    private static final int MAX_SAFE_DIGITS = 18;
+
     private final boolean storesStartTimeStamp;
     private final SampleMetadata metadata;
     private final String[] data;
     private final long row;
 
+    // Numeric columns parsed when the sample is built
+    private final long timestamp;
+    private final long elapsedTime;
+    private final long latency;
+    private final long connectTime;
+    private final long correctedTime;
+    private final long receivedBytes;
+    private final long sentBytes;
+    private final int groupThreads;
+    private final int allThreads;
+
     /**
      * Build a sample from a string array
      * 
@@ -55,10 +81,133 @@ public class Sample {
      *            The sample data as a string array
      */
     public Sample(long row, SampleMetadata metadata, String... data) {
+        this(row, metadata, storesStartTimeStamp(), data);
+    }
+
+    /**
+     * Build a sample from a string array, for readers that build many samples
+     * and read the <code>sampleresult.timestamp.start</code> property once
+     *
+     * @param row
+     *            the row number in the CSV source from which this sample is
+     *            built
+     * @param metadata
+     *            The sample metadata (contains column names)
+     * @param storesStartTimeStamp
+     *            the value of {@link #storesStartTimeStamp()}
+     * @param data
+     *            The sample data as a string array
+     */
+    Sample(long row, SampleMetadata metadata, boolean storesStartTimeStamp, String[] data) {
+        this(row, metadata, storesStartTimeStamp, data, null);
+    }
+
+    /**
+     * Build a sample from a string array, sharing the values of the columns
+     * repeated in many samples with the other samples of a reader
+     *
+     * @param row
+     *            the row number in the CSV source from which this sample is
+     *            built
+     * @param metadata
+     *            The sample metadata (contains column names)
+     * @param storesStartTimeStamp
+     *            the value of {@link #storesStartTimeStamp()}
+     * @param data
+     *            The sample data as a string array, whose repeated values are
+     *            replaced by the ones of the dictionary
+     * @param dictionary
+     *            the dictionary of the reader, may be null
+     */
+    Sample(long row, SampleMetadata metadata, boolean storesStartTimeStamp, String[] data,
+            StringDictionary dictionary) {
         this.row = row;
         this.metadata = metadata;
         this.data = data;
-        this.storesStartTimeStamp = JMeterUtils.getPropDefault("sampleresult.timestamp.start", false);
+        this.storesStartTimeStamp = storesStartTimeStamp;
+        if (dictionary != null) {
+            dictionary.intern(data, metadata.labelIndex);
+            dictionary.intern(data, metadata.responseCodeIndex);
+            dictionary.intern(data, metadata.responseMessageIndex);
+            dictionary.intern(data, metadata.threadNameIndex);
+            dictionary.intern(data, metadata.successIndex);
+        }
+        timestamp = parseLong(metadata.timestampIndex);
+        elapsedTime = parseLong(metadata.elapsedIndex);
+        latency = parseLong(metadata.latencyIndex);
+        connectTime = parseLong(metadata.connectTimeIndex);
+        correctedTime = parseLong(metadata.correctedTimeIndex);
+        receivedBytes = parseLong(metadata.bytesIndex);
+        sentBytes = parseLong(metadata.sentBytesIndex);
+        groupThreads = parseInt(metadata.groupThreadsIndex);
+        allThreads = parseInt(metadata.allThreadsIndex);
+    }
+
+    private long parseLong(int index) {
+        return index >= 0 && index < data.length ? parseLong(data[index]) : INVALID_LONG;
+    }
+
+    private int parseInt(int index) {
+        long value = parseLong(index);
+        return value > Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int) value : INVALID_INT;
+    }
+
+    /**
+     * Parses a long the same way as {@link Converters}, without throwing an
+     * exception when the value is invalid.
+     *
+     * @param value
+     *            the value to parse, may be null
+     * @return the parsed value, or {@link #INVALID_LONG} if it cannot be parsed
+     */
+    static long parseLong(String value) {
+        if (value == null) {
+            return INVALID_LONG;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (value.charAt(start) == '-' || value.charAt(start) == '+')) {
+            negative = value.charAt(start) == '-';
+            start++;
+        }
+        if (start == end) {
+            return INVALID_LONG;
+        }
+        if (end - start > MAX_SAFE_DIGITS) {
+            return parseLongSlowly(value);
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                // Long.parseLong also accepts non ASCII digits
+                return c > 127 ? parseLongSlowly(value) : INVALID_LONG;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    private static long parseLongSlowly(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return INVALID_LONG;
+        }
+    }
+
+    /**
+     * @return true if the timestamps of the samples are their start times
+     */
+    static boolean storesStartTimeStamp() {
+        return JMeterUtils.getPropDefault("sampleresult.timestamp.start", false);
     }
 
     /**
@@ -91,6 +240,21 @@ public class Sample {
         return data[metadata.ensureIndexOf(name)];
     }
 
+    /**
+     * Gets the data of a column whose index is resolved by the metadata
+     *
+     * @param index
+     *            the rank of the column, negative if it is not in the metadata
+     * @param name
+     *            the name of the column
+     * @return the data of the column
+     * @throws SampleException
+     *             if the column is not in the metadata
+     */
+    private String getData(int index, String name) {
+        return index >= 0 ? data[index] : getData(name);
+    }
+
     /**
      * Gets the data of the column matching the specified rank and converts it
      * to an alternative type.
@@ -148,6 +312,9 @@ public class Sample {
      * @return the time stamp
      */
     public long getTimestamp() {
+        if (timestamp != INVALID_LONG) {
+            return timestamp;
+        }
         return getData(long.class, CSVSaveService.TIME_STAMP).longValue();
     }
 
@@ -157,6 +324,9 @@ public class Sample {
      * @return the elapsed time stored in the sample
      */
     public long getElapsedTime() {
+        if (elapsedTime != INVALID_LONG) {
+            return elapsedTime;
+        }
         return getData(long.class, CSVSaveService.CSV_ELAPSED).longValue();
     }
 
@@ -206,7 +376,7 @@ public class Sample {
      * @return the response code stored in the sample
      */
     public String getResponseCode() {
-        return getData(CSVSaveService.RESPONSE_CODE);
+        return getData(metadata.responseCodeIndex, CSVSaveService.RESPONSE_CODE);
     }
 
     /**
@@ -215,7 +385,7 @@ public class Sample {
      * @return the failure message stored in the sample
      */
     public String getFailureMessage() {
-        return getData(CSVSaveService.FAILURE_MESSAGE);
+        return getData(metadata.failureMessageIndex, CSVSaveService.FAILURE_MESSAGE);
     }
 
     /**
@@ -224,7 +394,7 @@ public class Sample {
      * @return the name stored in the sample
      */
     public String getName() {
-        return getData(CSVSaveService.LABEL);
+        return getData(metadata.labelIndex, CSVSaveService.LABEL);
     }
 
     /**
@@ -233,7 +403,7 @@ public class Sample {
      * @return the response message stored in the sample
      */
     public String getResponseMessage() {
-        return getData(CSVSaveService.RESPONSE_MESSAGE);
+        return getData(metadata.responseMessageIndex, CSVSaveService.RESPONSE_MESSAGE);
     }
 
     /**
@@ -242,6 +412,9 @@ public class Sample {
      * @return the latency stored in the sample
      */
     public long getLatency() {
+        if (latency != INVALID_LONG) {
+            return latency;
+        }
         return getData(long.class, CSVSaveService.CSV_LATENCY).longValue();
     }
     
@@ -251,10 +424,38 @@ public class Sample {
      * @return the connect time stored in the sample or 0 is column is not in results
      */
     public long getConnectTime() {
-        if(metadata.indexOf(CSVSaveService.CSV_CONNECT_TIME) >= 0) {
+        if (metadata.connectTimeIndex < 0) {
+            return 0L;
+        } else if (connectTime != INVALID_LONG) {
+            return connectTime;
+        } else {
             return getData(long.class, CSVSaveService.CSV_CONNECT_TIME).longValue();
+        }
+    }
+
+    /**
+     * Tells whether the results contain the response time corrected for coordinated omission
+     *
+     * @return true if the corrected response time column is in results
+     * @since 5.2
+     */
+    public boolean hasCorrectedTime() {
+        return metadata.correctedTimeIndex >= 0;
+    }
+
+    /**
+     * Gets the response time corrected for coordinated omission stored in the sample.
+     *
+     * @return the corrected response time stored in the sample or the elapsed time if column is not in results
+     * @since 5.2
+     */
+    public long getCorrectedTime() {
+        if (correctedTime != INVALID_LONG) {
+            return correctedTime;
+        } else if (hasCorrectedTime()) {
+            return getData(long.class, CSVSaveService.CSV_CORRECTED_TIME).longValue();
         } else {
-            return 0L;
+            return getElapsedTime();
         }
     }
 
@@ -264,7 +465,7 @@ public class Sample {
      * @return the success status stored in the sample
      */
     public boolean getSuccess() {
-        return getData(boolean.class, CSVSaveService.SUCCESSFUL).booleanValue();
+        return Boolean.parseBoolean(getData(metadata.successIndex, CSVSaveService.SUCCESSFUL));
     }
 
     /**
@@ -273,6 +474,9 @@ public class Sample {
      * @return the number of received bytes stored in the sample
      */
     public long getReceivedBytes() {
+        if (receivedBytes != INVALID_LONG) {
+            return receivedBytes;
+        }
         return getData(long.class, CSVSaveService.CSV_BYTES).longValue();
     }
 
@@ -282,10 +486,12 @@ public class Sample {
      * @return the number of sent bytes stored in the sample
      */
     public long getSentBytes() {
-        if(metadata.indexOf(CSVSaveService.CSV_SENT_BYTES) >= 0) {
-            return getData(long.class, CSVSaveService.CSV_SENT_BYTES).longValue();
-        } else {
+        if (metadata.sentBytesIndex < 0) {
             return 0L;
+        } else if (sentBytes != INVALID_LONG) {
+            return sentBytes;
+        } else {
+            return getData(long.class, CSVSaveService.CSV_SENT_BYTES).longValue();
         }
     }
 
@@ -295,6 +501,9 @@ public class Sample {
      * @return the number of threads in the group of this sample
      */
     public int getGroupThreads() {
+        if (groupThreads != INVALID_INT) {
+            return groupThreads;
+        }
         return getData(int.class, CSVSaveService.CSV_THREAD_COUNT1).intValue();
     }
 
@@ -304,6 +513,9 @@ public class Sample {
      * @return the overall number of threads
      */
     public int getAllThreads() {
+        if (allThreads != INVALID_INT) {
+            return allThreads;
+        }
         return getData(int.class, CSVSaveService.CSV_THREAD_COUNT2).intValue();
     }
 
@@ -313,7 +525,7 @@ public class Sample {
      * @return the thread name stored in the sample
      */
     public String getThreadName() {
-        return getData(CSVSaveService.THREAD_NAME);
+        return getData(metadata.threadNameIndex, CSVSaveService.THREAD_NAME);
     }
 
     /**
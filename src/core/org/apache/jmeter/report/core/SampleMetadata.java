@@ -50,6 +50,23 @@ public class SampleMetadata {
     /** character separator used for separating columns */
     private char separator;
 
+    // Indexes of the columns read by the getters of Sample, -1 if not in metadata
+    int timestampIndex;
+    int elapsedIndex;
+    int labelIndex;
+    int responseCodeIndex;
+    int responseMessageIndex;
+    int threadNameIndex;
+    int successIndex;
+    int failureMessageIndex;
+    int bytesIndex;
+    int sentBytesIndex;
+    int groupThreadsIndex;
+    int allThreadsIndex;
+    int latencyIndex;
+    int connectTimeIndex;
+    int correctedTimeIndex;
+
     /**
      * Builds metadata from separator character and a list of column names
      * 
@@ -144,6 +161,21 @@ public class SampleMetadata {
         for (int i = 0; i < size; i++) {
             index.put(this.columns.get(i).trim(), Integer.valueOf(i));
         }
+        timestampIndex = indexOf(CSVSaveService.TIME_STAMP);
+        elapsedIndex = indexOf(CSVSaveService.CSV_ELAPSED);
+        labelIndex = indexOf(CSVSaveService.LABEL);
+        responseCodeIndex = indexOf(CSVSaveService.RESPONSE_CODE);
+        responseMessageIndex = indexOf(CSVSaveService.RESPONSE_MESSAGE);
+        threadNameIndex = indexOf(CSVSaveService.THREAD_NAME);
+        successIndex = indexOf(CSVSaveService.SUCCESSFUL);
+        failureMessageIndex = indexOf(CSVSaveService.FAILURE_MESSAGE);
+        bytesIndex = indexOf(CSVSaveService.CSV_BYTES);
+        sentBytesIndex = indexOf(CSVSaveService.CSV_SENT_BYTES);
+        groupThreadsIndex = indexOf(CSVSaveService.CSV_THREAD_COUNT1);
+        allThreadsIndex = indexOf(CSVSaveService.CSV_THREAD_COUNT2);
+        latencyIndex = indexOf(CSVSaveService.CSV_LATENCY);
+        connectTimeIndex = indexOf(CSVSaveService.CSV_CONNECT_TIME);
+        correctedTimeIndex = indexOf(CSVSaveService.CSV_CORRECTED_TIME);
     }
 
     /**
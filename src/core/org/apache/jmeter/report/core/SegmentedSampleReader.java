@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.core;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.jmeter.save.ResultFileSegments;
+
+/**
+ * Reads the segments of a result file one after the other, as a single result file.
+ * <p>
+ * Segments are opened one at a time, when the previous one is read. They must all
+ * have the same columns.
+ *
+ * @see ResultFileSegments
+ * @since 5.2
+ */
+public class SegmentedSampleReader implements SampleReader {
+
+    private final List<File> segments;
+    private final Function<File, SampleReader> readerFactory;
+    private final SampleMetadata metadata;
+    private int index;
+    private SampleReader current;
+
+    /**
+     * Instantiates a new segmented sample reader.
+     *
+     * @param segments      the segments, in the order they were written (must not be empty)
+     * @param readerFactory creates the reader of a segment
+     */
+    public SegmentedSampleReader(List<File> segments, Function<File, SampleReader> readerFactory) {
+        Validate.notEmpty(segments, "segments must not be empty");
+        this.segments = segments;
+        this.readerFactory = readerFactory;
+        this.current = readerFactory.apply(segments.get(0));
+        this.metadata = current.getMetadata();
+        skipReadSegments();
+    }
+
+    /**
+     * Move to the next segment that has samples, if the current one is read
+     */
+    private void skipReadSegments() {
+        while (!current.hasNext() && index < segments.size() - 1) {
+            current.close();
+            index++;
+            current = readerFactory.apply(segments.get(index));
+            if (!metadata.toString().equals(current.getMetadata().toString())) {
+                String message = "Columns of " + segments.get(index) + " differ from the ones of "
+                        + segments.get(0) + ": " + current.getMetadata() + " instead of " + metadata;
+                current.close();
+                throw new SampleException(message);
+            }
+        }
+    }
+
+    @Override
+    public SampleMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public Sample readSample() {
+        Sample sample = current.readSample();
+        skipReadSegments();
+        return sample;
+    }
+
+    @Override
+    public Sample peek() {
+        return current.peek();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return current.hasNext();
+    }
+
+    @Override
+    public void close() {
+        current.close();
+    }
+}
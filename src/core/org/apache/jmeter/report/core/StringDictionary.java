@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary used by a sample reader to share a single instance of the values
+ * repeated in many samples (labels, response codes...), so that they are
+ * stored once and are compared by reference when used as keys by the
+ * consumers.
+ * <p>
+ * The dictionary stops growing when it holds {@value #MAX_SIZE} values, as
+ * columns like response messages can hold distinct values. It is not
+ * threadsafe.
+ *
+ * @since 5.2
+ */
+final class StringDictionary {
+
+    private static final int MAX_SIZE = 10000;
+
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * @param value
+     *            the value to look up, may be null
+     * @return the instance of the dictionary equal to value, or value if there
+     *         is none
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = values.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (values.size() < MAX_SIZE) {
+            values.put(value, value);
+        }
+        return value;
+    }
+
+    /**
+     * Replace the value of a column by its shared instance
+     *
+     * @param data
+     *            the values of the columns of a sample
+     * @param index
+     *            the index of the column, ignored if negative
+     */
+    void intern(String[] data, int index) {
+        if (index >= 0 && index < data.length) {
+            data[index] = intern(data[index]);
+        }
+    }
+}
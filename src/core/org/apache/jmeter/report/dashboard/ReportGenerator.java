@@ -22,6 +22,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Matcher;
@@ -51,11 +54,13 @@ import org.apache.jmeter.report.processor.RequestsSummaryConsumer;
 import org.apache.jmeter.report.processor.SampleConsumer;
 import org.apache.jmeter.report.processor.SampleContext;
 import org.apache.jmeter.report.processor.SampleSource;
+import org.apache.jmeter.report.processor.ShardedSampleConsumer;
 import org.apache.jmeter.report.processor.StatisticsSummaryConsumer;
 import org.apache.jmeter.report.processor.Top5ErrorsBySamplerConsumer;
 import org.apache.jmeter.report.processor.graph.AbstractGraphConsumer;
 import org.apache.jmeter.reporters.ResultCollector;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.ResultFileSegments;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.oro.text.regex.PatternMatcher;
 import org.slf4j.Logger;
@@ -72,9 +77,12 @@ public class ReportGenerator {
 
     private static final Logger log = LoggerFactory.getLogger(ReportGenerator.class);
 
-    private static final boolean CSV_OUTPUT_FORMAT = "csv"
-            .equalsIgnoreCase(JMeterUtils.getPropDefault(
-                    "jmeter.save.saveservice.output_format", "csv"));
+    private static final String OUTPUT_FORMAT = JMeterUtils.getPropDefault(
+            "jmeter.save.saveservice.output_format", "csv");
+
+    // The binary format holds the same columns as the csv format
+    private static final boolean CSV_OUTPUT_FORMAT = "csv".equalsIgnoreCase(OUTPUT_FORMAT)
+            || "binary".equalsIgnoreCase(OUTPUT_FORMAT);
 
     private static final char CSV_DEFAULT_SEPARATOR =
             // We cannot use JMeterUtils#getPropDefault as it applies a trim on value
@@ -99,6 +107,7 @@ public class ReportGenerator {
     public static final String STATISTICS_SUMMARY_CONSUMER_NAME = "statisticsSummary";
     public static final String TOP5_ERRORS_BY_SAMPLER_CONSUMER_NAME = "top5ErrorsBySampler";
     public static final String START_INTERVAL_CONTROLLER_FILTER_CONSUMER_NAME = "startIntervalControlerFilter";
+    public static final String SHARDED_CONSUMER_NAME = "shardedConsumer";
 
     private static final Pattern POTENTIAL_CAMEL_CASE_PATTERN = Pattern.compile("_(.)");
 
@@ -123,14 +132,22 @@ public class ReportGenerator {
             throws ConfigurationException {
         if (!CSV_OUTPUT_FORMAT) {
             throw new IllegalArgumentException(
-                    "Report generation requires csv output format, check 'jmeter.save.saveservice.output_format' property");
+                    "Report generation requires csv or binary output format, check 'jmeter.save.saveservice.output_format' property");
         }
 
         log.info("ReportGenerator will use for Parsing the separator: '{}'", CSV_DEFAULT_SEPARATOR);
 
         File file = new File(resultsFile);
         if (resultCollector == null) {
-            if (!(file.isFile() && file.canRead())) {
+            // The results can be the segments of a rolled over file, or the files matched by a glob pattern
+            List<File> files;
+            try {
+                files = ResultFileSegments.resolve(file);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(String.format(
+                        "Cannot read the segments of test results file : %s", file), e);
+            }
+            if (files.stream().noneMatch(f -> f.isFile() && f.canRead())) {
                 throw new IllegalArgumentException(String.format(
                         "Cannot read test results file : %s", file));
             }
@@ -218,27 +235,25 @@ public class ReportGenerator {
         dateRangeConsumer.addSampleConsumer(createBeginDateConsumer());
         dateRangeConsumer.addSampleConsumer(createEndDateConsumer());
 
-        FilterConsumer nameFilter = createNameFilter();
-
-        FilterConsumer excludeControllerFilter = createExcludeControllerFilter();
-
-        nameFilter.addSampleConsumer(excludeControllerFilter);
-
-        dateRangeConsumer.addSampleConsumer(nameFilter);
-        
-        normalizer.addSampleConsumer(dateRangeConsumer);
-        
-        source.addSampleConsumer(normalizer);
-
         // Get graph configurations
         Map<String, GraphConfiguration> graphConfigurations = configuration
                 .getGraphConfigurations();
 
-        // Process configuration to build graph consumers
-        for (Map.Entry<String, GraphConfiguration> entryGraphCfg : graphConfigurations.entrySet()) {
-            addGraphConsumer(nameFilter, excludeControllerFilter, entryGraphCfg);
+        int consumerThreads = configuration.getConsumerThreads() > 0
+                ? configuration.getConsumerThreads()
+                : Runtime.getRuntime().availableProcessors();
+        if (consumerThreads > 1) {
+            dateRangeConsumer.addSampleConsumer(
+                    createShardedConsumer(consumerThreads, graphConfigurations));
+        } else {
+            dateRangeConsumer.addSampleConsumer(
+                    createNameFilterChain(graphConfigurations, true));
         }
 
+        normalizer.addSampleConsumer(dateRangeConsumer);
+        
+        source.addSampleConsumer(normalizer);
+
         // Generate data
         log.debug("Start samples processing");
         try {
@@ -323,10 +338,92 @@ public class ReportGenerator {
         return tmpDirCreated;
     }
 
+    /**
+     * Creates the name filter with the summary and graph consumers
+     *
+     * @param graphConfigurations
+     *            the graphs to generate
+     * @param withSummaries
+     *            true to add the summary consumers
+     * @return the name filter
+     * @throws GenerationException
+     *             when a graph consumer cannot be created
+     */
+    private FilterConsumer createNameFilterChain(
+            Map<String, GraphConfiguration> graphConfigurations,
+            boolean withSummaries) throws GenerationException {
+        FilterConsumer nameFilter = createNameFilter();
+        FilterConsumer excludeControllerFilter = createExcludeControllerFilter();
+        if (withSummaries) {
+            nameFilter.addSampleConsumer(createApdexSummaryConsumer());
+            nameFilter.addSampleConsumer(createRequestsSummaryConsumer());
+            nameFilter.addSampleConsumer(createStatisticsSummaryConsumer());
+            nameFilter.addSampleConsumer(createTop5ErrorsConsumer(configuration));
+            excludeControllerFilter.addSampleConsumer(createErrorsSummaryConsumer());
+        }
+        nameFilter.addSampleConsumer(excludeControllerFilter);
+
+        // Process configuration to build graph consumers
+        for (Map.Entry<String, GraphConfiguration> entryGraphCfg : graphConfigurations.entrySet()) {
+            addGraphConsumer(nameFilter, excludeControllerFilter, entryGraphCfg);
+        }
+        return nameFilter;
+    }
+
+    /**
+     * Creates a consumer running copies of the name filter chain on several
+     * threads. The graphs that cannot be merged are generated by the calling
+     * thread.
+     *
+     * @param consumerThreads
+     *            the number of threads
+     * @param graphConfigurations
+     *            the graphs to generate
+     * @return the sharded consumer
+     * @throws GenerationException
+     *             when a graph consumer cannot be created
+     */
+    private ShardedSampleConsumer createShardedConsumer(int consumerThreads,
+            Map<String, GraphConfiguration> graphConfigurations)
+            throws GenerationException {
+        Map<String, GraphConfiguration> mergeableGraphs = new LinkedHashMap<>();
+        Map<String, GraphConfiguration> sequentialGraphs = new LinkedHashMap<>();
+        for (Map.Entry<String, GraphConfiguration> entryGraphCfg : graphConfigurations.entrySet()) {
+            if (createGraphConsumer(entryGraphCfg).canMerge()) {
+                mergeableGraphs.put(entryGraphCfg.getKey(), entryGraphCfg.getValue());
+            } else {
+                sequentialGraphs.put(entryGraphCfg.getKey(), entryGraphCfg.getValue());
+            }
+        }
+        List<FilterConsumer> shards = new ArrayList<>(consumerThreads);
+        for (int i = 0; i < consumerThreads; i++) {
+            shards.add(createNameFilterChain(mergeableGraphs, true));
+        }
+        ShardedSampleConsumer shardedConsumer = new ShardedSampleConsumer(shards);
+        shardedConsumer.setName(SHARDED_CONSUMER_NAME);
+        if (!sequentialGraphs.isEmpty()) {
+            log.info("Samples are consumed by {} threads, except for graphs {} which cannot be merged",
+                    consumerThreads, sequentialGraphs.keySet());
+            shardedConsumer.addSampleConsumer(createNameFilterChain(sequentialGraphs, false));
+        }
+        return shardedConsumer;
+    }
+
     private void addGraphConsumer(FilterConsumer nameFilter,
             FilterConsumer excludeControllerFilter,
             Map.Entry<String, GraphConfiguration> entryGraphCfg)
             throws GenerationException {
+        AbstractGraphConsumer graph = createGraphConsumer(entryGraphCfg);
+        // Choose which entry point to use to plug the graph
+        AbstractSampleConsumer entryPoint = entryGraphCfg.getValue()
+                .excludesControllers() ? excludeControllerFilter
+                : nameFilter;
+        entryPoint.addSampleConsumer(graph);
+    }
+
+    private AbstractGraphConsumer createGraphConsumer(
+            Map.Entry<String, GraphConfiguration> entryGraphCfg)
+            throws GenerationException {
         String graphName = entryGraphCfg.getKey();
         GraphConfiguration graphConfiguration = entryGraphCfg.getValue();
 
@@ -353,12 +450,7 @@ public class ReportGenerator {
                         propertyValue, setterName);
             }
             graph.initialize(); 
-
-            // Choose which entry point to use to plug the graph
-            AbstractSampleConsumer entryPoint = graphConfiguration
-                    .excludesControllers() ? excludeControllerFilter
-                    : nameFilter;
-            entryPoint.addSampleConsumer(graph);
+            return graph;
         } catch (ClassCastException | IllegalArgumentException |  ReflectiveOperationException | SecurityException ex) {
             String error = String.format(INVALID_CLASS_FMT, className);
             log.error(error, ex);
@@ -401,7 +493,6 @@ public class ReportGenerator {
         excludeControllerFilter
                 .setSamplePredicate(new ControllerSamplePredicate());
         excludeControllerFilter.setReverseFilter(true);
-        excludeControllerFilter.addSampleConsumer(createErrorsSummaryConsumer());
         return excludeControllerFilter;
     }
 
@@ -475,10 +566,6 @@ public class ReportGenerator {
                 return filteredSamplesPattern == null 
                         || filteredSamplesPattern.matcher(sample.getName()).matches();
         });
-        nameFilter.addSampleConsumer(createApdexSummaryConsumer());
-        nameFilter.addSampleConsumer(createRequestsSummaryConsumer());
-        nameFilter.addSampleConsumer(createStatisticsSummaryConsumer());
-        nameFilter.addSampleConsumer(createTop5ErrorsConsumer(configuration));
         return nameFilter;
     }
 
@@ -31,7 +31,7 @@ import org.apache.jmeter.report.core.Sample;
  * @since 3.0
  */
 public abstract class AbstractSummaryConsumer<TData> extends
-        AbstractSampleConsumer {
+        AbstractSampleConsumer implements MergeableSampleConsumer {
 
     /**
      * The class SummaryInfo stores intermediate results.
@@ -189,6 +189,57 @@ public abstract class AbstractSummaryConsumer<TData> extends
      */
     protected abstract void updateData(SummaryInfo info, Sample sample);
 
+    /**
+     * Merges the data of the same key of another consumer, consumers whose data
+     * can be merged override this method and {@link #canMerge()}.
+     *
+     * @param data
+     *            the data of the current consumer
+     * @param otherData
+     *            the data of the other consumer
+     * @return the merged data
+     * @since 5.2
+     */
+    protected TData mergeData(TData data, TData otherData) {
+        throw new UnsupportedOperationException(getClass().getName() + " cannot be merged");
+    }
+
+    /**
+     * @return false, consumers whose data can be merged override
+     *         {@link #mergeData(Object, Object)} and this method
+     */
+    @Override
+    public boolean canMerge() {
+        return false;
+    }
+
+    @Override
+    public void merge(MergeableSampleConsumer other) {
+        @SuppressWarnings("unchecked")
+        AbstractSummaryConsumer<TData> consumer = (AbstractSummaryConsumer<TData>) other;
+        for (Map.Entry<String, SummaryInfo> entry : consumer.infos.entrySet()) {
+            SummaryInfo otherInfo = entry.getValue();
+            SummaryInfo info = infos.get(entry.getKey());
+            if (info == null) {
+                info = new SummaryInfo(otherInfo.isController());
+                infos.put(entry.getKey(), info);
+            }
+            mergeInfo(info, otherInfo);
+        }
+        mergeInfo(overallInfo, consumer.overallInfo);
+    }
+
+    private void mergeInfo(SummaryInfo info, SummaryInfo otherInfo) {
+        if (otherInfo.getData() == null) {
+            return;
+        }
+        if (info.getData() == null) {
+            info.setData(otherInfo.getData());
+        } else {
+            info.setData(mergeData(info.getData(), otherInfo.getData()));
+        }
+    }
+
     private MapResultData createResultFromKey(String key) {
         SummaryInfo info = (key == null) ? overallInfo : infos.get(key);
         MapResultData result = null;
@@ -78,4 +78,16 @@ public class ApdexSummaryData {
     public void incTotalCount() {
         totalCount++;
     }
+
+    /**
+     * Adds the counts of other data, computed with the same thresholds
+     *
+     * @param other the data to add
+     * @since 5.2
+     */
+    public void merge(ApdexSummaryData other) {
+        satisfiedCount += other.satisfiedCount;
+        toleratedCount += other.toleratedCount;
+        totalCount += other.totalCount;
+    }
 }
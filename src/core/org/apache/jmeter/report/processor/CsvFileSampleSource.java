@@ -18,17 +18,25 @@
 package org.apache.jmeter.report.processor;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.jmeter.report.core.BinarySampleReader;
 import org.apache.jmeter.report.core.CsvSampleReader;
+import org.apache.jmeter.report.core.MappedCsvSampleReader;
 import org.apache.jmeter.report.core.Sample;
 import org.apache.jmeter.report.core.SampleException;
 import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.report.core.SampleReader;
+import org.apache.jmeter.report.core.SegmentedSampleReader;
 import org.apache.jmeter.report.core.TimeHelper;
+import org.apache.jmeter.save.BinaryResultReader;
+import org.apache.jmeter.save.ResultFileSegments;
+import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +66,11 @@ import org.slf4j.LoggerFactory;
  * <li>If the input file is named <code>results.csv</code> then it will
  * be produced on the channel 0.</li>
  * </ul>
+ * Files written in the binary format (see {@link BinaryResultReader}) are read
+ * as well as CSV files.<br>
+ * A result file that was rolled over is read with its segments (see {@link ResultFileSegments}),
+ * in the order they were written. The source file name can also be a glob pattern
+ * (e.g. <code>results-*.csv</code>), the matching files are then read as a single input.
  *
  * @since 3.0
  */
@@ -68,11 +81,19 @@ public class CsvFileSampleSource extends AbstractSampleSource {
 
     private static final Logger LOG = LoggerFactory.getLogger(CsvFileSampleSource.class);
 
+    /** Parse the CSV files in parallel from memory mapped files */
+    private static final boolean MAPPED_READER = JMeterUtils.getPropDefault(
+            "jmeter.reportgenerator.csv_reader.mapped", true); // $NON-NLS-1$
+
+    /** Number of threads parsing each CSV file, 0 to use all the processors but one */
+    private static final int READER_THREADS = JMeterUtils.getPropDefault(
+            "jmeter.reportgenerator.csv_reader.threads", 0); // $NON-NLS-1$
+
     /** input csv files to be produced */
     private File[] inputFiles;
 
-    /** csv readers corresponding to the input files */
-    private CsvSampleReader[] csvReaders;
+    /** csv or binary readers corresponding to the input files */
+    private SampleReader[] csvReaders;
 
     /** mock producer to produce samples to its consumers */
     private PrivateProducer producer;
@@ -91,14 +112,18 @@ public class CsvFileSampleSource extends AbstractSampleSource {
         final String inputRootName = getFileRootName(inputFile.getName());
         final String inputExtension = getFileExtension(inputFile.getName());
 
-        // Find secondary inputs by regex match
+        // Find secondary inputs by regex match, a glob pattern already matches all the inputs
         File[] secondaryInputs = null;
         try {
-            final Pattern pattern = Pattern.compile(inputRootName
-                    + "-[0-9]+\\." + inputExtension);
-            secondaryInputs = inputFile.getAbsoluteFile().getParentFile()
-                    .listFiles(pathname -> pathname.isFile()
-                            && pattern.matcher(pathname.getName()).matches());
+            if (ResultFileSegments.isGlob(inputFile.getName())) {
+                secondaryInputs = new File[0];
+            } else {
+                final Pattern pattern = Pattern.compile(inputRootName
+                        + "-[0-9]+\\." + inputExtension);
+                secondaryInputs = inputFile.getAbsoluteFile().getParentFile()
+                        .listFiles(pathname -> pathname.isFile()
+                                && pattern.matcher(pathname.getName()).matches());
+            }
         } catch (PatternSyntaxException e) {
             throw new SampleException("Could not locate input sample files !",
                     e);
@@ -107,20 +132,51 @@ public class CsvFileSampleSource extends AbstractSampleSource {
             secondaryInputs = new File[0];
         }
         inputFiles = new File[secondaryInputs.length + 1];
-        csvReaders = new CsvSampleReader[secondaryInputs.length + 1];
+        csvReaders = new SampleReader[secondaryInputs.length + 1];
         int k = 0;
         // primary input file (ex. input.csv)
-        csvReaders[k] = new CsvSampleReader(inputFile, separator, true);
+        csvReaders[k] = createReader(inputFile, separator);
         inputFiles[k] = inputFile;
         // secondary input files (ex. input-1.csv, input-2.csv, input-3.csv)
         for (File input : secondaryInputs) {
             k++;
-            csvReaders[k] = new CsvSampleReader(input, separator, true);
+            csvReaders[k] = createReader(input, separator);
             inputFiles[k] = secondaryInputs[k - 1];
         }
         producer = new PrivateProducer();
     }
 
+    private static SampleReader createReader(File input, char separator) {
+        List<File> segments;
+        try {
+            segments = ResultFileSegments.resolve(input);
+        } catch (IOException e) {
+            throw new SampleException("Could not read the segments of " + input, e);
+        }
+        if (segments.isEmpty()) {
+            throw new SampleException("No file matches " + input);
+        }
+        if (segments.size() == 1) {
+            return createSegmentReader(segments.get(0), separator);
+        }
+        LOG.info("Reading {} as {} segments: {}", input, segments.size(), segments);
+        return new SegmentedSampleReader(segments, segment -> createSegmentReader(segment, separator));
+    }
+
+    private static SampleReader createSegmentReader(File input, char separator) {
+        if (BinaryResultReader.isBinaryResultFile(input)) {
+            return new BinarySampleReader(input);
+        }
+        if (MAPPED_READER && !ResultFileSegments.isCompressed(input)
+                && MappedCsvSampleReader.canRead(separator)) {
+            int threads = READER_THREADS > 0
+                    ? READER_THREADS
+                    : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            return new MappedCsvSampleReader(input, separator, true, threads);
+        }
+        return new CsvSampleReader(input, separator, true);
+    }
+
     private static String getFileRootName(String fName) {
         int idx = fName.lastIndexOf('.');
         if (idx < 0) {
@@ -169,7 +225,7 @@ public class CsvFileSampleSource extends AbstractSampleSource {
         for (int i = 0; i < csvReaders.length; i++) {
             long sampleCount = 0;
             long start = now();
-            CsvSampleReader csvReader = csvReaders[i];
+            SampleReader csvReader = csvReaders[i];
             producer.setSampleContext(context);
             producer.setProducedMetadata(csvReader.getMetadata(), i);
             producer.setChannelAttribute(i, SOURCE_FILE_ATTRIBUTE,
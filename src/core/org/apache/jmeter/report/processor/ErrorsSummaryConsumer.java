@@ -146,6 +146,22 @@ public class ErrorsSummaryConsumer extends AbstractSummaryConsumer<Long> {
         errorCount = 0L;
     }
 
+    @Override
+    public boolean canMerge() {
+        return true;
+    }
+
+    @Override
+    public void merge(MergeableSampleConsumer other) {
+        super.merge(other);
+        errorCount += ((ErrorsSummaryConsumer) other).errorCount;
+    }
+
+    @Override
+    protected Long mergeData(Long data, Long otherData) {
+        return Long.valueOf(data.longValue() + otherData.longValue());
+    }
+
     /*
      * (non-Javadoc)
      * 
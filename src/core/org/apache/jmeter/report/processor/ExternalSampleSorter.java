@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.PriorityQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -38,6 +39,7 @@ import org.apache.jmeter.report.core.Sample;
 import org.apache.jmeter.report.core.SampleComparator;
 import org.apache.jmeter.report.core.SampleException;
 import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.save.CSVSaveService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,6 +75,16 @@ import org.slf4j.LoggerFactory;
  * allocation (samples sizes are not predictable)
  * </p>
  * <p>
+ * As result files are usually almost ordered by time stamp, the consumed
+ * samples are first kept in a buffer ordered by the {@link SampleComparator}
+ * until their time stamp is more than <b><code>maxLateness</code></b>
+ * milliseconds older than the latest one, and then appended to a single
+ * sorted file. Only the samples that come too late to be appended to this file
+ * are sorted by chunks, which are merged with it. So ordered samples are
+ * written and read once. The disorder measured while consuming samples is
+ * logged, see {@link #getMaxDisorder()}.
+ * </p>
+ * <p>
  * Meanwhile, it is equally important to set a {@link SampleComparator} to
  * define sample ordering </p>
  * 
@@ -86,8 +98,12 @@ public class ExternalSampleSorter extends AbstractSampleConsumer {
 
     private static final int DEFAULT_CHUNK_SIZE = 50000;
 
+    private static final long DEFAULT_MAX_LATENESS = 60000L;
+
     private long chunkSize = DEFAULT_CHUNK_SIZE;
 
+    private long maxLateness = DEFAULT_MAX_LATENESS;
+
     private SampleComparator sampleComparator;
 
     private final BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>();
@@ -106,6 +122,25 @@ public class ExternalSampleSorter extends AbstractSampleConsumer {
 
     private LinkedList<Sample> samples;
 
+    /** Whether samples are sorted in the window before being written to chunks */
+    private boolean windowed;
+
+    /** Samples waiting to be appended to the ordered run file */
+    private PriorityQueue<Sample> window;
+
+    private File runFile;
+
+    private CsvSampleWriter runWriter;
+
+    /** Last sample appended to the ordered run file */
+    private Sample lastInRun;
+
+    private long latestTimestamp;
+
+    private long maxDisorder;
+
+    private long lateSampleCount;
+
     private SampleMetadata sampleMetadata;
 
     private boolean revertedSort;
@@ -144,6 +179,49 @@ public class ExternalSampleSorter extends AbstractSampleConsumer {
         this.chunkSize = chunkSize;
     }
 
+    /**
+     * Set how late a sample can be consumed, compared to the latest consumed
+     * sample, to be sorted without being written to a chunk. The samples
+     * within this time are kept in memory, up to <code>chunkSize</code>
+     * samples.
+     *
+     * @param maxLateness
+     *            the difference between time stamps, in milliseconds.
+     *            Negative to sort all the samples by chunks
+     * @since 5.2
+     */
+    public void setMaxLateness(long maxLateness) {
+        this.maxLateness = maxLateness;
+    }
+
+    /**
+     * @return the difference between time stamps, in milliseconds, of the
+     *         samples sorted without being written to a chunk
+     * @since 5.2
+     */
+    public long getMaxLateness() {
+        return maxLateness;
+    }
+
+    /**
+     * @return the highest difference, in milliseconds, between the time stamp
+     *         of a consumed sample and the latest time stamp consumed before
+     *         it, to size {@link #setMaxLateness(long)}
+     * @since 5.2
+     */
+    public long getMaxDisorder() {
+        return maxDisorder;
+    }
+
+    /**
+     * @return the number of samples consumed too late to be sorted without
+     *         being written to a chunk
+     * @since 5.2
+     */
+    public long getLateSampleCount() {
+        return lateSampleCount;
+    }
+
     /**
      * Set the sample comparator that will define sample ordering
      * 
@@ -285,20 +363,76 @@ public class ExternalSampleSorter extends AbstractSampleConsumer {
         samples = new LinkedList<>();
         sampleMetadata = getConsumedMetadata(0);
         sampleComparator.initialize(sampleMetadata);
+        windowed = maxLateness >= 0 && sampleMetadata.indexOf(CSVSaveService.TIME_STAMP) >= 0;
+        window = new PriorityQueue<>((s1, s2) -> {
+            int order = Long.signum(sampleComparator.compare(s1, s2));
+            return revertedSort ? -order : order;
+        });
+        runFile = null;
+        runWriter = null;
+        lastInRun = null;
+        latestTimestamp = Long.MIN_VALUE;
+        maxDisorder = 0;
+        lateSampleCount = 0;
     }
 
     @Override
     public void consume(Sample s, int channel) {
-        samples.add(s);
         inputSampleCount.incrementAndGet();
+        if (!windowed) {
+            addToChunk(s);
+            return;
+        }
+        long timestamp = s.getTimestamp();
+        if (timestamp > latestTimestamp) {
+            latestTimestamp = timestamp;
+        } else {
+            maxDisorder = Math.max(maxDisorder, latestTimestamp - timestamp);
+        }
+        if (lastInRun != null && leftBeforeRight(s, lastInRun)) {
+            lateSampleCount++;
+            addToChunk(s);
+            return;
+        }
+        window.add(s);
+        while (window.size() > chunkSize
+                || window.peek().getTimestamp() < latestTimestamp - maxLateness) {
+            appendToRun(window.poll());
+        }
+    }
+
+    private void addToChunk(Sample s) {
+        samples.add(s);
         if (samples.size() >= chunkSize) {
             chunks.add(sortAndDump(samples, sampleMetadata));
             samples.clear();
         }
     }
 
+    private void appendToRun(Sample s) {
+        if (runWriter == null) {
+            runFile = getChunkFile();
+            runWriter = new CsvSampleWriter(runFile, sampleMetadata);
+        }
+        runWriter.write(s);
+        chunkedSampleCount.incrementAndGet();
+        lastInRun = s;
+    }
+
     @Override
     public void stopConsuming() {
+        while (!window.isEmpty()) {
+            appendToRun(window.poll());
+        }
+        if (runWriter != null) {
+            runWriter.close();
+            chunks.addFirst(runFile);
+        }
+        if (windowed) {
+            LOG.info("{} samples consumed out of order by up to {} ms, {} of them later than {} ms were sorted by chunks",
+                    inputSampleCount, Long.valueOf(maxDisorder), Long.valueOf(lateSampleCount),
+                    Long.valueOf(maxLateness));
+        }
         if (!samples.isEmpty()) {
             chunks.add(sortAndDump(samples, sampleMetadata));
         }
@@ -314,7 +448,9 @@ public class ExternalSampleSorter extends AbstractSampleConsumer {
         }
         super.setProducedMetadata(sampleMetadata, 0);
         super.startProducing();
-        sortFilesParallel(chunks, sampleMetadata, this);
+        if (!chunks.isEmpty()) {
+            sortFilesParallel(chunks, sampleMetadata, this);
+        }
         super.stopProducing();
         if (this.pool != null) {
             this.pool.shutdown();
@@ -20,6 +20,7 @@ package org.apache.jmeter.report.processor;
 import org.apache.jmeter.report.core.Sample;
 import org.apache.jmeter.report.core.SampleComparator;
 import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.save.CSVSaveService;
 
 /**
  * @since 3.0
@@ -30,8 +31,12 @@ public class FieldSampleComparator implements SampleComparator {
 
     private final String fieldName;
 
+    /** Whether the field is the time stamp, which is parsed once by the samples */
+    private final boolean timestamp;
+
     public FieldSampleComparator(String fieldName) {
         this.fieldName = fieldName;
+        this.timestamp = CSVSaveService.TIME_STAMP.equals(fieldName);
     }
 
     @Override
@@ -41,6 +46,9 @@ public class FieldSampleComparator implements SampleComparator {
 
     @Override
     public long compare(Sample s1, Sample s2) {
+        if (timestamp) {
+            return Long.compare(s1.getTimestamp(), s2.getTimestamp());
+        }
         return s1.getData(long.class, index, fieldName)
                 .compareTo(s2.getData(long.class, index, fieldName));
     }
@@ -37,7 +37,7 @@ import org.apache.jmeter.report.core.SamplePredicate;
  * 
  * @since 3.0
  */
-public class FilterConsumer extends AbstractSampleConsumer {
+public class FilterConsumer extends AbstractSampleConsumer implements MergeableSampleConsumer {
     private SamplePredicate samplePredicate;
 
     private boolean reverseFilter = false;
@@ -110,4 +110,15 @@ public class FilterConsumer extends AbstractSampleConsumer {
     public void stopConsuming() {
         super.stopProducing();
     }
+
+    @Override
+    public boolean canMerge() {
+        // A filter has no state
+        return true;
+    }
+
+    @Override
+    public void merge(MergeableSampleConsumer other) {
+        // A filter has no state
+    }
 }
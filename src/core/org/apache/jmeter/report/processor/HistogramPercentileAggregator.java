@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import org.apache.jorphan.math.LogHistogram;
+
+/**
+ * The class HistogramPercentileAggregator is used to get percentile from
+ * samples, counting all the values in a {@link LogHistogram}.
+ * <p>
+ * Unlike {@link PercentileAggregator}, all the values are taken into account
+ * with a bounded memory, and merging aggregators gives the same result as
+ * adding all the values to a single one. Values are rounded to the nearest
+ * long and kept with the given number of significant digits.
+ *
+ * @since 5.2
+ */
+public class HistogramPercentileAggregator implements MergeableAggregator {
+
+    private final LogHistogram histogram;
+    private final double percentileIndex;
+
+    /**
+     * Instantiates a new histogram percentile aggregator.
+     *
+     * @param index
+     *            the index of the percentile
+     * @param significantDigits
+     *            the number of significant digits kept for each value
+     */
+    public HistogramPercentileAggregator(double index, int significantDigits) {
+        histogram = new LogHistogram(significantDigits);
+        percentileIndex = index;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public double getResult() {
+        return histogram.getPercentile(percentileIndex);
+    }
+
+    @Override
+    public void addValue(double value) {
+        histogram.addValue(Math.round(value));
+    }
+
+    @Override
+    public void reset() {
+        histogram.clear();
+    }
+
+    @Override
+    public void merge(MergeableAggregator other) {
+        histogram.merge(((HistogramPercentileAggregator) other).histogram);
+    }
+
+}
@@ -22,7 +22,7 @@ package org.apache.jmeter.report.processor;
  * 
  * @since 3.0
  */
-public class MaxAggregator implements Aggregator {
+public class MaxAggregator implements MergeableAggregator {
 
     private long count = 0L;
     private double value = Double.MIN_VALUE;
@@ -69,4 +69,11 @@ public class MaxAggregator implements Aggregator {
         value = Double.MIN_VALUE;
     }
 
+    @Override
+    public void merge(MergeableAggregator other) {
+        MaxAggregator aggregator = (MaxAggregator) other;
+        value = Math.max(value, aggregator.value);
+        count += aggregator.count;
+    }
+
 }
@@ -17,16 +17,16 @@
  */
 package org.apache.jmeter.report.processor;
 
-import org.apache.commons.math3.stat.descriptive.moment.Mean;
-
 /**
  * The class MeanAggregator is used to get mean from samples.
  * 
  * @since 3.0
  */
-public class MeanAggregator implements Aggregator {
+public class MeanAggregator implements MergeableAggregator {
 
-    private Mean mean = new Mean();
+    // Same computation as commons-math Mean, which cannot be merged
+    private long count;
+    private double mean = Double.NaN;
 
     /*
      * (non-Javadoc)
@@ -35,7 +35,7 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public long getCount() {
-        return mean.getN();
+        return count;
     }
 
     /*
@@ -45,7 +45,7 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public double getResult() {
-        return mean.getResult();
+        return mean;
     }
 
     /*
@@ -55,7 +55,11 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public void addValue(double value) {
-        mean.increment(value);
+        if (count == 0) {
+            mean = 0.0;
+        }
+        count++;
+        mean += (value - mean) / count;
     }
 
     /*
@@ -65,7 +69,22 @@ public class MeanAggregator implements Aggregator {
      */
     @Override
     public void reset() {
-        mean.clear();
+        count = 0;
+        mean = Double.NaN;
+    }
+
+    @Override
+    public void merge(MergeableAggregator other) {
+        MeanAggregator aggregator = (MeanAggregator) other;
+        if (aggregator.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            mean = aggregator.mean;
+        } else {
+            mean += (aggregator.mean - mean) * aggregator.count / (count + aggregator.count);
+        }
+        count += aggregator.count;
     }
 
 }
@@ -34,7 +34,7 @@ public class MedianAggregatorFactory extends AbstractAggregatorFactory {
      */
     @Override
     protected Aggregator createAggregator() {
-        return new PercentileAggregator(50);
+        return PercentileAggregatorFactory.createPercentileAggregator(50);
     }
 
 }
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+/**
+ * An aggregator that can be merged with another aggregator of the same kind,
+ * so that values can be aggregated in parallel.
+ *
+ * @since 5.2
+ */
+public interface MergeableAggregator extends Aggregator {
+
+    /**
+     * Adds the values aggregated by the specified aggregator to the current
+     * aggregator, as if they had been added to it.
+     *
+     * @param other
+     *            an aggregator created by the same factory as the current one
+     */
+    void merge(MergeableAggregator other);
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+/**
+ * A sample consumer whose state can be merged with the one of another
+ * instance, so that samples can be consumed by several instances in parallel.
+ * <p>
+ * The instances are configured the same way and consume different samples.
+ * Once every instance has consumed its samples, the state of the other
+ * instances is merged into one of them, and <code>stopConsuming()</code> is
+ * only called on that one.
+ * </p>
+ *
+ * @see ShardedSampleConsumer
+ * @since 5.2
+ */
+public interface MergeableSampleConsumer extends SampleConsumer {
+
+    /**
+     * Indicates whether the state of the consumer can be merged, which can
+     * depend on its configuration.
+     *
+     * @return true if {@link #merge(MergeableSampleConsumer)} is supported
+     */
+    boolean canMerge();
+
+    /**
+     * Adds the state of the specified consumer to the current one, as if the
+     * samples consumed by the specified consumer had been consumed by the
+     * current one.
+     *
+     * @param other
+     *            a consumer of the same class and configuration, which is not
+     *            used anymore
+     */
+    void merge(MergeableSampleConsumer other);
+}
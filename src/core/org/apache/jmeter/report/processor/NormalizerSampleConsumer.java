@@ -107,6 +107,11 @@ public class NormalizerSampleConsumer extends AbstractSampleConsumer {
                     TIMESTAMP_FORMAT, s.toString()), e);
         }
         long time = date.getTime();
+        if (isMillisFormat && Long.toString(time).equals(s.getData(timestamp))) {
+            // Already normalized, the sample would be rebuilt with the same data
+            super.produce(s, 0);
+            return;
+        }
         int cc = sampleMetadata.getColumnCount();
         String[] data = new String[cc];
         for (int i = 0; i < cc; i++) {
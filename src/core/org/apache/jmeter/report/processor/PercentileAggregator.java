@@ -23,10 +23,15 @@ import org.apache.jmeter.util.JMeterUtils;
 
 /**
  * The class PercentileAggregator is used to get percentile from samples.
+ * <p>
+ * Only the last values are kept, see property
+ * <code>jmeter.reportgenerator.statistic_window</code>. When aggregators are
+ * merged, the values kept by the merged aggregator are added after the ones of
+ * the current aggregator.
  * 
  * @since 3.0
  */
-public class PercentileAggregator implements Aggregator {
+public class PercentileAggregator implements MergeableAggregator {
     private static final int SLIDING_WINDOW_SIZE = JMeterUtils.getPropDefault(
             ReportGeneratorConfiguration.REPORT_GENERATOR_KEY_PREFIX
                     + ReportGeneratorConfiguration.KEY_DELIMITER
@@ -94,4 +99,11 @@ public class PercentileAggregator implements Aggregator {
         statistics.clear();
     }
 
+    @Override
+    public void merge(MergeableAggregator other) {
+        for (double value : ((PercentileAggregator) other).statistics.getValues()) {
+            statistics.addValue(value);
+        }
+    }
+
 }
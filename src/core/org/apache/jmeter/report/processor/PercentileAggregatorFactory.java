@@ -17,13 +17,25 @@
  */
 package org.apache.jmeter.report.processor;
 
+import org.apache.jmeter.report.config.ReportGeneratorConfiguration;
+import org.apache.jmeter.util.JMeterUtils;
+
 /**
  * A factory for creating PercentileAggregator objects.
+ * <p>
+ * When property <code>jmeter.reportgenerator.statistic_histogram_digits</code>
+ * is set, {@link HistogramPercentileAggregator}s keeping that number of
+ * significant digits are created instead.
  *
  * @since 3.0
  */
 public class PercentileAggregatorFactory extends AbstractAggregatorFactory {
 
+    private static final int HISTOGRAM_DIGITS = JMeterUtils.getPropDefault(
+            ReportGeneratorConfiguration.REPORT_GENERATOR_KEY_PREFIX
+                    + ReportGeneratorConfiguration.KEY_DELIMITER
+                    + "statistic_histogram_digits", 0);
+
     private double percentileIndex;
     private Aggregator lastAggregator;
 
@@ -55,6 +67,9 @@ public class PercentileAggregatorFactory extends AbstractAggregatorFactory {
      */
     @Override
     protected Aggregator createAggregator() {
+        if (HISTOGRAM_DIGITS > 0) {
+            return new HistogramPercentileAggregator(percentileIndex, HISTOGRAM_DIGITS);
+        }
         Aggregator newAggregator = null;
         if(lastAggregator != null) {
             newAggregator = new PercentileAggregator((PercentileAggregator)lastAggregator);
@@ -65,4 +80,21 @@ public class PercentileAggregatorFactory extends AbstractAggregatorFactory {
         return newAggregator;
     }
 
+    /**
+     * Creates a percentile aggregator of the kind created by the factories.
+     *
+     * @param percentileIndex
+     *            the index of the percentile
+     * @return a {@link HistogramPercentileAggregator} or a
+     *         {@link PercentileAggregator}, depending on property
+     *         <code>jmeter.reportgenerator.statistic_histogram_digits</code>
+     * @since 5.2
+     */
+    public static MergeableAggregator createPercentileAggregator(double percentileIndex) {
+        if (HISTOGRAM_DIGITS > 0) {
+            return new HistogramPercentileAggregator(percentileIndex, HISTOGRAM_DIGITS);
+        }
+        return new PercentileAggregator(percentileIndex);
+    }
+
 }
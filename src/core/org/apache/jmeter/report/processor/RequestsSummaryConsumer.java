@@ -27,7 +27,7 @@ import org.apache.jmeter.report.core.Sample;
  * 
  * @since 3.0
  */
-public class RequestsSummaryConsumer extends AbstractSampleConsumer {
+public class RequestsSummaryConsumer extends AbstractSampleConsumer implements MergeableSampleConsumer {
 
     private long count;
     private long errorCount;
@@ -78,4 +78,16 @@ public class RequestsSummaryConsumer extends AbstractSampleConsumer {
         setDataToContext(getName(), result);
         super.stopProducing();
     }
+
+    @Override
+    public boolean canMerge() {
+        return true;
+    }
+
+    @Override
+    public void merge(MergeableSampleConsumer other) {
+        RequestsSummaryConsumer consumer = (RequestsSummaryConsumer) other;
+        count += consumer.count;
+        errorCount += consumer.errorCount;
+    }
 }
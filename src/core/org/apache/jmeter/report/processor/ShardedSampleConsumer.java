@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Consumes samples in parallel with several copies (shards) of a consumer
+ * chain, each one running on its own thread.
+ * <p>
+ * Samples are dispatched to the shards by name, so all the samples of a name
+ * are consumed by the same shard in the order they are consumed by this
+ * consumer. When all the samples are consumed, the state of the shards is
+ * merged into the first one, which then stops consuming as a single chain
+ * would.
+ * </p>
+ * <p>
+ * Every consumer of the shards must be a {@link MergeableSampleConsumer} that
+ * can be merged.
+ * </p>
+ * <p>
+ * The samples are also produced to the consumers of this consumer, on the
+ * calling thread.
+ * </p>
+ *
+ * @since 5.2
+ */
+public class ShardedSampleConsumer extends AbstractSampleConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedSampleConsumer.class);
+
+    /** Number of samples handed over to a shard at once */
+    private static final int BATCH_SIZE = 1024;
+
+    /** Number of batches waiting to be consumed by a shard */
+    private static final int QUEUE_CAPACITY = 8;
+
+    /** Time between two checks that the shards did not fail when a shard queue is full */
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    /** Samples handed over to a shard */
+    private static final class Batch {
+        private final Sample[] samples;
+        private final int[] channels;
+        private int size;
+
+        Batch(int capacity) {
+            samples = new Sample[capacity];
+            channels = new int[capacity];
+        }
+
+        boolean add(Sample sample, int channel) {
+            samples[size] = sample;
+            channels[size] = channel;
+            size++;
+            return size == samples.length;
+        }
+    }
+
+    /** Marks the end of the samples of a shard */
+    private static final Batch END = new Batch(0);
+
+    private final List<AbstractSampleConsumer> shards;
+
+    private final List<BlockingQueue<Batch>> queues = new ArrayList<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private Batch[] batches;
+
+    /**
+     * Instantiates a new sharded sample consumer.
+     *
+     * @param shards
+     *            the roots of the shards, which are distinct consumer chains
+     *            configured the same way; each shard is consumed by its own
+     *            thread (must not be empty)
+     * @throws IllegalArgumentException
+     *             if a consumer of the shards cannot be merged
+     */
+    public ShardedSampleConsumer(List<? extends AbstractSampleConsumer> shards) {
+        Validate.notEmpty(shards, "shards must not be empty");
+        for (AbstractSampleConsumer shard : shards) {
+            Validate.isTrue(canMerge(shard), "Consumers of %s cannot be merged", shard.getName());
+        }
+        this.shards = new ArrayList<>(shards);
+    }
+
+    /**
+     * Indicates whether a consumer and all the consumers it produces samples
+     * to can be merged, and so consumed by a {@link ShardedSampleConsumer}.
+     *
+     * @param consumer
+     *            the root of the consumer chain
+     * @return true if all the consumers of the chain can be merged
+     */
+    public static boolean canMerge(SampleConsumer consumer) {
+        if (!(consumer instanceof MergeableSampleConsumer)
+                || !((MergeableSampleConsumer) consumer).canMerge()) {
+            return false;
+        }
+        if (consumer instanceof AbstractSampleConsumer) {
+            AbstractSampleConsumer parent = (AbstractSampleConsumer) consumer;
+            SampleConsumer child;
+            for (int i = 0; (child = parent.getConsumer(i)) != null; i++) {
+                if (!canMerge(child)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void merge(SampleConsumer target, SampleConsumer source) {
+        ((MergeableSampleConsumer) target).merge((MergeableSampleConsumer) source);
+        if (target instanceof AbstractSampleConsumer) {
+            AbstractSampleConsumer targetParent = (AbstractSampleConsumer) target;
+            AbstractSampleConsumer sourceParent = (AbstractSampleConsumer) source;
+            SampleConsumer child;
+            for (int i = 0; (child = targetParent.getConsumer(i)) != null; i++) {
+                merge(child, sourceParent.getConsumer(i));
+            }
+        }
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void setSampleContext(SampleContext sampleContext) {
+        super.setSampleContext(sampleContext);
+        for (AbstractSampleConsumer shard : shards) {
+            shard.setSampleContext(sampleContext);
+        }
+    }
+
+    @Override
+    public void setChannelAttribute(int channel, String key, Object value) {
+        super.setChannelAttribute(channel, key, value);
+        for (AbstractSampleConsumer shard : shards) {
+            shard.setChannelAttribute(channel, key, value);
+        }
+    }
+
+    @Override
+    public void startConsuming() {
+        int channelCount = getConsumedChannelCount();
+        for (int i = 0; i < channelCount; i++) {
+            super.setProducedMetadata(getConsumedMetadata(i), i);
+            for (AbstractSampleConsumer shard : shards) {
+                shard.setConsumedMetadata(getConsumedMetadata(i), i);
+            }
+        }
+        failure.set(null);
+        queues.clear();
+        workers.clear();
+        batches = new Batch[shards.size()];
+        for (int i = 0; i < shards.size(); i++) {
+            AbstractSampleConsumer shard = shards.get(i);
+            shard.startConsuming();
+            BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            queues.add(queue);
+            batches[i] = new Batch(BATCH_SIZE);
+            Thread worker = new Thread(() -> consumeShard(shard, queue),
+                    getName() + "-" + i); // $NON-NLS-1$
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+        super.startProducing();
+    }
+
+    private void consumeShard(AbstractSampleConsumer shard, BlockingQueue<Batch> queue) {
+        try {
+            Batch batch;
+            while ((batch = queue.take()) != END) {
+                for (int i = 0; i < batch.size; i++) {
+                    shard.consume(batch.samples[i], batch.channels[i]);
+                }
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) { // NOSONAR The error is rethrown by the calling thread
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    @Override
+    public void consume(Sample sample, int channel) {
+        int index = (Objects.hashCode(sample.getName()) & Integer.MAX_VALUE) % batches.length;
+        if (batches[index].add(sample, channel)) {
+            handOver(index, batches[index]);
+            batches[index] = new Batch(BATCH_SIZE);
+        }
+        super.produce(sample, channel);
+    }
+
+    private void handOver(int index, Batch batch) {
+        BlockingQueue<Batch> queue = queues.get(index);
+        try {
+            while (!queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                // A failed shard does not consume its queue anymore
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SampleException("Interrupted while handing samples over to " + getName(), e);
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        Throwable error = failure.get();
+        if (error != null) {
+            workers.forEach(Thread::interrupt);
+            throw new SampleException("Consumer failed with message :" + error.getMessage(), error);
+        }
+    }
+
+    @Override
+    public void stopConsuming() {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < batches.length; i++) {
+            if (batches[i].size > 0) {
+                handOver(i, batches[i]);
+            }
+            handOver(i, END);
+        }
+        batches = null;
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            workers.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+            throw new SampleException("Interrupted while waiting for " + getName(), e);
+        }
+        checkFailure();
+        AbstractSampleConsumer first = shards.get(0);
+        for (AbstractSampleConsumer shard : shards.subList(1, shards.size())) {
+            merge(first, shard);
+        }
+        log.info("{} waited {} ms for its {} shards to consume their samples and merged them",
+                getName(), Long.valueOf(System.currentTimeMillis() - start), Integer.valueOf(shards.size()));
+        first.stopConsuming();
+        super.stopProducing();
+    }
+}
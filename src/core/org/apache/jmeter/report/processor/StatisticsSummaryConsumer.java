@@ -201,4 +201,14 @@ public class StatisticsSummaryConsumer extends
         return titles;
     }
 
+    @Override
+    public boolean canMerge() {
+        return true;
+    }
+
+    @Override
+    protected StatisticsSummaryData mergeData(StatisticsSummaryData data, StatisticsSummaryData otherData) {
+        data.merge(otherData);
+        return data;
+    }
 }
@@ -33,9 +33,9 @@ public class StatisticsSummaryData {
     private long errors = 0L;
     private long total = 0L;
     private final MeanAggregator mean;
-    private final PercentileAggregator percentile1;
-    private final PercentileAggregator percentile2;
-    private final PercentileAggregator percentile3;
+    private final MergeableAggregator percentile1;
+    private final MergeableAggregator percentile2;
+    private final MergeableAggregator percentile3;
     private long min = Long.MAX_VALUE;
     private long max = Long.MIN_VALUE;
 
@@ -163,7 +163,7 @@ public class StatisticsSummaryData {
     /**
      * @return the percentile1
      */
-    public final PercentileAggregator getPercentile1() {
+    public final MergeableAggregator getPercentile1() {
         return percentile1;
     }
 
@@ -172,7 +172,7 @@ public class StatisticsSummaryData {
      *
      * @return the percentile2
      */
-    public final PercentileAggregator getPercentile2() {
+    public final MergeableAggregator getPercentile2() {
         return percentile2;
     }
 
@@ -181,7 +181,7 @@ public class StatisticsSummaryData {
      *
      * @return the percentile3
      */
-    public final PercentileAggregator getPercentile3() {
+    public final MergeableAggregator getPercentile3() {
         return percentile3;
     }
 
@@ -193,9 +193,9 @@ public class StatisticsSummaryData {
      */
     public StatisticsSummaryData(long percentileIndex1, long percentileIndex2,
             long percentileIndex3) {
-        percentile1 = new PercentileAggregator(percentileIndex1);
-        percentile2 = new PercentileAggregator(percentileIndex2);
-        percentile3 = new PercentileAggregator(percentileIndex3);
+        percentile1 = PercentileAggregatorFactory.createPercentileAggregator(percentileIndex1);
+        percentile2 = PercentileAggregatorFactory.createPercentileAggregator(percentileIndex2);
+        percentile3 = PercentileAggregatorFactory.createPercentileAggregator(percentileIndex3);
         mean = new MeanAggregator();
     }
 
@@ -283,4 +283,25 @@ public class StatisticsSummaryData {
     public double getSentKBytesPerSecond() {
         return getSentBytesPerSecond() / 1024;
     }
+
+    /**
+     * Adds the statistics of other data, created with the same percentiles
+     *
+     * @param other the data to add
+     * @since 5.2
+     */
+    public void merge(StatisticsSummaryData other) {
+        setFirstTime(other.firstTime);
+        setEndTime(other.endTime);
+        bytes += other.bytes;
+        sentBytes += other.sentBytes;
+        errors += other.errors;
+        total += other.total;
+        mean.merge(other.mean);
+        percentile1.merge(other.percentile1);
+        percentile2.merge(other.percentile2);
+        percentile3.merge(other.percentile3);
+        setMin(other.min);
+        setMax(other.max);
+    }
 }
@@ -22,7 +22,7 @@ package org.apache.jmeter.report.processor;
  * 
  * @since 3.0
  */
-public class SumAggregator implements Aggregator {
+public class SumAggregator implements MergeableAggregator {
 
     private long count = 0;
     private double sum = 0;
@@ -69,4 +69,11 @@ public class SumAggregator implements Aggregator {
         sum = 0;
     }
 
+    @Override
+    public void merge(MergeableAggregator other) {
+        SumAggregator aggregator = (SumAggregator) other;
+        count += aggregator.count;
+        sum += aggregator.sum;
+    }
+
 }
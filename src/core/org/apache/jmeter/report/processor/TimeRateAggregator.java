@@ -22,7 +22,7 @@ package org.apache.jmeter.report.processor;
  * 
  * @since 3.0
  */
-public class TimeRateAggregator implements Aggregator {
+public class TimeRateAggregator implements MergeableAggregator {
 
     private long count = 0;
     private long granularity = 1;
@@ -85,4 +85,11 @@ public class TimeRateAggregator implements Aggregator {
         value = 0;
     }
 
+    @Override
+    public void merge(MergeableAggregator other) {
+        TimeRateAggregator aggregator = (TimeRateAggregator) other;
+        count += aggregator.count;
+        value += aggregator.value;
+    }
+
 }
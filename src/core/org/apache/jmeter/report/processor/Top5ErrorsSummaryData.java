@@ -81,4 +81,17 @@ public class Top5ErrorsSummaryData {
                 .map(e -> new Object[]{e.getKey(), e.getValue()})
                 .toArray(e -> new Object[maxSize][2]);
     }
+
+    /**
+     * Adds the counts of other data
+     *
+     * @param other the data to add
+     * @since 5.2
+     */
+    public void merge(Top5ErrorsSummaryData other) {
+        other.countPerError.forEach((error, count) -> countPerError.merge(error, count,
+                (a, b) -> Long.valueOf(a.longValue() + b.longValue())));
+        total += other.total;
+        errors += other.errors;
+    }
 }
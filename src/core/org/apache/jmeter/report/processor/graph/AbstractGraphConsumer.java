@@ -28,6 +28,8 @@ import org.apache.jmeter.report.processor.Aggregator;
 import org.apache.jmeter.report.processor.AggregatorFactory;
 import org.apache.jmeter.report.processor.ListResultData;
 import org.apache.jmeter.report.processor.MapResultData;
+import org.apache.jmeter.report.processor.MergeableAggregator;
+import org.apache.jmeter.report.processor.MergeableSampleConsumer;
 import org.apache.jmeter.report.processor.ValueResultData;
 
 /**
@@ -65,7 +67,7 @@ import org.apache.jmeter.report.processor.ValueResultData;
  *
  * @since 3.0
  */
-public abstract class AbstractGraphConsumer extends AbstractSampleConsumer {
+public abstract class AbstractGraphConsumer extends AbstractSampleConsumer implements MergeableSampleConsumer {
 
     protected static final String DEFAULT_GROUP = "Generic group";
 
@@ -576,4 +578,37 @@ public abstract class AbstractGraphConsumer extends AbstractSampleConsumer {
         keysSelector = createKeysSelector();
         groupInfos = new HashMap<>(createGroupInfos());
     }
+
+    /**
+     * Indicates whether graphs consumed in parallel can be merged, which is
+     * the case when all the aggregators of the graph can be merged. Graphs
+     * whose keys or series depend on the order of the samples must override
+     * this method.
+     *
+     * @return true if the graph can be merged
+     */
+    @Override
+    public boolean canMerge() {
+        for (GroupInfo groupInfo : groupInfos.values()) {
+            AggregatorFactory factory = groupInfo.getAggregatorFactory();
+            if (!(factory.createValueAggregator() instanceof MergeableAggregator)) {
+                return false;
+            }
+            if (groupInfo.enablesAggregatedKeysSeries()
+                    && !(factory.createKeyAggregator() instanceof MergeableAggregator
+                            && factory.createAggregatedKeyValueAggregator() instanceof MergeableAggregator)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void merge(MergeableSampleConsumer other) {
+        AbstractGraphConsumer graph = (AbstractGraphConsumer) other;
+        for (Map.Entry<String, GroupInfo> entry : groupInfos.entrySet()) {
+            entry.getValue().getGroupData().merge(
+                    graph.groupInfos.get(entry.getKey()).getGroupData());
+        }
+    }
 }
@@ -154,6 +154,15 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
         super.stopConsuming();
     }
 
+    /**
+     * @return false, the keys are the number of samples of all the series in
+     *         an interval
+     */
+    @Override
+    public boolean canMerge() {
+        return false;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -18,6 +18,7 @@
 package org.apache.jmeter.report.processor.graph;
 
 import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.jmeter.report.processor.AggregatorFactory;
 
@@ -62,6 +63,27 @@ public class GroupData {
                 false, true) : null;
     }
 
+    /**
+     * Adds the series of other group data, built by the same group info.
+     *
+     * @param other
+     *            the group data to add, which must not be used anymore
+     * @since 5.2
+     */
+    public void merge(GroupData other) {
+        for (Map.Entry<String, SeriesData> entry : other.seriesData.entrySet()) {
+            SeriesData series = seriesData.get(entry.getKey());
+            if (series == null) {
+                seriesData.put(entry.getKey(), entry.getValue());
+            } else {
+                series.merge(entry.getValue());
+            }
+        }
+        if (overallSeries != null) {
+            overallSeries.merge(other.overallSeries);
+        }
+    }
+
     public void clear() {
         seriesData.clear();
         if (overallSeries != null) {
@@ -22,6 +22,7 @@ import java.util.Map;
 
 import org.apache.jmeter.report.processor.Aggregator;
 import org.apache.jmeter.report.processor.AggregatorFactory;
+import org.apache.jmeter.report.processor.MergeableAggregator;
 
 /**
  * The class SeriesData helps to store series data in a graph.
@@ -141,6 +142,30 @@ public class SeriesData {
         count++;
     }
 
+    /**
+     * Adds the aggregators and count of another series, built by the same
+     * factory. The aggregators must be {@link MergeableAggregator}s.
+     *
+     * @param other
+     *            the series to add, which must not be used anymore
+     * @since 5.2
+     */
+    public void merge(SeriesData other) {
+        for (Map.Entry<Double, Aggregator> entry : other.aggregators.entrySet()) {
+            Aggregator aggregator = aggregators.get(entry.getKey());
+            if (aggregator == null) {
+                aggregators.put(entry.getKey(), entry.getValue());
+            } else {
+                ((MergeableAggregator) aggregator).merge((MergeableAggregator) entry.getValue());
+            }
+        }
+        count += other.count;
+        if (keysAggregator != null) {
+            ((MergeableAggregator) keysAggregator).merge((MergeableAggregator) other.keysAggregator);
+            ((MergeableAggregator) valuesAggregator).merge((MergeableAggregator) other.valuesAggregator);
+        }
+    }
+
     public void clear() {
         aggregators.clear();
         count = 0L;
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor.graph.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.processor.MapResultData;
+import org.apache.jmeter.report.processor.SumAggregatorFactory;
+import org.apache.jmeter.report.processor.graph.AbstractGraphConsumer;
+import org.apache.jmeter.report.processor.graph.CountValueSelector;
+import org.apache.jmeter.report.processor.graph.GraphKeysSelector;
+import org.apache.jmeter.report.processor.graph.GroupInfo;
+import org.apache.jmeter.report.processor.graph.NameSeriesSelector;
+
+/**
+ * The Class CorrectedResponseTimePercentilesGraphConsumer computes percentile
+ * graph of the response times corrected for coordinated omission for each samples.
+ * <p>
+ * Results without the corrected response time column give an empty graph.
+ *
+ * @since 5.2
+ */
+public class CorrectedResponseTimePercentilesGraphConsumer extends AbstractGraphConsumer {
+
+    /**
+     * Instantiates a new corrected response time percentiles graph consumer.
+     */
+    public CorrectedResponseTimePercentilesGraphConsumer() {
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        setRenderPercentiles(true);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.apache.jmeter.report.csv.processor.impl.AbstractGraphConsumer#
+     * createKeysSelector()
+     */
+    @Override
+    protected final GraphKeysSelector createKeysSelector() {
+        return new GraphKeysSelector() {
+
+            @Override
+            public Double select(Sample sample) {
+                return Double.valueOf(sample.getCorrectedTime());
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.apache.jmeter.report.csv.processor.impl.AbstractGraphConsumer#
+     * createGroupInfos()
+     */
+    @Override
+    protected Map<String, GroupInfo> createGroupInfos() {
+        HashMap<String, GroupInfo> groupInfos = new HashMap<>(1);
+
+        groupInfos.put(AbstractGraphConsumer.DEFAULT_GROUP, new GroupInfo(
+                new SumAggregatorFactory(), new NameSeriesSelector() {
+                    @Override
+                    public Iterable<String> select(Sample sample) {
+                        // No series when the results do not contain corrected times
+                        return sample.hasCorrectedTime() ? super.select(sample) : Collections.<String>emptyList();
+                    }
+                },
+                // We include Transaction Controller results
+                new CountValueSelector(false), false, false));
+
+        return groupInfos;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.apache.jmeter.report.processor.graph.AbstractGraphConsumer#
+     * initializeExtraResults(org.apache.jmeter.report.processor.MapResultData)
+     */
+    @Override
+    protected void initializeExtraResults(MapResultData parentResult) {
+        // do nothing
+    }
+}
@@ -66,6 +66,15 @@ public class ResponseTimePerSampleGraphConsumer extends AbstractGraphConsumer {
         return new IndexedNameSelector();
     }
 
+    /**
+     * @return false, the keys are the indexes of the sample names in the order
+     *         they are consumed
+     */
+    @Override
+    public boolean canMerge() {
+        return false;
+    }
+
     /**
      * Creates the group info for elapsed time percentile depending on jmeter
      * properties.
@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.reporters;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BinaryResultWriter;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.SaveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the samples of a result file from a dedicated thread.
+ * <p>
+ * Sampling threads only append the sample to a bounded queue. The writer thread takes
+ * the queued samples in batches, formats them and writes them to the file, flushing it
+ * at a regular interval. CSV lines and binary records are formatted by the writer thread; XML samples are
+ * formatted by the sampling thread, as their format depends on the configuration held by
+ * the sample result.
+ * <p>
+ * When the queue is full, sampling threads either wait or drop their sample.
+ * They stop waiting and drop their sample if the writer thread has died.
+ * While the test runs, the queue depth and the written, dropped and blocked samples are logged
+ * at a regular interval when samples were dropped or blocked since the previous report,
+ * and they are logged with the largest batch when the writer is closed.
+ */
+final class AsyncResultWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncResultWriter.class);
+
+    /** Maximum number of samples written between two checks of the flush interval */
+    private static final int MAX_BATCH = 1000;
+
+    /** Time between two checks that the writer thread is alive while waiting for room in the queue */
+    private static final long OFFER_TIMEOUT_MS = 100L;
+
+    /** Maximum time to wait for the writer thread to write the queued samples, after the flush interval */
+    private static final long WRITE_TIMEOUT_MS = 10000L;
+
+    /** Marks the end of the samples */
+    private static final Object END = new Object();
+
+    /** A CSV sample, formatted by the writer thread */
+    private static final class CsvSample {
+        private final SampleEvent event;
+        private final SampleSaveConfiguration config;
+
+        CsvSample(SampleEvent event, SampleSaveConfiguration config) {
+            this.event = event;
+            this.config = config;
+        }
+    }
+
+    private final String filename;
+
+    private final PrintWriter out;
+
+    private final BinaryResultWriter binaryOut;
+
+    private final RollingResultFile rollingOut;
+
+    private final BlockingQueue<Object> queue;
+
+    private final long flushIntervalMillis;
+
+    private final boolean flushEachBatch;
+
+    private final boolean dropOnOverflow;
+
+    private final long statsIntervalMillis;
+
+    private final Thread writerThread;
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder blocked = new LongAdder();
+
+    private final LongAccumulator maxBatch = new LongAccumulator(Math::max, 0);
+
+    private volatile boolean closed;
+
+    /**
+     * Create and start the writer
+     * @param filename name of the file, for logging
+     * @param out writer of a CSV or XML file, only used by the writer thread until {@link #close()}
+     * @param binaryOut writer of a binary file, used instead of out if not null
+     * @param queueSize maximum number of queued samples
+     * @param flushIntervalMillis maximum time between two flushes of the file
+     * @param flushEachBatch true to flush the file after each batch
+     * @param dropOnOverflow true to drop samples when the queue is full, false to wait for room
+     * @param statsIntervalMillis minimum time between two reports of the queue while the test runs, 0 for none
+     */
+    AsyncResultWriter(String filename, PrintWriter out, BinaryResultWriter binaryOut, int queueSize,
+            long flushIntervalMillis, boolean flushEachBatch, boolean dropOnOverflow, long statsIntervalMillis) {
+        this(filename, out, binaryOut, null, queueSize, flushIntervalMillis, flushEachBatch, dropOnOverflow,
+                statsIntervalMillis);
+    }
+
+    /**
+     * Create and start the writer of a rolled over file
+     * @param filename name of the file, for logging
+     * @param rollingOut segments of the file, only used by the writer thread until {@link #close()}
+     * @param queueSize maximum number of queued samples
+     * @param flushIntervalMillis maximum time between two flushes of the file
+     * @param flushEachBatch true to flush the file after each batch
+     * @param dropOnOverflow true to drop samples when the queue is full, false to wait for room
+     * @param statsIntervalMillis minimum time between two reports of the queue while the test runs, 0 for none
+     */
+    AsyncResultWriter(String filename, RollingResultFile rollingOut, int queueSize,
+            long flushIntervalMillis, boolean flushEachBatch, boolean dropOnOverflow, long statsIntervalMillis) {
+        this(filename, null, null, rollingOut, queueSize, flushIntervalMillis, flushEachBatch, dropOnOverflow,
+                statsIntervalMillis);
+    }
+
+    private AsyncResultWriter(String filename, PrintWriter out, BinaryResultWriter binaryOut,
+            RollingResultFile rollingOut, int queueSize, long flushIntervalMillis, boolean flushEachBatch,
+            boolean dropOnOverflow, long statsIntervalMillis) {
+        this.filename = filename;
+        this.out = out;
+        this.binaryOut = binaryOut;
+        this.rollingOut = rollingOut;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.flushEachBatch = flushEachBatch;
+        this.dropOnOverflow = dropOnOverflow;
+        this.statsIntervalMillis = statsIntervalMillis;
+        this.writerThread = new Thread(this::run, "ResultWriter-" + filename); // $NON-NLS-1$
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue a sample to be written
+     * @param event the sample event
+     * @param config the configuration of the result collector
+     * @throws IOException if the XML sample cannot be formatted
+     */
+    void write(SampleEvent event, SampleSaveConfiguration config) throws IOException {
+        Object item;
+        boolean binary = binaryOut != null || rollingOut != null && rollingOut.isBinary();
+        if (config.saveAsXml() && !binary) {
+            StringWriter xml = new StringWriter();
+            SaveService.saveSampleResult(event, xml);
+            item = xml.toString();
+        } else {
+            item = new CsvSample(event, config);
+        }
+        if (closed) {
+            log.warn("Sample received after {} was closed, it is not saved", filename);
+            return;
+        }
+        if (queue.offer(item)) {
+            return;
+        }
+        if (dropOnOverflow) {
+            dropped.increment();
+            return;
+        }
+        blocked.increment();
+        try {
+            if (!enqueue(item)) {
+                dropped.increment();
+            }
+        } catch (InterruptedException e) {
+            dropped.increment();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait for room in the queue as long as the writer thread is alive
+     * @param item the item to queue
+     * @return true if the item was queued, false if the writer thread has died
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private boolean enqueue(Object item) throws InterruptedException {
+        while (writerThread.isAlive()) {
+            if (queue.offer(item, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the samples queued so far and flush the file
+     */
+    void flush() {
+        CountDownLatch flushed = new CountDownLatch(1);
+        try {
+            if (!enqueue(flushed)) {
+                log.warn("Writer thread of {} has stopped, it cannot be flushed", filename);
+                return;
+            }
+            if (!flushed.await(flushIntervalMillis + WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out waiting for {} to be flushed", filename);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write the queued samples and stop the writer thread. The file is flushed but not closed.
+     */
+    void close() {
+        closed = true;
+        try {
+            if (enqueue(END)) {
+                writerThread.join(flushIntervalMillis + WRITE_TIMEOUT_MS);
+            }
+            if (writerThread.isAlive()) {
+                log.warn("Timed out waiting for the samples of {} to be written", filename);
+            } else if (!queue.isEmpty()) {
+                log.warn("Writer thread of {} has stopped, {} queued samples are lost", filename, queue.size());
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for the samples of {} to be written", filename);
+            Thread.currentThread().interrupt();
+        }
+        log.info("Result writer for {}: written={} dropped={} blocked={} largest batch={}",
+                filename, written.sum(), dropped.sum(), blocked.sum(), maxBatch.get());
+    }
+
+    /**
+     * @return number of samples currently queued
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of samples written
+     */
+    long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * @return number of samples dropped because the queue was full
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of samples for which a sampling thread waited for room in the queue
+     */
+    long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(MAX_BATCH);
+        long lastFlush = System.currentTimeMillis();
+        long lastStats = lastFlush;
+        long lastDelayed = 0;
+        boolean dirty = false;
+        try {
+            while (true) {
+                Object first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    maxBatch.accumulate(batch.size());
+                    for (Object item : batch) {
+                        if (item == END) {
+                            flushFile();
+                            return;
+                        } else if (item instanceof CountDownLatch) {
+                            flushFile();
+                            dirty = false;
+                            ((CountDownLatch) item).countDown();
+                        } else {
+                            writeItem(item);
+                            dirty = true;
+                        }
+                    }
+                    batch.clear();
+                }
+                long now = System.currentTimeMillis();
+                if (dirty && (flushEachBatch || now - lastFlush >= flushIntervalMillis)) {
+                    flushFile();
+                    dirty = false;
+                    lastFlush = now;
+                }
+                if (statsIntervalMillis > 0 && now - lastStats >= statsIntervalMillis) {
+                    lastStats = now;
+                    long delayed = dropped.sum() + blocked.sum();
+                    if (delayed != lastDelayed) {
+                        lastDelayed = delayed;
+                        log.warn("Result writer for {} falls behind: queued={} written={} dropped={} blocked={}",
+                                filename, queue.size(), written.sum(), dropped.sum(), blocked.sum());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("Writer thread of {} was interrupted, queued samples are lost", filename);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeItem(Object item) {
+        try {
+            if (item instanceof CsvSample) {
+                CsvSample sample = (CsvSample) item;
+                if (rollingOut != null) {
+                    rollingOut.write(sample.event, sample.config);
+                } else if (binaryOut != null) {
+                    binaryOut.write(sample.event, sample.config);
+                } else {
+                    CSVSaveService.saveSampleResult(sample.event, sample.config, out);
+                }
+            } else if (rollingOut != null) {
+                rollingOut.write((String) item);
+            } else {
+                out.write((String) item);
+            }
+            written.increment();
+        } catch (IOException | RuntimeException e) {
+            log.error("Error trying to record a sample in {}", filename, e);
+        }
+    }
+
+    private void flushFile() {
+        if (rollingOut != null) {
+            try {
+                rollingOut.flush();
+            } catch (IOException e) {
+                log.error("Error flushing {}", filename, e);
+            }
+        } else if (binaryOut != null) {
+            try {
+                binaryOut.flush();
+            } catch (IOException e) {
+                log.error("Error flushing {}", filename, e);
+            }
+        } else {
+            out.flush();
+        }
+    }
+}
@@ -34,16 +34,20 @@ import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.gui.GuiPackage;
 import org.apache.jmeter.samplers.Clearable;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
-import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.samplers.ThreadIndependentSampleListener;
+import org.apache.jmeter.save.BinaryResultReader;
+import org.apache.jmeter.save.BinaryResultWriter;
 import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.ResultFileSegments;
 import org.apache.jmeter.save.SaveService;
 import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.testelement.TestStateListener;
@@ -59,20 +63,40 @@ import org.slf4j.LoggerFactory;
  * This class handles all saving of samples.
  * The class must be thread-safe because it is shared between threads (NoThreadClone).
  */
-public class ResultCollector extends AbstractListenerElement implements SampleListener, Clearable, Serializable,
+public class ResultCollector extends AbstractListenerElement implements ThreadIndependentSampleListener, Clearable, Serializable,
         TestStateListener, Remoteable, NoThreadClone {
     /**
      * Keep track of the file writer and the configuration,
      * as the instance used to close them is not the same as the instance that creates
      * them. This means one cannot use the saved PrintWriter or use getSaveConfig()
      */
-    private static class FileEntry{
+    static class FileEntry{
+        /** Writer of a CSV or XML file, null for a binary file */
         final PrintWriter pw;
+        /** Writer of a binary file, null for a CSV or XML file */
+        final BinaryResultWriter binaryWriter;
+        /** Stream of the file, to know its size */
+        final FileOutputStream stream;
         final SampleSaveConfiguration config;
-        FileEntry(PrintWriter printWriter, SampleSaveConfiguration sampleSaveConfiguration){
+        /** Writer thread of the file, null if samples are written by the sampling threads */
+        AsyncResultWriter asyncWriter;
+        /** Segments of the file, null unless the file is rolled over */
+        RollingResultFile rollingFile;
+        FileEntry(PrintWriter printWriter, BinaryResultWriter binaryWriter, FileOutputStream stream,
+                SampleSaveConfiguration sampleSaveConfiguration){
             this.pw = printWriter;
+            this.binaryWriter = binaryWriter;
+            this.stream = stream;
             this.config = sampleSaveConfiguration;
         }
+
+        /**
+         * @return the number of bytes written to the file so far, not counting buffered ones
+         * @throws IOException if the size cannot be read
+         */
+        long size() throws IOException {
+            return stream.getChannel().position();
+        }
     }
     
     private static final class ShutdownHook implements Runnable {
@@ -118,6 +142,50 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
     /** AutoFlush on each line */
     private static final boolean SAVING_AUTOFLUSH = JMeterUtils.getPropDefault("jmeter.save.saveservice.autoflush", false); //$NON-NLS-1$
 
+    /** Compress the blocks of binary files */
+    private static final boolean BINARY_COMPRESS =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.binary.compress", true); //$NON-NLS-1$
+
+    /** Write samples from a dedicated thread per file */
+    private static final boolean ASYNC_WRITER =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer", false); //$NON-NLS-1$
+
+    /** Maximum number of samples waiting to be written to a file by its writer thread */
+    private static final int ASYNC_WRITER_QUEUE_SIZE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer.queue_size", 10000); //$NON-NLS-1$
+
+    /** Maximum time in milliseconds between two flushes of a file by its writer thread */
+    private static final long ASYNC_WRITER_FLUSH_INTERVAL =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer.flush_interval", 1000L); //$NON-NLS-1$
+
+    /** Drop samples instead of waiting when the queue of the writer thread is full */
+    private static final boolean ASYNC_WRITER_DROP_ON_OVERFLOW =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer.drop_on_overflow", false); //$NON-NLS-1$
+
+    /** Minimum time in milliseconds between two reports of a writer thread falling behind, 0 for none */
+    private static final long ASYNC_WRITER_STATS_INTERVAL =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer.stats_interval", 30L) * 1000L; //$NON-NLS-1$
+
+    /** Size of the output buffer of a file written by its writer thread */
+    private static final int ASYNC_WRITER_BUFFER_SIZE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer.buffer_size", 65536); //$NON-NLS-1$
+
+    /** Maximum size in bytes of a segment of a rolled over file, 0 for no limit */
+    private static final long ROLLOVER_MAX_SIZE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.rollover.max_size_mb", 0L) * 1024L * 1024L; //$NON-NLS-1$
+
+    /** Maximum time in milliseconds a segment of a rolled over file is written to, 0 for no limit */
+    private static final long ROLLOVER_MAX_AGE =
+            TimeUnit.MINUTES.toMillis(JMeterUtils.getPropDefault("jmeter.save.saveservice.rollover.max_age_min", 0L)); //$NON-NLS-1$
+
+    /** Compress the closed segments of rolled over files */
+    private static final boolean ROLLOVER_COMPRESS =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.rollover.compress", false); //$NON-NLS-1$
+
+    /** Whether the samples rebuilt from the aggregates of the Histogram sample sender mode are saved */
+    private static final boolean SAVE_SYNTHETIC =
+            JMeterUtils.getPropDefault("sample_sender_histogram_save_expanded", true); //$NON-NLS-1$
+
     // Static variables
 
     // Lock used to guard static mutable variables
@@ -141,6 +209,15 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
     // Instance variables (guarded by volatile)
     private transient volatile PrintWriter out;
 
+    // Writer of the file when it is saved in the binary format, out is then null
+    private transient volatile BinaryResultWriter binaryOut;
+
+    // Writer thread of the file, null unless jmeter.save.saveservice.async_writer is true
+    private transient volatile AsyncResultWriter asyncWriter;
+
+    // Segments of the file, null unless jmeter.save.saveservice.rollover.* limits the segments
+    private transient volatile RollingResultFile rollingFile;
+
     /**
      * Is a test running ?
      */
@@ -301,6 +378,9 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
                 }
                 finalizeFileOutput();
                 out = null;
+                binaryOut = null;
+                asyncWriter = null;
+                rollingFile = null;
                 inTest = false;
             }
         }
@@ -319,12 +399,21 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
             }
             instanceCount++;
             try {
-                if (out == null) {
+                if (out == null && binaryOut == null) {
                     try {
                         // Note: getFileWriter ignores a null filename
-                        out = getFileWriter(getFilename(), getSaveConfig());
+                        FileEntry fileEntry = getFileWriter(getFilename(), getSaveConfig());
+                        if (fileEntry != null) {
+                            asyncWriter = fileEntry.asyncWriter;
+                            rollingFile = fileEntry.rollingFile;
+                            binaryOut = fileEntry.binaryWriter;
+                            out = fileEntry.pw;
+                        }
                     } catch (FileNotFoundException e) {
                         out = null;
+                        binaryOut = null;
+                        asyncWriter = null;
+                        rollingFile = null;
                     }
                 }
                 if (getVisualizer() != null) {
@@ -357,6 +446,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
      * <ul>
      *   <li>XStream format</li>
      *   <li>CSV format</li>
+     *   <li>binary format</li>
      * </ul>
      *
      */
@@ -438,7 +528,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         }
     }
 
-    private static PrintWriter getFileWriter(final String pFilename, SampleSaveConfiguration saveConfig)
+    private static FileEntry getFileWriter(final String pFilename, SampleSaveConfiguration saveConfig)
             throws IOException {
         if (pFilename == null || pFilename.length() == 0) {
             return null;
@@ -449,43 +539,111 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         String filename = FileServer.resolveBaseRelativeName(pFilename);
         filename = new File(filename).getCanonicalPath(); // try to ensure uniqueness (Bug 60822)
         FileEntry fe = files.get(filename);
-        PrintWriter writer = null;
-        boolean trimmed = true;
-
         if (fe == null) {
-            if (saveConfig.saveAsXml()) {
-                trimmed = trimLastLine(filename);
-            } else {
-                trimmed = new File(filename).exists();
+            if (new File(filename).length() == 0) {
+                // A new file: the segments of a previous file with the same name are not part of it
+                ResultFileSegments.clearSegments(new File(filename));
             }
-            // Find the name of the directory containing the file
-            // and create it - if there is one
-            File pdir = new File(filename).getParentFile();
-            if (pdir != null) {
-                // returns false if directory already exists, so need to check again
-                if(pdir.mkdirs()){
-                    if (log.isInfoEnabled()) {
-                        log.info("Folder at {} was created", pdir.getAbsolutePath());
-                    }
-                } // else if might have been created by another process so not a problem
-                if (!pdir.exists()){
-                    log.warn("Error creating directories for {}", pdir);
+            fe = openFile(filename, saveConfig);
+            if (ROLLOVER_MAX_SIZE > 0 || ROLLOVER_MAX_AGE > 0) {
+                fe.rollingFile = new RollingResultFile(filename, fe, ROLLOVER_MAX_SIZE, ROLLOVER_MAX_AGE,
+                        ROLLOVER_COMPRESS);
+            }
+            files.put(filename, fe);
+        }
+        if (ASYNC_WRITER && fe.asyncWriter == null) {
+            fe.asyncWriter = fe.rollingFile != null
+                    ? new AsyncResultWriter(filename, fe.rollingFile, ASYNC_WRITER_QUEUE_SIZE,
+                            ASYNC_WRITER_FLUSH_INTERVAL, SAVING_AUTOFLUSH, ASYNC_WRITER_DROP_ON_OVERFLOW,
+                            ASYNC_WRITER_STATS_INTERVAL)
+                    : new AsyncResultWriter(filename, fe.pw, fe.binaryWriter, ASYNC_WRITER_QUEUE_SIZE,
+                            ASYNC_WRITER_FLUSH_INTERVAL, SAVING_AUTOFLUSH, ASYNC_WRITER_DROP_ON_OVERFLOW,
+                            ASYNC_WRITER_STATS_INTERVAL);
+        }
+        return fe;
+    }
+
+    /**
+     * Open a result file, appending to it if it exists, and write its header if it is a new file
+     * @param filename canonical name of the file
+     * @param saveConfig configuration of the file
+     * @return the writers of the file
+     * @throws IOException if the file cannot be opened
+     */
+    static FileEntry openFile(String filename, SampleSaveConfiguration saveConfig) throws IOException {
+        boolean trimmed;
+        if (saveConfig.saveAsXml()) {
+            trimmed = trimLastLine(filename);
+        } else {
+            trimmed = new File(filename).exists();
+        }
+        // Find the name of the directory containing the file
+        // and create it - if there is one
+        File pdir = new File(filename).getParentFile();
+        if (pdir != null) {
+            // returns false if directory already exists, so need to check again
+            if(pdir.mkdirs()){
+                if (log.isInfoEnabled()) {
+                    log.info("Folder at {} was created", pdir.getAbsolutePath());
                 }
+            } // else if might have been created by another process so not a problem
+            if (!pdir.exists()){
+                log.warn("Error creating directories for {}", pdir);
             }
-            writer = new PrintWriter(new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(filename,
-                    trimmed)), SaveService.getFileEncoding(StandardCharsets.UTF_8.name())), SAVING_AUTOFLUSH);
-            if(log.isDebugEnabled()) {
-                log.debug("Opened file: {} in thread {}", filename, Thread.currentThread().getName());
+        }
+        File file = new File(filename);
+        if (saveConfig.isBinaryFormat() && file.length() > 0) {
+            if (!BinaryResultReader.isBinaryResultFile(file)) {
+                throw new IOException("Cannot append binary results to " + filename
+                        + " which is not a binary result file");
             }
-            files.put(filename, new FileEntry(writer, saveConfig));
+            BinaryResultWriter.prepareAppend(file, saveConfig);
+        }
+        FileOutputStream fos = new FileOutputStream(filename, trimmed);
+        BufferedOutputStream bos = ASYNC_WRITER
+                ? new BufferedOutputStream(fos, ASYNC_WRITER_BUFFER_SIZE)
+                : new BufferedOutputStream(fos);
+        FileEntry fe;
+        if (saveConfig.isBinaryFormat()) {
+            // The binary header is also written when appending, so nothing else to write
+            trimmed = true;
+            fe = new FileEntry(null, BinaryResultWriter.create(bos, saveConfig, BINARY_COMPRESS), fos, saveConfig);
         } else {
-            writer = fe.pw;
+            // With a writer thread, autoflush is done after each batch rather than on each line
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(bos,
+                    SaveService.getFileEncoding(StandardCharsets.UTF_8.name())), SAVING_AUTOFLUSH && !ASYNC_WRITER);
+            fe = new FileEntry(writer, null, fos, saveConfig);
+        }
+        if(log.isDebugEnabled()) {
+            log.debug("Opened file: {} in thread {}", filename, Thread.currentThread().getName());
         }
         if (!trimmed) {
             log.debug("Writing header to file: {}", filename);
-            writeFileStart(writer, saveConfig);
+            writeFileStart(fe.pw, saveConfig);
+        }
+        return fe;
+    }
+
+    /**
+     * Write the end of a result file and close it
+     * @param filename name of the file, for logging
+     * @param fe the writers of the file
+     */
+    static void closeFile(String filename, FileEntry fe) {
+        try {
+            log.debug("Closing: {}", filename);
+            if (fe.binaryWriter != null) {
+                fe.binaryWriter.close();
+            } else {
+                writeFileEnd(fe.pw, fe.config);
+                fe.pw.close();
+                if (fe.pw.checkError()){
+                    log.warn("Problem detected during use of {}", filename);
+                }
+            }
+        } catch(Exception ex) {
+            log.error("Error closing file {}", filename, ex);
         }
-        return writer;
     }
 
     // returns false if the file did not contain the terminator
@@ -524,6 +682,15 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         return true;
     }
 
+    /**
+     * Subclasses may use the thread context in {@link #sampleOccurred(SampleEvent)},
+     * so only this class is notified from listener threads.
+     */
+    @Override
+    public boolean isThreadIndependent() {
+        return getClass() == ResultCollector.class;
+    }
+
     @Override
     public void sampleStarted(SampleEvent e) {
         // NOOP
@@ -546,11 +713,21 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
 
         if (isSampleWanted(result.isSuccessful())) {
             sendToVisualizer(result);
-            if (out != null && !isResultMarked(result) && !this.isStats) {
+            if ((out != null || binaryOut != null) && (SAVE_SYNTHETIC || !result.isSynthetic())
+                    && !isResultMarked(result) && !this.isStats) {
                 SampleSaveConfiguration config = getSaveConfig();
                 result.setSaveConfig(config);
                 try {
-                    if (config.saveAsXml()) {
+                    AsyncResultWriter writer = asyncWriter;
+                    RollingResultFile rolling = rollingFile;
+                    BinaryResultWriter binaryWriter = binaryOut;
+                    if (writer != null) {
+                        writer.write(event, config);
+                    } else if (rolling != null) {
+                        rolling.write(event, config);
+                    } else if (binaryWriter != null) {
+                        binaryWriter.write(event, config);
+                    } else if (config.saveAsXml()) {
                         SaveService.saveSampleResult(event, out);
                     } else { // !saveAsXml
                         CSVSaveService.saveSampleResult(event, out);
@@ -582,13 +759,62 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         return res.markFile(filename);
     }
 
+    /**
+     * @return number of samples waiting to be written to the file by its writer thread,
+     *         0 if samples are written by the sampling threads
+     * @since 5.2
+     */
+    public int getQueuedSampleCount() {
+        AsyncResultWriter writer = asyncWriter;
+        return writer == null ? 0 : writer.getQueueDepth();
+    }
+
+    /**
+     * @return number of samples the writer thread of the file dropped because its queue was full,
+     *         0 if samples are written by the sampling threads
+     * @since 5.2
+     */
+    public long getDroppedSampleCount() {
+        AsyncResultWriter writer = asyncWriter;
+        return writer == null ? 0 : writer.getDroppedCount();
+    }
+
+    /**
+     * @return number of samples for which a sampling thread waited for room in the queue of the writer thread,
+     *         0 if samples are written by the sampling threads
+     * @since 5.2
+     */
+    public long getBlockedSampleCount() {
+        AsyncResultWriter writer = asyncWriter;
+        return writer == null ? 0 : writer.getBlockedCount();
+    }
+
     /**
      * Flush PrintWriter to synchronize file contents
      */
     public void flushFile() {
-        if (out != null) {
+        if (out != null || binaryOut != null) {
             log.info("forced flush through ResultCollector#flushFile");
-            out.flush();
+            AsyncResultWriter writer = asyncWriter;
+            RollingResultFile rolling = rollingFile;
+            BinaryResultWriter binaryWriter = binaryOut;
+            if (writer != null) {
+                writer.flush();
+            } else if (rolling != null) {
+                try {
+                    rolling.flush();
+                } catch (IOException e) {
+                    log.error("Error flushing {}", getFilename(), e);
+                }
+            } else if (binaryWriter != null) {
+                try {
+                    binaryWriter.flush();
+                } catch (IOException e) {
+                    log.error("Error flushing {}", getFilename(), e);
+                }
+            } else {
+                out.flush();
+            }
         }
     }
     
@@ -596,15 +822,13 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         for(Map.Entry<String, ResultCollector.FileEntry> me : files.entrySet()) {
             String key = me.getKey();
             ResultCollector.FileEntry value = me.getValue();
-            try {
-                log.debug("Closing: {}", key);
-                writeFileEnd(value.pw, value.config);
-                value.pw.close();
-                if (value.pw.checkError()){
-                    log.warn("Problem detected during use of {}", key);
-                }
-            } catch(Exception ex) {
-                log.error("Error closing file {}", key, ex);
+            if (value.asyncWriter != null) {
+                value.asyncWriter.close();
+            }
+            if (value.rollingFile != null) {
+                value.rollingFile.close();
+            } else {
+                closeFile(key, value);
             }
         }
         files.clear();
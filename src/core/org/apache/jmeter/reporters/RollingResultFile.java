@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.reporters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.ResultFileSegments;
+import org.apache.jmeter.save.SaveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a result file in segments of limited size or age.
+ * <p>
+ * When the segment being written reaches the maximum size or age, it is closed as a
+ * complete result file and renamed after its index (see {@link ResultFileSegments}),
+ * and a new segment is started under the name of the result file. Closed segments are
+ * listed in the manifest of the result file, and can be compressed with gzip by a background thread.
+ * <p>
+ * The size is the one of the file, so a segment can exceed the maximum size by
+ * the size of the output buffers.
+ */
+final class RollingResultFile {
+
+    private static final Logger log = LoggerFactory.getLogger(RollingResultFile.class);
+
+    private static final int COMPRESSION_BUFFER_SIZE = 65536;
+
+    /** Maximum time to wait for the compression of the closed segments when closing the file */
+    private static final long COMPRESSION_TIMEOUT_MINUTES = 10;
+
+    private final String filename;
+
+    private final SampleSaveConfiguration config;
+
+    private final boolean compress;
+
+    private long maxBytes;
+
+    private long maxAgeMillis;
+
+    private ResultCollector.FileEntry segment;
+
+    private long segmentStart;
+
+    private int nextIndex;
+
+    private ExecutorService compressor;
+
+    private boolean closed;
+
+    /**
+     * @param filename canonical name of the result file
+     * @param firstSegment the result file, opened by {@link ResultCollector#openFile(String, SampleSaveConfiguration)}
+     * @param maxBytes maximum size of a segment, 0 for no limit
+     * @param maxAgeMillis maximum time in milliseconds a segment is written to, 0 for no limit
+     * @param compress true to compress the closed segments
+     */
+    RollingResultFile(String filename, ResultCollector.FileEntry firstSegment, long maxBytes,
+            long maxAgeMillis, boolean compress) {
+        this.filename = filename;
+        this.config = firstSegment.config;
+        this.segment = firstSegment;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.compress = compress;
+        this.segmentStart = System.currentTimeMillis();
+        this.nextIndex = ResultFileSegments.lastSegmentIndex(new File(filename)) + 1;
+    }
+
+    /**
+     * @return true if the segments are written in the binary format
+     */
+    synchronized boolean isBinary() {
+        return segment.binaryWriter != null;
+    }
+
+    /**
+     * Write a sample to the current segment, and roll over if it is full
+     * @param event the sample event
+     * @param saveConfig the configuration of the result collector
+     * @throws IOException when the sample cannot be written or the next segment cannot be opened
+     */
+    synchronized void write(SampleEvent event, SampleSaveConfiguration saveConfig) throws IOException {
+        if (closed) {
+            log.debug("Sample received after {} was closed, it is not saved", filename);
+            return;
+        }
+        if (segment.binaryWriter != null) {
+            segment.binaryWriter.write(event, saveConfig);
+        } else if (saveConfig.saveAsXml()) {
+            SaveService.saveSampleResult(event, segment.pw);
+        } else {
+            CSVSaveService.saveSampleResult(event, saveConfig, segment.pw);
+        }
+        rollIfNeeded();
+    }
+
+    /**
+     * Write a sample already formatted as XML to the current segment, and roll over if it is full
+     * @param xml the formatted sample
+     * @throws IOException when the next segment cannot be opened
+     */
+    synchronized void write(String xml) throws IOException {
+        if (closed) {
+            log.debug("Sample received after {} was closed, it is not saved", filename);
+            return;
+        }
+        segment.pw.write(xml);
+        rollIfNeeded();
+    }
+
+    /**
+     * Flush the current segment
+     * @throws IOException when flushing fails
+     */
+    synchronized void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (segment.binaryWriter != null) {
+            segment.binaryWriter.flush();
+        } else {
+            segment.pw.flush();
+        }
+    }
+
+    /**
+     * Close the current segment, and wait for the closed segments to be compressed
+     */
+    synchronized void close() {
+        if (!closed) {
+            closed = true;
+            ResultCollector.closeFile(filename, segment);
+        }
+        if (compressor != null) {
+            compressor.shutdown();
+            try {
+                if (!compressor.awaitTermination(COMPRESSION_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                    log.warn("Timed out waiting for the segments of {} to be compressed", filename);
+                }
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting for the segments of {} to be compressed", filename);
+                Thread.currentThread().interrupt();
+            }
+            compressor = null;
+        }
+    }
+
+    private void rollIfNeeded() throws IOException {
+        if (maxBytes > 0 && segment.size() >= maxBytes
+                || maxAgeMillis > 0 && System.currentTimeMillis() - segmentStart >= maxAgeMillis) {
+            roll();
+        }
+    }
+
+    private void roll() throws IOException {
+        ResultCollector.closeFile(filename, segment);
+        File file = new File(filename);
+        File closedSegment = ResultFileSegments.segment(file, nextIndex);
+        try {
+            Files.move(file.toPath(), closedSegment.toPath());
+            nextIndex++;
+            log.info("Rolled over {} to {}", filename, closedSegment);
+        } catch (IOException e) {
+            // Keep on appending to the file rather than losing samples
+            log.error("Cannot rename {} to {}, the file is not rolled over anymore", filename, closedSegment, e);
+            closedSegment = null;
+            maxBytes = 0;
+            maxAgeMillis = 0;
+        }
+        if (closedSegment != null) {
+            try {
+                ResultFileSegments.addSegment(file, closedSegment);
+            } catch (IOException e) {
+                log.error("Cannot add {} to the manifest of {}, it will not be read with it",
+                        closedSegment, filename, e);
+            }
+        }
+        try {
+            segment = ResultCollector.openFile(filename, config);
+        } catch (IOException e) {
+            closed = true;
+            throw e;
+        }
+        segmentStart = System.currentTimeMillis();
+        if (closedSegment != null && compress) {
+            compressInBackground(closedSegment);
+        }
+    }
+
+    private void compressInBackground(File closedSegment) {
+        if (compressor == null) {
+            String threadName = "ResultCompressor-" + new File(filename).getName(); // $NON-NLS-1$
+            compressor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compressor.execute(() -> gzip(closedSegment));
+    }
+
+    /**
+     * Replace a file with its gzip compressed version, the file is kept if compression fails
+     * @param file the file to compress
+     */
+    static void gzip(File file) {
+        File compressed = new File(file.getPath() + ResultFileSegments.COMPRESSED_SUFFIX);
+        try (InputStream in = Files.newInputStream(file.toPath());
+                OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed.toPath()),
+                        COMPRESSION_BUFFER_SIZE)) {
+            IOUtils.copy(in, out, COMPRESSION_BUFFER_SIZE);
+        } catch (IOException e) {
+            log.error("Error compressing {}, it is kept uncompressed", file, e);
+            if (!compressed.delete()) {
+                log.warn("Could not delete {}", compressed);
+            }
+            return;
+        }
+        if (!file.delete()) {
+            log.warn("Could not delete {} after compressing it", file);
+        }
+    }
+}
@@ -29,8 +29,8 @@ import org.apache.jmeter.control.TransactionController;
 import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
-import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.ThreadIndependentSampleListener;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.JMeterContextService;
@@ -60,7 +60,7 @@ import org.slf4j.LoggerFactory;
  *
  */
 public class Summariser extends AbstractTestElement
-    implements Serializable, SampleListener, TestStateListener, NoThreadClone, Remoteable {
+    implements Serializable, ThreadIndependentSampleListener, TestStateListener, NoThreadClone, Remoteable {
 
     /*
      * N.B. NoThreadClone is used to ensure that the testStarted() methods will share the same
@@ -87,6 +87,13 @@ public class Summariser extends AbstractTestElement
                     "summariser.ignore_transaction_controller_sample_result", //$NON-NLS-1$
                     true);
 
+    /** Percentiles of the response times corrected for coordinated omission, as in the Aggregate Report */
+    private static final int[] CORRECTED_PERCENTILES = {
+            JMeterUtils.getPropDefault("aggregate_rpt_pct1", 90), //$NON-NLS-1$
+            JMeterUtils.getPropDefault("aggregate_rpt_pct2", 95), //$NON-NLS-1$
+            JMeterUtils.getPropDefault("aggregate_rpt_pct3", 99)  //$NON-NLS-1$
+    };
+
     /*
      * Ensure that a report is not skipped if we are slightly late in checking
      * the time.
@@ -378,6 +385,18 @@ public class Summariser extends AbstractTestElement
             sb.append(" Finished: ");
             sb.append(tc.finishedThreads);
         }
+        if (summariserRunningSample.getCorrectedCount() > 0) {
+            // Only samples paced by a timer when timer.correct_coordinated_omission is set
+            sb.append(" Corrected");
+            for (int percentile : CORRECTED_PERCENTILES) {
+                sb.append(' ');
+                sb.append(percentile);
+                sb.append("%: ");
+                sb.append(longToSb(tmp, summariserRunningSample.getCorrectedPercentPoint(percentile / 100.0), 5));
+            }
+            sb.append(" Max: ");
+            sb.append(longToSb(tmp, summariserRunningSample.getCorrectedMax(), 5));
+        }
         return sb.toString();
     }
 
@@ -21,6 +21,7 @@ package org.apache.jmeter.reporters;
 import java.text.DecimalFormat;
 
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jorphan.math.StatCalculatorLong;
 
 /**
  * <p>
@@ -55,6 +56,9 @@ class SummariserRunningSample {
 
     private final String label;
 
+    /** Response times corrected for coordinated omission, of the samples paced by a timer */
+    private final StatCalculatorLong correctedTimes = new StatCalculatorLong();
+
     /**
      * @param label the label of this component
      */
@@ -76,6 +80,7 @@ class SummariserRunningSample {
         max = src.max;
         min = src.min;
         runningSum = src.runningSum;
+        correctedTimes.addAll(src.correctedTimes);
     }
 
     private void init() { // WARNING: called from ctor so must not be overridden (i.e. must be private or final)
@@ -86,6 +91,7 @@ class SummariserRunningSample {
         errorCount = 0L;
         startTime = System.currentTimeMillis();
         endTime = startTime;
+        correctedTimes.clear();
     }
 
     /**
@@ -109,6 +115,7 @@ class SummariserRunningSample {
         if (min > rs.min) {
             min = rs.min;
         }
+        correctedTimes.addAll(rs.correctedTimes);
         // We want end time to be current time so sample rates reflect real time
         endTime = System.currentTimeMillis();
     }
@@ -128,6 +135,9 @@ class SummariserRunningSample {
         if (aTimeInMillis < min) {
             min = aTimeInMillis;
         }
+        if (res.getIntendedStartTime() > 0) {
+            correctedTimes.addValue(res.getCorrectedTime(), res.getSampleCount());
+        }
         // We want end time to be current time so sample rates reflect real time
         endTime = System.currentTimeMillis();
     }
@@ -238,6 +248,34 @@ class SummariserRunningSample {
         return min;
     }
 
+    /**
+     * Returns the number of samples paced by a timer, for which a corrected response time is known.
+     *
+     * @return the number of samples with a corrected response time
+     */
+    public long getCorrectedCount() {
+        return correctedTimes.getCount();
+    }
+
+    /**
+     * Returns a percentile of the response times corrected for coordinated omission
+     *
+     * @param percent the percentile, between 0 and 1
+     * @return the corrected response time in milliseconds at the percentile
+     */
+    public long getCorrectedPercentPoint(double percent) {
+        return correctedTimes.getPercentPoint(percent).longValue();
+    }
+
+    /**
+     * Returns the maximum response time corrected for coordinated omission
+     *
+     * @return the maximum corrected response time in milliseconds
+     */
+    public long getCorrectedMax() {
+        return correctedTimes.getMax().longValue();
+    }
+
     /**
      * Set end time
      */
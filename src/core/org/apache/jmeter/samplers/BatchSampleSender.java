@@ -121,7 +121,7 @@ public class BatchSampleSender extends AbstractSampleSender implements Serializa
         log.info("Test Ended on {}", host);
         try {
             if (!sampleStore.isEmpty()) {
-                listener.processBatch(sampleStore);
+                sendBatch(sampleStore);
                 sampleStore.clear();
             }
             listener.testEnded(host);
@@ -180,7 +180,7 @@ public class BatchSampleSender extends AbstractSampleSender implements Serializa
         if (clonedStore != null){
             try {
                 log.debug("Firing sample");
-                listener.processBatch(clonedStore);
+                sendBatch(clonedStore);
                 clonedStore.clear();
             } catch (RemoteException err) {
                 log.error("sampleOccurred", err);
@@ -188,6 +188,19 @@ public class BatchSampleSender extends AbstractSampleSender implements Serializa
         }
     }
     
+    /**
+     * Sends a batch of sample events to the listener.
+     *
+     * @param batch
+     *            the sample events to send
+     * @throws RemoteException
+     *             when sending the batch fails
+     */
+    // added: allow subclasses to change how batches are sent
+    protected void sendBatch(List<SampleEvent> batch) throws RemoteException {
+        listener.processBatch(batch);
+    }
+
     /**
      * Processed by the RMI server code; acts as testStarted().
      *
@@ -195,7 +208,8 @@ public class BatchSampleSender extends AbstractSampleSender implements Serializa
      * @throws ObjectStreamException
      *             never
      */
-    private Object readResolve() throws ObjectStreamException{
+    // protected so that it is also called for the subclasses
+    protected Object readResolve() throws ObjectStreamException{
         if (isClientConfigured()) {
             numSamplesThreshold = clientConfiguredNumSamplesThreshold;
             timeThresholdMs = clientConfiguredTimeThresholdMs;
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of sample events which is serialized in the compact binary format of
+ * {@link BinarySampleCodec} instead of the default Java serialization of its
+ * events.
+ * <p>
+ * It is sent by {@link BinarySampleSender} to
+ * {@link RemoteSampleListener#processBatch(List)}, so the events are encoded
+ * by the server and decoded by the client, without changing the remote
+ * interface.
+ *
+ * @since 5.2
+ */
+public final class BinarySampleBatch extends AbstractList<SampleEvent> implements Externalizable, RandomAccess {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<SampleEvent> events;
+
+    /**
+     * Only intended for use by the deserialization
+     */
+    public BinarySampleBatch() {
+        this(Collections.<SampleEvent>emptyList());
+    }
+
+    /**
+     * @param events
+     *            the events of the batch, which must not be changed until the
+     *            batch is serialized
+     */
+    public BinarySampleBatch(List<SampleEvent> events) {
+        this.events = events;
+    }
+
+    @Override
+    public SampleEvent get(int index) {
+        return events.get(index);
+    }
+
+    @Override
+    public int size() {
+        return events.size();
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        byte[] data = BinarySampleCodec.encode(events);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid binary sample batch length: " + length);
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        events = BinarySampleCodec.decode(data);
+    }
+}
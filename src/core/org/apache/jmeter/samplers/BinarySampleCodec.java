@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encodes batches of sample events in a compact binary format, and decodes
+ * them back.
+ * <p>
+ * The format has a fixed schema holding the fields of {@link SampleEvent} and
+ * {@link SampleResult} that are used by the listeners:
+ * <ul>
+ * <li>numbers are written as variable length integers, time stamps being
+ * relative to the previous sample of the batch</li>
+ * <li>strings (labels, thread names, response codes, headers...) are
+ * dictionary encoded: a string is written once per batch, then referenced by
+ * its index</li>
+ * <li>sub-results and assertion results are nested in their parent result</li>
+ * </ul>
+ * Each batch can be decoded on its own. Decoded results are instances of
+ * {@link SampleResult}, so the fields specific to its subclasses (e.g. the
+ * cookies of an HTTP sample) are not transmitted.
+ *
+ * @since 5.2
+ */
+final class BinarySampleCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(BinarySampleCodec.class);
+
+    private static final int VERSION = 1;
+
+    /** Reference to a null string */
+    private static final int NULL_STRING = 0;
+
+    /** Reference announcing a string literal, added to the dictionary */
+    private static final int NEW_STRING = 1;
+
+    /** Offset of the references to the dictionary entries */
+    private static final int FIRST_ENTRY = 2;
+
+    private static final int FLAG_SUCCESS = 1;
+
+    private static final int FLAG_TRANSACTION = 1 << 1;
+
+    private static final int FLAG_INTENDED_START_TIME = 1 << 2;
+
+    private static final int FLAG_ASSERTION_FAILURE = 1;
+
+    private static final int FLAG_ASSERTION_ERROR = 1 << 1;
+
+    private static final byte[] EMPTY_BA = new byte[0];
+
+    private BinarySampleCodec() {
+        super();
+    }
+
+    /**
+     * Encode sample events
+     *
+     * @param events the events to encode
+     * @return the encoded events
+     */
+    static byte[] encode(List<SampleEvent> events) {
+        Encoder encoder = new Encoder();
+        encoder.writeVarLong(VERSION);
+        encoder.writeVarLong(events.size());
+        for (SampleEvent event : events) {
+            encoder.writeEvent(event);
+        }
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Decode sample events
+     *
+     * @param data events encoded by {@link #encode(List)}
+     * @return the decoded events
+     * @throws IOException when data is not a valid batch of events
+     */
+    static List<SampleEvent> decode(byte[] data) throws IOException {
+        Decoder decoder = new Decoder(data);
+        int version = decoder.readVarInt();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported binary sample batch version: " + version);
+        }
+        int count = decoder.readCount();
+        List<SampleEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(decoder.readEvent());
+        }
+        if (decoder.position != data.length) {
+            throw new StreamCorruptedException("Unexpected data after " + count + " sample events");
+        }
+        return events;
+    }
+
+    private static final class Encoder {
+
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        private byte[] buffer = new byte[4096];
+
+        private int length;
+
+        private long previousTimeStamp;
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length + extra, buffer.length * 2));
+            }
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buffer[length++] = (byte) v;
+        }
+
+        /** Write a signed value, so that small negative values stay small */
+        private void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(NULL_STRING);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarLong(FIRST_ENTRY + (long) index.intValue());
+                return;
+            }
+            dictionary.put(value, Integer.valueOf(dictionary.size()));
+            writeVarLong(NEW_STRING);
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeEvent(SampleEvent event) {
+            SampleResult result = event.getResult();
+            writeVarLong(event.isTransactionSampleEvent() ? FLAG_TRANSACTION : 0);
+            writeString(event.getThreadGroup());
+            writeString(event.getHostname());
+            int varCount = SampleEvent.getVarCount();
+            writeVarLong(varCount);
+            for (int i = 0; i < varCount; i++) {
+                writeString(event.getVarValue(i));
+            }
+            writeResult(result);
+        }
+
+        private void writeResult(SampleResult result) {
+            int flags = 0;
+            if (result.isSuccessful()) {
+                flags |= FLAG_SUCCESS;
+            }
+            long intendedStartTime = result.getIntendedStartTime();
+            if (intendedStartTime != 0) {
+                flags |= FLAG_INTENDED_START_TIME;
+            }
+            writeVarLong(flags);
+            long timeStamp = result.getTimeStamp();
+            writeZigZag(timeStamp - previousTimeStamp);
+            previousTimeStamp = timeStamp;
+            long startTime = result.getStartTime();
+            writeZigZag(startTime - timeStamp);
+            writeZigZag(result.getEndTime() - startTime);
+            writeZigZag(result.getIdleTime());
+            writeZigZag(result.getTime());
+            if (intendedStartTime != 0) {
+                writeZigZag(startTime - intendedStartTime);
+            }
+            writeZigZag(result.getLatency());
+            writeZigZag(result.getConnectTime());
+            writeZigZag(result.getSampleCount());
+            writeZigZag(result.getBytesAsLong());
+            writeZigZag(result.getSentBytes());
+            writeZigZag(result.getHeadersSize());
+            writeZigZag(result.getBodySizeAsLong());
+            writeZigZag(result.getGroupThreads());
+            writeZigZag(result.getAllThreads());
+
+            writeString(result.getSampleLabel());
+            writeString(result.getThreadName());
+            writeString(result.getResponseCode());
+            writeString(result.getResponseMessage());
+            writeString(result.getDataType());
+            writeString(result.getContentType());
+            writeString(result.getDataEncodingNoDefault());
+            URL url = result.getURL();
+            writeString(url == null ? null : url.toExternalForm());
+            writeString(result.getSamplerData());
+            writeString(result.getRequestHeaders());
+            writeString(result.getResponseHeaders());
+            writeString(result.getResultFileName());
+            writeBytes(result.getResponseData());
+
+            AssertionResult[] assertionResults = result.getAssertionResults();
+            writeVarLong(assertionResults.length);
+            for (AssertionResult assertionResult : assertionResults) {
+                writeVarLong((assertionResult.isFailure() ? FLAG_ASSERTION_FAILURE : 0)
+                        | (assertionResult.isError() ? FLAG_ASSERTION_ERROR : 0));
+                writeString(assertionResult.getName());
+                writeString(assertionResult.getFailureMessage());
+            }
+
+            SampleResult[] subResults = result.getSubResults();
+            writeVarLong(subResults.length);
+            for (SampleResult subResult : subResults) {
+                writeResult(subResult);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private static final class Decoder {
+
+        private final List<String> dictionary = new ArrayList<>();
+
+        private final byte[] data;
+
+        private int position;
+
+        private long previousTimeStamp;
+
+        private Decoder(byte[] data) {
+            this.data = data;
+        }
+
+        private byte readByte() throws IOException {
+            if (position >= data.length) {
+                throw new StreamCorruptedException("Truncated binary sample batch");
+            }
+            return data[position++];
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length integer at " + position);
+        }
+
+        private int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new StreamCorruptedException("Invalid length or index " + value + " at " + position);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads a number of elements, checking it against the remaining data
+         * before anything is allocated for them, as each takes at least a byte
+         */
+        private int readCount() throws IOException {
+            int count = readVarInt();
+            if (count > data.length - position) {
+                throw new StreamCorruptedException("Invalid number of elements " + count + " at " + position);
+            }
+            return count;
+        }
+
+        private long readZigZag() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int readZigZagInt() throws IOException {
+            return (int) readZigZag();
+        }
+
+        private byte[] readBytes() throws IOException {
+            int size = readVarInt();
+            if (size == 0) {
+                return EMPTY_BA;
+            }
+            if (size > data.length - position) {
+                throw new StreamCorruptedException("Truncated binary sample batch");
+            }
+            byte[] bytes = Arrays.copyOfRange(data, position, position + size);
+            position += size;
+            return bytes;
+        }
+
+        private String readString() throws IOException {
+            int reference = readVarInt();
+            if (reference == NULL_STRING) {
+                return null;
+            }
+            if (reference == NEW_STRING) {
+                String value = new String(readBytes(), StandardCharsets.UTF_8);
+                dictionary.add(value);
+                return value;
+            }
+            int index = reference - FIRST_ENTRY;
+            if (index >= dictionary.size()) {
+                throw new StreamCorruptedException("Unknown string reference " + reference + " at " + position);
+            }
+            return dictionary.get(index);
+        }
+
+        private SampleEvent readEvent() throws IOException {
+            int flags = readVarInt();
+            String threadGroup = readString();
+            String hostname = readString();
+            String[] values = new String[readCount()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString();
+            }
+            SampleResult result = readResult();
+            return new SampleEvent(result, threadGroup, hostname, values,
+                    (flags & FLAG_TRANSACTION) != 0);
+        }
+
+        private SampleResult readResult() throws IOException {
+            SampleResult result = new SampleResult();
+            int flags = readVarInt();
+            result.setSuccessful((flags & FLAG_SUCCESS) != 0);
+            long timeStamp = previousTimeStamp + readZigZag();
+            previousTimeStamp = timeStamp;
+            long startTime = timeStamp + readZigZag();
+            long endTime = startTime + readZigZag();
+            long idleTime = readZigZag();
+            result.setDecodedTimes(timeStamp, startTime, endTime, idleTime, readZigZag());
+            if ((flags & FLAG_INTENDED_START_TIME) != 0) {
+                result.setIntendedStartTime(startTime - readZigZag());
+            }
+            result.setLatency(readZigZag());
+            result.setConnectTime(readZigZag());
+            result.setSampleCount(readZigZagInt());
+            result.setBytes(readZigZag());
+            result.setSentBytes(readZigZag());
+            result.setHeadersSize(readZigZagInt());
+            result.setBodySize(readZigZag());
+            result.setGroupThreads(readZigZagInt());
+            result.setAllThreads(readZigZagInt());
+
+            result.setSampleLabel(readString());
+            result.setThreadName(readString());
+            result.setResponseCode(readString());
+            result.setResponseMessage(readString());
+            result.setDataType(readString());
+            result.setContentType(readString());
+            result.setDataEncoding(readString());
+            String url = readString();
+            if (url != null) {
+                try {
+                    result.setURL(new URL(url));
+                } catch (MalformedURLException e) {
+                    log.warn("Cannot decode URL {} of sample {}", url, result.getSampleLabel(), e);
+                }
+            }
+            result.setSamplerData(readString());
+            result.setRequestHeaders(readString());
+            result.setResponseHeaders(readString());
+            result.setResultFileName(readString());
+            result.setResponseData(readBytes());
+
+            int assertionCount = readCount();
+            for (int i = 0; i < assertionCount; i++) {
+                int assertionFlags = readVarInt();
+                AssertionResult assertionResult = new AssertionResult(readString());
+                assertionResult.setFailure((assertionFlags & FLAG_ASSERTION_FAILURE) != 0);
+                assertionResult.setError((assertionFlags & FLAG_ASSERTION_ERROR) != 0);
+                assertionResult.setFailureMessage(readString());
+                result.addAssertionResult(assertionResult);
+            }
+
+            int subResultCount = readCount();
+            for (int i = 0; i < subResultCount; i++) {
+                // Labels were already renamed on the server
+                result.storeSubResult(readResult(), false);
+            }
+            return result;
+        }
+    }
+}
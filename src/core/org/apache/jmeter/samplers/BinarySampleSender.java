@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements batch reporting for remote testing, the batches being sent in a
+ * compact binary format (see {@link BinarySampleBatch}).
+ * <p>
+ * Batches are built the same way as by {@link BatchSampleSender}, but their
+ * encoding is much smaller and cheaper to decode by the client than the Java
+ * serialization of the sample events.
+ *
+ * @since 5.2
+ */
+public class BinarySampleSender extends BatchSampleSender implements Serializable {
+
+    private static final Logger log = LoggerFactory.getLogger(BinarySampleSender.class);
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @deprecated only for use by test code
+     */
+    @Deprecated
+    public BinarySampleSender(){
+        this(null);
+        log.warn("Constructor only intended for use in testing"); // $NON-NLS-1$
+    }
+
+    /**
+     * Constructor
+     *
+     * @param listener
+     *            that the batches of sample events will be sent to.
+     */
+    protected BinarySampleSender(RemoteSampleListener listener) {
+        super(listener);
+        log.info("Using binary encoding of batches for this run.");
+    }
+
+    @Override
+    protected void sendBatch(List<SampleEvent> batch) throws RemoteException {
+        getListener().processBatch(new BinarySampleBatch(batch));
+    }
+}
@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jorphan.math.LogHistogram;
+
+/**
+ * List of sample events which is sent as aggregates of samples, by
+ * {@link HistogramSampleSender}.
+ * <p>
+ * The server aggregates the samples having the same label, thread group,
+ * status, response code and message, and failure message during an interval.
+ * An aggregate holds a histogram of the elapsed times and the sums of the
+ * other counters, and only the non empty buckets of the histogram are sent.
+ * <p>
+ * When the batch is deserialized by the client, each aggregate is expanded
+ * into one sample per value of its histogram, so that the listeners of the
+ * client compute the same counts, percentiles and throughput as with the
+ * samples of the server, within the precision of the histograms:
+ * <ul>
+ * <li>elapsed times are the values of the histogram buckets</li>
+ * <li>start times are evenly spread between the first and last start times
+ * of the aggregated samples, the elapsed times being interleaved so that
+ * they do not grow with the start times</li>
+ * <li>latencies and connect times are the averages of the aggregated
+ * samples, capped by the elapsed time of each sample</li>
+ * <li>bytes, sent bytes and sample counts are evenly distributed between the
+ * samples</li>
+ * <li>the thread name is the one of the last aggregated sample, and the
+ * numbers of active threads are the highest of the aggregated samples</li>
+ * </ul>
+ * Sub-results, response data, headers and sample variables are not sent.
+ * <p>
+ * The expanded samples are {@link SampleResult#isSynthetic() synthetic}. They
+ * are saved in the result files of the client, so that the dashboard report can
+ * be generated from them, unless <code>sample_sender_histogram_save_expanded</code>
+ * is false.
+ *
+ * @since 5.2
+ */
+public final class HistogramSampleBatch extends AbstractList<SampleEvent> implements Externalizable, RandomAccess {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int VERSION = 3;
+
+    /** Highest number of samples of a batch, so that they fit in an array */
+    private static final int MAX_SAMPLES = Integer.MAX_VALUE - 8;
+
+    /** Samples aggregated by the server, null when the batch has been deserialized */
+    private Collection<Aggregate> aggregates;
+
+    /** Samples expanded from the aggregates by the client */
+    private List<SampleEvent> events;
+
+    /**
+     * Only intended for use by the deserialization
+     */
+    public HistogramSampleBatch() {
+        this.events = Collections.emptyList();
+    }
+
+    /**
+     * @param aggregates
+     *            the aggregates of the batch, which must not be changed until
+     *            the batch is serialized
+     */
+    HistogramSampleBatch(Collection<Aggregate> aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    private List<SampleEvent> getEvents() {
+        if (events == null) {
+            List<SampleEvent> expanded = new ArrayList<>();
+            for (Aggregate aggregate : aggregates) {
+                aggregate.expand(expanded);
+            }
+            events = expanded;
+        }
+        return events;
+    }
+
+    @Override
+    public SampleEvent get(int index) {
+        return getEvents().get(index);
+    }
+
+    @Override
+    public int size() {
+        return getEvents().size();
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(aggregates.size());
+        for (Aggregate aggregate : aggregates) {
+            aggregate.write(out);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported histogram sample batch version: " + version);
+        }
+        int count = in.readInt();
+        List<SampleEvent> expanded = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Aggregate aggregate = Aggregate.read(in);
+            if (aggregate.samples > MAX_SAMPLES - expanded.size()) {
+                throw new StreamCorruptedException("Batch holds more than " + MAX_SAMPLES + " samples");
+            }
+            aggregate.expand(expanded);
+        }
+        events = expanded;
+    }
+
+    private static void writeString(ObjectOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ObjectInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sample rebuilt by the client from an aggregate, which was not measured as such
+     */
+    private static final class ExpandedSampleResult extends SampleResult {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean isSynthetic() {
+            return true;
+        }
+    }
+
+    /**
+     * Samples aggregated by the server
+     */
+    static final class Aggregate {
+
+        private final String label;
+
+        private final String threadGroup;
+
+        private final String hostname;
+
+        private final boolean transaction;
+
+        private final boolean success;
+
+        private final String responseCode;
+
+        private final String responseMessage;
+
+        private final String dataType;
+
+        private final String failureMessage;
+
+        private final LogHistogram elapsed;
+
+        /** Buckets of the histogram, as value and count pairs, when read by the client */
+        private long[] buckets;
+
+        private long firstStartTime = Long.MAX_VALUE;
+
+        private long lastStartTime = Long.MIN_VALUE;
+
+        private long sampleCount;
+
+        private long bytes;
+
+        private long sentBytes;
+
+        private long latency;
+
+        private long connectTime;
+
+        private String threadName;
+
+        private int groupThreads;
+
+        private int allThreads;
+
+        /** Number of values of the histogram, when read by the client */
+        private int samples;
+
+        /** Lowest and highest elapsed times, when read by the client */
+        private long minTime;
+
+        private long maxTime;
+
+        /**
+         * Create an empty aggregate for the samples like the one of event
+         */
+        Aggregate(SampleEvent event, int significantDigits) {
+            SampleResult result = event.getResult();
+            label = result.getSampleLabel();
+            threadGroup = event.getThreadGroup();
+            hostname = event.getHostname();
+            transaction = event.isTransactionSampleEvent();
+            success = result.isSuccessful();
+            responseCode = result.getResponseCode();
+            responseMessage = result.getResponseMessage();
+            dataType = result.getDataType();
+            failureMessage = success ? null : result.getFirstAssertionFailureMessage();
+            elapsed = new LogHistogram(significantDigits);
+        }
+
+        private Aggregate(ObjectInput in) throws IOException {
+            label = readString(in);
+            threadGroup = readString(in);
+            hostname = readString(in);
+            transaction = in.readBoolean();
+            success = in.readBoolean();
+            responseCode = readString(in);
+            responseMessage = readString(in);
+            dataType = readString(in);
+            failureMessage = readString(in);
+            elapsed = null;
+        }
+
+        /**
+         * Generates the key of the aggregate of an event. Samples which are
+         * aggregated have the same fields in the samples expanded by the
+         * client.
+         *
+         * @param event
+         *            the sample event
+         * @return the key of the aggregate of event
+         */
+        static String getKey(SampleEvent event) {
+            SampleResult result = event.getResult();
+            StringBuilder sb = new StringBuilder(80);
+            sb.append(result.getSampleLabel())
+                .append('\n').append(event.getThreadGroup())
+                .append('\n').append(event.isTransactionSampleEvent())
+                .append('\n').append(result.isSuccessful());
+            if (!result.isSuccessful()) {
+                sb.append('\n').append(result.getResponseCode())
+                    .append('\n').append(result.getResponseMessage())
+                    .append('\n').append(result.getFirstAssertionFailureMessage());
+            }
+            return sb.toString();
+        }
+
+        void add(SampleResult result) {
+            elapsed.addValue(result.getTime());
+            long startTime = result.getStartTime();
+            firstStartTime = Math.min(firstStartTime, startTime);
+            lastStartTime = Math.max(lastStartTime, startTime);
+            sampleCount += result.getSampleCount();
+            bytes += result.getBytesAsLong();
+            sentBytes += result.getSentBytes();
+            latency += result.getLatency();
+            connectTime += result.getConnectTime();
+            threadName = result.getThreadName();
+            groupThreads = Math.max(groupThreads, result.getGroupThreads());
+            allThreads = Math.max(allThreads, result.getAllThreads());
+        }
+
+        private void write(ObjectOutput out) throws IOException {
+            writeString(out, label);
+            writeString(out, threadGroup);
+            writeString(out, hostname);
+            out.writeBoolean(transaction);
+            out.writeBoolean(success);
+            writeString(out, responseCode);
+            writeString(out, responseMessage);
+            writeString(out, dataType);
+            writeString(out, failureMessage);
+            out.writeLong(firstStartTime);
+            out.writeLong(lastStartTime);
+            out.writeLong(sampleCount);
+            out.writeLong(bytes);
+            out.writeLong(sentBytes);
+            out.writeLong(latency);
+            out.writeLong(connectTime);
+            writeString(out, threadName);
+            out.writeInt(groupThreads);
+            out.writeInt(allThreads);
+            out.writeLong((long) elapsed.getMin());
+            out.writeLong((long) elapsed.getMax());
+            out.writeInt((int) Math.min(elapsed.getCount(), MAX_SAMPLES));
+            long[] pairs = getBuckets();
+            out.writeInt(pairs.length / 2);
+            for (long value : pairs) {
+                out.writeLong(value);
+            }
+        }
+
+        /**
+         * @return the buckets of the histogram, as value and count pairs
+         */
+        private long[] getBuckets() {
+            if (buckets == null) {
+                List<long[]> pairs = new ArrayList<>();
+                elapsed.forEachBucket((value, count) -> pairs.add(new long[] { value, count }));
+                long[] values = new long[2 * pairs.size()];
+                for (int i = 0; i < pairs.size(); i++) {
+                    values[2 * i] = pairs.get(i)[0];
+                    values[2 * i + 1] = pairs.get(i)[1];
+                }
+                return values;
+            }
+            return buckets;
+        }
+
+        private static Aggregate read(ObjectInput in) throws IOException {
+            Aggregate aggregate = new Aggregate(in);
+            aggregate.firstStartTime = in.readLong();
+            aggregate.lastStartTime = in.readLong();
+            aggregate.sampleCount = in.readLong();
+            aggregate.bytes = in.readLong();
+            aggregate.sentBytes = in.readLong();
+            aggregate.latency = in.readLong();
+            aggregate.connectTime = in.readLong();
+            aggregate.threadName = readString(in);
+            aggregate.groupThreads = in.readInt();
+            aggregate.allThreads = in.readInt();
+            aggregate.minTime = in.readLong();
+            aggregate.maxTime = in.readLong();
+            aggregate.samples = in.readInt();
+            int bucketCount = in.readInt();
+            if (aggregate.samples < 0 || aggregate.samples > MAX_SAMPLES) {
+                throw new StreamCorruptedException("Invalid number of samples: " + aggregate.samples);
+            }
+            // Buckets are not empty, so there cannot be more buckets than samples
+            if (bucketCount < 0 || bucketCount > aggregate.samples) {
+                throw new StreamCorruptedException("Invalid number of buckets: " + bucketCount);
+            }
+            aggregate.buckets = new long[2 * bucketCount];
+            long total = 0;
+            for (int i = 0; i < aggregate.buckets.length; i++) {
+                long value = in.readLong();
+                if (i % 2 == 1) {
+                    if (value <= 0 || value > aggregate.samples - total) {
+                        throw new StreamCorruptedException("Invalid bucket count: " + value);
+                    }
+                    total += value;
+                }
+                aggregate.buckets[i] = value;
+            }
+            if (total != aggregate.samples) {
+                throw new StreamCorruptedException("Buckets hold " + total + " samples instead of " + aggregate.samples);
+            }
+            return aggregate;
+        }
+
+        /** Share of total for the sample of index, the remainder going to the first samples */
+        private static long share(long total, long count, long index) {
+            return total / count + (index < total % count ? 1 : 0);
+        }
+
+        /**
+         * Step between the elapsed times of consecutive samples, close to the
+         * golden ratio of count and coprime with it, so that stepping through
+         * the sorted elapsed times visits each of them once without following
+         * their order
+         */
+        private static int interleavingStep(int count) {
+            int step = Math.max(1, (int) (count * 0.618));
+            while (gcd(step, count) != 1) {
+                step--;
+            }
+            return step;
+        }
+
+        private static int gcd(int a, int b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+
+        /**
+         * Add a sample event for each value of the histogram, in the order of
+         * their start times. The lowest and highest values are the exact
+         * elapsed times, not their buckets.
+         */
+        private void expand(List<SampleEvent> events) {
+            long[] pairs = getBuckets();
+            long min = buckets == null ? (long) elapsed.getMin() : minTime;
+            long max = buckets == null ? (long) elapsed.getMax() : maxTime;
+            // The bucket counts read by the client have been checked to add up to samples
+            int count = buckets == null ? (int) elapsed.getCount() : samples;
+            long[] times = new long[count];
+            int index = 0;
+            for (int i = 0; i < pairs.length; i += 2) {
+                for (long j = 0; j < pairs[i + 1]; j++) {
+                    times[index++] = pairs[i];
+                }
+            }
+            if (count == 0) {
+                return;
+            }
+            times[0] = min;
+            times[count - 1] = max;
+            int step = interleavingStep(count);
+            for (int i = 0; i < count; i++) {
+                long time = times[(int) ((long) i * step % count)];
+                events.add(new SampleEvent(createResult(time, i, count), threadGroup, hostname,
+                        new String[SampleEvent.getVarCount()], transaction));
+            }
+        }
+
+        private SampleResult createResult(long time, long index, long count) {
+            long startTime = count > 1
+                    ? firstStartTime + (lastStartTime - firstStartTime) * index / (count - 1)
+                    : firstStartTime;
+            SampleResult result = new ExpandedSampleResult();
+            result.setDecodedTimes(result.isStampedAtStart() ? startTime : startTime + time,
+                    startTime, startTime + time, 0, time);
+            result.setSampleLabel(label);
+            result.setSuccessful(success);
+            result.setResponseCode(responseCode);
+            result.setResponseMessage(responseMessage);
+            result.setDataType(dataType);
+            if (failureMessage != null) {
+                AssertionResult assertionResult = new AssertionResult(""); // $NON-NLS-1$
+                assertionResult.setFailure(true);
+                assertionResult.setFailureMessage(failureMessage);
+                result.addAssertionResult(assertionResult);
+            }
+            result.setSampleCount((int) share(sampleCount, count, index));
+            result.setBytes(share(bytes, count, index));
+            result.setSentBytes(share(sentBytes, count, index));
+            result.setLatency(Math.min(latency / count, time));
+            result.setConnectTime(Math.min(connectTime / count, time));
+            result.setThreadName(threadName);
+            result.setGroupThreads(groupThreads);
+            result.setAllThreads(allThreads);
+            return result;
+        }
+    }
+}
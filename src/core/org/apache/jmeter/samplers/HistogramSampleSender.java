@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements aggregated reporting for remote testing.
+ * <p>
+ * Unlike {@link StatisticalSampleSender}, which only keeps the sums of the
+ * aggregated samples, the samples are aggregated with a histogram of their
+ * elapsed times, so that the client computes correct percentiles from them.
+ * The aggregates of each interval are sent when the interval ends, see
+ * {@link HistogramSampleBatch}.
+ *
+ * @since 5.2
+ */
+public class HistogramSampleSender extends AbstractSampleSender implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(HistogramSampleSender.class);
+
+    private static final long DEFAULT_INTERVAL_MS = 1000L;
+
+    private static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    // Static fields are resolved on the server
+
+    private static final long INTERVAL_MS = JMeterUtils.getPropDefault(
+            "sample_sender_histogram_interval", DEFAULT_INTERVAL_MS); // $NON-NLS-1$
+
+    private static final int SIGNIFICANT_DIGITS = JMeterUtils.getPropDefault(
+            "sample_sender_histogram_digits", DEFAULT_SIGNIFICANT_DIGITS); // $NON-NLS-1$
+
+    // instance fields are copied from the client instance
+
+    private final long clientConfiguredIntervalMs = JMeterUtils.getPropDefault(
+            "sample_sender_histogram_interval", DEFAULT_INTERVAL_MS); // $NON-NLS-1$
+
+    private final int clientConfiguredSignificantDigits = JMeterUtils.getPropDefault(
+            "sample_sender_histogram_digits", DEFAULT_SIGNIFICANT_DIGITS); // $NON-NLS-1$
+
+    private final RemoteSampleListener listener;
+
+    private final Map<String, HistogramSampleBatch.Aggregate> aggregates = new HashMap<>();
+
+    // Configuration items, set up by readResolve
+    private transient volatile long intervalMs;
+
+    private transient volatile int significantDigits;
+
+    // Server-only work item
+    private transient long intervalEnd = -1; // @GuardedBy("aggregates")
+
+    /**
+     * @deprecated only for use by test code
+     */
+    @Deprecated
+    public HistogramSampleSender(){
+        this(null);
+        log.warn("Constructor only intended for use in testing"); // $NON-NLS-1$
+    }
+
+    /**
+     * Constructor, only called by client code.
+     *
+     * @param listener
+     *            that the aggregated sample events will be sent to.
+     */
+    HistogramSampleSender(RemoteSampleListener listener) {
+        this.listener = listener;
+        if (isClientConfigured()) {
+            log.info("Using HistogramSampleSender (client settings) for this run. Interval: {} ms, digits: {}",
+                    clientConfiguredIntervalMs, clientConfiguredSignificantDigits);
+        } else {
+            log.info("Using HistogramSampleSender (server settings) for this run.");
+        }
+    }
+
+    /**
+     * Sends the aggregates of the current interval to the listener. Informs
+     * the listener that the test ended.
+     *
+     * @param host
+     *            the host that the test has ended on.
+     */
+    @Override
+    public void testEnded(String host) {
+        log.info("Test Ended on {}", host);
+        List<HistogramSampleBatch.Aggregate> batch;
+        synchronized (aggregates) {
+            batch = removeAggregates();
+        }
+        try {
+            if (!batch.isEmpty()) {
+                listener.processBatch(new HistogramSampleBatch(batch));
+            }
+            listener.testEnded(host);
+        } catch (RemoteException err) {
+            log.error("testEnded(host)", err);
+        }
+    }
+
+    /**
+     * Adds the sample to the aggregate of its label, thread group and status.
+     * When the current interval has ended, the aggregates of the interval are
+     * sent to the listener first.
+     *
+     * @param e
+     *            a Sample Event
+     */
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        List<HistogramSampleBatch.Aggregate> batch = null;
+        synchronized (aggregates) {
+            long now = System.currentTimeMillis();
+            if (intervalEnd <= 0) {
+                intervalEnd = nextIntervalEnd(now);
+            } else if (now >= intervalEnd) {
+                batch = removeAggregates();
+                intervalEnd = nextIntervalEnd(now);
+            }
+            HistogramSampleBatch.Aggregate aggregate = aggregates.computeIfAbsent(
+                    HistogramSampleBatch.Aggregate.getKey(e),
+                    k -> new HistogramSampleBatch.Aggregate(e, significantDigits));
+            aggregate.add(e.getResult());
+        }
+        if (batch != null && !batch.isEmpty()) {
+            try {
+                log.debug("Firing {} aggregates", batch.size());
+                listener.processBatch(new HistogramSampleBatch(batch));
+            } catch (RemoteException err) {
+                log.error("sampleOccurred", err);
+            }
+        }
+    }
+
+    /**
+     * @return the end of the interval of now, intervals being aligned on the
+     *         epoch, so that all the servers use the same intervals
+     */
+    private long nextIntervalEnd(long now) {
+        return (now / intervalMs + 1) * intervalMs;
+    }
+
+    // @GuardedBy("aggregates")
+    private List<HistogramSampleBatch.Aggregate> removeAggregates() {
+        List<HistogramSampleBatch.Aggregate> batch = new ArrayList<>(aggregates.values());
+        aggregates.clear();
+        return batch;
+    }
+
+    /**
+     * Processed by the RMI server code; acts as testStarted().
+     *
+     * @return this
+     * @throws ObjectStreamException
+     *             never
+     */
+    protected Object readResolve() throws ObjectStreamException {
+        if (isClientConfigured()) {
+            intervalMs = clientConfiguredIntervalMs;
+            significantDigits = clientConfiguredSignificantDigits;
+        } else {
+            intervalMs = INTERVAL_MS;
+            significantDigits = SIGNIFICANT_DIGITS;
+        }
+        if (intervalMs <= 0) {
+            log.warn("Invalid histogram interval {} ms, using {} ms", intervalMs, DEFAULT_INTERVAL_MS);
+            intervalMs = DEFAULT_INTERVAL_MS;
+        }
+        if (significantDigits < 1 || significantDigits > 5) {
+            log.warn("Invalid histogram digits {}, using {}", significantDigits, DEFAULT_SIGNIFICANT_DIGITS);
+            significantDigits = DEFAULT_SIGNIFICANT_DIGITS;
+        }
+        log.info("Using HistogramSampleSender for this run. Interval: {} ms, digits: {}",
+                intervalMs, significantDigits);
+        return this;
+    }
+}
@@ -32,7 +32,7 @@ import org.slf4j.LoggerFactory;
  * Lars-Erik Helander provided the idea (and original implementation) for the
  * caching functionality (sampleStore).
  */
-public class RemoteListenerWrapper extends AbstractTestElement implements SampleListener, TestStateListener, Serializable,
+public class RemoteListenerWrapper extends AbstractTestElement implements ThreadIndependentSampleListener, TestStateListener, Serializable,
         NoThreadClone {
     private static final Logger log = LoggerFactory.getLogger(RemoteListenerWrapper.class);
 
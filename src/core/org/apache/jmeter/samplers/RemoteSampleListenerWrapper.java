@@ -29,7 +29,7 @@ import org.slf4j.LoggerFactory;
 /**
  * 
  */
-public class RemoteSampleListenerWrapper extends AbstractTestElement implements SampleListener, Serializable,
+public class RemoteSampleListenerWrapper extends AbstractTestElement implements ThreadIndependentSampleListener, Serializable,
         NoThreadClone {
     private static final Logger log = LoggerFactory.getLogger(RemoteSampleListenerWrapper.class);
 
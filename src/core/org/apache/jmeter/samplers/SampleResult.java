@@ -236,6 +236,9 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
     /** time to end connecting */
     private long connectTime = 0;
 
+    /** time at which the sample was scheduled to start, 0 if not paced */
+    private long intendedStartTime = 0;
+
     /** Way to signal what to do on Test */
     private TestLogicalAction testLogicalAction = TestLogicalAction.CONTINUE;
     
@@ -321,6 +324,7 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         label = res.label;//OK
         latency = res.latency;
         connectTime = res.connectTime;
+        intendedStartTime = res.intendedStartTime;
         location = res.location;//OK
         parent = res.parent; 
         pauseTime = res.pauseTime;
@@ -706,7 +710,7 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
      *            the {@link SampleResult} to be added
      * @param renameSubResults boolean do we rename subResults based on position
      */
-    private void storeSubResult(SampleResult subResult, boolean renameSubResults) {
+    void storeSubResult(SampleResult subResult, boolean renameSubResults) {
         if (subResults == null) {
             subResults = new ArrayList<>();
         }
@@ -1124,6 +1128,18 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         setEndTime(end);
     }
 
+    /**
+     * Set all the times of a sample sent by a remote server.
+     * For use by the remote sample batches only.
+     */
+    void setDecodedTimes(long stamp, long start, long end, long idle, long elapsed) {
+        timeStamp = stamp;
+        startTime = start;
+        endTime = end;
+        idleTime = idle;
+        elapsedTime = elapsed;
+    }
+
     /**
      * Record the start time of a sample
      *
@@ -1195,6 +1211,19 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         return false;
     }
 
+    /**
+     * Synthetic samples are not measured, but rebuilt from aggregates, as
+     * done by the client of the Histogram sample sender mode. They are
+     * saved in result files unless property
+     * <code>sample_sender_histogram_save_expanded</code> is false.
+     *
+     * @return true if the sample was not measured
+     * @since 5.2
+     */
+    public boolean isSynthetic() {
+        return false;
+    }
+
     /**
      * The statistical sample sender aggregates several samples to save on
      * transmission costs.
@@ -1357,6 +1386,58 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         this.connectTime = time;
     }
 
+    /**
+     * @return the time at which the sample was scheduled to start by a pacing timer,
+     *         or 0 if it was not paced
+     * @see org.apache.jmeter.timers.Timer#getIntendedStartTime()
+     * @since 5.2
+     */
+    public long getIntendedStartTime() {
+        return intendedStartTime;
+    }
+
+    /**
+     * Set the time at which the sample was scheduled to start by a pacing timer
+     *
+     * @param intendedStartTime the intended start time in milliseconds, 0 if the sample was not paced
+     * @since 5.2
+     */
+    public void setIntendedStartTime(long intendedStartTime) {
+        this.intendedStartTime = intendedStartTime;
+    }
+
+    /**
+     * Get the response time corrected for coordinated omission: the time from the intended start
+     * of the sample to its end. When the thread started the sample late, because previous samples
+     * took longer than the pacing allowed, the delay is added to the service time given by {@link #getTime()}.
+     *
+     * @return the corrected response time in milliseconds, which is the elapsed time if the sample
+     *         was not paced or started on time
+     * @since 5.2
+     */
+    public long getCorrectedTime() {
+        if (intendedStartTime <= 0 || intendedStartTime >= startTime) {
+            return elapsedTime;
+        }
+        return elapsedTime + (startTime - intendedStartTime);
+    }
+
+    /**
+     * Set the corrected response time, by computing the intended start time from the start time.
+     * This is only intended for use by the result file readers, start time must be set first.
+     *
+     * @param correctedTime the corrected response time in milliseconds
+     * @see #getCorrectedTime()
+     * @since 5.2
+     */
+    public void setCorrectedTime(long correctedTime) {
+        if (correctedTime > elapsedTime) {
+            intendedStartTime = startTime - (correctedTime - elapsedTime);
+        } else {
+            intendedStartTime = 0;
+        }
+    }
+
     /**
      * This is only intended for use by SampleResultConverter!
      *
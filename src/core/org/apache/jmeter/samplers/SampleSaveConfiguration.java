@@ -85,6 +85,9 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
     /** Indicates that the results file should be in CSV format. * */
     private static final String CSV = "csv"; // $NON_NLS-1$
 
+    /** Indicates that the results file should hold the CSV columns in the binary format. * */
+    private static final String BINARY = "binary"; // $NON_NLS-1$
+
     /** A properties file indicator for true. * */
     private static final String TRUE = "true"; // $NON_NLS-1$
 
@@ -221,6 +224,8 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
     private static final String SAVE_SAMPLE_COUNT    = "jmeter.save.saveservice.sample_count"; // $NON_NLS-1$
 
     private static final String SAVE_IDLE_TIME       = "jmeter.save.saveservice.idle_time"; // $NON_NLS-1$
+
+    private static final String SAVE_CORRECTED_TIME  = "jmeter.save.saveservice.corrected_time"; // $NON_NLS-1$
     
     // Defaults from properties:
     private static final boolean TIME;
@@ -231,6 +236,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
     private static final boolean MESSAGE;
     private static final boolean THREAD_NAME;
     private static final boolean IS_XML;
+    private static final boolean IS_BINARY;
     private static final boolean RESPONSE_DATA;
     private static final boolean DATATYPE;
     private static final boolean ENCODING;
@@ -282,6 +288,8 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
 
     private static final boolean IDLE_TIME;
 
+    private static final boolean CORRECTED_TIME;
+
     public static final String DEFAULT_DELIMITER = ","; // $NON_NLS-1$
 
     // Read in the properties having to do with saving from a properties file.
@@ -368,10 +376,11 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
 
         String howToSave = props.getProperty(OUTPUT_FORMAT_PROP, CSV);
 
+        IS_BINARY = BINARY.equals(howToSave);
         if (XML.equals(howToSave)) {
             IS_XML = true;
         } else {
-            if (!CSV.equals(howToSave)) {
+            if (!CSV.equals(howToSave) && !IS_BINARY) {
                 log.warn("{} has unexepected value: '{}' - assuming 'csv' format", OUTPUT_FORMAT_PROP, howToSave);
             }
             IS_XML = false;
@@ -382,6 +391,10 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         SAMPLE_COUNT=TRUE.equalsIgnoreCase(props.getProperty(SAVE_SAMPLE_COUNT, FALSE));
 
         IDLE_TIME=TRUE.equalsIgnoreCase(props.getProperty(SAVE_IDLE_TIME, TRUE));
+
+        // Saved by default when coordinated omission is corrected
+        CORRECTED_TIME=TRUE.equalsIgnoreCase(props.getProperty(SAVE_CORRECTED_TIME,
+                props.getProperty("timer.correct_coordinated_omission", FALSE))); // $NON_NLS-1$
     }
 
     private static final SampleSaveConfiguration STATIC_SAVE_CONFIGURATION = new SampleSaveConfiguration();
@@ -427,6 +440,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         "ResponseData", // XML
         "Subresults", // XML
         "Assertions", // XML
+        "CorrectedTime",
     }));
     // N.B. Remember to update the equals and hashCode methods when adding new variables.
 
@@ -467,6 +481,8 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
 
     private boolean idleTime = IDLE_TIME;
 
+    private boolean correctedTime = CORRECTED_TIME;
+
     // Does not appear to be used (yet)
     private int assertionsResultsToSave = ASSERTIONS_RESULT_TO_SAVE;
 
@@ -502,6 +518,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         bytes = value;
         code = value;
         connectTime = value;
+        correctedTime = value;
         dataType = value;
         encoding = value;
         fieldNames = value;
@@ -656,6 +673,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
             s.hostname == hostname &&
             s.sampleCount == sampleCount &&
             s.idleTime == idleTime &&
+            s.correctedTime == correctedTime &&
             s.threadCounts == threadCounts;
 
         boolean stringValues = false;
@@ -706,6 +724,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         hash = 31 * hash + (dateFormat != null  ? dateFormat.hashCode() : 0);
         hash = 31 * hash + (sampleCount ? 1 : 0);
         hash = 31 * hash + (idleTime ? 1 : 0);
+        hash = 31 * hash + (correctedTime ? 1 : 0);
 
         return hash;
     }
@@ -867,6 +886,16 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         this.xml = xml;
     }
 
+    /**
+     * The binary format saves the same columns as the CSV format.
+     * It is used instead of CSV when property <code>jmeter.save.saveservice.output_format</code> is <code>binary</code>.
+     * @return true if the results are saved in the binary format
+     * @since 5.2
+     */
+    public boolean isBinaryFormat() {
+        return IS_BINARY && !xml;
+    }
+
     public boolean saveFieldNames() {
         return fieldNames;
     }
@@ -1016,4 +1045,12 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
     public void setIdleTime(boolean save) {
         idleTime = save;
     }
+
+    public boolean saveCorrectedTime() {
+        return correctedTime;
+    }
+
+    public void setCorrectedTime(boolean save) {
+        correctedTime = save;
+    }
 }
@@ -37,6 +37,11 @@ public class SampleSenderFactory {
     private static final String MODE_STRIPPED_ASYNCH = "StrippedAsynch"; // $NON-NLS-1$
     private static final String MODE_DISKSTORE = "DiskStore"; // $NON-NLS-1$
     private static final String MODE_STRIPPED_DISKSTORE = "StrippedDiskStore"; // $NON-NLS-1$
+    private static final String MODE_BINARY = "Binary"; // $NON-NLS-1$
+    private static final String MODE_STRIPPED_BINARY = "StrippedBinary"; // $NON-NLS-1$
+    private static final String MODE_HISTOGRAM = "Histogram"; // $NON-NLS-1$
+    private static final String MODE_SPOOL = "Spool"; // $NON-NLS-1$
+    private static final String MODE_STRIPPED_SPOOL = "StrippedSpool"; // $NON-NLS-1$
 
     /**
      * Checks for the JMeter property mode and returns the required class.
@@ -67,6 +72,16 @@ public class SampleSenderFactory {
             s = new DiskStoreSampleSender(listener);
         } else if (type.equalsIgnoreCase(MODE_STRIPPED_DISKSTORE)) {
             s = new DataStrippingSampleSender(new DiskStoreSampleSender(listener));
+        } else if (type.equalsIgnoreCase(MODE_BINARY)) {
+            s = new BinarySampleSender(listener);
+        } else if (type.equalsIgnoreCase(MODE_STRIPPED_BINARY)) {
+            s = new DataStrippingSampleSender(new BinarySampleSender(listener));
+        } else if (type.equalsIgnoreCase(MODE_HISTOGRAM)) {
+            s = new HistogramSampleSender(listener);
+        } else if (type.equalsIgnoreCase(MODE_SPOOL)) {
+            s = new SpoolSampleSender(listener);
+        } else if (type.equalsIgnoreCase(MODE_STRIPPED_SPOOL)) {
+            s = new DataStrippingSampleSender(new SpoolSampleSender(listener));
         } else {
             // should be a user provided class name
             try {
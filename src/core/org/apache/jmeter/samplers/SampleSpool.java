@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of compressed sample batches, split in segment files.
+ * <p>
+ * Each record of a segment is made of the length of its data, its number of
+ * samples and its data: the {@link BinarySampleCodec} encoding of the samples,
+ * compressed with {@link Deflater}.
+ * <p>
+ * Records are appended by a single writer thread and read back in order by a
+ * single reader thread. A segment is deleted once all its records have been
+ * acknowledged by the reader and the writer has moved to the next segment.
+ *
+ * @since 5.2
+ */
+final class SampleSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(SampleSpool.class);
+
+    private static final int RECORD_HEADER_LENGTH = 8;
+
+    /**
+     * A record of the spool, the data of which is on disk.
+     */
+    static final class Record {
+        final File segment;
+
+        final long offset;
+
+        final int length;
+
+        final int sampleCount;
+
+        final long sequence;
+
+        Record(File segment, long offset, int length, int sampleCount, long sequence) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.sampleCount = sampleCount;
+            this.sequence = sequence;
+        }
+    }
+
+    private final File directory;
+
+    private final long segmentSize;
+
+    private final BlockingQueue<Record> records = new LinkedBlockingQueue<>();
+
+    // Writer state
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private File segment;
+    private DataOutputStream out;
+    private long segmentLength;
+    private int segmentCount;
+    private long sequence;
+
+    private volatile boolean closed;
+
+    // Reader state
+    private File readSegment;
+    private RandomAccessFile reader;
+    private File acknowledgedSegment;
+
+    /**
+     * @param directory   the directory of the segment files, which must exist
+     * @param segmentSize the size in bytes after which a new segment is started
+     */
+    SampleSpool(File directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Appends a record. Only called by the writer thread.
+     *
+     * @param events the samples of the record
+     * @throws IOException when the record cannot be written
+     */
+    void append(List<SampleEvent> events) throws IOException {
+        byte[] data = compress(BinarySampleCodec.encode(events));
+        if (out == null || segmentLength >= segmentSize) {
+            nextSegment();
+        }
+        out.writeInt(data.length);
+        out.writeInt(events.size());
+        out.write(data);
+        out.flush();
+        records.add(new Record(segment, segmentLength + RECORD_HEADER_LENGTH, data.length, events.size(), ++sequence));
+        segmentLength += RECORD_HEADER_LENGTH + data.length;
+    }
+
+    private void nextSegment() throws IOException {
+        JOrphanUtils.closeQuietly(out);
+        segmentCount++;
+        segment = new File(directory, String.format(Locale.ROOT, "segment-%06d.log", segmentCount)); // $NON-NLS-1$
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(segment)));
+        segmentLength = 0;
+    }
+
+    private byte[] compress(byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            compressed.write(buffer, 0, count);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Closes the current segment, no record being appended anymore. Only
+     * called by the writer thread.
+     */
+    void close() {
+        JOrphanUtils.closeQuietly(out);
+        deflater.end();
+        closed = true;
+    }
+
+    /**
+     * Waits for the next record. Only called by the reader thread.
+     *
+     * @param timeout how long to wait, in milliseconds
+     * @return the next record, or <code>null</code> if none was appended in time
+     * @throws InterruptedException when interrupted
+     */
+    Record next(long timeout) throws InterruptedException {
+        return records.poll(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the data of a record. Only called by the reader thread.
+     *
+     * @param record the record
+     * @return the compressed data of the record
+     * @throws IOException when the data cannot be read
+     */
+    byte[] read(Record record) throws IOException {
+        if (reader == null || !record.segment.equals(readSegment)) {
+            JOrphanUtils.closeQuietly(reader);
+            reader = new RandomAccessFile(record.segment, "r"); // $NON-NLS-1$
+            readSegment = record.segment;
+        }
+        byte[] data = new byte[record.length];
+        reader.seek(record.offset);
+        reader.readFully(data);
+        return data;
+    }
+
+    /**
+     * Acknowledges that a record has been processed, deleting the segments of
+     * the records before it. Only called by the reader thread.
+     *
+     * @param record the record, which is the last one read
+     */
+    void acknowledge(Record record) {
+        if (acknowledgedSegment != null && !acknowledgedSegment.equals(record.segment)) {
+            if (acknowledgedSegment.equals(readSegment)) {
+                JOrphanUtils.closeQuietly(reader);
+                reader = null;
+            }
+            deleteSegment(acknowledgedSegment);
+        }
+        acknowledgedSegment = record.segment;
+    }
+
+    /**
+     * @return <code>true</code> if the spool is closed and all its records have
+     *         been taken by the reader
+     */
+    boolean isDrained() {
+        return closed && records.isEmpty();
+    }
+
+    /**
+     * @return the number of samples appended but not yet taken by the reader
+     */
+    long getPendingSampleCount() {
+        long count = 0;
+        for (Record record : records) {
+            count += record.sampleCount;
+        }
+        return count;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Deletes the spool with its segments. Only called by the reader thread,
+     * or once the reader has ended.
+     */
+    void delete() {
+        JOrphanUtils.closeQuietly(reader);
+        reader = null;
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException e) {
+            log.warn("Could not delete spool directory {}", directory, e);
+        }
+    }
+
+    private static void deleteSegment(File segment) {
+        if (!segment.delete()) {
+            log.warn("Could not delete spool segment {}", segment);
+        }
+    }
+}
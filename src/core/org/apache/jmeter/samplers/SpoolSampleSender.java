@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Version of {@link DiskStoreSampleSender} that streams the samples to the
+ * client during the test.
+ * <p>
+ * The samples are appended by batches to a compressed, append-only
+ * {@link SampleSpool} on the server. Another thread sends the records of the
+ * spool to the client as fast as the client takes them, one at a time, see
+ * {@link SpooledSampleBatch}. When the client cannot be reached, the record is
+ * sent again later while the samples keep on being spooled, so that no sample
+ * is lost; the client drops the records it receives twice. At the end of the
+ * test, the remaining records are sent before the client is told the test
+ * ended.
+ *
+ * @since 5.2
+ */
+public class SpoolSampleSender extends AbstractSampleSender implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolSampleSender.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    private static final long DEFAULT_END_TIMEOUT_MS = 300000L;
+
+    /** Time after which the samples of a partial batch are spooled */
+    private static final long FLUSH_INTERVAL_MS = 1000L;
+
+    private static final long END_POLL_INTERVAL_MS = 10L;
+
+    private static final long FIRST_RETRY_DELAY_MS = 100L;
+
+    private static final long MAX_RETRY_DELAY_MS = 10000L;
+
+    // Static fields are resolved on the server
+
+    private static final int BATCH_SIZE = JMeterUtils.getPropDefault(
+            "sample_sender_spool_batch_size", DEFAULT_BATCH_SIZE); // $NON-NLS-1$
+
+    private static final long SEGMENT_SIZE = JMeterUtils.getPropDefault(
+            "sample_sender_spool_segment_size", DEFAULT_SEGMENT_SIZE); // $NON-NLS-1$
+
+    private static final long END_TIMEOUT_MS = JMeterUtils.getPropDefault(
+            "sample_sender_spool_end_timeout", DEFAULT_END_TIMEOUT_MS); // $NON-NLS-1$
+
+    // instance fields are copied from the client instance
+
+    private final int clientConfiguredBatchSize = JMeterUtils.getPropDefault(
+            "sample_sender_spool_batch_size", DEFAULT_BATCH_SIZE); // $NON-NLS-1$
+
+    private final long clientConfiguredSegmentSize = JMeterUtils.getPropDefault(
+            "sample_sender_spool_segment_size", DEFAULT_SEGMENT_SIZE); // $NON-NLS-1$
+
+    private final long clientConfiguredEndTimeoutMs = JMeterUtils.getPropDefault(
+            "sample_sender_spool_end_timeout", DEFAULT_END_TIMEOUT_MS); // $NON-NLS-1$
+
+    private final RemoteSampleListener listener;
+
+    private final List<SampleEvent> buffer = new ArrayList<>();
+
+    // Configuration items, set up by readResolve
+    private transient volatile int batchSize;
+
+    private transient volatile long endTimeoutMs;
+
+    // Server-only work items, set up by readResolve
+    private transient volatile String spoolId;
+
+    private transient volatile SampleSpool spool;
+
+    private transient volatile ExecutorService writer; // @GuardedBy("buffer") for submission
+
+    private transient volatile Thread streamer;
+
+    private transient volatile boolean ended;
+
+    /** Time after which the streamer gives up sending the spool, once the test ended */
+    private transient volatile long deadline;
+
+    /** Set by the streamer when all the records of the spool have been sent */
+    private transient volatile boolean complete;
+
+    /**
+     * @deprecated only for use by test code
+     */
+    @Deprecated
+    public SpoolSampleSender(){
+        this(null);
+        log.warn("Constructor only intended for use in testing"); // $NON-NLS-1$
+    }
+
+    /**
+     * Constructor, only called by client code.
+     *
+     * @param listener
+     *            that the sample events will be sent to.
+     */
+    SpoolSampleSender(RemoteSampleListener listener) {
+        this.listener = listener;
+        if (isClientConfigured()) {
+            log.info("Using SpoolSampleSender (client settings) for this run."
+                    + " Batch size: {}, segment size: {}, end timeout: {} ms",
+                    clientConfiguredBatchSize, clientConfiguredSegmentSize, clientConfiguredEndTimeoutMs);
+        } else {
+            log.info("Using SpoolSampleSender (server settings) for this run.");
+        }
+    }
+
+    /**
+     * Spools the sample. Once the batch is full, its samples are appended to
+     * the spool by the writer thread.
+     *
+     * @param e
+     *            a Sample Event
+     */
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        synchronized (buffer) {
+            if (ended) {
+                log.warn("Ignoring sample occurred after the end of the test: {}", e.getResult().getSampleLabel());
+                return;
+            }
+            buffer.add(e);
+            if (buffer.size() >= batchSize) {
+                spoolBuffer();
+            }
+        }
+    }
+
+    /**
+     * Spools the samples of a partial batch, so that they do not wait for the
+     * following samples when the test is slow.
+     */
+    private void flush() {
+        synchronized (buffer) {
+            if (!ended && !buffer.isEmpty()) {
+                spoolBuffer();
+            }
+        }
+    }
+
+    // @GuardedBy("buffer")
+    private void spoolBuffer() {
+        List<SampleEvent> batch = new ArrayList<>(buffer);
+        buffer.clear();
+        writer.submit(() -> append(batch));
+    }
+
+    private void append(List<SampleEvent> batch) {
+        try {
+            spool.append(batch);
+        } catch (IOException err) {
+            log.error("Failed to spool {} samples", batch.size(), err);
+        }
+    }
+
+    /**
+     * Waits for the spooled samples to be sent to the listener, then informs
+     * the listener that the test ended. When the client cannot be reached
+     * before the end timeout, the spool is kept on disk.
+     *
+     * @param host
+     *            the host that the test has ended on.
+     */
+    @Override
+    public void testEnded(String host) {
+        log.info("Test Ended on {}", host);
+        synchronized (buffer) {
+            deadline = System.currentTimeMillis() + endTimeoutMs;
+            ended = true;
+            List<SampleEvent> batch = new ArrayList<>(buffer);
+            buffer.clear();
+            writer.submit(() -> {
+                if (!batch.isEmpty()) {
+                    append(batch);
+                }
+                spool.close();
+            });
+            writer.shutdown();
+        }
+        try {
+            if (!writer.awaitTermination(endTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.error("Spool writer did not terminate in a timely fashion");
+            }
+            streamer.join(Math.max(1L, deadline - System.currentTimeMillis()) + MAX_RETRY_DELAY_MS);
+            if (streamer.isAlive()) {
+                log.error("Spool streamer did not terminate in a timely fashion");
+                streamer.interrupt();
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted waiting for the spool to be sent", e);
+            Thread.currentThread().interrupt();
+        }
+        if (complete) {
+            spool.delete();
+        } else {
+            log.error("Could not send {} samples, which are kept in {}",
+                    spool.getPendingSampleCount(), spool.getDirectory());
+        }
+        try {
+            callListener("testEnded", () -> listener.testEnded(host)); // $NON-NLS-1$
+        } catch (InterruptedException e) {
+            log.error("Interrupted informing the listener that the test ended", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends the records of the spool to the listener in order, until the spool
+     * is drained.
+     */
+    private void stream() {
+        try {
+            while (true) {
+                // Nothing needs to be flushed once the test ended, so the end is noticed sooner
+                SampleSpool.Record record = spool.next(ended ? END_POLL_INTERVAL_MS : FLUSH_INTERVAL_MS);
+                if (record == null) {
+                    if (spool.isDrained()) {
+                        complete = true;
+                        return;
+                    }
+                    flush();
+                } else if (send(record)) {
+                    spool.acknowledge(record);
+                } else {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) { // NOSONAR the thread ends
+            log.warn("Spool streamer interrupted");
+        }
+    }
+
+    /**
+     * @return <code>false</code> if the record could not be sent before the
+     *         deadline
+     */
+    private boolean send(SampleSpool.Record record) throws InterruptedException {
+        byte[] data;
+        try {
+            data = spool.read(record);
+        } catch (IOException err) {
+            log.error("Failed to read {} spooled samples, skipping them", record.sampleCount, err);
+            return true;
+        }
+        log.debug("Sending {} spooled samples", record.sampleCount);
+        return callListener("processBatch", // $NON-NLS-1$
+                () -> listener.processBatch(new SpooledSampleBatch(spoolId, record.sequence, data)));
+    }
+
+    @FunctionalInterface
+    private interface RemoteCall {
+        void call() throws RemoteException;
+    }
+
+    /**
+     * Calls the listener, retrying with increasing delays while the listener
+     * cannot be reached. Once the test has ended, retries stop at the deadline.
+     *
+     * @return <code>false</code> if the call failed
+     */
+    private boolean callListener(String method, RemoteCall call) throws InterruptedException {
+        long delay = FIRST_RETRY_DELAY_MS;
+        while (true) {
+            try {
+                call.call();
+                return true;
+            } catch (RemoteException err) {
+                if (ended && System.currentTimeMillis() >= deadline) {
+                    log.error("Giving up calling {} after the end timeout", method, err);
+                    return false;
+                }
+                log.warn("Failed to call {}, retrying in {} ms: {}", method, delay, err.toString());
+                TimeUnit.MILLISECONDS.sleep(delay);
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+            } catch (RuntimeException err) {
+                log.error("Error calling {}", method, err);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Processed by the RMI server code; acts as testStarted().
+     *
+     * @return this
+     * @throws ObjectStreamException
+     *             when the spool cannot be created
+     */
+    protected Object readResolve() throws ObjectStreamException {
+        long segmentSize;
+        if (isClientConfigured()) {
+            batchSize = clientConfiguredBatchSize;
+            segmentSize = clientConfiguredSegmentSize;
+            endTimeoutMs = clientConfiguredEndTimeoutMs;
+        } else {
+            batchSize = BATCH_SIZE;
+            segmentSize = SEGMENT_SIZE;
+            endTimeoutMs = END_TIMEOUT_MS;
+        }
+        if (batchSize <= 0) {
+            log.warn("Invalid spool batch size {}, using {}", batchSize, DEFAULT_BATCH_SIZE);
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        if (segmentSize <= 0) {
+            log.warn("Invalid spool segment size {}, using {}", segmentSize, DEFAULT_SEGMENT_SIZE);
+            segmentSize = DEFAULT_SEGMENT_SIZE;
+        }
+        try {
+            spool = new SampleSpool(Files.createTempDirectory("SpoolSampleSender").toFile(), // $NON-NLS-1$
+                    segmentSize);
+        } catch (IOException e) {
+            InvalidObjectException error = new InvalidObjectException("Failed to create spool directory");
+            error.initCause(e);
+            throw error;
+        }
+        spoolId = UUID.randomUUID().toString();
+        writer = Executors.newSingleThreadExecutor();
+        streamer = new Thread(this::stream, "SpoolSampleSender streamer"); // $NON-NLS-1$
+        streamer.setDaemon(true);
+        streamer.start();
+        log.info("Using SpoolSampleSender for this run. Batch size: {}, segment size: {}, end timeout: {} ms,"
+                + " spool: {}", batchSize, segmentSize, endTimeoutMs, spool.getDirectory());
+        return this;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.ByteArrayInputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Record of a {@link SampleSpool} sent to
+ * {@link RemoteSampleListener#processBatch(List)} by
+ * {@link SpoolSampleSender}.
+ * <p>
+ * The compressed data of the record is sent as is, and decoded by the client.
+ * A record is sent again when the server did not get the answer of the
+ * client, so each record carries the id of its spool and its sequence number:
+ * the client drops the records it has already received, which then hold no
+ * event.
+ *
+ * @since 5.2
+ */
+public final class SpooledSampleBatch extends AbstractList<SampleEvent> implements Externalizable, RandomAccess {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(SpooledSampleBatch.class);
+
+    /** Number of spools the client remembers the last received record of */
+    private static final int MAX_SPOOLS = 1000;
+
+    // @GuardedBy("LAST_SEQUENCES")
+    private static final Map<String, Long> LAST_SEQUENCES = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_SPOOLS;
+        }
+    };
+
+    private String spoolId;
+
+    private long sequence;
+
+    private byte[] data;
+
+    private transient List<SampleEvent> events;
+
+    /**
+     * Only intended for use by the deserialization
+     */
+    public SpooledSampleBatch() {
+        this.events = Collections.emptyList();
+    }
+
+    /**
+     * @param spoolId
+     *            the id of the spool
+     * @param sequence
+     *            the sequence number of the record in the spool
+     * @param data
+     *            the compressed data of the record
+     */
+    SpooledSampleBatch(String spoolId, long sequence, byte[] data) {
+        this.spoolId = spoolId;
+        this.sequence = sequence;
+        this.data = data;
+    }
+
+    @Override
+    public SampleEvent get(int index) {
+        return getEvents().get(index);
+    }
+
+    @Override
+    public int size() {
+        return getEvents().size();
+    }
+
+    private List<SampleEvent> getEvents() {
+        if (events == null) {
+            try {
+                events = decode(data);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot decode spooled samples", e);
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeUTF(spoolId);
+        out.writeLong(sequence);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        spoolId = in.readUTF();
+        sequence = in.readLong();
+        int length = in.readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid spooled sample batch length: " + length);
+        }
+        data = new byte[length];
+        in.readFully(data);
+        events = Collections.emptyList();
+        if (isReceived(spoolId, sequence)) {
+            log.info("Dropping samples {} of spool {} received already", sequence, spoolId);
+            return;
+        }
+        // The record is only marked as received once decoded, so that it is
+        // accepted again when the server sends it again after a failure
+        List<SampleEvent> decoded = decode(data);
+        if (markReceived(spoolId, sequence)) {
+            events = decoded;
+        } else {
+            log.info("Dropping samples {} of spool {} received meanwhile", sequence, spoolId);
+        }
+    }
+
+    private static boolean isReceived(String spoolId, long sequence) {
+        synchronized (LAST_SEQUENCES) {
+            Long last = LAST_SEQUENCES.get(spoolId);
+            return last != null && sequence <= last;
+        }
+    }
+
+    /**
+     * @return false if the record has been received already
+     */
+    private static boolean markReceived(String spoolId, long sequence) {
+        synchronized (LAST_SEQUENCES) {
+            if (isReceived(spoolId, sequence)) {
+                return false;
+            }
+            LAST_SEQUENCES.put(spoolId, sequence);
+            return true;
+        }
+    }
+
+    private static List<SampleEvent> decode(byte[] data) throws IOException {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return BinarySampleCodec.decode(IOUtils.toByteArray(in));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+/**
+ * Marker for {@link SampleListener}s whose {@link SampleListener#sampleOccurred(SampleEvent)}
+ * only uses the event it receives: it does not access the thread context (variables, current sampler...)
+ * of the sampling thread, and is thread safe.
+ * <p>
+ * When asynchronous listener dispatch is enabled (property <code>jmeterengine.listener.async</code>),
+ * these listeners are notified from listener threads instead of the sampling thread.
+ * @since 5.2
+ */
+public interface ThreadIndependentSampleListener extends SampleListener {
+
+    /**
+     * Allows a subclass of a thread independent listener to depend on the sampling thread again,
+     * in which case it is notified from the sampling thread.
+     * @return true if this listener may be notified from a listener thread
+     */
+    default boolean isThreadIndependent() {
+        return true;
+    }
+}
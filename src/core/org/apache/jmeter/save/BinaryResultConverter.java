@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.lang3.CharUtils;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.util.JMeterUtils;
+
+/**
+ * Converts result files between the CSV format and the binary format written by {@link BinaryResultWriter}.
+ * <p>
+ * The CSV file must start with the field names header line.
+ * Usage, from the <code>bin</code> directory (CSV files are read and written in UTF-8):
+ * <pre>
+ * java -cp "../lib/*:../lib/ext/*" org.apache.jmeter.save.BinaryResultConverter tocsv results.jtlb results.csv
+ * java -cp "../lib/*:../lib/ext/*" org.apache.jmeter.save.BinaryResultConverter tobinary results.csv results.jtlb
+ * </pre>
+ * @since 5.2
+ */
+public final class BinaryResultConverter {
+
+    private static final String TO_CSV = "tocsv"; // $NON-NLS-1$
+
+    private static final String TO_BINARY = "tobinary"; // $NON-NLS-1$
+
+    private static final int BUF_SIZE = 1024 * 1024;
+
+    private BinaryResultConverter() {
+    }
+
+    /**
+     * Convert a binary result file to CSV
+     *
+     * @param input the binary result file
+     * @param output the CSV file to create
+     * @param charset the encoding of the CSV file
+     * @return the number of records converted
+     * @throws IOException when reading or writing fails
+     */
+    public static long toCsv(File input, File output, Charset charset) throws IOException {
+        long records = 0;
+        try (BinaryResultReader reader = new BinaryResultReader(input);
+                PrintWriter writer = new PrintWriter(new BufferedWriter(
+                        new OutputStreamWriter(new FileOutputStream(output), charset), BUF_SIZE))) {
+            char delimiter = reader.getDelimiter();
+            char[] specials = new char[] { delimiter, CSVSaveService.QUOTING_CHAR, CharUtils.CR, CharUtils.LF };
+            writer.println(reader.getHeader());
+            String[] fields;
+            while ((fields = reader.readRecord()) != null) {
+                for (int i = 0; i < fields.length; i++) {
+                    if (i > 0) {
+                        writer.print(delimiter);
+                    }
+                    writer.print(CSVSaveService.quoteDelimiters(fields[i], specials));
+                }
+                writer.println();
+                records++;
+            }
+            if (writer.checkError()) {
+                throw new IOException("Error writing " + output);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Convert a CSV result file to the binary format
+     *
+     * @param input the CSV file, starting with the field names header line
+     * @param output the binary result file to create
+     * @param charset the encoding of the CSV file
+     * @param delimiter the delimiter of the CSV file
+     * @param compress true to compress the binary file
+     * @return the number of records converted
+     * @throws IOException when reading or writing fails, or when the CSV file is empty
+     */
+    public static long toBinary(File input, File output, Charset charset, char delimiter, boolean compress)
+            throws IOException {
+        long records = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(input), charset), BUF_SIZE)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IOException(input + " is empty");
+            }
+            try (BinaryResultWriter writer = new BinaryResultWriter(
+                    new BufferedOutputStream(new FileOutputStream(output), BUF_SIZE), header, delimiter, compress)) {
+                String[] fields;
+                while ((fields = CSVSaveService.csvReadFile(reader, delimiter)).length != 0) {
+                    writer.writeRecord(fields);
+                    records++;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @param args <code>tocsv|tobinary input output</code>
+     * @throws IOException when the conversion fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !(TO_CSV.equals(args[0]) || TO_BINARY.equals(args[0]))) {
+            System.err.println("Usage: BinaryResultConverter tocsv|tobinary <input> <output>"); // NOSONAR
+            System.exit(1);
+        }
+        // Needed for the CSV delimiter
+        JMeterUtils.loadJMeterProperties("jmeter.properties"); // $NON-NLS-1$
+        Charset charset = StandardCharsets.UTF_8;
+        File input = new File(args[1]);
+        File output = new File(args[2]);
+        long records;
+        if (TO_CSV.equals(args[0])) {
+            records = toCsv(input, output, charset);
+        } else {
+            char delimiter = JMeterUtils.getDelimiter(JMeterUtils.getJMeterProperties().getProperty(
+                    SampleSaveConfiguration.DEFAULT_DELIMITER_PROP, SampleSaveConfiguration.DEFAULT_DELIMITER))
+                    .charAt(0);
+            records = toBinary(input, output, charset, delimiter, true);
+        }
+        System.out.println("Converted " + records + " records from " + input + " to " + output); // NOSONAR
+    }
+}
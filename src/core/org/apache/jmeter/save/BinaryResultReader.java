@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the records of a file written by {@link BinaryResultWriter}.
+ * <p>
+ * Each record is returned as the values of its columns, as they would be found in the CSV format.
+ * A file that ends with an incomplete block (e.g. JMeter was killed) is read up to the last complete block.
+ * @since 5.2
+ */
+public final class BinaryResultReader implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryResultReader.class);
+
+    private static final int BUF_SIZE = 1024 * 1024;
+
+    private final DataInputStream in;
+
+    private final Inflater inflater = new Inflater();
+
+    private String header;
+
+    private char delimiter;
+
+    private int columnCount;
+
+    private boolean[] numeric;
+
+    private int timeStampColumn;
+
+    private List<String>[] dictionaries;
+
+    private boolean compressed;
+
+    private byte[] block = new byte[0];
+
+    private byte[] stored = new byte[0];
+
+    private int blockLength;
+
+    private int position;
+
+    private int remainingRecords;
+
+    private long previousTimeStamp;
+
+    private boolean ended;
+
+    /**
+     * Open a binary result file and read its header
+     *
+     * @param file the file to read
+     * @throws IOException when the file cannot be read or is not a binary result file
+     */
+    public BinaryResultReader(File file) throws IOException {
+        this(new BufferedInputStream(open(file), BUF_SIZE));
+    }
+
+    /**
+     * Read the header of a binary result stream
+     *
+     * @param in the stream to read, it is closed by {@link #close()}
+     * @throws IOException when the stream cannot be read or is not a binary result stream
+     */
+    public BinaryResultReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        try {
+            if (this.in.read() != BinaryResultWriter.MAGIC[0]) {
+                throw new IOException("Not a binary result file");
+            }
+            readHeader();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param file the file to check
+     * @return true if the file starts like a file written by {@link BinaryResultWriter}
+     */
+    public static boolean isBinaryResultFile(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (InputStream in = open(file)) {
+            byte[] magic = new byte[BinaryResultWriter.MAGIC.length];
+            int read = 0;
+            while (read < magic.length) {
+                int count = in.read(magic, read, magic.length - read);
+                if (count < 0) {
+                    return false;
+                }
+                read += count;
+            }
+            return Arrays.equals(magic, BinaryResultWriter.MAGIC);
+        } catch (IOException e) {
+            log.debug("Could not read {}", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Find the end of the last complete block of a file, checking that its
+     * headers describe the given columns
+     *
+     * @param file a binary result file, not compressed
+     * @param header the CSV header line of the results to append
+     * @param delimiter the CSV delimiter of the header line
+     * @return the length of the file without its incomplete last block or header, if any
+     * @throws IOException when the file cannot be read, is corrupted or has other columns
+     */
+    static long completeLength(File file, String header, char delimiter) throws IOException {
+        try (CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(file), BUF_SIZE))) {
+            DataInputStream in = new DataInputStream(counter);
+            long length = 0;
+            try {
+                int marker;
+                while ((marker = in.read()) >= 0) {
+                    if (marker == BinaryResultWriter.MAGIC[0]) {
+                        checkHeader(in, header, delimiter);
+                    } else if (marker == BinaryResultWriter.BLOCK_MARKER) {
+                        in.readInt(); // records
+                        in.readInt(); // raw length
+                        int storedLength = in.readInt();
+                        if (storedLength < 0) {
+                            throw new IOException("Corrupted block, invalid length " + storedLength);
+                        }
+                        IOUtils.skipFully(in, storedLength);
+                    } else {
+                        throw new IOException("Corrupted file, unexpected block marker: " + marker);
+                    }
+                    length = counter.getByteCount();
+                }
+            } catch (EOFException e) {
+                // Incomplete last block or header, as left by a crash
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Check a header, the first magic byte has been read
+     */
+    private static void checkHeader(DataInputStream in, String header, char delimiter) throws IOException {
+        for (int i = 1; i < BinaryResultWriter.MAGIC.length; i++) {
+            if (in.readByte() != BinaryResultWriter.MAGIC[i]) {
+                throw new IOException("Not a binary result file");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if (version != BinaryResultWriter.VERSION) {
+            throw new IOException("Unsupported binary result file version: " + version);
+        }
+        in.readUnsignedByte(); // flags
+        String fileHeader = in.readUTF();
+        char fileDelimiter = in.readChar();
+        in.readInt(); // column count
+        if (!header.equals(fileHeader) || delimiter != fileDelimiter) {
+            throw new IOException("Cannot append results with columns: '" + header
+                    + "' to a file with columns: '" + fileHeader + "'");
+        }
+    }
+
+    /**
+     * @param file a result file, or a compressed segment of a rolled over result file
+     * @return the stream of the content of the file, not buffered
+     * @throws IOException when the file cannot be opened
+     */
+    private static InputStream open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (ResultFileSegments.isCompressed(file)) {
+            try {
+                return new GZIPInputStream(in);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+        return in;
+    }
+
+    /**
+     * @return the CSV header line describing the columns
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the CSV delimiter of the header line
+     */
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * @return the number of columns of the records
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return the values of the columns of the record, null at the end of the file
+     * @throws IOException when the file cannot be read or is corrupted
+     */
+    public String[] readRecord() throws IOException {
+        while (remainingRecords == 0) {
+            if (ended || !readBlock()) {
+                ended = true;
+                return null;
+            }
+        }
+        String[] fields = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            fields[i] = numeric[i] ? readNumber(i) : readString(i);
+        }
+        remainingRecords--;
+        if (remainingRecords == 0 && position != blockLength) {
+            throw new IOException("Corrupted block, " + (blockLength - position) + " bytes left after the last record");
+        }
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    /**
+     * Read the header, the first magic byte has been read
+     */
+    @SuppressWarnings("unchecked")
+    private void readHeader() throws IOException {
+        for (int i = 1; i < BinaryResultWriter.MAGIC.length; i++) {
+            if (in.readByte() != BinaryResultWriter.MAGIC[i]) {
+                throw new IOException("Not a binary result file");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if (version != BinaryResultWriter.VERSION) {
+            throw new IOException("Unsupported binary result file version: " + version);
+        }
+        int flags = in.readUnsignedByte();
+        String newHeader = in.readUTF();
+        char newDelimiter = in.readChar();
+        int newColumnCount = in.readInt();
+        compressed = (flags & BinaryResultWriter.FLAG_COMPRESSED) != 0;
+        if (header != null) {
+            // Header written when a test appended to the file
+            if (!header.equals(newHeader) || delimiter != newDelimiter) {
+                throw new IOException("Columns changed within the file, from: '" + header + "' to: '" + newHeader + "'");
+            }
+            return;
+        }
+        header = newHeader;
+        delimiter = newDelimiter;
+        columnCount = newColumnCount;
+        String[] columns = CSVSaveService.csvSplitString(header, delimiter);
+        if (columns.length != columnCount) {
+            throw new IOException("Header has " + columns.length + " columns, expected " + columnCount);
+        }
+        numeric = new boolean[columnCount];
+        dictionaries = new List[columnCount];
+        timeStampColumn = -1;
+        for (int i = 0; i < columnCount; i++) {
+            numeric[i] = BinaryResultWriter.isNumericColumn(columns[i]);
+            if (CSVSaveService.TIME_STAMP.equals(columns[i])) {
+                timeStampColumn = i;
+            }
+            dictionaries[i] = numeric[i] ? null : new ArrayList<>();
+        }
+    }
+
+    /**
+     * @return false at the end of the file
+     */
+    private boolean readBlock() throws IOException {
+        int marker = in.read();
+        while (marker == BinaryResultWriter.MAGIC[0]) {
+            readHeader();
+            marker = in.read();
+        }
+        if (marker < 0) {
+            return false;
+        }
+        if (marker != BinaryResultWriter.BLOCK_MARKER) {
+            throw new IOException("Corrupted file, unexpected block marker: " + marker);
+        }
+        try {
+            int records = in.readInt();
+            int rawLength = in.readInt();
+            int storedLength = in.readInt();
+            if (block.length < rawLength) {
+                block = new byte[rawLength];
+            }
+            if (compressed) {
+                if (stored.length < storedLength) {
+                    stored = new byte[storedLength];
+                }
+                in.readFully(stored, 0, storedLength);
+                inflate(storedLength, rawLength);
+            } else {
+                in.readFully(block, 0, rawLength);
+            }
+            remainingRecords = records;
+            blockLength = rawLength;
+            position = 0;
+            previousTimeStamp = 0;
+            for (List<String> dictionary : dictionaries) {
+                if (dictionary != null) {
+                    dictionary.clear();
+                }
+            }
+            return true;
+        } catch (EOFException e) {
+            log.warn("Binary result file ends with an incomplete block, it is ignored");
+            return false;
+        }
+    }
+
+    private void inflate(int storedLength, int rawLength) throws IOException {
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+            int length = 0;
+            while (length < rawLength) {
+                int count = inflater.inflate(block, length, rawLength - length);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != rawLength) {
+                throw new IOException("Corrupted block, inflated " + length + " bytes instead of " + rawLength);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted block", e);
+        }
+    }
+
+    private String readNumber(int column) throws IOException {
+        long stored = readVarLong();
+        if (stored == BinaryResultWriter.LITERAL) {
+            return readLiteral();
+        }
+        long zigZag = stored - 1;
+        long value = (zigZag >>> 1) ^ -(zigZag & 1);
+        if (column == timeStampColumn) {
+            value += previousTimeStamp;
+            previousTimeStamp = value;
+        }
+        return Long.toString(value);
+    }
+
+    private String readString(int column) throws IOException {
+        long index = readVarLong();
+        List<String> dictionary = dictionaries[column];
+        if (index == BinaryResultWriter.LITERAL) {
+            String s = readLiteral();
+            dictionary.add(s);
+            return s;
+        }
+        if (index > dictionary.size()) {
+            throw new IOException("Corrupted block, unknown dictionary entry " + index + " in column " + column);
+        }
+        return dictionary.get((int) index - 1);
+    }
+
+    private String readLiteral() throws IOException {
+        int length = (int) readVarLong();
+        if (length < 0 || position + length > blockLength) {
+            throw new IOException("Corrupted block, invalid string length " + length);
+        }
+        String s = new String(block, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return s;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= blockLength) {
+                throw new IOException("Corrupted block, unexpected end of record");
+            }
+            byte b = block[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted block, invalid number");
+    }
+}
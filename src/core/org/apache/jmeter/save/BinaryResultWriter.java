@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes sample results in the binary result format.
+ * <p>
+ * The binary format holds the same columns as the CSV format, so it can be converted
+ * to and from CSV without loss (see {@link BinaryResultConverter}), but it is much smaller
+ * and faster to read back:
+ * <ul>
+ * <li>the file starts with a header: magic bytes, version, flags, the CSV header line,
+ * the delimiter and the number of columns</li>
+ * <li>it is followed by blocks of records. Each block is deflated when compression is
+ * enabled and can be decoded on its own</li>
+ * <li>in a record, numeric columns are written as variable length integers, the time stamp
+ * being relative to the previous record of the block. Other columns (labels, thread names,
+ * response codes...) are dictionary encoded: a value is written once per block,
+ * then referenced by its index</li>
+ * </ul>
+ * A header may be repeated between two blocks, when a test appends to an existing file.
+ * <p>
+ * This class is thread safe.
+ * @since 5.2
+ */
+public final class BinaryResultWriter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryResultWriter.class);
+
+    static final byte[] MAGIC = { 'J', 'T', 'L', 'B' }; // $NON-NLS-1$
+
+    static final int VERSION = 1;
+
+    static final int FLAG_COMPRESSED = 1;
+
+    static final int BLOCK_MARKER = 1;
+
+    /** Size of the records of a block, before compression */
+    static final int BLOCK_SIZE = 128 * 1024;
+
+    /** Value of a numeric column, or index of a dictionary column, announcing a string literal */
+    static final int LITERAL = 0;
+
+    private static final Set<String> NUMERIC_COLUMNS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            CSVSaveService.TIME_STAMP,
+            CSVSaveService.CSV_ELAPSED,
+            CSVSaveService.CSV_BYTES,
+            CSVSaveService.CSV_SENT_BYTES,
+            CSVSaveService.CSV_THREAD_COUNT1,
+            CSVSaveService.CSV_THREAD_COUNT2,
+            CSVSaveService.CSV_LATENCY,
+            CSVSaveService.CSV_SAMPLE_COUNT,
+            CSVSaveService.CSV_ERROR_COUNT,
+            CSVSaveService.CSV_IDLETIME,
+            CSVSaveService.CSV_CONNECT_TIME,
+            CSVSaveService.CSV_CORRECTED_TIME)));
+
+    private static final String TRUE = Boolean.TRUE.toString();
+
+    private static final String FALSE = Boolean.FALSE.toString();
+
+    private final DataOutputStream out;
+
+    private final boolean compress;
+
+    private final Deflater deflater;
+
+    private final boolean[] numeric;
+
+    private final int timeStampColumn;
+
+    private final Map<String, Integer>[] dictionaries;
+
+    private final RecordSink sink = new RecordSink();
+
+    private byte[] block = new byte[BLOCK_SIZE + 1024];
+
+    private int blockLength;
+
+    private int blockRecords;
+
+    private long previousTimeStamp;
+
+    /** State of the block before the current record, to drop the record when it is invalid */
+    private int recordStart;
+
+    private long recordPreviousTimeStamp;
+
+    /** Dictionary entries added by the current record */
+    private final List<Map.Entry<Map<String, Integer>, String>> recordEntries = new ArrayList<>();
+
+    private byte[] deflated = new byte[0];
+
+    /**
+     * Create the writer and write the header
+     *
+     * @param out stream to write to, it is closed by {@link #close()}
+     * @param header the CSV header line describing the columns
+     * @param delimiter the CSV delimiter used by the header
+     * @param compress true to deflate the blocks
+     * @throws IOException when writing the header fails
+     */
+    @SuppressWarnings("unchecked")
+    public BinaryResultWriter(OutputStream out, String header, char delimiter, boolean compress)
+            throws IOException {
+        String[] columns = CSVSaveService.csvSplitString(header, delimiter);
+        this.out = new DataOutputStream(out);
+        this.compress = compress;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.numeric = new boolean[columns.length];
+        this.dictionaries = new Map[columns.length];
+        int timeStamp = -1;
+        for (int i = 0; i < columns.length; i++) {
+            numeric[i] = isNumericColumn(columns[i]);
+            if (CSVSaveService.TIME_STAMP.equals(columns[i])) {
+                timeStamp = i;
+            }
+            dictionaries[i] = numeric[i] ? null : new HashMap<>();
+        }
+        this.timeStampColumn = timeStamp;
+        this.out.write(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeByte(compress ? FLAG_COMPRESSED : 0);
+        this.out.writeUTF(header);
+        this.out.writeChar(delimiter);
+        this.out.writeInt(columns.length);
+    }
+
+    /**
+     * Create a writer for the columns saved by the configuration
+     *
+     * @param out stream to write to, it is closed by {@link #close()}
+     * @param saveConfig the configuration defining the columns
+     * @param compress true to deflate the blocks
+     * @return the writer
+     * @throws IOException when writing the header fails
+     */
+    public static BinaryResultWriter create(OutputStream out, SampleSaveConfiguration saveConfig, boolean compress)
+            throws IOException {
+        return new BinaryResultWriter(out, CSVSaveService.printableFieldNamesToString(saveConfig),
+                saveConfig.getDelimiter().charAt(0), compress);
+    }
+
+    /**
+     * Prepare an existing binary result file for appending the results saved by a configuration:
+     * the incomplete block left at the end of the file by a crash, if any, is removed,
+     * so that the records and the header appended next can be read back.
+     *
+     * @param file the binary result file, not empty
+     * @param saveConfig the configuration defining the columns to append
+     * @throws IOException when the file cannot be read or written, is corrupted,
+     *             or holds other columns than the configuration
+     */
+    public static void prepareAppend(File file, SampleSaveConfiguration saveConfig) throws IOException {
+        long length = BinaryResultReader.completeLength(file,
+                CSVSaveService.printableFieldNamesToString(saveConfig), saveConfig.getDelimiter().charAt(0));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) { // $NON-NLS-1$
+            if (raf.length() > length) {
+                log.warn("Removing the incomplete last block of {}, {} bytes", file, raf.length() - length);
+                raf.setLength(length);
+            }
+        }
+    }
+
+    /**
+     * Write a sample result, and its sub-results if the configuration saves them
+     *
+     * @param event the sample event
+     * @param saveConfig the configuration defining the columns, must match the header
+     * @throws IOException when writing a block fails
+     */
+    public synchronized void write(SampleEvent event, SampleSaveConfiguration saveConfig) throws IOException {
+        writeResult(event, event.getResult(), saveConfig);
+        if (saveConfig.saveSubresults()) {
+            for (SampleResult subResult : event.getResult().getSubResults()) {
+                writeResult(event, subResult, saveConfig);
+            }
+        }
+    }
+
+    private void writeResult(SampleEvent event, SampleResult result, SampleSaveConfiguration saveConfig)
+            throws IOException {
+        startRecord();
+        sink.column = 0;
+        CSVSaveService.appendFields(event, result, saveConfig, sink);
+        endRecord(sink.column);
+    }
+
+    /**
+     * Write a record made of the values of the columns, as found in a CSV file
+     *
+     * @param fields the values of the columns
+     * @throws IOException when writing a block fails
+     */
+    public synchronized void writeRecord(String[] fields) throws IOException {
+        startRecord();
+        for (int i = 0; i < fields.length && i < numeric.length; i++) {
+            if (numeric[i]) {
+                writeNumericString(i, fields[i]);
+            } else {
+                writeString(i, fields[i]);
+            }
+        }
+        endRecord(fields.length);
+    }
+
+    /**
+     * Write the records not written yet, and flush the stream
+     *
+     * @throws IOException when writing fails
+     */
+    public synchronized void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            writeBlock();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            out.close();
+        }
+    }
+
+    private void startRecord() {
+        recordStart = blockLength;
+        recordPreviousTimeStamp = previousTimeStamp;
+        recordEntries.clear();
+    }
+
+    private void endRecord(int columns) throws IOException {
+        if (columns != numeric.length) {
+            blockLength = recordStart;
+            previousTimeStamp = recordPreviousTimeStamp;
+            for (Map.Entry<Map<String, Integer>, String> entry : recordEntries) {
+                entry.getKey().remove(entry.getValue());
+            }
+            throw new IOException("Record has " + columns + " columns, header has " + numeric.length);
+        }
+        blockRecords++;
+        if (blockLength >= BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+        out.writeByte(BLOCK_MARKER);
+        out.writeInt(blockRecords);
+        out.writeInt(blockLength);
+        if (compress) {
+            deflater.reset();
+            deflater.setInput(block, 0, blockLength);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == deflated.length) {
+                    deflated = Arrays.copyOf(deflated, Math.max(4096, deflated.length * 2));
+                }
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+            out.writeInt(length);
+            out.write(deflated, 0, length);
+        } else {
+            out.writeInt(blockLength);
+            out.write(block, 0, blockLength);
+        }
+        blockLength = 0;
+        blockRecords = 0;
+        previousTimeStamp = 0;
+        for (Map<String, Integer> dictionary : dictionaries) {
+            if (dictionary != null) {
+                dictionary.clear();
+            }
+        }
+    }
+
+    private void writeNumber(int column, long value) {
+        boolean isTimeStamp = column == timeStampColumn;
+        long stored = isTimeStamp ? value - previousTimeStamp : value;
+        long zigZag = (stored << 1) ^ (stored >> 63);
+        if (zigZag == -1L) {
+            // Cannot be shifted by one, very unlikely
+            writeLiteral(Long.toString(value));
+            return;
+        }
+        if (isTimeStamp) {
+            previousTimeStamp = value;
+        }
+        writeVarLong(zigZag + 1);
+    }
+
+    private void writeNumericString(int column, String value) {
+        if (isCanonicalLong(value)) {
+            writeNumber(column, Long.parseLong(value));
+        } else {
+            writeLiteral(value);
+        }
+    }
+
+    private void writeString(int column, String value) {
+        String s = value == null ? "null" : value; // as done by the CSV format // $NON-NLS-1$
+        Map<String, Integer> dictionary = dictionaries[column];
+        Integer index = dictionary.get(s);
+        if (index != null) {
+            writeVarLong(index.longValue() + 1);
+        } else {
+            dictionary.put(s, Integer.valueOf(dictionary.size()));
+            recordEntries.add(new AbstractMap.SimpleImmutableEntry<>(dictionary, s));
+            writeLiteral(s);
+        }
+    }
+
+    private void writeLiteral(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(LITERAL);
+        writeVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, block, blockLength, bytes.length);
+        blockLength += bytes.length;
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            block[blockLength++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        block[blockLength++] = (byte) v;
+    }
+
+    private void ensureCapacity(int length) {
+        if (blockLength + length > block.length) {
+            block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + length));
+        }
+    }
+
+    /**
+     * @param column name of a column
+     * @return true if the values of the column are written as numbers
+     */
+    static boolean isNumericColumn(String column) {
+        return NUMERIC_COLUMNS.contains(column);
+    }
+
+    /**
+     * @param value the value of a numeric column
+     * @return true if the value is the decimal representation of a long
+     *         (so that converting it back gives the same string)
+     */
+    private static boolean isCanonicalLong(String value) {
+        int length = value == null ? 0 : value.length();
+        if (length == 0 || length > 20) {
+            return false;
+        }
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == length || (value.charAt(start) == '0' && (length > start + 1 || start == 1))) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        if (length - start < 19) {
+            return true;
+        }
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the fields of a sample result to the current block
+     */
+    private final class RecordSink implements CSVSaveService.FieldSink {
+        private int column;
+
+        @Override
+        public void append(String s) {
+            if (column >= numeric.length) {
+                // Invalid record, rejected by endRecord
+            } else if (numeric[column]) {
+                writeNumericString(column, s);
+            } else {
+                writeString(column, s);
+            }
+            column++;
+        }
+
+        @Override
+        public void append(long l) {
+            if (column >= numeric.length) {
+                // Invalid record, rejected by endRecord
+            } else if (numeric[column]) {
+                writeNumber(column, l);
+            } else {
+                writeString(column, Long.toString(l));
+            }
+            column++;
+        }
+
+        @Override
+        public void append(boolean b) {
+            append(b ? TRUE : FALSE);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Calendar;
+
+import org.apache.commons.lang3.time.FastDateFormat;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+
+/**
+ * Formats sample results as CSV lines into a reusable char buffer.
+ * <p>
+ * The fields are those passed by {@link CSVSaveService#appendFields(SampleEvent, SampleResult,
+ * SampleSaveConfiguration, CSVSaveService.FieldSink)}, so the lines are the same as those of
+ * {@link CSVSaveService#resultToDelimitedString(SampleEvent, SampleResult, SampleSaveConfiguration, String)},
+ * but numbers and time stamps are written directly into the buffer, and the quoting decision of a field
+ * is reused as long as the same String instance (e.g. the label of a sampler or the name of a thread)
+ * is written in that column.
+ * <p>
+ * Not thread safe, each thread must use its own instance.
+ * @since 5.2
+ */
+public final class CSVResultFormatter {
+
+    private static final char[] TRUE = "true".toCharArray(); // $NON-NLS-1$
+
+    private static final char[] FALSE = "false".toCharArray(); // $NON-NLS-1$
+
+    private static final char[] NULL = "null".toCharArray(); // $NON-NLS-1$
+
+    private static final char[] MIN_LONG = Long.toString(Long.MIN_VALUE).toCharArray();
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    private final LineSink sink = new LineSink();
+
+    private final StringBuilder date = new StringBuilder(30);
+
+    /** Format of the last formatted time stamp, and the Calendar reused with it */
+    private FastDateFormat dateFormat;
+
+    /** FastDateFormat#format(long) creates a Calendar each time */
+    private Calendar calendar;
+
+    private char[] buffer = new char[512];
+
+    private int length;
+
+    private char delimiter;
+
+    private int field;
+
+    /** Last value written in each field, with its quoting decision for the delimiter */
+    private String[] lastValues = new String[32];
+
+    private boolean[] lastQuoted = new boolean[lastValues.length];
+
+    /**
+     * Write the line of a sample result, and those of its sub results if the configuration saves them,
+     * using a single write followed by a <code>println</code>, so that a writer created with autoflush
+     * flushes each sample. Both are done while holding the lock of <code>out</code>, so that threads
+     * sharing <code>out</code> through this method do not interleave their lines
+     *
+     * @param event the sample event to write
+     * @param config the configuration to use instead of the one of the sample result
+     * @param out where to write the lines
+     */
+    public void write(SampleEvent event, SampleSaveConfiguration config, PrintWriter out) {
+        SampleResult result = event.getResult();
+        length = 0;
+        formatLine(event, result, config);
+        if (config.saveSubresults()) {
+            for (SampleResult subResult : result.getSubResults()) {
+                append(LINE_SEPARATOR);
+                formatLine(event, subResult, config);
+            }
+        }
+        // The writer of a result file is shared by the sampling threads, so write the lines under a single lock
+        synchronized (out) {
+            out.write(buffer, 0, length);
+            out.println();
+        }
+    }
+
+    /**
+     * @param event the sample event
+     * @param sample the sample result to format
+     * @param config the configuration to use
+     * @return the CSV line of the sample result, without line separator
+     */
+    public String format(SampleEvent event, SampleResult sample, SampleSaveConfiguration config) {
+        length = 0;
+        formatLine(event, sample, config);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * @return the size of the buffer, which grows to hold the longest lines written
+     */
+    int getCapacity() {
+        return buffer.length;
+    }
+
+    private void formatLine(SampleEvent event, SampleResult sample, SampleSaveConfiguration config) {
+        char newDelimiter = config.getDelimiter().charAt(0);
+        if (newDelimiter != delimiter) {
+            // The quoting decisions depend on the delimiter
+            Arrays.fill(lastValues, null);
+            delimiter = newDelimiter;
+        }
+        field = 0;
+        CSVSaveService.appendFields(event, sample, config, sink);
+    }
+
+    private void startField() {
+        if (field > 0) {
+            ensureCapacity(1);
+            buffer[length++] = delimiter;
+        }
+        field++;
+    }
+
+    private void appendField(long l) {
+        startField();
+        if (l == Long.MIN_VALUE) {
+            append(MIN_LONG);
+            return;
+        }
+        ensureCapacity(20);
+        long value = l;
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int position = length + digits;
+        length = position;
+        do {
+            buffer[--position] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private void appendField(String s) {
+        int index = field;
+        startField();
+        if (s == null) {
+            append(NULL);
+            return;
+        }
+        if (index >= lastValues.length) {
+            lastValues = Arrays.copyOf(lastValues, index * 2);
+            lastQuoted = Arrays.copyOf(lastQuoted, lastValues.length);
+        }
+        boolean quoted;
+        if (lastValues[index] == s) {
+            quoted = lastQuoted[index];
+        } else {
+            quoted = needsQuoting(s);
+            lastValues[index] = s;
+            lastQuoted[index] = quoted;
+        }
+        if (quoted) {
+            appendQuoted(s);
+        } else {
+            ensureCapacity(s.length());
+            s.getChars(0, s.length(), buffer, length);
+            length += s.length();
+        }
+    }
+
+    private void appendField(CharSequence s) {
+        startField();
+        if (needsQuoting(s)) {
+            appendQuoted(s);
+        } else {
+            ensureCapacity(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                buffer[length++] = s.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Same decision as {@link CSVSaveService#quoteDelimiters(String, char[])}
+     */
+    private boolean needsQuoting(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == delimiter || c == CSVSaveService.QUOTING_CHAR || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendQuoted(CharSequence s) {
+        final char quote = CSVSaveService.QUOTING_CHAR;
+        ensureCapacity(2 * s.length() + 2);
+        buffer[length++] = quote;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == quote) {
+                buffer[length++] = quote; // double the quote char
+            }
+            buffer[length++] = c;
+        }
+        buffer[length++] = quote;
+    }
+
+    private void append(char[] chars) {
+        ensureCapacity(chars.length);
+        System.arraycopy(chars, 0, buffer, length, chars.length);
+        length += chars.length;
+    }
+
+    private void ensureCapacity(int more) {
+        if (length + more > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + more));
+        }
+    }
+
+    /**
+     * Writes the fields of a sample result to the buffer
+     */
+    private final class LineSink implements CSVSaveService.FieldSink {
+        @Override
+        public void append(String s) {
+            appendField(s);
+        }
+
+        @Override
+        public void append(long l) {
+            appendField(l);
+        }
+
+        @Override
+        public void append(boolean b) {
+            startField();
+            CSVResultFormatter.this.append(b ? TRUE : FALSE);
+        }
+
+        @Override
+        public void append(long timeStamp, FastDateFormat format) {
+            if (format != dateFormat) {
+                dateFormat = format;
+                calendar = Calendar.getInstance(format.getTimeZone(), format.getLocale());
+            }
+            date.setLength(0);
+            calendar.setTimeInMillis(timeStamp);
+            format.format(calendar, date);
+            appendField(date);
+        }
+    }
+}
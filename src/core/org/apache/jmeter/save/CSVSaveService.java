@@ -20,6 +20,7 @@ package org.apache.jmeter.save;
 
 import java.io.BufferedReader;
 import java.io.CharArrayWriter;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -36,12 +37,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.swing.table.DefaultTableModel;
 
 import org.apache.commons.collections.map.LinkedMap;
 import org.apache.commons.lang3.CharUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.jmeter.reporters.ResultCollector;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleResult;
@@ -96,6 +99,7 @@ public final class CSVSaveService {
     public static final String CSV_ENCODING = "Encoding"; // $NON-NLS-1$
     public static final String CSV_HOSTNAME = "Hostname"; // $NON-NLS-1$
     public static final String CSV_IDLETIME = "IdleTime"; // $NON-NLS-1$
+    public static final String CSV_CORRECTED_TIME = "CorrectedElapsed"; // $NON-NLS-1$
 
     // Used to enclose variable name labels, to distinguish from any of the
     // above labels
@@ -117,6 +121,17 @@ public final class CSVSaveService {
 
     private static final String LINE_SEP = System.getProperty("line.separator"); // $NON-NLS-1$
 
+    /**
+     * Formatters used by {@link #saveSampleResult(SampleEvent, SampleSaveConfiguration, PrintWriter)}.
+     * A formatter is only needed while a line is written, so they are shared by the threads
+     * picking the same slot rather than kept by each sampling thread.
+     */
+    private static final AtomicReferenceArray<CSVResultFormatter> FORMATTERS =
+            new AtomicReferenceArray<>(2 * Runtime.getRuntime().availableProcessors());
+
+    /** Formatters whose buffer grew larger, for a very long line, are not kept */
+    private static final int MAX_FORMATTER_CAPACITY = 64 * 1024;
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -140,6 +155,10 @@ public final class CSVSaveService {
             ResultCollector resultCollector) throws IOException {
         final boolean errorsOnly = resultCollector.isErrorLogging();
         final boolean successOnly = resultCollector.isSuccessOnlyLogging();
+        if (BinaryResultReader.isBinaryResultFile(new File(filename))) {
+            processBinarySamples(filename, visualizer, resultCollector);
+            return;
+        }
         try (InputStream inStream = new FileInputStream(filename);
                 Reader inReader = new InputStreamReader(inStream,
                         SaveService.getFileEncoding(StandardCharsets.UTF_8.name()));
@@ -180,6 +199,35 @@ public final class CSVSaveService {
         }
     }
 
+    /**
+     * Read samples from a file written by {@link BinaryResultWriter}
+     */
+    private static void processBinarySamples(String filename, Visualizer visualizer,
+            ResultCollector resultCollector) throws IOException {
+        final boolean errorsOnly = resultCollector.isErrorLogging();
+        final boolean successOnly = resultCollector.isSuccessOnlyLogging();
+        try (BinaryResultReader reader = new BinaryResultReader(new File(filename))) {
+            SampleSaveConfiguration saveConfig = CSVSaveService
+                    .getSampleSaveConfiguration(reader.getHeader(), filename);
+            if (saveConfig == null) {
+                throw new IOException(filename + ": invalid header: " + reader.getHeader());
+            }
+            long recordNumber = 0;
+            String[] parts;
+            while ((parts = reader.readRecord()) != null) {
+                recordNumber++;
+                SampleEvent event = CSVSaveService.makeResultFromDelimitedString(parts, saveConfig, recordNumber);
+                if (event != null) {
+                    final SampleResult result = event.getResult();
+                    if (ResultCollector.isSampleWanted(result.isSuccessful(),
+                            errorsOnly, successOnly)) {
+                        visualizer.add(result);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Make a SampleResult given a set of tokens
      * 
@@ -363,6 +411,11 @@ public final class CSVSaveService {
                 text = parts[i++];
                 result.setConnectTime(Long.parseLong(text));
             }
+            if (saveConfig.saveCorrectedTime()) {
+                field = CSV_CORRECTED_TIME;
+                text = parts[i++];
+                result.setCorrectedTime(Long.parseLong(text));
+            }
 
             if (i + saveConfig.getVarCount() < parts.length) {
                 log.warn("Line: {}. Found {} fields, expected {}. Extra fields have been ignored.", lineNumber,
@@ -422,6 +475,7 @@ public final class CSVSaveService {
         appendFields(saveConfig.saveHostname(), text, delim, CSV_HOSTNAME);
         appendFields(saveConfig.saveIdleTime(), text, delim, CSV_IDLETIME);
         appendFields(saveConfig.saveConnectTime(), text, delim, CSV_CONNECT_TIME);
+        appendFields(saveConfig.saveCorrectedTime(), text, delim, CSV_CORRECTED_TIME);
 
         for (int i = 0; i < SampleEvent.getVarCount(); i++) {
             text.append(VARIABLE_NAME_QUOTE_CHAR);
@@ -487,6 +541,7 @@ public final class CSVSaveService {
         headerLabelMethods.put(CSV_HOSTNAME, new Functor("setHostname"));
         headerLabelMethods.put(CSV_IDLETIME, new Functor("setIdleTime"));
         headerLabelMethods.put(CSV_CONNECT_TIME, new Functor("setConnectTime"));
+        headerLabelMethods.put(CSV_CORRECTED_TIME, new Functor("setCorrectedTime"));
     }
 
     /**
@@ -723,11 +778,35 @@ public final class CSVSaveService {
                 .getDelimiter());
     }
     
+    /**
+     * Receives the fields of a sample result, in the order of the columns
+     * of {@link #printableFieldNamesToString(SampleSaveConfiguration)}
+     */
+    interface FieldSink {
+        void append(String s);
+
+        void append(long l);
+
+        void append(boolean b);
+
+        default void append(Object obj) {
+            append(String.valueOf(obj));
+        }
+
+        /**
+         * @param timeStamp the time stamp to append
+         * @param format the format of the time stamp
+         */
+        default void append(long timeStamp, FastDateFormat format) {
+            append(format.format(new Date(timeStamp)));
+        }
+    }
+
     /*
      * Class to handle generating the delimited string. - adds the delimiter
      * if not the first call - quotes any strings that require it
      */
-    static final class StringQuoter {
+    static final class StringQuoter implements FieldSink {
         private final StringBuilder sb;
         private final char[] specials;
         private boolean addDelim;
@@ -749,15 +828,12 @@ public final class CSVSaveService {
 
         // These methods handle parameters that could contain delimiters or
         // quotes:
+        @Override
         public void append(String s) {
             addDelim();
             sb.append(quoteDelimiters(s, specials));
         }
 
-        public void append(Object obj) {
-            append(String.valueOf(obj));
-        }
-
         // These methods handle parameters that cannot contain delimiters or
         // quotes
         public void append(int i) {
@@ -765,11 +841,13 @@ public final class CSVSaveService {
             sb.append(i);
         }
 
+        @Override
         public void append(long l) {
             addDelim();
             sb.append(l);
         }
 
+        @Override
         public void append(boolean b) {
             addDelim();
             sb.append(b);
@@ -813,13 +891,27 @@ public final class CSVSaveService {
             SampleSaveConfiguration saveConfig,
             final String delimiter) {
         StringQuoter text = new StringQuoter(delimiter.charAt(0));
+        appendFields(event, sample, saveConfig, text);
+        return text.toString();
+    }
+
+    /**
+     * Pass the fields of a result to be saved, in column order, to a {@link FieldSink}
+     *
+     * @param event the sample event
+     * @param sample {@link SampleResult} to log
+     * @param saveConfig {@link SampleSaveConfiguration} to use for logging
+     * @param text receives the fields
+     */
+    static void appendFields(SampleEvent event,
+            SampleResult sample,
+            SampleSaveConfiguration saveConfig,
+            FieldSink text) {
         if (saveConfig.saveTimestamp()) {
             if (saveConfig.printMilliseconds()) {
                 text.append(sample.getTimeStamp());
             } else if (saveConfig.threadSafeLenientFormatter() != null) {
-                String stamp = saveConfig.threadSafeLenientFormatter().format(
-                        new Date(sample.getTimeStamp()));
-                text.append(stamp);
+                text.append(sample.getTimeStamp(), saveConfig.threadSafeLenientFormatter());
             }
         }
 
@@ -907,11 +999,13 @@ public final class CSVSaveService {
             text.append(sample.getConnectTime());
         }
 
+        if (saveConfig.saveCorrectedTime()) {
+            text.append(sample.getCorrectedTime());
+        }
+
         for (int i = 0; i < SampleEvent.getVarCount(); i++) {
             text.append(event.getVarValue(i));
         }
-
-        return text.toString();
     }
 
     // =================================== CSV quote/unquote handling
@@ -1102,17 +1196,24 @@ public final class CSVSaveService {
      * @param out {@link PrintWriter} to which samples will be written
      */
     public static void saveSampleResult(SampleEvent event, PrintWriter out) {
-        SampleSaveConfiguration saveConfiguration = event.getResult().getSaveConfig();
-        String delimiter = saveConfiguration.getDelimiter();
-        String savee = resultToDelimitedString(event, event.getResult(), saveConfiguration, delimiter);
-        out.println(savee);
-        
-        if(saveConfiguration.saveSubresults()) {
-            SampleResult result = event.getResult();
-            for (SampleResult subResult : result.getSubResults()) {
-                savee = resultToDelimitedString(event, subResult, saveConfiguration, delimiter);
-                out.println(savee);
-            }
+        saveSampleResult(event, event.getResult().getSaveConfig(), out);
+    }
+
+    /**
+     * @param event {@link SampleEvent}
+     * @param saveConfiguration {@link SampleSaveConfiguration} to use instead of the one of the sample result
+     * @param out {@link PrintWriter} to which samples will be written
+     * @since 5.2
+     */
+    public static void saveSampleResult(SampleEvent event, SampleSaveConfiguration saveConfiguration, PrintWriter out) {
+        int slot = (int) (Thread.currentThread().getId() % FORMATTERS.length());
+        CSVResultFormatter formatter = FORMATTERS.getAndSet(slot, null);
+        if (formatter == null) {
+            formatter = new CSVResultFormatter();
+        }
+        formatter.write(event, saveConfiguration, out);
+        if (formatter.getCapacity() <= MAX_FORMATTER_CAPACITY) {
+            FORMATTERS.compareAndSet(slot, null, formatter);
         }
     }
 }
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Names of the segments of a result file that is rolled over.
+ * <p>
+ * When <code>results.jtl</code> is rolled over, the closed segments are renamed
+ * <code>results.1.jtl</code>, <code>results.2.jtl</code>... in the order they were written,
+ * with a <code>.gz</code> suffix once they are compressed. The segment being written keeps
+ * the name of the result file, so it is the last segment.
+ * <p>
+ * The names of the closed segments are listed in order in a manifest, <code>results.jtl.segments</code>,
+ * so that only the segments written for the result file are read with it: files with the
+ * same names left by a previous run, or written by someone else, are ignored.
+ * @since 5.2
+ */
+public final class ResultFileSegments {
+
+    /** Suffix of the compressed segments */
+    public static final String COMPRESSED_SUFFIX = ".gz"; // $NON-NLS-1$
+
+    /** Suffix of the manifest listing the segments of a result file */
+    public static final String MANIFEST_SUFFIX = ".segments"; // $NON-NLS-1$
+
+    /** Orders the names with their numbers compared as numbers, so <code>results.2.jtl</code> comes before <code>results.10.jtl</code> */
+    private static final Comparator<File> NATURAL_ORDER = (a, b) -> compareNatural(a.getName(), b.getName());
+
+    private ResultFileSegments() {
+        // Utility class
+    }
+
+    /**
+     * @param file the result file
+     * @param index the index of the segment, from 1
+     * @return the name of the segment of the result file, not compressed
+     */
+    public static File segment(File file, int index) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String segmentName = dot <= 0
+                ? name + "." + index // $NON-NLS-1$
+                : name.substring(0, dot) + "." + index + name.substring(dot); // $NON-NLS-1$
+        return new File(file.getParentFile(), segmentName);
+    }
+
+    /**
+     * @param file the result file
+     * @return the manifest listing the closed segments of the result file
+     */
+    public static File manifest(File file) {
+        return new File(file.getParentFile(), file.getName() + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * Add a closed segment at the end of the manifest of a result file
+     * @param file the result file
+     * @param segment the closed segment, not compressed
+     * @throws IOException when the manifest cannot be written
+     */
+    public static void addSegment(File file, File segment) throws IOException {
+        Files.write(manifest(file).toPath(),
+                Collections.singletonList(segment.getName()), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Forget the segments of a result file, which is started again
+     * @param file the result file
+     * @throws IOException when the manifest cannot be deleted
+     */
+    public static void clearSegments(File file) throws IOException {
+        Files.deleteIfExists(manifest(file).toPath());
+    }
+
+    /**
+     * @param file the result file
+     * @return the largest index of the existing segments of the file, 0 if there is none
+     */
+    public static int lastSegmentIndex(File file) {
+        int last = 0;
+        Pattern pattern = segmentPattern(file);
+        for (File segment : listFiles(file)) {
+            Matcher matcher = pattern.matcher(segment.getName());
+            if (matcher.matches()) {
+                last = Math.max(last, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Find the files of a logical result file
+     *
+     * @param file a result file, or a glob pattern (e.g. <code>results-*.csv</code>) in its name
+     * @return the files matching the pattern, or the segments listed in the manifest of the
+     *         result file followed by the result file itself; in both cases ordered as they were written.
+     *         The result file is returned alone, even if it does not exist, when it has no segment
+     * @throws IOException when the manifest cannot be read
+     */
+    public static List<File> resolve(File file) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (isGlob(file.getName())) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + file.getName()); // $NON-NLS-1$
+            for (File candidate : listFiles(file)) {
+                if (candidate.isFile() && matcher.matches(Paths.get(candidate.getName()))) {
+                    files.add(candidate);
+                }
+            }
+            files.sort(NATURAL_ORDER);
+            return files;
+        }
+        File manifest = manifest(file);
+        if (manifest.isFile()) {
+            for (String name : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+                File segment = new File(file.getParentFile(), name.trim());
+                File compressed = new File(segment.getPath() + COMPRESSED_SUFFIX);
+                // The segment is only deleted once it is fully compressed
+                if (segment.isFile()) {
+                    files.add(segment);
+                } else if (compressed.isFile()) {
+                    files.add(compressed);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            return Collections.singletonList(file);
+        }
+        if (file.isFile()) {
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * @param name a file name
+     * @return true if the name is a glob pattern
+     */
+    public static boolean isGlob(String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0 || name.indexOf('[') >= 0;
+    }
+
+    /**
+     * @param file a result file or segment
+     * @return true if the file is compressed with gzip
+     */
+    public static boolean isCompressed(File file) {
+        return file.getName().endsWith(COMPRESSED_SUFFIX);
+    }
+
+    private static Pattern segmentPattern(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String stem = dot <= 0 ? name : name.substring(0, dot);
+        String extension = dot <= 0 ? "" : name.substring(dot); // $NON-NLS-1$
+        return Pattern.compile(Pattern.quote(stem) + "\\.(\\d+)" + Pattern.quote(extension) // $NON-NLS-1$
+                + "(?:" + Pattern.quote(COMPRESSED_SUFFIX) + ")?"); // $NON-NLS-1$ // $NON-NLS-2$
+    }
+
+    private static List<File> listFiles(File file) {
+        File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+        return files == null ? Collections.emptyList() : Arrays.asList(files);
+    }
+
+    private static int compareNatural(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (Character.isDigit(ca) && Character.isDigit(cb)) {
+                int endA = endOfDigits(a, i);
+                int endB = endOfDigits(b, j);
+                // Compare the numbers without their leading zeros, by length and then digit by digit
+                String numberA = stripLeadingZeros(a.substring(i, endA));
+                String numberB = stripLeadingZeros(b.substring(j, endB));
+                int result = numberA.length() != numberB.length()
+                        ? Integer.compare(numberA.length(), numberB.length())
+                        : numberA.compareTo(numberB);
+                if (result != 0) {
+                    return result;
+                }
+                i = endA;
+                j = endB;
+            } else {
+                if (ca != cb) {
+                    return Character.compare(ca, cb);
+                }
+                i++;
+                j++;
+            }
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static int endOfDigits(String s, int start) {
+        int end = start;
+        while (end < s.length() && Character.isDigit(s.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static String stripLeadingZeros(String digits) {
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        return digits.substring(start);
+    }
+}
@@ -43,6 +43,7 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.jmeter.reporters.ResultCollectorHelper;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.save.converters.SampleResultConverter;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jmeter.util.NameUpdater;
 import org.apache.jorphan.collections.HashTree;
@@ -119,6 +120,15 @@ public class SaveService {
         JMeterUtils.setupXStreamSecurityPolicy(JTLSAVER);
     }
 
+    /** Converters of the sample results, used by {@link XmlResultWriter} and {@link XmlResultReader} */
+    private static final List<SampleResultConverter> RESULT_CONVERTERS = new ArrayList<>();
+
+    /** true to read and write XML result files with XStream rather than with {@link XmlResultWriter} and {@link XmlResultReader} */
+    private static final boolean XSTREAM_RESULTS =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.xml_xstream", false); // $NON-NLS-1$
+
+    private static final ThreadLocal<XmlResultWriter> RESULT_WRITERS = ThreadLocal.withInitial(XmlResultWriter::new);
+
     // The XML header, with placeholder for encoding, since that is controlled by property
     private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"<ph>\"?>"; // $NON-NLS-1$
 
@@ -156,7 +166,7 @@ public class SaveService {
     private static String fileVersion = ""; // computed from saveservice.properties file// $NON-NLS-1$
     // Must match the sha1 checksum of the file saveservice.properties (without newline character),
     // used to ensure saveservice.properties and SaveService are updated simultaneously
-    static final String FILEVERSION = "822c168ccf18e482d4be1915456c0b503b6f3d75"; // Expected value $NON-NLS-1$
+    static final String FILEVERSION = "13764a4810cda9861e15f105a8e490139b8fdc59"; // Expected value $NON-NLS-1$
 
     private static String fileEncoding = ""; // read from properties file// $NON-NLS-1$
 
@@ -281,13 +291,31 @@ public class SaveService {
             throws InstantiationException, IllegalAccessException,
             InvocationTargetException, NoSuchMethodException,
             ClassNotFoundException {
+        Converter converter;
         if (useMapper){
-            jmxsaver.registerConverter((Converter) Class.forName(key).getConstructor(Mapper.class).newInstance(jmxsaver.getMapper()));
+            converter = (Converter) Class.forName(key).getConstructor(Mapper.class).newInstance(jmxsaver.getMapper());
         } else {
-            jmxsaver.registerConverter((Converter) Class.forName(key).getDeclaredConstructor().newInstance());
+            converter = (Converter) Class.forName(key).getDeclaredConstructor().newInstance();
+        }
+        jmxsaver.registerConverter(converter);
+        if (jmxsaver == JTLSAVER && converter instanceof SampleResultConverter) {
+            RESULT_CONVERTERS.add((SampleResultConverter) converter);
         }
     }
 
+    /**
+     * @param type class of a sample result
+     * @return the converter of the sample results of this exact class, null if they are saved by reflection
+     */
+    static SampleResultConverter getResultConverter(Class<?> type) {
+        for (SampleResultConverter converter : RESULT_CONVERTERS) {
+            if (converter.canConvert(type)) {
+                return converter;
+            }
+        }
+        return null;
+    }
+
     // For converters to use
     public static String aliasToClass(String s){
         String r = aliasToClass.getProperty(s);
@@ -341,7 +369,23 @@ public class SaveService {
      * @throws IOException when writing data to output fails
      */
     // Used by ResultCollector.sampleOccurred(SampleEvent event)
-    public static synchronized void saveSampleResult(SampleEvent evt, Writer writer) throws IOException {
+    public static void saveSampleResult(SampleEvent evt, Writer writer) throws IOException {
+        SampleResult result = evt.getResult();
+        if (!XSTREAM_RESULTS && result != null && XmlResultWriter.canWrite(result)) {
+            XmlResultWriter xml = RESULT_WRITERS.get();
+            xml.reset();
+            xml.writeSample(result, evt);
+            xml.endLine();
+            xml.writeTo(writer);
+            // XStream flushes the writer after each sample
+            writer.flush();
+            return;
+        }
+        saveSampleResultWithXStream(evt, writer);
+    }
+
+    // Also used by tests, to compare with XmlResultWriter
+    static synchronized void saveSampleResultWithXStream(SampleEvent evt, Writer writer) throws IOException {
         DataHolder dh = JTLSAVER.newDataHolder();
         dh.put(SAMPLE_EVENT_OBJECT, evt);
         // This is effectively the same as saver.toXML(Object, Writer) except we get to provide the DataHolder
@@ -408,6 +452,15 @@ public class SaveService {
      * @throws IOException if an I/O error occurs
      */
     public static void loadTestResults(InputStream reader, ResultCollectorHelper resultCollectorHelper) throws IOException {
+        if (!XSTREAM_RESULTS) {
+            try (XmlResultReader results = new XmlResultReader(reader)) {
+                SampleResult sample;
+                while ((sample = results.readSample()) != null) {
+                    resultCollectorHelper.add(sample);
+                }
+            }
+            return;
+        }
         // Get the InputReader to use
         InputStreamReader inputStreamReader = getInputStreamReader(reader);
         DataHolder dh = JTLSAVER.newDataHolder();
@@ -418,6 +471,16 @@ public class SaveService {
         inputStreamReader.close();
     }
     
+    /**
+     * Read a sample result element that has no {@link SampleResultConverter}
+     *
+     * @param xml the sample result element
+     * @return the sample result
+     */
+    static SampleResult loadSampleResult(String xml) {
+        return (SampleResult) JTLSAVER.fromXML(xml);
+    }
+
     /**
      * Load a Test tree (JMX file)
      * @param file the JMX file
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.save.converters.ConversionHelp;
+import org.apache.jmeter.save.converters.SampleResultConverter;
+import org.apache.jmeter.util.NameUpdater;
+import org.apache.jorphan.util.Converter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmlpull.mxp1.MXParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Reads the sample results of an XML result file one at a time, with a pull parser.
+ * <p>
+ * The parser is the XPP parser XStream reads result files with, as it accepts the character
+ * references to control characters (e.g. <code>&amp;#x0;</code>) that XStream writes and
+ * that StAX parsers reject.
+ * <p>
+ * Only the sample being read is held in memory. The content of each sample element is read by
+ * the {@link SampleResultConverter} registered for its class; elements of classes without such a
+ * converter (e.g. <code>statSample</code>) are read with XStream.
+ * @since 5.2
+ */
+public final class XmlResultReader implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(XmlResultReader.class);
+
+    private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([^\"']+)[\"']"); // $NON-NLS-1$
+
+    /** Enough bytes to hold the XML declaration */
+    private static final int DECLARATION_LENGTH = 256;
+
+    private static final String TAG_ASSERTION_RESULT = "assertionResult"; // $NON-NLS-1$
+    private static final String TAG_NAME = "name"; // $NON-NLS-1$
+    private static final String TAG_FAILURE = "failure"; // $NON-NLS-1$
+    private static final String TAG_ERROR = "error"; // $NON-NLS-1$
+    private static final String TAG_FAILURE_MESSAGE = "failureMessage"; // $NON-NLS-1$
+    private static final String ATT_VERSION = "version"; // $NON-NLS-1$
+
+    /** Classes of the element names, most names are not classes (e.g. <code>responseData</code>) */
+    private static final Map<String, Optional<Class<?>>> CLASSES = new ConcurrentHashMap<>();
+
+    private final XmlPullParser reader;
+
+    private final String version;
+
+    /**
+     * Read the start of an XML result file
+     *
+     * @param in the stream to read, it is not closed by {@link #close()}
+     * @throws IOException when the stream is not an XML document
+     */
+    public XmlResultReader(InputStream in) throws IOException {
+        try {
+            InputStream input = in.markSupported() ? in : new BufferedInputStream(in);
+            reader = new MXParser();
+            reader.setInput(input, readEncoding(input));
+            reader.nextTag();
+            String ver = reader.getAttributeValue(null, ATT_VERSION);
+            version = ver == null || ver.isEmpty() ? "1.0" : ver; // $NON-NLS-1$
+            ConversionHelp.setInVersion(version); // Make sure decoding follows input file
+        } catch (XmlPullParserException e) {
+            throw new IOException("Could not read the start of the XML result file", e);
+        }
+    }
+
+    /**
+     * @return the encoding of the XML declaration, UTF-8 if there is none
+     */
+    private static String readEncoding(InputStream in) throws IOException {
+        byte[] start = new byte[DECLARATION_LENGTH];
+        in.mark(DECLARATION_LENGTH);
+        int length = 0;
+        int read;
+        while (length < start.length && (read = in.read(start, length, start.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+        String declaration = new String(start, 0, length, StandardCharsets.ISO_8859_1);
+        int end = declaration.indexOf("?>"); // $NON-NLS-1$
+        if (declaration.startsWith("<?xml") && end > 0) { // $NON-NLS-1$
+            Matcher matcher = ENCODING.matcher(declaration.substring(0, end));
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return StandardCharsets.UTF_8.name();
+    }
+
+    /**
+     * @return the version attribute of the root element, 1.0 if there is none
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Read the next sample result of the file
+     *
+     * @return the next sample result, null at the end of the file
+     * @throws IOException when the file is not well formed
+     */
+    public SampleResult readSample() throws IOException {
+        try {
+            int event;
+            while ((event = reader.next()) != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.START_TAG) {
+                    return readSampleElement();
+                } else if (event == XmlPullParser.END_TAG) {
+                    // End of the root element
+                    return null;
+                }
+            }
+            return null;
+        } catch (XmlPullParserException e) {
+            throw new IOException("Error reading XML result file at " + reader.getPositionDescription(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        // The stream belongs to the caller
+    }
+
+    /**
+     * Read the sample element at which the reader is positioned, up to its end
+     */
+    private SampleResult readSampleElement() throws XmlPullParserException, IOException {
+        String name = reader.getName();
+        Class<?> type = resolveClass(name);
+        SampleResultConverter converter = type == null ? null : SaveService.getResultConverter(type);
+        if (converter == null) {
+            return readWithXStream();
+        }
+        SampleResult res;
+        try {
+            res = (SampleResult) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Cannot create " + type, e);
+        }
+        converter.readAttributes(attribute -> reader.getAttributeValue(null, attribute), res);
+        while (reader.nextTag() == XmlPullParser.START_TAG) {
+            String childName = reader.getName();
+            if (TAG_ASSERTION_RESULT.equals(childName)) {
+                res.addAssertionResult(readAssertionResult());
+            } else if (isSampleElement(childName)) {
+                res.storeSubResult(readSampleElement());
+            } else if (URL.class.getName().equals(childName)) {
+                converter.readUrl(res, readUrl(reader.nextText()));
+            } else if (!converter.readElement(res, childName, reader.nextText())) {
+                log.debug("Ignoring element {} of {}", childName, name);
+            }
+        }
+        converter.readResponseFile(res);
+        return res;
+    }
+
+    /**
+     * @return the class of the elements named <code>alias</code>, null for elements that are not classes
+     */
+    private static Class<?> resolveClass(String alias) {
+        return CLASSES.computeIfAbsent(alias, XmlResultReader::loadClass).orElse(null);
+    }
+
+    private static Optional<Class<?>> loadClass(String alias) {
+        try {
+            return Optional.of(Class.forName(NameUpdater.getCurrentName(SaveService.aliasToClass(alias))));
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isSampleElement(String name) {
+        Class<?> type = resolveClass(name);
+        return type != null && SampleResult.class.isAssignableFrom(type);
+    }
+
+    private AssertionResult readAssertionResult() throws XmlPullParserException, IOException {
+        String name = null;
+        boolean failure = false;
+        boolean error = false;
+        String failureMessage = null;
+        while (reader.nextTag() == XmlPullParser.START_TAG) {
+            String field = reader.getName();
+            String value = reader.nextText();
+            if (TAG_NAME.equals(field)) {
+                name = value;
+            } else if (TAG_FAILURE.equals(field)) {
+                failure = Converter.getBoolean(value);
+            } else if (TAG_ERROR.equals(field)) {
+                error = Converter.getBoolean(value);
+            } else if (TAG_FAILURE_MESSAGE.equals(field)) {
+                failureMessage = value;
+            }
+        }
+        AssertionResult assertionResult = new AssertionResult(name);
+        assertionResult.setFailure(failure);
+        assertionResult.setError(error);
+        assertionResult.setFailureMessage(failureMessage);
+        return assertionResult;
+    }
+
+    private static URL readUrl(String text) {
+        try {
+            return new URL(text);
+        } catch (MalformedURLException e) {
+            log.warn("Invalid URL {} in result file", text);
+            return null;
+        }
+    }
+
+    /**
+     * Copy the element at which the reader is positioned and let XStream convert it
+     */
+    private SampleResult readWithXStream() throws XmlPullParserException, IOException {
+        // Names are copied as they are, they are already encoded
+        XmlResultWriter copy = new XmlResultWriter(false);
+        int depth = 0;
+        do {
+            switch (reader.getEventType()) {
+                case XmlPullParser.START_TAG:
+                    copy.startNode(reader.getName());
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        copy.addAttribute(reader.getAttributeName(i), reader.getAttributeValue(i));
+                    }
+                    depth++;
+                    break;
+                case XmlPullParser.END_TAG:
+                    copy.endNode();
+                    depth--;
+                    break;
+                case XmlPullParser.TEXT:
+                    if (!reader.isWhitespace()) {
+                        copy.setValue(reader.getText());
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (depth > 0) {
+                reader.next();
+            }
+        } while (depth > 0);
+        return SaveService.loadSampleResult(copy.toString());
+    }
+}
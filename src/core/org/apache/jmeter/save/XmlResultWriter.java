@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.converters.SampleResultConverter;
+
+/**
+ * Writes sample results in the XML format of the JTL files without going through XStream.
+ * <p>
+ * The output is the same as the one of the XStream pretty printer used by
+ * {@link SaveService#saveSampleResult(SampleEvent, Writer)}: same indentation, same escaping
+ * of element texts and attribute values, same encoding of element and attribute names.
+ * The content of each element is written by the {@link SampleResultConverter} registered
+ * for the class of the sample result.
+ * <p>
+ * Not thread safe, each thread must use its own instance.
+ * @since 5.2
+ */
+public final class XmlResultWriter {
+
+    private static final String INDENT = "  "; // $NON-NLS-1$
+
+    private static final char NEW_LINE = '\n';
+
+    private final StringBuilder out = new StringBuilder(1024);
+
+    private final Deque<String> elements = new ArrayDeque<>();
+
+    private int depth;
+
+    private boolean tagInProgress;
+
+    private boolean readyForNewLine;
+
+    private boolean tagIsEmpty;
+
+    private final boolean encodeNames;
+
+    public XmlResultWriter() {
+        this(true);
+    }
+
+    /**
+     * @param encodeNames false if the names of the elements and attributes are already encoded
+     */
+    XmlResultWriter(boolean encodeNames) {
+        this.encodeNames = encodeNames;
+    }
+
+    /**
+     * @param res the sample result to check
+     * @return true if the sample result and the sub results that would be saved with it
+     *         can be written by this class, false if XStream is needed
+     */
+    public static boolean canWrite(SampleResult res) {
+        return canWrite(res, res.getSaveConfig());
+    }
+
+    /**
+     * Sub results are saved with the configuration of their parent
+     */
+    private static boolean canWrite(SampleResult res, SampleSaveConfiguration save) {
+        if (SaveService.getResultConverter(res.getClass()) == null) {
+            return false;
+        }
+        if (save.saveSubresults()) {
+            for (SampleResult subResult : res.getSubResults()) {
+                if (!canWrite(subResult, save)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write a sample result as an element named after the alias of its class
+     *
+     * @param res the sample result to write, {@link #canWrite(SampleResult)} must be true
+     * @param event the sample event, that provides the host name and the sample variables
+     */
+    public void writeSample(SampleResult res, SampleEvent event) {
+        SampleResultConverter converter = SaveService.getResultConverter(res.getClass());
+        if (converter == null) {
+            throw new IllegalArgumentException("No converter for " + res.getClass());
+        }
+        startNode(SaveService.classToAlias(res.getClass().getName()));
+        converter.write(res, event, this);
+        endNode();
+    }
+
+    /**
+     * End the current line, as done after each sample of a result file
+     */
+    public void endLine() {
+        out.append(NEW_LINE);
+    }
+
+    /**
+     * Write what was written since the last {@link #reset()} in one call
+     *
+     * @param writer where to write
+     * @throws IOException when writing fails
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writer.append(out);
+    }
+
+    /**
+     * Forget what was written, to reuse this instance
+     */
+    public void reset() {
+        out.setLength(0);
+        elements.clear();
+        depth = 0;
+        tagInProgress = false;
+        readyForNewLine = false;
+        tagIsEmpty = false;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    /**
+     * @param name the name of the element to start
+     */
+    public void startNode(String name) {
+        String encodedName = encodeNames ? encodeName(name) : name;
+        tagIsEmpty = false;
+        finishTag();
+        out.append('<').append(encodedName);
+        elements.push(encodedName);
+        tagInProgress = true;
+        depth++;
+        readyForNewLine = true;
+        tagIsEmpty = true;
+    }
+
+    /**
+     * @param name the name of the attribute to add to the element being started
+     * @param value the value of the attribute
+     */
+    public void addAttribute(String name, String value) {
+        out.append(' ').append(encodeNames ? encodeName(name) : name).append("=\""); // $NON-NLS-1$
+        writeText(value, true);
+        out.append('"');
+    }
+
+    /**
+     * @param text the text of the current element
+     */
+    public void setValue(String text) {
+        readyForNewLine = false;
+        tagIsEmpty = false;
+        finishTag();
+        writeText(text, false);
+    }
+
+    /**
+     * End the current element
+     */
+    public void endNode() {
+        depth--;
+        if (tagIsEmpty) {
+            out.append('/');
+            readyForNewLine = false;
+            finishTag();
+            elements.pop();
+        } else {
+            finishTag();
+            out.append("</").append(elements.pop()).append('>'); // $NON-NLS-1$
+        }
+        readyForNewLine = true;
+    }
+
+    private void finishTag() {
+        if (tagInProgress) {
+            out.append('>');
+        }
+        tagInProgress = false;
+        if (readyForNewLine) {
+            out.append(NEW_LINE);
+            for (int i = 0; i < depth; i++) {
+                out.append(INDENT);
+            }
+        }
+        readyForNewLine = false;
+        tagIsEmpty = false;
+    }
+
+    /**
+     * Escape the text like XStream does in its default (quirks) mode
+     */
+    private void writeText(String text, boolean isAttribute) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\0':
+                    out.append("&#x0;"); // $NON-NLS-1$
+                    break;
+                case '&':
+                    out.append("&amp;"); // $NON-NLS-1$
+                    break;
+                case '<':
+                    out.append("&lt;"); // $NON-NLS-1$
+                    break;
+                case '>':
+                    out.append("&gt;"); // $NON-NLS-1$
+                    break;
+                case '"':
+                    out.append("&quot;"); // $NON-NLS-1$
+                    break;
+                case '\'':
+                    out.append("&apos;"); // $NON-NLS-1$
+                    break;
+                case '\r':
+                    out.append("&#xd;"); // $NON-NLS-1$
+                    break;
+                case '\t':
+                case '\n':
+                    if (!isAttribute) {
+                        out.append(c);
+                        break;
+                    }
+                    appendCharacterReference(c);
+                    break;
+                default:
+                    if (Character.isDefined(c) && !Character.isISOControl(c)) {
+                        out.append(c);
+                    } else {
+                        appendCharacterReference(c);
+                    }
+            }
+        }
+    }
+
+    private void appendCharacterReference(char c) {
+        out.append("&#x").append(Integer.toHexString(c)).append(';'); // $NON-NLS-1$
+    }
+
+    /**
+     * Encode a name like the XStream writer of the result files: only
+     * <code>$</code> and <code>_</code> are replaced, other characters are written unchanged
+     */
+    private static String encodeName(String name) {
+        StringBuilder encoded = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            String replacement = null;
+            if (c == '$') {
+                replacement = "_-"; // $NON-NLS-1$
+            } else if (c == '_') {
+                replacement = "__"; // $NON-NLS-1$
+            }
+            if (replacement != null && encoded == null) {
+                encoded = new StringBuilder(name.length() + 8).append(name, 0, i);
+            }
+            if (encoded != null) {
+                if (replacement != null) {
+                    encoded.append(replacement);
+                } else {
+                    encoded.append(c);
+                }
+            }
+        }
+        return encoded == null ? name : encoded.toString();
+    }
+}
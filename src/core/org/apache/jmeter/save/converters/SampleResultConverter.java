@@ -25,12 +25,15 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import org.apache.jmeter.assertions.AssertionResult;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
 import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.save.XmlResultWriter;
 import org.apache.jorphan.util.Converter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +66,12 @@ public class SampleResultConverter extends AbstractCollectionConverter {
     protected static final String TAG_SAMPLER_DATA      = "samplerData";      //$NON-NLS-1$
     protected static final String TAG_RESPONSE_FILE     = "responseFile";     //$NON-NLS-1$
 
+    // Fields of the assertion results, as written by the XStream reflection converter
+    private static final String TAG_ASSERTION_ERROR           = "error";          //$NON-NLS-1$
+    private static final String TAG_ASSERTION_FAILURE         = "failure";        //$NON-NLS-1$
+    private static final String TAG_ASSERTION_FAILURE_MESSAGE = "failureMessage"; //$NON-NLS-1$
+    private static final String TAG_ASSERTION_NAME            = "name";           //$NON-NLS-1$
+
     // samplerData attributes. Must be unique. Keep sorted by string value.
     // Ensure the Listener documentation is updated when new attributes are added
     private static final String ATT_BYTES             = "by"; //$NON-NLS-1$
@@ -74,6 +83,7 @@ public class SampleResultConverter extends AbstractCollectionConverter {
     private static final String ATT_LABEL             = "lb"; //$NON-NLS-1$
     private static final String ATT_LATENCY           = "lt"; //$NON-NLS-1$
     private static final String ATT_CONNECT_TIME      = "ct"; //$NON-NLS-1$
+    private static final String ATT_CORRECTED_TIME    = "cet"; //$NON-NLS-1$
 
     private static final String ATT_ALL_THRDS         = "na"; //$NON-NLS-1$
     private static final String ATT_GRP_THRDS         = "ng"; //$NON-NLS-1$
@@ -122,6 +132,125 @@ public class SampleResultConverter extends AbstractCollectionConverter {
         saveSamplerData(writer, context, res, save);
     }
 
+    /**
+     * Write a sample result with a {@link XmlResultWriter}, in the same format as
+     * {@link #marshal(Object, HierarchicalStreamWriter, MarshallingContext)}.
+     * The element of the sample result has been started by the caller.
+     *
+     * @param res
+     *            sample to be saved
+     * @param event
+     *            the sample event providing the host name and the sample variables
+     * @param writer
+     *            writer to write the content of the sample element into
+     */
+    public void write(SampleResult res, SampleEvent event, XmlResultWriter writer) {
+        SampleSaveConfiguration save = res.getSaveConfig();
+        writeAttributes(res, save, event, writer::addAttribute);
+        if (save.saveAssertions()) {
+            for (AssertionResult assertionResult : res.getAssertionResults()) {
+                writeAssertionResult(writer, assertionResult);
+            }
+        }
+        if (save.saveSubresults()) {
+            for (SampleResult subResult : res.getSubResults()) {
+                subResult.setSaveConfig(save);
+                writer.writeSample(subResult, event);
+            }
+        }
+        if (save.saveResponseHeaders()) {
+            writeString(writer, TAG_RESPONSE_HEADER, res.getResponseHeaders());
+        }
+        if (save.saveRequestHeaders()) {
+            writeString(writer, TAG_REQUEST_HEADER, res.getRequestHeaders());
+        }
+        if (save.saveResponseData(res)) {
+            writeString(writer, TAG_RESPONSE_DATA, responseDataAsString(res));
+        }
+        if (save.saveFileName()) {
+            writeString(writer, TAG_RESPONSE_FILE, res.getResultFileName());
+        }
+        writeSamplerData(writer, res, save);
+    }
+
+    /**
+     * Write the sampler data and the URL of the sample result,
+     * as done by {@link #saveSamplerData(HierarchicalStreamWriter, MarshallingContext, SampleResult, SampleSaveConfiguration)}
+     *
+     * @param writer
+     *            writer to write the elements into
+     * @param res
+     *            sample to be saved
+     * @param save
+     *            configuration telling us what to save
+     */
+    protected void writeSamplerData(XmlResultWriter writer, SampleResult res, SampleSaveConfiguration save) {
+        if (save.saveSamplerData(res)) {
+            writeString(writer, TAG_SAMPLER_DATA, res.getSamplerData());
+        }
+        if (save.saveUrl()) {
+            final URL url = res.getURL();
+            if (url != null) {
+                writeUrl(writer, url);
+            }
+        }
+    }
+
+    /**
+     * Write an URL as XStream does
+     *
+     * @param writer
+     *            writer to write the element into
+     * @param url
+     *            URL to write, may be null
+     */
+    protected void writeUrl(XmlResultWriter writer, URL url) {
+        if (url == null) {
+            writer.startNode(mapper().serializedClass(null));
+        } else {
+            writer.startNode(mapper().serializedClass(URL.class));
+            writer.setValue(url.toExternalForm());
+        }
+        writer.endNode();
+    }
+
+    /**
+     * Write an assertion result with the fields written by the XStream reflection converter
+     */
+    private void writeAssertionResult(XmlResultWriter writer, AssertionResult assertionResult) {
+        writer.startNode(mapper().serializedClass(AssertionResult.class));
+        if (assertionResult.getName() != null) {
+            writer.startNode(TAG_ASSERTION_NAME);
+            writer.setValue(assertionResult.getName());
+            writer.endNode();
+        }
+        writer.startNode(TAG_ASSERTION_FAILURE);
+        writer.setValue(Boolean.toString(assertionResult.isFailure()));
+        writer.endNode();
+        writer.startNode(TAG_ASSERTION_ERROR);
+        writer.setValue(Boolean.toString(assertionResult.isError()));
+        writer.endNode();
+        if (assertionResult.getFailureMessage() != null) {
+            writer.startNode(TAG_ASSERTION_FAILURE_MESSAGE);
+            writer.setValue(assertionResult.getFailureMessage());
+            writer.endNode();
+        }
+        writer.endNode();
+    }
+
+    private static String responseDataAsString(SampleResult res) {
+        try {
+            if (SampleResult.TEXT.equals(res.getDataType())){
+                return new String(res.getResponseData(), res.getDataEncodingWithDefault());
+            } else {
+                return "Non-TEXT response data, cannot record: (" + res.getDataType() + ")";
+            }
+            // Otherwise don't save anything - no point
+        } catch (UnsupportedEncodingException e) {
+            return "Unsupported encoding in response data, cannot record: " + e;
+        }
+    }
+
     /**
      * Save the data of the sample result to a stream
      *
@@ -164,16 +293,7 @@ public class SampleResultConverter extends AbstractCollectionConverter {
         if (save.saveResponseData(res)) {
             writer.startNode(TAG_RESPONSE_DATA);
             writer.addAttribute(ATT_CLASS, JAVA_LANG_STRING);
-            try {
-                if (SampleResult.TEXT.equals(res.getDataType())){
-                    writer.setValue(new String(res.getResponseData(), res.getDataEncodingWithDefault()));
-                } else {
-                    writer.setValue("Non-TEXT response data, cannot record: (" + res.getDataType() + ")");                    
-                }
-                // Otherwise don't save anything - no point
-            } catch (UnsupportedEncodingException e) {
-                writer.setValue("Unsupported encoding in response data, cannot record: " + e);
-            }
+            writer.setValue(responseDataAsString(res));
             writer.endNode();
         }
         if (save.saveFileName()){
@@ -281,63 +401,83 @@ public class SampleResultConverter extends AbstractCollectionConverter {
      */
     protected void setAttributes(HierarchicalStreamWriter writer, MarshallingContext context, SampleResult res,
             SampleSaveConfiguration save) {
+        SampleEvent event = (SampleEvent) context.get(SaveService.SAMPLE_EVENT_OBJECT);
+        writeAttributes(res, save, event, writer::addAttribute);
+    }
+
+    /**
+     * Pass the attributes of the sample result to save to <code>writer</code>
+     *
+     * @param res
+     *            sample to be saved
+     * @param save
+     *            configuration telling us what to save
+     * @param event
+     *            the sample event providing the host name and the sample variables, may be null
+     * @param writer
+     *            receives the names and values of the attributes
+     */
+    protected void writeAttributes(SampleResult res, SampleSaveConfiguration save, SampleEvent event,
+            BiConsumer<String, String> writer) {
         if (save.saveTime()) {
-            writer.addAttribute(ATT_TIME, Long.toString(res.getTime()));
+            writer.accept(ATT_TIME, Long.toString(res.getTime()));
         }
         if (save.saveIdleTime()) {
-            writer.addAttribute(ATT_IDLETIME, Long.toString(res.getIdleTime()));
+            writer.accept(ATT_IDLETIME, Long.toString(res.getIdleTime()));
         }
         if (save.saveLatency()) {
-            writer.addAttribute(ATT_LATENCY, Long.toString(res.getLatency()));
+            writer.accept(ATT_LATENCY, Long.toString(res.getLatency()));
         }
         if (save.saveConnectTime()) {
-            writer.addAttribute(ATT_CONNECT_TIME, Long.toString(res.getConnectTime()));
+            writer.accept(ATT_CONNECT_TIME, Long.toString(res.getConnectTime()));
+        }
+        if (save.saveCorrectedTime()) {
+            writer.accept(ATT_CORRECTED_TIME, Long.toString(res.getCorrectedTime()));
         }
         if (save.saveTimestamp()) {
-            writer.addAttribute(ATT_TIME_STAMP, Long.toString(res.getTimeStamp()));
+            writer.accept(ATT_TIME_STAMP, Long.toString(res.getTimeStamp()));
         }
         if (save.saveSuccess()) {
-            writer.addAttribute(ATT_SUCCESS, Boolean.toString(res.isSuccessful()));
+            writer.accept(ATT_SUCCESS, Boolean.toString(res.isSuccessful()));
         }
         if (save.saveLabel()) {
-            writer.addAttribute(ATT_LABEL, ConversionHelp.encode(res.getSampleLabel()));
+            writer.accept(ATT_LABEL, ConversionHelp.encode(res.getSampleLabel()));
         }
         if (save.saveCode()) {
-            writer.addAttribute(ATT_RESPONSE_CODE, ConversionHelp.encode(res.getResponseCode()));
+            writer.accept(ATT_RESPONSE_CODE, ConversionHelp.encode(res.getResponseCode()));
         }
         if (save.saveMessage()) {
-            writer.addAttribute(ATT_RESPONSE_MESSAGE, ConversionHelp.encode(res.getResponseMessage()));
+            writer.accept(ATT_RESPONSE_MESSAGE, ConversionHelp.encode(res.getResponseMessage()));
         }
         if (save.saveThreadName()) {
-            writer.addAttribute(ATT_THREADNAME, ConversionHelp.encode(res.getThreadName()));
+            writer.accept(ATT_THREADNAME, ConversionHelp.encode(res.getThreadName()));
         }
         if (save.saveDataType()) {
-            writer.addAttribute(ATT_DATA_TYPE, ConversionHelp.encode(res.getDataType()));
+            writer.accept(ATT_DATA_TYPE, ConversionHelp.encode(res.getDataType()));
         }
         if (save.saveEncoding()) {
-            writer.addAttribute(ATT_DATA_ENCODING, ConversionHelp.encode(res.getDataEncodingNoDefault()));
+            writer.accept(ATT_DATA_ENCODING, ConversionHelp.encode(res.getDataEncodingNoDefault()));
         }
         if (save.saveBytes()) {
-            writer.addAttribute(ATT_BYTES, String.valueOf(res.getBytesAsLong()));
+            writer.accept(ATT_BYTES, String.valueOf(res.getBytesAsLong()));
         }
         if (save.saveSentBytes()) {
-            writer.addAttribute(ATT_SENT_BYTES, String.valueOf(res.getSentBytes()));
+            writer.accept(ATT_SENT_BYTES, String.valueOf(res.getSentBytes()));
         }
         if (save.saveSampleCount()){
-            writer.addAttribute(ATT_SAMPLE_COUNT, String.valueOf(res.getSampleCount()));
-            writer.addAttribute(ATT_ERROR_COUNT, String.valueOf(res.getErrorCount()));
+            writer.accept(ATT_SAMPLE_COUNT, String.valueOf(res.getSampleCount()));
+            writer.accept(ATT_ERROR_COUNT, String.valueOf(res.getErrorCount()));
         }
         if (save.saveThreadCounts()){
-           writer.addAttribute(ATT_GRP_THRDS, String.valueOf(res.getGroupThreads()));
-           writer.addAttribute(ATT_ALL_THRDS, String.valueOf(res.getAllThreads()));
+           writer.accept(ATT_GRP_THRDS, String.valueOf(res.getGroupThreads()));
+           writer.accept(ATT_ALL_THRDS, String.valueOf(res.getAllThreads()));
         }
-        SampleEvent event = (SampleEvent) context.get(SaveService.SAMPLE_EVENT_OBJECT);
         if (event != null) {
             if (save.saveHostname()){
-                writer.addAttribute(ATT_HOSTNAME, event.getHostname());
+                writer.accept(ATT_HOSTNAME, event.getHostname());
             }
             for (int i = 0; i < SampleEvent.getVarCount(); i++){
-               writer.addAttribute(SampleEvent.getVarName(i), ConversionHelp.encode(event.getVarValue(i)));
+               writer.accept(SampleEvent.getVarName(i), ConversionHelp.encode(event.getVarValue(i)));
             }
         }
     }
@@ -362,6 +502,26 @@ public class SampleResultConverter extends AbstractCollectionConverter {
         }
     }
 
+    /**
+     * Write a tag with a content of <code>value</code> to the
+     * <code>writer</code>, as done by {@link #writeString(HierarchicalStreamWriter, String, String)}
+     *
+     * @param writer
+     *            writer to write the tag into
+     * @param tag
+     *            name of the tag to use
+     * @param value
+     *            content for tag
+     */
+    protected void writeString(XmlResultWriter writer, String tag, String value) {
+        if (value != null) {
+            writer.startNode(tag);
+            writer.addAttribute(ATT_CLASS, JAVA_LANG_STRING);
+            writer.setValue(value);
+            writer.endNode();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
@@ -373,14 +533,33 @@ public class SampleResultConverter extends AbstractCollectionConverter {
             retrieveItem(reader, context, res, subItem);
             reader.moveUp();
         }
+        readResponseFile(res);
+        return res;
+    }
 
+    /**
+     * Read the response data from the response file of the sample result, if it has one but no data
+     *
+     * @param res sample result read from a result file
+     */
+    public void readResponseFile(SampleResult res) {
         // If we have a file, but no data, then read the file
         String resultFileName = res.getResultFileName();
         if (resultFileName.length()>0
         &&  res.getResponseData().length == 0) {
             readFile(resultFileName,res);
         }
-        return res;
+    }
+
+    /**
+     * Set the URL of a sample result read by {@link org.apache.jmeter.save.XmlResultReader}.
+     * The URL of a sample result is not restored, subclasses may restore it.
+     *
+     * @param res sample result into which the URL should be retrieved
+     * @param url the URL read, null if it is invalid
+     */
+    public void readUrl(SampleResult res, URL url) {
+        // Don't try restoring the URL TODO: why not?
     }
 
     /**
@@ -393,17 +572,33 @@ public class SampleResultConverter extends AbstractCollectionConverter {
      */
     protected boolean retrieveItem(HierarchicalStreamReader reader, UnmarshallingContext context, SampleResult res,
             Object subItem) {
-        String nodeName = reader.getNodeName();
         if (subItem instanceof AssertionResult) {
             res.addAssertionResult((AssertionResult) subItem);
         } else if (subItem instanceof SampleResult) {
             res.storeSubResult((SampleResult) subItem);
-        } else if (nodeName.equals(TAG_RESPONSE_HEADER)) {
-            res.setResponseHeaders((String) subItem);
+        } else if (subItem instanceof String) {
+            return readElement(res, reader.getNodeName(), (String) subItem);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Set a field of a sample result from the text of one of its child elements
+     *
+     * @param res sample result into which the information should be retrieved
+     * @param nodeName the name of the child element
+     * @param value the text of the child element
+     * @return <code>true</code> if the element was processed
+     */
+    public boolean readElement(SampleResult res, String nodeName, String value) {
+        if (nodeName.equals(TAG_RESPONSE_HEADER)) {
+            res.setResponseHeaders(value);
         } else if (nodeName.equals(TAG_REQUEST_HEADER)) {
-            res.setRequestHeaders((String) subItem);
+            res.setRequestHeaders(value);
         } else if (nodeName.equals(TAG_RESPONSE_DATA)) {
-            final String responseData = (String) subItem;
+            final String responseData = value;
             if (responseData.length() > 0) {
                 final String dataEncoding = res.getDataEncodingWithDefault();
                 try {
@@ -414,9 +609,9 @@ public class SampleResultConverter extends AbstractCollectionConverter {
                 }
             }
         } else if (nodeName.equals(TAG_SAMPLER_DATA)) {
-            res.setSamplerData((String) subItem);
+            res.setSamplerData(value);
         } else if (nodeName.equals(TAG_RESPONSE_FILE)) {
-            res.setResultFileName((String) subItem);
+            res.setResultFileName(value);
         // Don't try restoring the URL TODO: why not?
         } else {
             return false;
@@ -430,29 +625,40 @@ public class SampleResultConverter extends AbstractCollectionConverter {
      * @param res sample result on which the attributes should be set
      */
     protected void retrieveAttributes(HierarchicalStreamReader reader, UnmarshallingContext context, SampleResult res) {
-        res.setSampleLabel(ConversionHelp.decode(reader.getAttribute(ATT_LABEL)));
-        res.setDataEncoding(ConversionHelp.decode(reader.getAttribute(ATT_DATA_ENCODING)));
-        res.setDataType(ConversionHelp.decode(reader.getAttribute(ATT_DATA_TYPE)));
-        String oldrc=reader.getAttribute(ATT_RESPONSE_CODE_OLD);
+        readAttributes(reader::getAttribute, res);
+    }
+
+    /**
+     * Set the fields of a sample result from the attributes of its element
+     *
+     * @param reader gives the value of an attribute from its name, null if the element does not have it
+     * @param res sample result on which the attributes should be set
+     */
+    public void readAttributes(Function<String, String> reader, SampleResult res) {
+        res.setSampleLabel(ConversionHelp.decode(reader.apply(ATT_LABEL)));
+        res.setDataEncoding(ConversionHelp.decode(reader.apply(ATT_DATA_ENCODING)));
+        res.setDataType(ConversionHelp.decode(reader.apply(ATT_DATA_TYPE)));
+        String oldrc=reader.apply(ATT_RESPONSE_CODE_OLD);
         if (oldrc!=null) {
             res.setResponseCode(ConversionHelp.decode(oldrc));
         } else {
-            res.setResponseCode(ConversionHelp.decode(reader.getAttribute(ATT_RESPONSE_CODE)));
-        }
-        res.setResponseMessage(ConversionHelp.decode(reader.getAttribute(ATT_RESPONSE_MESSAGE)));
-        res.setSuccessful(Converter.getBoolean(reader.getAttribute(ATT_SUCCESS), true));
-        res.setThreadName(ConversionHelp.decode(reader.getAttribute(ATT_THREADNAME)));
-        res.setStampAndTime(Converter.getLong(reader.getAttribute(ATT_TIME_STAMP)),
-                Converter.getLong(reader.getAttribute(ATT_TIME)));
-        res.setIdleTime(Converter.getLong(reader.getAttribute(ATT_IDLETIME)));
-        res.setLatency(Converter.getLong(reader.getAttribute(ATT_LATENCY)));
-        res.setConnectTime(Converter.getLong(reader.getAttribute(ATT_CONNECT_TIME)));
-        res.setBytes(Converter.getLong(reader.getAttribute(ATT_BYTES)));
-        res.setSentBytes(Converter.getLong(reader.getAttribute(ATT_SENT_BYTES)));
-        res.setSampleCount(Converter.getInt(reader.getAttribute(ATT_SAMPLE_COUNT),1)); // default is 1
-        res.setErrorCount(Converter.getInt(reader.getAttribute(ATT_ERROR_COUNT),0)); // default is 0
-        res.setGroupThreads(Converter.getInt(reader.getAttribute(ATT_GRP_THRDS)));
-        res.setAllThreads(Converter.getInt(reader.getAttribute(ATT_ALL_THRDS)));
+            res.setResponseCode(ConversionHelp.decode(reader.apply(ATT_RESPONSE_CODE)));
+        }
+        res.setResponseMessage(ConversionHelp.decode(reader.apply(ATT_RESPONSE_MESSAGE)));
+        res.setSuccessful(Converter.getBoolean(reader.apply(ATT_SUCCESS), true));
+        res.setThreadName(ConversionHelp.decode(reader.apply(ATT_THREADNAME)));
+        res.setStampAndTime(Converter.getLong(reader.apply(ATT_TIME_STAMP)),
+                Converter.getLong(reader.apply(ATT_TIME)));
+        res.setIdleTime(Converter.getLong(reader.apply(ATT_IDLETIME)));
+        res.setLatency(Converter.getLong(reader.apply(ATT_LATENCY)));
+        res.setConnectTime(Converter.getLong(reader.apply(ATT_CONNECT_TIME)));
+        res.setCorrectedTime(Converter.getLong(reader.apply(ATT_CORRECTED_TIME)));
+        res.setBytes(Converter.getLong(reader.apply(ATT_BYTES)));
+        res.setSentBytes(Converter.getLong(reader.apply(ATT_SENT_BYTES)));
+        res.setSampleCount(Converter.getInt(reader.apply(ATT_SAMPLE_COUNT),1)); // default is 1
+        res.setErrorCount(Converter.getInt(reader.apply(ATT_ERROR_COUNT),0)); // default is 0
+        res.setGroupThreads(Converter.getInt(reader.apply(ATT_GRP_THRDS)));
+        res.setAllThreads(Converter.getInt(reader.apply(ATT_ALL_THRDS)));
     }
 
     protected void readFile(String resultFileName, SampleResult res) {
@@ -63,6 +63,7 @@ public class SampleSaveConfigurationConverter  extends ReflectionConverter {
     private static final String NODE_SAMPLE_COUNT = "sampleCount"; // $NON-NLS-1$
     private static final String NODE_IDLE_TIME = "idleTime"; // $NON-NLS-1$
     private static final String NODE_CONNECT_TIME = "connectTime"; // $NON-NLS-1$
+    private static final String NODE_CORRECTED_TIME = "correctedTime"; // $NON-NLS-1$
 
     // Additional member names which are currently not written out
     private static final String NODE_DELIMITER = "delimiter"; // $NON-NLS-1$
@@ -95,6 +96,7 @@ public class SampleSaveConfigurationConverter  extends ReflectionConverter {
                 case NODE_SAMPLE_COUNT:
                 case NODE_IDLE_TIME:
                 case NODE_CONNECT_TIME:
+                case NODE_CORRECTED_TIME:
                 // The two fields below are not currently saved or restored
                 case NODE_DELIMITER:
                 case NODE_PRINTMS:
@@ -143,6 +145,7 @@ public class SampleSaveConfigurationConverter  extends ReflectionConverter {
         createNode(writer,prop.saveSampleCount(),NODE_SAMPLE_COUNT);
         createNode(writer,prop.saveIdleTime(),NODE_IDLE_TIME);
         createNode(writer, prop.saveConnectTime(), NODE_CONNECT_TIME);
+        createNode(writer, prop.saveCorrectedTime(), NODE_CORRECTED_TIME);
     }
 
     // Helper method to simplify marshall routine. Save if and only if true.
@@ -20,17 +20,18 @@ package org.apache.jmeter.testelement;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.jmeter.gui.Searchable;
+import org.apache.jmeter.testelement.property.AbstractProperty;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.testelement.property.CollectionProperty;
+import org.apache.jmeter.testelement.property.DoubleProperty;
+import org.apache.jmeter.testelement.property.FloatProperty;
 import org.apache.jmeter.testelement.property.IntegerProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.LongProperty;
@@ -38,7 +39,6 @@ import org.apache.jmeter.testelement.property.MapProperty;
 import org.apache.jmeter.testelement.property.MultiProperty;
 import org.apache.jmeter.testelement.property.NullProperty;
 import org.apache.jmeter.testelement.property.PropertyIterator;
-import org.apache.jmeter.testelement.property.PropertyIteratorImpl;
 import org.apache.jmeter.testelement.property.StringProperty;
 import org.apache.jmeter.testelement.property.TestElementProperty;
 import org.apache.jmeter.threads.JMeterContext;
@@ -53,8 +53,17 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
     private static final Logger log = LoggerFactory.getLogger(AbstractTestElement.class);
 
-    private final Map<String, JMeterProperty> propMap =
-        Collections.synchronizedMap(new LinkedHashMap<String, JMeterProperty>());
+    /**
+     * Property types holding a single immutable value, that can be shared between clones.
+     * Exact classes are used as subclasses may hold per-thread state (e.g. FunctionProperty)
+     */
+    private static final Set<Class<?>> SHAREABLE_PROPERTY_CLASSES = Collections.unmodifiableSet(
+            new LinkedHashSet<>(Arrays.asList(
+                    StringProperty.class, BooleanProperty.class, IntegerProperty.class,
+                    LongProperty.class, FloatProperty.class, DoubleProperty.class)));
+
+    /** Not synchronized, an element is confined to one thread once cloned for it */
+    private final PropertyStore propMap = new PropertyStore();
 
     /**
      * Holds properties added when isRunningVersion is true
@@ -75,7 +84,8 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
             PropertyIterator iter = propertyIterator();
             while (iter.hasNext()) {
-                clonedElement.setProperty(iter.next().clone());
+                JMeterProperty property = iter.next();
+                clonedElement.setProperty(isShared(property) ? property : property.clone());
             }
             clonedElement.setRunningVersion(runningVersion);
             return clonedElement;
@@ -116,7 +126,7 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
     @Override
     public boolean equals(Object o) {
         if (o instanceof AbstractTestElement) {
-            return ((AbstractTestElement) o).propMap.equals(propMap);
+            return ((AbstractTestElement) o).propMap.sameProperties(propMap);
         } else {
             return false;
         }
@@ -348,10 +358,11 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
     @Override
     public void setProperty(JMeterProperty property) {
         if (isRunningVersion()) {
-            if (getProperty(property.getName()) instanceof NullProperty) {
+            JMeterProperty prop = getProperty(property.getName());
+            if (prop instanceof NullProperty) {
                 addProperty(property);
             } else {
-                getProperty(property.getName()).setObjectValue(property.getObjectValue());
+                unshare(prop).setObjectValue(property.getObjectValue());
             }
         } else {
             propMap.put(property.getName(), property);
@@ -460,7 +471,7 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
     @Override
     public PropertyIterator propertyIterator() {
-        return new PropertyIteratorImpl(propMap.values());
+        return propMap.iterator();
     }
 
     /**
@@ -494,23 +505,80 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
         this.runningVersion = runningVersion;
         PropertyIterator iter = propertyIterator();
         while (iter.hasNext()) {
-            iter.next().setRunningVersion(runningVersion);
+            // replacing a shared property by its copy does not change the map structure
+            JMeterProperty prop = iter.next();
+            if (isShared(prop) && prop.isRunningVersion() == runningVersion) {
+                continue; // nothing to change, keep sharing it
+            }
+            unshare(prop).setRunningVersion(runningVersion);
+        }
+    }
+
+    /**
+     * Mark the properties holding an immutable value (not functions nor variables references)
+     * of this element and of its nested test elements as shared.
+     * <p>
+     * Clones created afterwards by {@link #clone()} reference these properties instead of copying them;
+     * a clone only copies a shared property when it needs to modify it.
+     * The element must not be modified by other means than its setters afterwards,
+     * this is intended for the elements of a test plan template used to create
+     * the per-thread copies of a Thread Group tree.
+     * @since 5.2
+     */
+    public void shareImmutableProperties() {
+        PropertyIterator iter = propertyIterator();
+        while (iter.hasNext()) {
+            shareImmutableProperty(iter.next());
+        }
+    }
+
+    private static void shareImmutableProperty(JMeterProperty prop) {
+        if (SHAREABLE_PROPERTY_CLASSES.contains(prop.getClass())) {
+            ((AbstractProperty) prop).setShared(true);
+        } else if (prop instanceof TestElementProperty) {
+            Object element = prop.getObjectValue();
+            if (element instanceof AbstractTestElement) {
+                ((AbstractTestElement) element).shareImmutableProperties();
+            }
+        } else if (prop instanceof MultiProperty) {
+            for (JMeterProperty child : (MultiProperty) prop) {
+                if (child instanceof TestElementProperty) {
+                    shareImmutableProperty(child);
+                }
+            }
         }
     }
 
+    private static boolean isShared(JMeterProperty prop) {
+        return prop instanceof AbstractProperty && ((AbstractProperty) prop).isShared();
+    }
+
+    /**
+     * Replace a shared property by a private copy before it gets modified
+     * @param prop property of this element
+     * @return prop if it was not shared, its private copy otherwise
+     */
+    private JMeterProperty unshare(JMeterProperty prop) {
+        if (!isShared(prop)) {
+            return prop;
+        }
+        JMeterProperty copy = prop.clone();
+        propMap.put(copy.getName(), copy);
+        return copy;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void recoverRunningVersion() {
-        Iterator<Map.Entry<String, JMeterProperty>>  iter = propMap.entrySet().iterator();
+        PropertyIterator iter = propMap.iterator();
         while (iter.hasNext()) {
-            Map.Entry<String, JMeterProperty> entry = iter.next();
-            JMeterProperty prop = entry.getValue();
+            JMeterProperty prop = iter.next();
             if (isTemporary(prop)) {
                 iter.remove();
                 clearTemporary(prop);
-            } else {
+            } else if (!isShared(prop)) { // shared properties are never modified
                 prop.recoverRunningVersion(this);
             }
         }
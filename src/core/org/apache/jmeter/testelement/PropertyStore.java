@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.testelement;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
+
+/**
+ * Compact, insertion ordered, store of the properties of an {@link AbstractTestElement}.
+ * <p>
+ * Test elements have few properties, so they are kept in an array that is scanned linearly,
+ * which is cheaper in memory and in lookup time than a hash map.
+ * Names are interned when a property is added, so lookups with a constant name,
+ * which is the usual case, match by reference.
+ * <p>
+ * Entries are immutable. Adding or removing a property publishes a new array holding exactly the
+ * entries, and replacing a property stores a new entry in the current array, so a thread reading
+ * an element shared with others (see {@link org.apache.jmeter.engine.util.NoThreadClone}) while it is
+ * modified sees either the state before or the state after the change. Changes are synchronized,
+ * reads are not.
+ * @since 5.2
+ */
+final class PropertyStore implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    /** Exactly the entries of the store, replaced when an entry is added or removed */
+    private volatile Entry[] entries = EMPTY;
+
+    private static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final int hash;
+        private final JMeterProperty property;
+
+        Entry(String name, int hash, JMeterProperty property) {
+            this.name = name;
+            this.hash = hash;
+            this.property = property;
+        }
+
+        boolean matches(String key, int keyHash) {
+            return hash == keyHash && (name == key || name.equals(key));
+        }
+    }
+
+    /**
+     * @param name name of the property
+     * @return the property, or null if there is none with this name
+     */
+    JMeterProperty get(String name) {
+        Entry[] table = entries;
+        int index = indexOf(table, name);
+        return index >= 0 ? table[index].property : null;
+    }
+
+    /**
+     * Add a property, or replace the property with the same name, keeping its position
+     * @param name name of the property
+     * @param property property to store
+     */
+    synchronized void put(String name, JMeterProperty property) {
+        Entry[] table = entries;
+        int index = indexOf(table, name);
+        if (index >= 0) {
+            Entry previous = table[index];
+            table[index] = new Entry(previous.name, previous.hash, property);
+            return;
+        }
+        Entry[] copy = Arrays.copyOf(table, table.length + 1);
+        String internedName = name.intern();
+        copy[table.length] = new Entry(internedName, internedName.hashCode(), property);
+        entries = copy;
+    }
+
+    /**
+     * @param name name of the property to remove
+     */
+    synchronized void remove(String name) {
+        Entry[] table = entries;
+        int index = indexOf(table, name);
+        if (index >= 0) {
+            Entry[] copy = new Entry[table.length - 1];
+            System.arraycopy(table, 0, copy, 0, index);
+            System.arraycopy(table, index + 1, copy, index, table.length - index - 1);
+            entries = copy;
+        }
+    }
+
+    private static int indexOf(Entry[] table, String name) {
+        int hash = name.hashCode();
+        for (int i = 0; i < table.length; i++) {
+            if (table[i].matches(name, hash)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    synchronized void clear() {
+        entries = EMPTY;
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    /**
+     * @return an iterator over the properties in insertion order, as they were when it was created,
+     *         that supports removal
+     */
+    PropertyIterator iterator() {
+        return new StoreIterator(entries);
+    }
+
+    /**
+     * Same semantic as {@link java.util.Map#equals(Object)}: order is not significant
+     * @param other store to compare to
+     * @return true if both stores hold equal properties under the same names
+     */
+    boolean sameProperties(PropertyStore other) {
+        if (other == this) {
+            return true;
+        }
+        Entry[] table = entries;
+        if (other.size() != table.length) {
+            return false;
+        }
+        for (Entry entry : table) {
+            JMeterProperty otherProperty = other.get(entry.name);
+            if (otherProperty == null || !otherProperty.equals(entry.property)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class StoreIterator implements PropertyIterator {
+        private final Entry[] table;
+        private int next;
+        private int last = -1;
+
+        StoreIterator(Entry[] table) {
+            this.table = table;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < table.length;
+        }
+
+        @Override
+        public JMeterProperty next() {
+            if (next >= table.length) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return table[last].property;
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            PropertyStore.this.remove(table[last].name);
+            last = -1;
+        }
+    }
+}
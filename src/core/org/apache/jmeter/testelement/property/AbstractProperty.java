@@ -35,6 +35,12 @@ public abstract class AbstractProperty implements JMeterProperty {
 
     private transient boolean runningVersion = false;
 
+    /**
+     * Set on the properties of a test plan template that are referenced, instead
+     * of being copied, by the per-thread clones of their owning element
+     */
+    private transient boolean shared = false;
+
     public AbstractProperty(String name) {
         if (name == null) {
             throw new IllegalArgumentException("Name cannot be null");
@@ -77,6 +83,27 @@ public abstract class AbstractProperty implements JMeterProperty {
         this.runningVersion = runningVersion;
     }
 
+    /**
+     * A shared property is referenced by several test elements (usually the
+     * per-thread clones of a test plan element) and must not be modified:
+     * owners have to replace it by a private copy before changing it.
+     *
+     * @return true if this property is shared between several test elements
+     * @since 5.2
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * @param shared whether this property is shared between several test elements
+     * @see #isShared()
+     * @since 5.2
+     */
+    public void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
     protected PropertyIterator getIterator(Collection<JMeterProperty> values) {
         return new PropertyIteratorImpl(values);
     }
@@ -88,6 +115,7 @@ public abstract class AbstractProperty implements JMeterProperty {
             AbstractProperty prop = (AbstractProperty) super.clone();
             prop.name = name;
             prop.runningVersion = runningVersion;
+            prop.shared = false; // a copy belongs to its owner only
             return prop;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError(e); // clone should never return null
@@ -42,6 +42,12 @@ public final class JMeterContextService {
     //@GuardedBy(JMeterContextService.class)
     private static int totalThreads = 0;
 
+    //@GuardedBy(JMeterContextService.class)
+    private static int targetThreads = 0;
+
+    //@GuardedBy(JMeterContextService.class)
+    private static long missedArrivals = 0;
+
     private static UnmodifiableJMeterVariables variables;
 
 
@@ -86,9 +92,11 @@ public final class JMeterContextService {
      * Method is called by the JMeterEngine class when a test run is started.
      * Zeroes numberOfActiveThreads.
      * Saves current time in a field and in the JMeter property "TESTSTART.MS"
+     * and clears the variable names indexed by the previous test plans.
      */
     public static synchronized void startTest() {
         if (testStart == 0) {
+            VariableSlots.reset();
             numberOfActiveThreads = 0;
             testStart = System.currentTimeMillis();
             JMeterUtils.setProperty("TESTSTART.MS",Long.toString(testStart));// $NON-NLS-1$
@@ -121,7 +129,8 @@ public final class JMeterContextService {
 
     // return all the associated counts together
     public static synchronized ThreadCounts getThreadCounts() {
-        return new ThreadCounts(numberOfActiveThreads, numberOfThreadsStarted, numberOfThreadsFinished);
+        return new ThreadCounts(numberOfActiveThreads, numberOfThreadsStarted, numberOfThreadsFinished, targetThreads,
+                missedArrivals);
     }
 
     /**
@@ -154,10 +163,48 @@ public final class JMeterContextService {
     }
 
     /**
-     * Set total threads to zero; also clears started and finished counts
+     * Get the number of threads the thread groups currently aim at,
+     * which follows the load profile of staged thread groups
+     * @return target thread count
+     * @since 5.2
+     */
+    public static synchronized int getTargetThreads() {
+        return targetThreads;
+    }
+
+    /**
+     * Update the number of threads the thread groups aim at
+     * @param delta change of the target of a thread group
+     */
+    static synchronized void addTargetThreads(int delta) {
+        targetThreads += delta;
+    }
+
+    /**
+     * Get the number of iterations that open model thread groups could not start,
+     * because their maximum concurrency was reached
+     * @return missed arrivals count
+     * @since 5.2
+     */
+    public static synchronized long getMissedArrivals() {
+        return missedArrivals;
+    }
+
+    /**
+     * Increment the number of missed arrivals
+     * @since 5.2
+     */
+    public static synchronized void incrMissedArrivals() {
+        missedArrivals++;
+    }
+
+    /**
+     * Set total threads to zero; also clears started, finished, target and missed arrivals counts
      */
     public static synchronized void clearTotalThreads() {
         totalThreads = 0;
+        targetThreads = 0;
+        missedArrivals = 0;
         numberOfThreadsStarted = 0;
         numberOfThreadsFinished = 0;
     }
@@ -180,10 +227,18 @@ public final class JMeterContextService {
 
         public final int finishedThreads;
 
-        ThreadCounts(int active, int started, int finished) {
+        /** @since 5.2 */
+        public final int targetThreads;
+
+        /** @since 5.2 */
+        public final long missedArrivals;
+
+        ThreadCounts(int active, int started, int finished, int target, long missed) {
             activeThreads = active;
             startedThreads = started;
             finishedThreads = finished;
+            targetThreads = target;
+            missedArrivals = missed;
         }
     }
 
@@ -88,6 +88,10 @@ public class JMeterThread implements Runnable, Interruptible {
 
     private static final boolean APPLY_TIMER_FACTOR = Float.compare(TIMER_FACTOR,ONE_AS_FLOAT) != 0;
 
+    /** Record the intended start time published by pacing timers in the sample results */
+    private static final boolean CORRECT_COORDINATED_OMISSION =
+            JMeterUtils.getPropDefault("timer.correct_coordinated_omission", false); // $NON-NLS-1$
+
     private final Controller threadGroupLoopController;
 
     private final HashTree testTree;
@@ -539,7 +543,7 @@ public class JMeterThread implements Runnable, Interruptible {
         // Hack: save the package for any transaction controllers
         threadVars.putObject(PACKAGE_OBJECT, pack);
 
-        delay(pack.getTimers());
+        long intendedStartTime = delay(pack.getTimers());
         SampleResult result = null;
         if (running) {
             Sampler sampler = pack.getSampler();
@@ -547,6 +551,9 @@ public class JMeterThread implements Runnable, Interruptible {
         }
         // If we got any results, then perform processing on the result
         if (result != null && !result.isIgnore()) {
+            if (intendedStartTime > 0) {
+                result.setIntendedStartTime(intendedStartTime);
+            }
             int nbActiveThreadsInThreadGroup = threadGroup.getNumberOfThreads();
             int nbTotalActiveThreads = JMeterContextService.getNumberOfThreads();
             result.setGroupThreads(nbActiveThreadsInThreadGroup);
@@ -566,7 +573,9 @@ public class JMeterThread implements Runnable, Interruptible {
             if (!result.isIgnore()) {
                 // Do not send subsamples to listeners which receive the transaction sample
                 List<SampleListener> sampleListeners = getSampleListeners(pack, transactionPack, transactionSampler);
-                notifyListeners(sampleListeners, result);
+                // The result is changed below when added to the transaction, listener threads get a copy
+                notifyListeners(sampleListeners,
+                        transactionSampler != null && notifier.isAsynchronous() ? new SampleResult(result) : result);
             }
             compiler.done(pack);
             // Add the result as subsample of transaction if we are in a transaction
@@ -936,11 +945,26 @@ public class JMeterThread implements Runnable, Interruptible {
         }
     }
 
-    private void delay(List<Timer> timers) {
+    /**
+     * Sleep for the total delay of the timers
+     * @param timers the timers of the sample
+     * @return the start time intended by the pacing timers, followed by the delays of the other timers,
+     *         if coordinated omission is corrected, 0 otherwise
+     */
+    private long delay(List<Timer> timers) {
         long totalDelay = 0;
+        // Earliest start time intended by a pacing timer, without its own delay
+        long pacedTime = 0;
+        boolean paced = false;
+        Timer longestTimer = null;
+        long longestDelay = 0;
         for (Timer timer : timers) {
             TestBeanHelper.prepare((TestElement) timer);
             long delay = timer.delay();
+            if (delay > longestDelay) {
+                longestDelay = delay;
+                longestTimer = timer;
+            }
             if (APPLY_TIMER_FACTOR && timer.isModifiable()) {
                 if (log.isDebugEnabled()) {
                     log.debug("Applying TIMER_FACTOR:{} on timer:{} for thread:{}", TIMER_FACTOR,
@@ -948,8 +972,17 @@ public class JMeterThread implements Runnable, Interruptible {
                 }
                 delay = Math.round(delay * TIMER_FACTOR);
             }
+            if (CORRECT_COORDINATED_OMISSION) {
+                long timerStartTime = timer.getIntendedStartTime();
+                if (timerStartTime > 0 && (!paced || timerStartTime - delay < pacedTime)) {
+                    pacedTime = timerStartTime - delay;
+                    paced = true;
+                }
+            }
             totalDelay += delay;
         }
+        // The delays of the other timers of the sample (think times...) are intended too
+        long intendedStartTime = paced ? pacedTime + totalDelay : 0;
         if (totalDelay > 0) {
             try {
                 if (scheduler) {
@@ -957,12 +990,15 @@ public class JMeterThread implements Runnable, Interruptible {
                     // See Bug 60049
                     totalDelay = TIMER_SERVICE.adjustDelay(totalDelay, endTime);
                 }
-                TimeUnit.MILLISECONDS.sleep(totalDelay);
+                // The drift is accounted to the timer that requested the longest pause
+                TIMER_SERVICE.pause(totalDelay, TIMER_SERVICE.isMeasuringDrift() && longestTimer != null
+                        ? longestTimer.getClass().getSimpleName() : null);
             } catch (InterruptedException e) {
                 log.warn("The delay timer was interrupted - probably did not wait as long as intended.");
                 Thread.currentThread().interrupt();
             }
         }
+        return intendedStartTime;
     }
 
     void notifyTestListeners() {
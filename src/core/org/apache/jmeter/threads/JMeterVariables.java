@@ -18,6 +18,7 @@
 
 package org.apache.jmeter.threads;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -30,10 +31,38 @@ import org.apache.jmeter.util.JMeterUtils;
 /**
  * Class which defines JMeter variables.
  * These are similar to properties, but they are local to a single thread.
+ * <p>
+ * Variables whose name is referenced by the test plan are stored in slots indexed by
+ * {@link #slotOf(String)}, the other ones in a map. Values set by {@link #putLong(String, long)}
+ * are kept as primitives and only converted to a String when read as a String.
  */
 public class JMeterVariables {
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private static final String[] EMPTY_NAMES = new String[0];
+
+    /** Stored in a slot for a variable explicitly set to null */
+    private static final Object NULL_VALUE = new Object();
+
     private final Map<String, Object> variables = new HashMap<>();
 
+    /** Value by slot, null if the slot is not set or holds a long whose String has not been computed yet */
+    private Object[] slotValues = EMPTY_VALUES;
+
+    /** Primitive value by slot, only valid if the same index of {@link #slotIsLong} is true */
+    private long[] slotLongs = new long[0];
+
+    private boolean[] slotIsLong = new boolean[0];
+
+    /** Number of registered slots taken into account by this instance */
+    private int knownSlots;
+
+    /** Names of the slots taken into account by this instance */
+    private String[] slotNames = EMPTY_NAMES;
+
+    /** Generation of the registered slots used by this instance */
+    private int slotGeneration = VariableSlots.generation();
+
     private int iteration = 0;
 
     // Property names to preload into JMeter variables:
@@ -55,11 +84,35 @@ public class JMeterVariables {
         for (String property : PRE_LOAD) {
             String value = JMeterUtils.getProperty(property);
             if (value != null) {
-                variables.put(property, value);
+                storeObject(property, value);
             }
         }
     }
 
+    /**
+     * Get the slot used to store a variable, registering the name if needed.
+     * Intended to be called when compiling the test plan,
+     * the returned slot can then be used with {@link #get(int)}.
+     *
+     * @param name the variable name
+     * @return the slot of the variable, or -1 if too many names are already registered
+     * @since 5.2
+     */
+    public static int slotOf(String name) {
+        return VariableSlots.register(name);
+    }
+
+    /**
+     * Slots are registered again for each test, as the names are cleared when a test starts.
+     * A slot returned by {@link #slotOf(String)} is only valid as long as this generation is the same.
+     *
+     * @return the generation of the slots
+     * @since 5.2
+     */
+    public static int slotGeneration() {
+        return VariableSlots.generation();
+    }
+
     /**
      * @return the name of the currently running thread 
      */
@@ -89,7 +142,14 @@ public class JMeterVariables {
      * @return the variable value, or {@code null} if there was no such variable
      */
     public Object remove(String key) {
-        return variables.remove(key);
+        int slot = writeSlot(key);
+        if (slot < 0) {
+            return variables.remove(key);
+        }
+        Object previous = getSlotObject(slot);
+        slotValues[slot] = null;
+        slotIsLong[slot] = false;
+        return previous;
     }
 
     /**
@@ -99,7 +159,7 @@ public class JMeterVariables {
      * @param value the variable value
      */
     public void put(String key, String value) {
-        variables.put(key, value);
+        putObject(key, value);
     }
 
     /**
@@ -109,7 +169,54 @@ public class JMeterVariables {
      * @param value the variable value
      */
     public void putObject(String key, Object value) {
-        variables.put(key, value);
+        storeObject(key, value);
+    }
+
+    // Not overridable, as called by the constructor
+    private void storeObject(String key, Object value) {
+        int slot = writeSlot(key);
+        if (slot < 0) {
+            variables.put(key, value);
+        } else {
+            slotValues[slot] = value == null ? NULL_VALUE : value;
+            slotIsLong[slot] = false;
+        }
+    }
+
+    /**
+     * Creates or updates a variable with a long value.
+     * The value is seen as a String by {@link #get(String)} and {@link #getObject(String)},
+     * but it is only converted when read that way.
+     *
+     * @param key the variable name
+     * @param value the variable value
+     * @since 5.2
+     */
+    public void putLong(String key, long value) {
+        VariableSlots.register(key);
+        storeLong(key, value);
+    }
+
+    private void storeLong(String key, long value) {
+        int slot = writeSlot(key);
+        if (slot < 0) {
+            variables.put(key, Long.toString(value));
+            return;
+        }
+        slotValues[slot] = null;
+        slotLongs[slot] = value;
+        slotIsLong[slot] = true;
+    }
+
+    /**
+     * Creates or updates a variable with an int value, see {@link #putLong(String, long)}
+     *
+     * @param key the variable name
+     * @param value the variable value
+     * @since 5.2
+     */
+    public void putInt(String key, int value) {
+        putLong(key, value);
     }
 
     /**
@@ -117,7 +224,9 @@ public class JMeterVariables {
      * @param vars map with the entries to be updated
      */
     public void putAll(Map<String, ?> vars) {
-        variables.putAll(vars);
+        for (Map.Entry<String, ?> entry : vars.entrySet()) {
+            putObject(entry.getKey(), entry.getValue());
+        }
     }
 
     /**
@@ -125,7 +234,16 @@ public class JMeterVariables {
      * @param vars {@link JMeterVariables} with the entries to be updated
      */
     public void putAll(JMeterVariables vars) {
+        // vars may be shared with other threads, so its slots are read by their names without being moved
         putAll(vars.variables);
+        String[] names = vars.slotNames;
+        for (int i = 0; i < vars.knownSlots; i++) {
+            if (vars.slotIsLong[i]) {
+                storeLong(names[i], vars.slotLongs[i]);
+            } else if (vars.slotValues[i] != null) {
+                storeObject(names[i], vars.getSlotObject(i));
+            }
+        }
     }
 
     /**
@@ -135,7 +253,27 @@ public class JMeterVariables {
      * @return the value of the variable or a toString called on it if it's non String, or {@code null} if it does not exist
      */
     public String get(String key) {
-        Object o = variables.get(key);
+        return toStringValue(getObject(key));
+    }
+
+    /**
+     * Gets the value of a variable from its slot, converted to a String.
+     * This is equivalent to, and cheaper than, {@link #get(String)} with the name of the slot.
+     *
+     * @param slot slot returned by {@link #slotOf(String)}
+     * @return the value of the variable or a toString called on it if it's non String, or {@code null} if it does not exist
+     * @since 5.2
+     */
+    public String get(int slot) {
+        if (slot >= 0 && slot < knownSlots && slotGeneration == VariableSlots.generation()) {
+            return toStringValue(getSlotObject(slot));
+        }
+        // Registered since the variables were last changed, so the value is still in the map
+        String[] names = VariableSlots.names();
+        return slot >= 0 && slot < names.length ? get(names[slot]) : null;
+    }
+
+    private static String toStringValue(Object o) {
         if(o instanceof String) {
             return (String) o;
         } else if (o != null) {
@@ -152,7 +290,46 @@ public class JMeterVariables {
      * @return the value of the variable, or {@code null} if it does not exist
      */
     public Object getObject(String key) {
-        return variables.get(key);
+        int slot = readSlot(key);
+        if (slot < 0) {
+            return variables.get(key);
+        }
+        return getSlotObject(slot);
+    }
+
+    /**
+     * Gets the value of a variable as a long, without conversion if it was set by {@link #putLong(String, long)}.
+     *
+     * @param key the name of the variable
+     * @param defaultValue value returned if the variable does not exist
+     * @return the value of the variable, or {@code defaultValue} if it does not exist
+     * @throws NumberFormatException if the value is not a long
+     * @since 5.2
+     */
+    public long getLong(String key, long defaultValue) {
+        int slot = readSlot(key);
+        if (slot >= 0 && slotIsLong[slot]) {
+            return slotLongs[slot];
+        }
+        String value = get(key);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * Gets the value of a variable as an int, see {@link #getLong(String, long)}
+     *
+     * @param key the name of the variable
+     * @param defaultValue value returned if the variable does not exist
+     * @return the value of the variable, or {@code defaultValue} if it does not exist
+     * @throws NumberFormatException if the value is not an int
+     * @since 5.2
+     */
+    public int getInt(String key, int defaultValue) {
+        long value = getLong(key, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value of " + key + " is out of int range: " + value);
+        }
+        return (int) value;
     }
 
     /**
@@ -161,14 +338,120 @@ public class JMeterVariables {
      * @return the iterator
      */
     public Iterator<Entry<String, Object>> getIterator(){
-        return Collections.unmodifiableMap(variables).entrySet().iterator() ;
+        return entrySet().iterator();
     }
 
     // Used by DebugSampler
     /**
-     * @return an unmodifiable view of the entries contained in {@link JMeterVariables}
+     * @return an unmodifiable copy of the entries contained in {@link JMeterVariables}
      */
     public Set<Entry<String, Object>> entrySet(){
-        return Collections.unmodifiableMap(variables).entrySet();
+        if (knownSlots == 0) {
+            return Collections.unmodifiableMap(variables).entrySet();
+        }
+        String[] names = slotNames;
+        Map<String, Object> all = new HashMap<>(variables);
+        for (int i = 0; i < knownSlots; i++) {
+            if (slotIsLong[i] || slotValues[i] != null) {
+                all.put(names[i], getSlotObject(i));
+            }
+        }
+        return Collections.unmodifiableMap(all).entrySet();
+    }
+
+    /**
+     * Find where a variable is read from, without changing this instance:
+     * variables shared with other threads, like the ones copied to each thread when it starts, are read concurrently.
+     * @param key variable name
+     * @return slot of the variable, usable with the slot arrays, or -1 if it is stored in the map
+     */
+    private int readSlot(String key) {
+        if (slotGeneration == VariableSlots.generation()) {
+            // Names registered after the last change of this instance still have their value in the map
+            int slot = VariableSlots.indexOf(key);
+            return slot < knownSlots ? slot : -1;
+        }
+        // The slots have been cleared, but the values of this instance have not been moved yet
+        String[] names = slotNames;
+        for (int i = 0; i < knownSlots; i++) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find where a variable is stored, moving the variables to the current slots if needed.
+     * Only called when changing the variables, by the thread owning them.
+     * @param key variable name
+     * @return slot of the variable, usable with the slot arrays, or -1 if it is stored in the map
+     */
+    private int writeSlot(String key) {
+        checkSlotGeneration();
+        int slot = VariableSlots.indexOf(key);
+        if (slot >= 0) {
+            ensureSlots(slot);
+        }
+        return slot;
+    }
+
+    private Object getSlotObject(int slot) {
+        Object value = slotValues[slot];
+        if (value == null) {
+            // Not cached, so that reading does not change this instance
+            return slotIsLong[slot] ? Long.toString(slotLongs[slot]) : null;
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    /**
+     * Make sure the slot arrays cover {@code slot}. Variables whose name has been registered
+     * since the last call are moved from the map to their slot. Only called when changing the variables.
+     * @param slot slot that will be accessed
+     */
+    private void ensureSlots(int slot) {
+        checkSlotGeneration();
+        if (slot < knownSlots) {
+            return;
+        }
+        String[] names = VariableSlots.names();
+        int count = names.length;
+        if (count > slotValues.length) {
+            int capacity = Math.max(count, slotValues.length + (slotValues.length >> 1));
+            slotValues = Arrays.copyOf(slotValues, capacity);
+            slotLongs = Arrays.copyOf(slotLongs, capacity);
+            slotIsLong = Arrays.copyOf(slotIsLong, capacity);
+        }
+        for (int i = knownSlots; i < count && !variables.isEmpty(); i++) {
+            if (variables.containsKey(names[i])) {
+                Object value = variables.remove(names[i]);
+                slotValues[i] = value == null ? NULL_VALUE : value;
+            }
+        }
+        knownSlots = count;
+        slotNames = names;
+    }
+
+    /**
+     * Move the variables stored in slots back to the map if the slots have been cleared
+     * since they were registered, so that they are moved to their new slots.
+     */
+    private void checkSlotGeneration() {
+        int generation = VariableSlots.generation();
+        if (generation == slotGeneration) {
+            return;
+        }
+        for (int i = 0; i < knownSlots; i++) {
+            if (slotIsLong[i] || slotValues[i] != null) {
+                variables.put(slotNames[i], getSlotObject(i));
+            }
+        }
+        slotValues = EMPTY_VALUES;
+        slotLongs = new long[0];
+        slotIsLong = new boolean[0];
+        knownSlots = 0;
+        slotNames = EMPTY_NAMES;
+        slotGeneration = generation;
     }
 }
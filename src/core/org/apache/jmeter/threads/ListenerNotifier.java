@@ -16,17 +16,6 @@
  *
  */
 
-/////////////////////////////////////////
-////////
-//////// This code is mostly unused at present
-//////// it seems that only notifyListeners()
-//////// is used.
-////////
-//////// However, it does look useful.
-//////// And it may one day be used...
-////////
-/////////////////////////////////////////
-
 package org.apache.jmeter.threads;
 
 import java.io.Serializable;
@@ -34,16 +23,22 @@ import java.util.List;
 
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.ThreadIndependentSampleListener;
 import org.apache.jmeter.testbeans.TestBeanHelper;
 import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Processes sample events. <br>
- * The current implementation processes events in the calling thread
- * using {@link #notifyListeners(SampleEvent, List)} <br>
- * Thread safe class 
+ * By default, events are processed in the calling thread
+ * using {@link #notifyListeners(SampleEvent, List)}. <br>
+ * When asynchronous dispatch is enabled, the {@link ThreadIndependentSampleListener}s
+ * that are {@link ThreadIndependentSampleListener#isThreadIndependent() thread independent}
+ * are notified by listener threads, in batches, while other listeners are still
+ * notified in the calling thread. <br>
+ * Thread safe class
  */
 public class ListenerNotifier implements Serializable {
     /**
@@ -52,6 +47,55 @@ public class ListenerNotifier implements Serializable {
     private static final long serialVersionUID = -4861457279068497917L;
     private static final Logger log = LoggerFactory.getLogger(ListenerNotifier.class);
 
+    /** Whether the engine dispatches sample events asynchronously */
+    private static final boolean ASYNC_DISPATCH =
+            JMeterUtils.getPropDefault("jmeterengine.listener.async", false); // $NON-NLS-1$
+
+    private static final int ASYNC_THREADS =
+            JMeterUtils.getPropDefault("jmeterengine.listener.async.threads", 2); // $NON-NLS-1$
+
+    private static final int ASYNC_BUFFER_SIZE =
+            JMeterUtils.getPropDefault("jmeterengine.listener.async.buffer_size", 1024); // $NON-NLS-1$
+
+    private static final boolean ASYNC_DROP_ON_OVERFLOW =
+            JMeterUtils.getPropDefault("jmeterengine.listener.async.drop_on_overflow", false); // $NON-NLS-1$
+
+    /** null when events are processed in the calling thread */
+    private final transient SampleEventDispatcher dispatcher;
+
+    /**
+     * Create a notifier processing events in the calling thread
+     */
+    public ListenerNotifier() {
+        this(false);
+    }
+
+    /**
+     * @param asynchronous true to notify {@link ThreadIndependentSampleListener}s from listener threads,
+     *            configured by the <code>jmeterengine.listener.async.*</code> properties
+     * @since 5.2
+     */
+    public ListenerNotifier(boolean asynchronous) {
+        dispatcher = asynchronous
+                ? new SampleEventDispatcher(ASYNC_THREADS, ASYNC_BUFFER_SIZE, ASYNC_DROP_ON_OVERFLOW)
+                : null;
+    }
+
+    /**
+     * @return the value of property <code>jmeterengine.listener.async</code>
+     * @since 5.2
+     */
+    public static boolean isAsynchronousByDefault() {
+        return ASYNC_DISPATCH;
+    }
+
+    /**
+     * @return true if some listeners are notified from listener threads
+     * @since 5.2
+     */
+    public boolean isAsynchronous() {
+        return dispatcher != null;
+    }
 
     /**
      * Notify a list of listeners that a sample has occurred.
@@ -64,15 +108,78 @@ public class ListenerNotifier implements Serializable {
      *            elements.
      */
     public void notifyListeners(SampleEvent res, List<SampleListener> listeners) {
+        if (dispatcher == null) {
+            for (SampleListener sampleListener : listeners) {
+                notifyListener(res, sampleListener);
+            }
+            return;
+        }
+        boolean dispatch = false;
         for (SampleListener sampleListener : listeners) {
-            try {
-                TestBeanHelper.prepare((TestElement) sampleListener);
-                sampleListener.sampleOccurred(res);
-            } catch (RuntimeException e) {
-                log.error("Detected problem in Listener.", e);
-                log.info("Continuing to process further listeners");
+            if (isNotifiedAsynchronously(sampleListener)) {
+                dispatch = true;
+            } else {
+                notifyListener(res, sampleListener);
             }
         }
+        if (dispatch && !dispatcher.dispatch(res, listeners)) {
+            // Dispatcher is closed
+            for (SampleListener sampleListener : listeners) {
+                if (isNotifiedAsynchronously(sampleListener)) {
+                    notifyListener(res, sampleListener);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param sampleListener the listener
+     * @return true if the listener is notified from listener threads when asynchronous dispatch is enabled
+     */
+    static boolean isNotifiedAsynchronously(SampleListener sampleListener) {
+        return sampleListener instanceof ThreadIndependentSampleListener
+                && ((ThreadIndependentSampleListener) sampleListener).isThreadIndependent();
     }
 
+    /**
+     * Notify one listener, logging its failures
+     * @param res the sample event
+     * @param sampleListener the listener
+     */
+    static void notifyListener(SampleEvent res, SampleListener sampleListener) {
+        try {
+            TestBeanHelper.prepare((TestElement) sampleListener);
+            sampleListener.sampleOccurred(res);
+        } catch (RuntimeException e) {
+            log.error("Detected problem in Listener.", e);
+            log.info("Continuing to process further listeners");
+        }
+    }
+
+    /**
+     * Wait for the events dispatched to listener threads to be processed, and stop these threads.
+     * Must be called once the sampling threads have ended; later events are processed in the calling thread.
+     * @since 5.2
+     */
+    public void close() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    /**
+     * @return number of events dropped because the buffer of their sampling thread was full
+     * @since 5.2
+     */
+    public long getDroppedCount() {
+        return dispatcher == null ? 0 : dispatcher.getDroppedCount();
+    }
+
+    /**
+     * @return number of events processed by listener threads
+     * @since 5.2
+     */
+    public long getDispatchedCount() {
+        return dispatcher == null ? 0 : dispatcher.getDispatchedCount();
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * One stage of a staged {@link ThreadGroup} load profile: move to a target number of threads
+ * over a ramp period, then hold that number for a hold period.
+ * <p>
+ * A profile is written as a list of <code>users,ramp,hold</code> triples separated by
+ * <code>;</code> or new lines, durations being in seconds, for instance <code>10,30,60;50,60,300</code>.
+ * @since 5.2
+ */
+public final class LoadStage {
+
+    private final int targetThreads;
+
+    private final long rampMillis;
+
+    private final long holdMillis;
+
+    /**
+     * @param targetThreads number of threads at the end of the ramp
+     * @param rampSeconds time to reach the target from the previous stage, in seconds
+     * @param holdSeconds time to keep the target, in seconds
+     */
+    public LoadStage(int targetThreads, long rampSeconds, long holdSeconds) {
+        if (targetThreads < 0 || rampSeconds < 0 || holdSeconds < 0) {
+            throw new IllegalArgumentException("Invalid stage " + targetThreads + "," + rampSeconds + "," + holdSeconds);
+        }
+        this.targetThreads = targetThreads;
+        this.rampMillis = rampSeconds * 1000;
+        this.holdMillis = holdSeconds * 1000;
+    }
+
+    /**
+     * Parse a load profile
+     * @param stages profile as <code>users,ramp,hold</code> triples separated by <code>;</code> or new lines
+     * @return the stages in order, empty if stages is blank
+     * @throws IllegalArgumentException if a stage is not made of three non negative integers
+     */
+    public static List<LoadStage> parse(String stages) {
+        if (StringUtils.isBlank(stages)) {
+            return Collections.emptyList();
+        }
+        List<LoadStage> result = new ArrayList<>();
+        for (String stage : stages.split("[;\\r\\n]+")) { // $NON-NLS-1$
+            if (StringUtils.isBlank(stage)) {
+                continue;
+            }
+            String[] values = stage.split(","); // $NON-NLS-1$
+            if (values.length != 3) {
+                throw new IllegalArgumentException("Stage '" + stage.trim() + "' should be users,ramp,hold");
+            }
+            try {
+                result.add(new LoadStage(
+                        Integer.parseInt(values[0].trim()),
+                        Long.parseLong(values[1].trim()),
+                        Long.parseLong(values[2].trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Stage '" + stage.trim() + "' should be users,ramp,hold", e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param stages the stages of a profile
+     * @return the largest target of the stages
+     */
+    public static int maxThreads(List<LoadStage> stages) {
+        int max = 0;
+        for (LoadStage stage : stages) {
+            max = Math.max(max, stage.getTargetThreads());
+        }
+        return max;
+    }
+
+    /**
+     * @return number of threads at the end of the ramp
+     */
+    public int getTargetThreads() {
+        return targetThreads;
+    }
+
+    /**
+     * @return ramp period in milliseconds
+     */
+    public long getRampMillis() {
+        return rampMillis;
+    }
+
+    /**
+     * @return hold period in milliseconds
+     */
+    public long getHoldMillis() {
+        return holdMillis;
+    }
+
+    @Override
+    public String toString() {
+        return targetThreads + "," + rampMillis / 1000 + "," + holdMillis / 1000;
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies the thread independent listeners (see {@link ListenerNotifier#isNotifiedAsynchronously(SampleListener)})
+ * from a small pool of listener threads.
+ * <p>
+ * Each sampling thread appends its events to its own single-producer ring buffer,
+ * which is always drained, in batches, by the same listener thread. So each listener
+ * receives the events of a sampling thread in the order they occurred.
+ * A buffer starts small and doubles, up to the configured size, when the listener thread does not keep up,
+ * so that threads sampling slowly cost little memory.
+ * <p>
+ * A listener thread without events parks until a sampling thread signals a new event.
+ * When the buffer of a sampling thread is full, the thread either parks until the listener
+ * thread makes room, or drops the event, depending on the overflow policy.
+ * Dispatched, dropped and blocked events are counted.
+ */
+final class SampleEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SampleEventDispatcher.class);
+
+    /** Initial capacity of the buffer of a sampling thread */
+    private static final int INITIAL_BUFFER_SIZE = 16;
+
+    private final int bufferSize;
+
+    private final boolean dropOnOverflow;
+
+    private final Worker[] workers;
+
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    private final ThreadLocal<EventBuffer> buffers = ThreadLocal.withInitial(this::register);
+
+    private final LongAdder dispatched = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder blocked = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param threads number of listener threads
+     * @param bufferSize maximum capacity of the buffer of each sampling thread, rounded up to a power of two
+     * @param dropOnOverflow true to drop events when a buffer is full, false to wait for room
+     */
+    SampleEventDispatcher(int threads, int bufferSize, boolean dropOnOverflow) {
+        this.bufferSize = Integer.highestOneBit(Math.max(2, bufferSize) * 2 - 1);
+        this.dropOnOverflow = dropOnOverflow;
+        this.workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker("ListenerNotifier-" + (i + 1)); // $NON-NLS-1$
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Append the event to the buffer of the calling thread
+     * @param event the sample event
+     * @param listeners the listeners of the sample, only the thread independent ones are notified
+     * @return false if the dispatcher is closed, in which case the caller must notify the listeners itself
+     */
+    boolean dispatch(SampleEvent event, List<SampleListener> listeners) {
+        if (!running) {
+            return false;
+        }
+        EventBuffer buffer = buffers.get();
+        if (buffer.offer(event, listeners)) {
+            return true;
+        }
+        if (buffer.capacity() < bufferSize) {
+            // The listener thread moves to the larger buffer once it has drained this one
+            EventBuffer larger = new EventBuffer(buffer.owner, buffer.worker, buffer.capacity() * 2);
+            larger.offer(event, listeners);
+            buffer.next = larger;
+            buffers.set(larger);
+            return true;
+        }
+        if (dropOnOverflow) {
+            dropped.increment();
+            return true;
+        }
+        blocked.increment();
+        buffer.waiting = true;
+        try {
+            while (!buffer.offer(event, listeners)) {
+                LockSupport.unpark(buffer.worker);
+                // Unparked by the listener thread once it has drained the buffer
+                LockSupport.park(this);
+                if (!running) {
+                    return false;
+                }
+            }
+        } finally {
+            buffer.waiting = false;
+        }
+        return true;
+    }
+
+    /**
+     * Wait for all buffered events to be dispatched, then stop the listener threads
+     */
+    void close() {
+        running = false;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting for {} to dispatch its events", worker.getName());
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.info("Listener notifications: dispatched={} dropped={} blocked={}",
+                dispatched.sum(), dropped.sum(), blocked.sum());
+    }
+
+    /**
+     * @return number of events dispatched to listener threads
+     */
+    long getDispatchedCount() {
+        return dispatched.sum();
+    }
+
+    /**
+     * @return number of events dropped because a buffer was full
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of events for which a sampling thread waited for room in its buffer
+     */
+    long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    private EventBuffer register() {
+        Worker worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+        EventBuffer buffer = new EventBuffer(Thread.currentThread(), worker, Math.min(INITIAL_BUFFER_SIZE, bufferSize));
+        worker.pending.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Single producer / single consumer ring buffer of the events of a sampling thread
+     */
+    private static final class EventBuffer {
+        private final Thread owner;
+        private final Worker worker;
+        private final SampleEvent[] events;
+        private final Object[] listeners;
+        private final int mask;
+        /** Next slot to read, only written by the worker */
+        private final AtomicLong head = new AtomicLong();
+        /** Next slot to write, only written by the owner */
+        private final AtomicLong tail = new AtomicLong();
+        /** Larger buffer the owner writes to once this one was full */
+        private volatile EventBuffer next;
+        /** Whether the owner waits for room in this buffer */
+        private volatile boolean waiting;
+
+        EventBuffer(Thread owner, Worker worker, int size) {
+            this.owner = owner;
+            this.worker = worker;
+            this.events = new SampleEvent[size];
+            this.listeners = new Object[size];
+            this.mask = size - 1;
+        }
+
+        int capacity() {
+            return events.length;
+        }
+
+        boolean offer(SampleEvent event, List<SampleListener> sampleListeners) {
+            long t = tail.get();
+            if (t - head.get() == events.length) {
+                return false;
+            }
+            int slot = (int) t & mask;
+            events[slot] = event;
+            listeners[slot] = sampleListeners;
+            // Volatile write, so that either the worker sees the event or we see that it sleeps
+            tail.set(t + 1);
+            worker.wakeUp();
+            return true;
+        }
+
+        boolean isEmpty() {
+            return head.get() == tail.get();
+        }
+
+        /**
+         * Notify the listeners of all the events available in the buffer
+         * @return number of events
+         */
+        @SuppressWarnings("unchecked")
+        int drain() {
+            long h = head.get();
+            long t = tail.get();
+            if (h == t) {
+                return 0;
+            }
+            for (long i = h; i < t; i++) {
+                int slot = (int) i & mask;
+                SampleEvent event = events[slot];
+                List<SampleListener> sampleListeners = (List<SampleListener>) listeners[slot];
+                events[slot] = null;
+                listeners[slot] = null;
+                for (SampleListener listener : sampleListeners) {
+                    if (ListenerNotifier.isNotifiedAsynchronously(listener)) {
+                        ListenerNotifier.notifyListener(event, listener);
+                    }
+                }
+            }
+            // Volatile write, so that either the owner sees the room or we see that it waits
+            head.set(t);
+            if (waiting) {
+                LockSupport.unpark(owner);
+            }
+            return (int) (t - h);
+        }
+    }
+
+    /**
+     * Listener thread, drains the buffers of the sampling threads assigned to it
+     */
+    private final class Worker extends Thread {
+        private final Queue<EventBuffer> pending = new ConcurrentLinkedQueue<>();
+        private final List<EventBuffer> buffers = new ArrayList<>();
+        /** Whether the worker is about to park or parked, waiting for events */
+        private volatile boolean sleeping;
+
+        Worker(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        void wakeUp() {
+            if (sleeping) {
+                sleeping = false;
+                LockSupport.unpark(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                boolean stopping = !running; // read before draining so that no event is missed
+                EventBuffer added;
+                while ((added = pending.poll()) != null) {
+                    buffers.add(added);
+                }
+                int count = 0;
+                for (ListIterator<EventBuffer> it = buffers.listIterator(); it.hasNext();) {
+                    EventBuffer buffer = it.next();
+                    // Read before draining, so that the last events of an ended owner are drained
+                    boolean ended = !buffer.owner.isAlive();
+                    count += drainChain(buffer, it);
+                    if (ended) {
+                        it.remove();
+                    }
+                }
+                dispatched.add(count);
+                if (count == 0) {
+                    if (stopping && pending.isEmpty()) {
+                        return;
+                    }
+                    sleeping = true;
+                    // Checked after announcing the sleep, so that an event offered meanwhile is not missed
+                    if (running && !hasEvents()) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+
+        /**
+         * Drain a buffer, and the larger buffers its owner moved to, replacing it by the last one
+         * @return number of events
+         */
+        private int drainChain(EventBuffer first, ListIterator<EventBuffer> it) {
+            int count = 0;
+            EventBuffer buffer = first;
+            while (true) {
+                // Read first: once the owner moved on, the buffer it left is complete
+                EventBuffer next = buffer.next;
+                count += buffer.drain();
+                if (next == null) {
+                    return count;
+                }
+                buffer = next;
+                it.set(buffer);
+            }
+        }
+
+        private boolean hasEvents() {
+            if (!pending.isEmpty()) {
+                return true;
+            }
+            for (EventBuffer buffer : buffers) {
+                if (!buffer.isEmpty() || buffer.next != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -20,10 +20,15 @@ package org.apache.jmeter.threads;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.jmeter.engine.ShareImmutableProperties;
 import org.apache.jmeter.engine.StandardJMeterEngine;
 import org.apache.jmeter.engine.TreeCloner;
 import org.apache.jmeter.gui.GUIMenuSortOrder;
@@ -53,6 +58,10 @@ public class ThreadGroup extends AbstractThreadGroup {
     private static final int RAMPUP_GRANULARITY =
             JMeterUtils.getPropDefault("jmeterthread.rampup.granularity", 1000); // $NON-NLS-1$
 
+    /** Whether per-thread copies of the tree share the immutable properties of the test plan, default true */
+    private static final boolean SHARE_IMMUTABLE_PROPERTIES =
+            JMeterUtils.getPropDefault("jmeterthread.share_immutable_properties", true); // $NON-NLS-1$
+
     //+ JMX entries - do not change the string values
 
     /** Ramp-up time */
@@ -70,6 +79,15 @@ public class ThreadGroup extends AbstractThreadGroup {
     /** Scheduler start delay, overrides start time */
     public static final String DELAY = "ThreadGroup.delay";
 
+    /** Whether JMeter threads are run on virtual threads */
+    public static final String VIRTUAL_THREADS = "ThreadGroup.virtualThreads";
+
+    /** Staged load profile, see {@link LoadStage} */
+    public static final String STAGES = "ThreadGroup.stages";
+
+    /** Ramp-down time at the end of the staged load profile */
+    public static final String RAMP_DOWN = "ThreadGroup.ramp_down";
+
     //- JMX entries
 
     private transient Thread threadStarter;
@@ -88,6 +106,15 @@ public class ThreadGroup extends AbstractThreadGroup {
     /** Are we using delayed startup? */
     private boolean delayedStartup;
 
+    /** Are JMeter threads run on virtual threads? */
+    private boolean virtualThreads;
+
+    /** Does the group follow a staged load profile? */
+    private boolean staged;
+
+    /** Number of threads this group currently aims at, included in {@link JMeterContextService#getTargetThreads()} */
+    private final AtomicInteger targetThreads = new AtomicInteger();
+
     /** Thread safe class */
     private ListenerNotifier notifier;
 
@@ -176,10 +203,80 @@ public class ThreadGroup extends AbstractThreadGroup {
         return getPropertyAsInt(ThreadGroup.RAMP_TIME);
     }
 
+    /**
+     * Set the staged load profile
+     *
+     * @param stages <code>users,ramp,hold</code> triples, see {@link LoadStage}; empty for a single ramp-up
+     */
+    public void setStages(String stages) {
+        setProperty(STAGES, stages, "");
+    }
+
+    /**
+     * Get the staged load profile
+     *
+     * @return <code>users,ramp,hold</code> triples, see {@link LoadStage}; empty for a single ramp-up
+     */
+    public String getStages() {
+        return getPropertyAsString(STAGES);
+    }
+
+    /**
+     * Set the ramp-down value used at the end of the staged load profile.
+     *
+     * @param rampDown
+     *            the ramp-down value in seconds.
+     */
+    public void setRampDown(int rampDown) {
+        setProperty(RAMP_DOWN, rampDown, 0);
+    }
+
+    /**
+     * Get the ramp-down value used at the end of the staged load profile.
+     *
+     * @return the ramp-down value in seconds.
+     */
+    public int getRampDown() {
+        return getPropertyAsInt(RAMP_DOWN, 0);
+    }
+
+    /**
+     * @return the stages of the load profile, empty if the group does a single ramp-up
+     * @throws JMeterStopTestException if the profile is invalid
+     */
+    private List<LoadStage> getLoadStages() {
+        try {
+            return LoadStage.parse(getStages());
+        } catch (IllegalArgumentException e) {
+            throw new JMeterStopTestException("Invalid stages '" + getStages() + "' set in Thread Group:" + getName()
+                    + ", " + e.getMessage());
+        }
+    }
+
     private boolean isDelayedStartup() {
         return getPropertyAsBoolean(DELAYED_START);
     }
 
+    /**
+     * Set whether JMeter threads of this group should run on virtual threads
+     *
+     * @param virtualThreads true to use virtual threads when the JVM supports them
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        setProperty(VIRTUAL_THREADS, virtualThreads, VirtualThreadSupport.isEnabledByDefault());
+    }
+
+    /**
+     * Get whether JMeter threads of this group should run on virtual threads,
+     * as selected on the group or else by the global default
+     * ({@value VirtualThreadSupport#VIRTUAL_THREADS_PROPERTY})
+     *
+     * @return true if virtual threads are requested
+     */
+    public boolean isVirtualThreads() {
+        return getPropertyAsBoolean(VIRTUAL_THREADS, VirtualThreadSupport.isEnabledByDefault());
+    }
+
     /**
      * This will schedule the time for the JMeterThread.
      *
@@ -214,13 +311,34 @@ public class ThreadGroup extends AbstractThreadGroup {
         this.groupNumber = groupNum;
         this.notifier = notifier;
         this.threadGroupTree = threadGroupTree;
+        if (SHARE_IMMUTABLE_PROPERTIES) {
+            // Done once on the template, so that each thread only copies the properties that may change at runtime
+            threadGroupTree.traverse(new ShareImmutableProperties());
+        }
         int numThreads = getNumThreads();
         int rampUpPeriodInSeconds = getRampUp();
-        delayedStartup = isDelayedStartup(); // Fetch once; needs to stay constant
-        log.info("Starting thread group... number={} threads={} ramp-up={} delayedStart={}", groupNumber,
-                numThreads, rampUpPeriodInSeconds, delayedStartup);
+        List<LoadStage> stages = getLoadStages();
+        // A staged profile is always run by the ThreadStarter
+        staged = !stages.isEmpty();
+        delayedStartup = isDelayedStartup() || staged; // Fetch once; needs to stay constant
+        virtualThreads = isVirtualThreads();
+        if (virtualThreads && !VirtualThreadSupport.isAvailable()) {
+            log.warn("Virtual threads requested for thread group {} but not supported by this JVM, using platform threads",
+                    getName());
+        }
+        if (stages.isEmpty()) {
+            log.info("Starting thread group... number={} threads={} ramp-up={} delayedStart={} virtualThreads={}", groupNumber,
+                    numThreads, rampUpPeriodInSeconds, delayedStartup, virtualThreads);
+            setTargetThreads(numThreads);
+        } else {
+            log.info("Starting thread group... number={} stages={} ramp-down={} virtualThreads={}", groupNumber,
+                    stages, getRampDown(), virtualThreads);
+            // The engine counted the number of threads, the profile may go higher
+            JMeterContextService.addTotalThreads(LoadStage.maxThreads(stages) - numThreads);
+        }
         if (delayedStartup) {
-            threadStarter = new Thread(new ThreadStarter(notifier, threadGroupTree, engine), getName()+"-ThreadStarter");
+            threadStarter = new Thread(new ThreadStarter(notifier, threadGroupTree, engine, stages),
+                    getName()+"-ThreadStarter");
             threadStarter.setDaemon(true);
             threadStarter.start();
             // N.B. we don't wait for the thread to complete, as that would prevent parallel TGs
@@ -262,7 +380,7 @@ public class ThreadGroup extends AbstractThreadGroup {
         JMeterThread jmThread = makeThread(notifier, threadGroupTree, engine, threadNum, context);
         scheduleThread(jmThread, now); // set start and end time
         jmThread.setInitialDelay(delay);
-        Thread newThread = new Thread(jmThread, jmThread.getThreadName());
+        Thread newThread = VirtualThreadSupport.newThread(jmThread, jmThread.getThreadName(), virtualThreads);
         registerStartedThread(jmThread, newThread);
         newThread.start();
         return jmThread;
@@ -331,6 +449,8 @@ public class ThreadGroup extends AbstractThreadGroup {
         }
         newJmThread = startNewThread(notifier, threadGroupTree, engine, numThreads, context, now, delay);
         JMeterContextService.addTotalThreads( 1 );
+        targetThreads.incrementAndGet();
+        JMeterContextService.addTargetThreads( 1 );
         log.info("Started new thread in group {}", groupNumber);
         return newJmThread;
     }
@@ -372,6 +492,15 @@ public class ThreadGroup extends AbstractThreadGroup {
         }
     }
 
+    /**
+     * Update the number of threads this group aims at
+     * @param target number of threads
+     */
+    private void setTargetThreads(int target) {
+        int previous = targetThreads.getAndSet(target);
+        JMeterContextService.addTargetThreads(target - previous);
+    }
+
     /**
      * Called by JMeterThread when it finishes
      */
@@ -380,6 +509,12 @@ public class ThreadGroup extends AbstractThreadGroup {
         if (log.isDebugEnabled()) {
             log.debug("Ending thread {}", thread.getThreadName());
         }
+        if (!staged) {
+            // Without a load profile, the group aims at the threads that did not end yet
+            if (targetThreads.getAndUpdate(target -> Math.max(target - 1, 0)) > 0) {
+                JMeterContextService.addTargetThreads(-1);
+            }
+        }
         allThreads.remove(thread);
     }
 
@@ -526,7 +661,7 @@ public class ThreadGroup extends AbstractThreadGroup {
     }
 
     /**
-     * Starts Threads using ramp up
+     * Starts Threads using ramp up, or following the stages of the load profile
      */
     class ThreadStarter implements Runnable {
 
@@ -534,12 +669,23 @@ public class ThreadGroup extends AbstractThreadGroup {
         private final ListedHashTree threadGroupTree;
         private final StandardJMeterEngine engine;
         private final JMeterContext context;
+        private final List<LoadStage> stages;
 
-        public ThreadStarter(ListenerNotifier notifier, ListedHashTree threadGroupTree, StandardJMeterEngine engine) {
+        /** Threads started by the load profile, most recent last */
+        private final Deque<JMeterThread> stagedThreads = new ArrayDeque<>();
+
+        private int nextThreadNumber = 0;
+
+        /** End of the staged load profile when the scheduler is used */
+        private long deadline = Long.MAX_VALUE;
+
+        public ThreadStarter(ListenerNotifier notifier, ListedHashTree threadGroupTree, StandardJMeterEngine engine,
+                List<LoadStage> stages) {
             super();
             this.notifier = notifier;
             this.threadGroupTree = threadGroupTree;
             this.engine = engine;
+            this.stages = stages;
             // Store context from Root Thread to pass it to created threads
             this.context = JMeterContextService.getContext();
         }
@@ -594,6 +740,13 @@ public class ThreadGroup extends AbstractThreadGroup {
                         endtime = endtime *1000 + System.currentTimeMillis();
                     }
                 }
+                if (!stages.isEmpty()) {
+                    if (usingScheduler && endtime > 0) {
+                        deadline = endtime;
+                    }
+                    runStages(usingScheduler, endtime);
+                    return;
+                }
                 final int numThreads = getNumThreads();
                 final float rampUpOriginInMillis = (float) getRampUp() * 1000;
                 final long startTimeInMillis = System.currentTimeMillis();
@@ -613,8 +766,8 @@ public class ThreadGroup extends AbstractThreadGroup {
                         jmThread.setScheduled(true);
                         jmThread.setEndTime(endtime);
                     }
-                    Thread newThread = new Thread(jmThread, jmThread.getThreadName());
-                    newThread.setDaemon(false); // ThreadStarter is daemon, but we don't want sampler threads to be so too
+                    // ThreadStarter is daemon, but we don't want sampler threads to be so too
+                    Thread newThread = VirtualThreadSupport.newThread(jmThread, jmThread.getThreadName(), virtualThreads);
                     registerStartedThread(jmThread, newThread);
                     newThread.start();
                 }
@@ -622,5 +775,104 @@ public class ThreadGroup extends AbstractThreadGroup {
                 log.error("An error occurred scheduling delay start of threads for Thread Group: {}", getName(), ex);
             }
         }
+
+        /**
+         * Follow the stages of the load profile, then ramp down to no thread
+         * @param usingScheduler whether started threads must stop at endtime
+         * @param endtime end time of the threads if usingScheduler
+         */
+        private void runStages(boolean usingScheduler, long endtime) {
+            try {
+                for (LoadStage stage : stages) {
+                    if (!isRunning()) {
+                        return;
+                    }
+                    rampTo(stage.getTargetThreads(), stage.getRampMillis(), usingScheduler, endtime);
+                    log.info("Thread group {} reached stage {}", getName(), stage);
+                    delayUntil(System.currentTimeMillis() + stage.getHoldMillis());
+                }
+                if (isRunning()) {
+                    rampTo(0, getRampDown() * 1000L, usingScheduler, endtime);
+                    log.info("Thread group {} ended its load profile", getName());
+                }
+            } finally {
+                setTargetThreads(0);
+            }
+        }
+
+        /**
+         * Start or stop threads evenly over the ramp period to reach the target
+         * @param target number of threads at the end of the ramp
+         * @param rampMillis ramp period in milliseconds
+         * @param usingScheduler whether started threads must stop at endtime
+         * @param endtime end time of the threads if usingScheduler
+         */
+        private void rampTo(int target, long rampMillis, boolean usingScheduler, long endtime) {
+            final int from = targetThreads.get();
+            final int steps = Math.abs(target - from);
+            final int direction = target > from ? 1 : -1;
+            final long start = System.currentTimeMillis();
+            for (int step = 0; step < steps; step++) {
+                delayUntil(start + rampMillis * step / steps);
+                if (!isRunning()) {
+                    return;
+                }
+                if (direction > 0) {
+                    startStagedThread(usingScheduler, endtime);
+                } else {
+                    stopStagedThread();
+                }
+                setTargetThreads(from + direction * (step + 1));
+            }
+            delayUntil(start + rampMillis);
+        }
+
+        /**
+         * Start a thread for the load profile
+         * @param usingScheduler whether the thread must stop at endtime
+         * @param endtime end time of the thread if usingScheduler
+         */
+        private void startStagedThread(boolean usingScheduler, long endtime) {
+            JMeterThread jmThread = makeThread(notifier, threadGroupTree, engine, nextThreadNumber++, context);
+            jmThread.setInitialDelay(0);
+            if (usingScheduler) {
+                jmThread.setScheduled(true);
+                jmThread.setEndTime(endtime);
+            }
+            Thread newThread = VirtualThreadSupport.newThread(jmThread, jmThread.getThreadName(), virtualThreads);
+            registerStartedThread(jmThread, newThread);
+            newThread.start();
+            stagedThreads.addLast(jmThread);
+        }
+
+        /**
+         * Stop the most recently started thread that is still running,
+         * letting it end its current sample
+         */
+        private void stopStagedThread() {
+            JMeterThread jmThread;
+            while ((jmThread = stagedThreads.pollLast()) != null) {
+                Thread jvmThread = allThreads.get(jmThread);
+                if (jvmThread != null) { // otherwise it already ended on its own
+                    stopThread(jmThread, jvmThread, false);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return true while the group runs and the scheduler end time is not reached
+         */
+        private boolean isRunning() {
+            return running && System.currentTimeMillis() < deadline;
+        }
+
+        /**
+         * Wait until time, or the end of the group
+         * @param time in milliseconds
+         */
+        private void delayUntil(long time) {
+            delayBy(Math.min(time, deadline) - System.currentTimeMillis());
+        }
     }
 }
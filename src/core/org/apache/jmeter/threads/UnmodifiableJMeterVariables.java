@@ -78,6 +78,16 @@ class UnmodifiableJMeterVariables extends JMeterVariables {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void putLong(String key, long value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void putAll(Map<String, ?> vars) {
         throw new UnsupportedOperationException();
@@ -93,6 +103,21 @@ class UnmodifiableJMeterVariables extends JMeterVariables {
         return variables.get(key);
     }
 
+    @Override
+    public String get(int slot) {
+        return variables.get(slot);
+    }
+
+    @Override
+    public long getLong(String key, long defaultValue) {
+        return variables.getLong(key, defaultValue);
+    }
+
+    @Override
+    public int getInt(String key, int defaultValue) {
+        return variables.getInt(key, defaultValue);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
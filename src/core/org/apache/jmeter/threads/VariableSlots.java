@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM wide table of the variable names that are stored in indexed slots by {@link JMeterVariables}.
+ * <p>
+ * Names are registered when the test plan is compiled, so the table only grows with
+ * the number of distinct names referenced by the plan. It is cleared when a test starts,
+ * see {@link JMeterContextService#startTest()}, so that the names of previous test plans
+ * do not use slots. It is capped so that names computed at runtime cannot make it grow
+ * without limit; names that are not registered are stored in the map of {@link JMeterVariables}.
+ * <p>
+ * Each reset starts a new generation: slots of a previous generation must be resolved again.
+ * @since 5.2
+ */
+final class VariableSlots {
+
+    /** Maximum number of slots, names registered after that are not indexed */
+    static final int MAX_SLOTS = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(VariableSlots.class);
+
+    private static volatile Map<String, Integer> slots = new ConcurrentHashMap<>();
+
+    /** Names by slot, replaced when a name is registered */
+    private static volatile String[] names = new String[0];
+
+    /** Incremented when the table is cleared */
+    private static volatile int generation;
+
+    private static boolean fullLogged; // @GuardedBy("VariableSlots.class")
+
+    private VariableSlots() {
+        super();
+    }
+
+    /**
+     * Get the slot of a name, registering it if needed
+     * @param name variable name
+     * @return the slot of the name, or -1 if the table is full
+     */
+    static int register(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot.intValue();
+        }
+        synchronized (VariableSlots.class) {
+            slot = slots.get(name);
+            if (slot != null) {
+                return slot.intValue();
+            }
+            String[] current = names;
+            if (current.length >= MAX_SLOTS) {
+                if (!fullLogged) {
+                    fullLogged = true;
+                    log.warn("More than {} variable names are referenced, variable {} and the next ones are not indexed",
+                            MAX_SLOTS, name);
+                }
+                return -1;
+            }
+            String[] copy = Arrays.copyOf(current, current.length + 1);
+            copy[current.length] = name;
+            // Publish the name before the slot, so that a slot read from slots always has its name
+            names = copy;
+            slots.put(name, Integer.valueOf(current.length));
+            return current.length;
+        }
+    }
+
+    /**
+     * @param name variable name
+     * @return the slot of the name, or -1 if it is not registered
+     */
+    static int indexOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot.intValue();
+    }
+
+    /**
+     * @return the registered names, the index of a name being its slot
+     */
+    static String[] names() {
+        return names;
+    }
+
+    /**
+     * @return the generation of the table, slots of other generations are no longer valid
+     */
+    static int generation() {
+        return generation;
+    }
+
+    /**
+     * Unregister all the names. Not intended to be called while a test runs:
+     * variables of the previous generation move their values from slots back to their map.
+     */
+    static synchronized void reset() {
+        // Unpublish the slots before the names, so that a slot read from slots always has its name
+        slots = new ConcurrentHashMap<>();
+        names = new String[0];
+        fullLogged = false;
+        generation++;
+    }
+}
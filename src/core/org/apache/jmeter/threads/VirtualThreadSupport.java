@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the JVM threads that run {@link JMeterThread}s.
+ * <p>
+ * When requested and when the running JVM supports it (JDK 21+), each
+ * JMeterThread is run on its own virtual thread, which allows a single injector
+ * to drive many more mostly-waiting users than with platform threads.
+ * As JMeter is still built for Java 8, virtual threads are looked up by reflection;
+ * if they are not available, a platform thread is created instead.
+ * <p>
+ * Per-thread state (JMeterContextService, HTTP client cache, TCP socket map, cache manager...)
+ * is held in {@link ThreadLocal}s. This remains correct as there is exactly one virtual
+ * thread per JMeterThread: virtual threads are never pooled nor shared between users.
+ * @since 5.2
+ */
+public final class VirtualThreadSupport {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadSupport.class);
+
+    /** Global default for the virtual threads execution mode, can be overridden per Thread Group */
+    public static final String VIRTUAL_THREADS_PROPERTY = "jmeterthread.virtual_threads"; // $NON-NLS-1$
+
+    private static final boolean VIRTUAL_THREADS_DEFAULT =
+            JMeterUtils.getPropDefault(VIRTUAL_THREADS_PROPERTY, false);
+
+    /** Thread.ofVirtual() */
+    private static final Method OF_VIRTUAL;
+
+    /** Thread.Builder#name(String) */
+    private static final Method BUILDER_NAME;
+
+    /** Thread.Builder#unstarted(Runnable) */
+    private static final Method BUILDER_UNSTARTED;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual"); // $NON-NLS-1$
+            Class<?> builder = Class.forName("java.lang.Thread$Builder"); // $NON-NLS-1$
+            name = builder.getMethod("name", String.class); // $NON-NLS-1$
+            unstarted = builder.getMethod("unstarted", Runnable.class); // $NON-NLS-1$
+            // On JDK 19/20 virtual threads are a preview feature, check they can really be created
+            unstarted.invoke(name.invoke(ofVirtual.invoke(null), "probe"), (Runnable) () -> {}); // $NON-NLS-1$
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            log.debug("Virtual threads are not available in this JVM");
+            ofVirtual = null;
+        } catch (IllegalAccessException | InvocationTargetException | RuntimeException e) {
+            log.debug("Virtual threads cannot be used in this JVM", e);
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_UNSTARTED = unstarted;
+    }
+
+    private VirtualThreadSupport() {
+        super();
+    }
+
+    /**
+     * @return true if the running JVM can create virtual threads
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return the value of the global property {@value #VIRTUAL_THREADS_PROPERTY}
+     */
+    public static boolean isEnabledByDefault() {
+        return VIRTUAL_THREADS_DEFAULT;
+    }
+
+    /**
+     * Create an unstarted thread to run a {@link JMeterThread}
+     *
+     * @param runnable the JMeterThread (or any runnable) to run
+     * @param name name of the thread
+     * @param virtual whether a virtual thread should be used if available
+     * @return an unstarted virtual thread if virtual is true and they are
+     *         supported by the JVM, an unstarted non daemon platform thread otherwise
+     */
+    public static Thread newThread(Runnable runnable, String name, boolean virtual) {
+        if (virtual && isAvailable()) {
+            try {
+                return (Thread) BUILDER_UNSTARTED.invoke(BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name), runnable);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                log.warn("Could not create virtual thread {}, using a platform thread", name, e);
+            }
+        }
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(false); // creating thread may be a daemon, but we don't want sampler threads to be so too
+        return thread;
+    }
+}
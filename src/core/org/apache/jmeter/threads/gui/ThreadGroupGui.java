@@ -37,6 +37,7 @@ import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.threads.AbstractThreadGroup;
 import org.apache.jmeter.threads.ThreadGroup;
+import org.apache.jmeter.threads.VirtualThreadSupport;
 import org.apache.jmeter.util.JMeterUtils;
 
 public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListener {
@@ -56,12 +57,18 @@ public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListen
 
     private JCheckBox delayedStart;
 
+    private JCheckBox virtualThreads;
+
     private JCheckBox scheduler;
 
     private JTextField duration;
 
     private JTextField delay; // Relative start-up time
 
+    private JTextField stages;
+
+    private JTextField rampDown;
+
     public ThreadGroupGui() {
         this(true);
     }
@@ -97,9 +104,12 @@ public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListen
         if (showDelayedStart) {
             tg.setProperty(ThreadGroup.DELAYED_START, delayedStart.isSelected(), false);
         }
+        tg.setProperty(ThreadGroup.VIRTUAL_THREADS, virtualThreads.isSelected(), VirtualThreadSupport.isEnabledByDefault());
         tg.setProperty(new BooleanProperty(ThreadGroup.SCHEDULER, scheduler.isSelected()));
         tg.setProperty(ThreadGroup.DURATION, duration.getText());
         tg.setProperty(ThreadGroup.DELAY, delay.getText());
+        tg.setProperty(ThreadGroup.STAGES, stages.getText(), ""); // $NON-NLS-1$
+        tg.setProperty(ThreadGroup.RAMP_DOWN, rampDown.getText(), ""); // $NON-NLS-1$
     }
 
     @Override
@@ -111,12 +121,15 @@ public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListen
         if (showDelayedStart) {
             delayedStart.setSelected(tg.getPropertyAsBoolean(ThreadGroup.DELAYED_START));
         }
+        virtualThreads.setSelected(tg.getPropertyAsBoolean(ThreadGroup.VIRTUAL_THREADS, VirtualThreadSupport.isEnabledByDefault()));
         scheduler.setSelected(tg.getPropertyAsBoolean(ThreadGroup.SCHEDULER));
 
         toggleSchedulerFields(scheduler.isSelected());
 
         duration.setText(tg.getPropertyAsString(ThreadGroup.DURATION));
         delay.setText(tg.getPropertyAsString(ThreadGroup.DELAY));
+        stages.setText(tg.getPropertyAsString(ThreadGroup.STAGES));
+        rampDown.setText(tg.getPropertyAsString(ThreadGroup.RAMP_DOWN));
     }
 
     @Override
@@ -171,6 +184,33 @@ public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListen
         return panel;
     }
 
+    /**
+     * Create a panel containing the load profile fields and corresponding labels.
+     *
+     * @return a GUI panel containing the Stages and Ramp-down fields
+     */
+    private JPanel createStagesPanel() {
+        VerticalPanel panel = new VerticalPanel();
+        panel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(),
+                JMeterUtils.getResString("load_profile"))); // $NON-NLS-1$
+        JPanel stagesPanel = new JPanel(new BorderLayout(5, 0));
+        JLabel stagesLabel = new JLabel(JMeterUtils.getResString("load_stages")); // $NON-NLS-1$
+        stagesPanel.add(stagesLabel, BorderLayout.WEST);
+        stages = new JTextField();
+        stagesLabel.setLabelFor(stages);
+        stagesPanel.add(stages, BorderLayout.CENTER);
+        panel.add(stagesPanel);
+
+        JPanel rampDownPanel = new JPanel(new BorderLayout(5, 0));
+        JLabel rampDownLabel = new JLabel(JMeterUtils.getResString("ramp_down")); // $NON-NLS-1$
+        rampDownPanel.add(rampDownLabel, BorderLayout.WEST);
+        rampDown = new JTextField(5);
+        rampDownLabel.setLabelFor(rampDown);
+        rampDownPanel.add(rampDown, BorderLayout.CENTER);
+        panel.add(rampDownPanel);
+        return panel;
+    }
+
     @Override
     public String getLabelResource() {
         return "threadgroup"; // $NON-NLS-1$
@@ -190,9 +230,12 @@ public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListen
         if (showDelayedStart) {
             delayedStart.setSelected(false);
         }
+        virtualThreads.setSelected(VirtualThreadSupport.isEnabledByDefault());
         scheduler.setSelected(false);
         delay.setText(""); // $NON-NLS-1$
         duration.setText(""); // $NON-NLS-1$
+        stages.setText(""); // $NON-NLS-1$
+        rampDown.setText(""); // $NON-NLS-1$
     }
 
    private void init() { // WARNING: called from ctor so must not be overridden (i.e. must be private or final)
@@ -233,6 +276,8 @@ public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListen
             delayedStart = new JCheckBox(JMeterUtils.getResString("delayed_start")); // $NON-NLS-1$
             threadPropsPanel.add(delayedStart);
         }
+        virtualThreads = new JCheckBox(JMeterUtils.getResString("virtual_threads")); // $NON-NLS-1$
+        threadPropsPanel.add(virtualThreads);
         scheduler = new JCheckBox(JMeterUtils.getResString("scheduler")); // $NON-NLS-1$
         scheduler.addItemListener(this);
         threadPropsPanel.add(scheduler);
@@ -250,6 +295,7 @@ public class ThreadGroupGui extends AbstractThreadGroupGui implements ItemListen
         VerticalPanel intgrationPanel = new VerticalPanel();
         intgrationPanel.add(threadPropsPanel);
         intgrationPanel.add(mainPanel);
+        intgrationPanel.add(createStagesPanel());
         add(intgrationPanel, BorderLayout.CENTER);
     }
 }
@@ -39,4 +39,17 @@ public interface Timer extends Serializable {
     default boolean isModifiable() {
         return false;
     }
+
+    /**
+     * Get the time at which the sample delayed by the last call to {@link #delay()}
+     * was scheduled to start, for timers that pace samples to a schedule.
+     * When the thread is behind schedule, this is earlier than the actual start of the sample,
+     * so it can be used to correct response times for coordinated omission.
+     *
+     * @return the intended start time in milliseconds, or 0 if the timer does not follow a schedule
+     * @since 5.2
+     */
+    default long getIntendedStartTime() {
+        return 0L;
+    }
 }
@@ -18,17 +18,57 @@
 
 package org.apache.jmeter.timers;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.threads.JMeterThread;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Manages logic related to timers and pauses
+ * <p>
+ * Pauses put the calling thread to sleep. When the thread group runs its threads on virtual threads
+ * (see {@link org.apache.jmeter.threads.VirtualThreadSupport}), a sleeping thread is unmounted from its
+ * carrier, so think times do not hold operating system threads.
+ * <p>
+ * When property <code>timer.measure_drift</code> is true, the difference between the requested and the
+ * actual duration of pauses is measured per timer type, and logged at the end of the test.
  * @since 3.2
  */
 public class TimerService {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(TimerService.class);
+
+    /** Timer type of the pauses requested without one */
+    static final String UNKNOWN_TIMER_TYPE = "unknown"; // $NON-NLS-1$
+
+    private static final boolean MEASURE_DRIFT =
+            JMeterUtils.getPropDefault("timer.measure_drift", false); // $NON-NLS-1$
+
+    /** Whether the drift of pauses is measured */
+    private final boolean measureDrift;
+
+    /** Drift of the pauses, by timer type */
+    private final Map<String, DelayDrift> drifts = new ConcurrentHashMap<>();
+
     private TimerService() {
+        this(MEASURE_DRIFT);
+    }
+
+    /**
+     * @param measureDrift true to measure the drift of pauses, the singleton using property <code>timer.measure_drift</code>
+     */
+    TimerService(boolean measureDrift) {
         super();
+        this.measureDrift = measureDrift;
     }
     
     /**
@@ -71,4 +111,96 @@ public class TimerService {
         }
         return initialDelay;
     }
+
+    /**
+     * @return true if the drift of pauses is measured
+     * @since 5.2
+     */
+    public boolean isMeasuringDrift() {
+        return measureDrift;
+    }
+
+    /**
+     * Pause the calling thread, measuring the drift of the pause if enabled
+     * @param delay pause in milliseconds
+     * @param timerType type of the timer which requested the pause, used if drift is measured,
+     *            <code>null</code> being measured as <code>unknown</code>
+     * @throws InterruptedException if the thread is interrupted while pausing, in which case no drift is recorded
+     * @since 5.2
+     */
+    public void pause(long delay, String timerType) throws InterruptedException {
+        if (!measureDrift) {
+            TimeUnit.MILLISECONDS.sleep(delay);
+            return;
+        }
+        long start = System.nanoTime();
+        TimeUnit.MILLISECONDS.sleep(delay);
+        long drift = System.nanoTime() - start - TimeUnit.MILLISECONDS.toNanos(delay);
+        drifts.computeIfAbsent(timerType == null ? UNKNOWN_TIMER_TYPE : timerType, k -> new DelayDrift()).add(drift);
+    }
+
+    /**
+     * @return drift of the pauses measured since last reset, by timer type
+     * @since 5.2
+     */
+    public Map<String, DelayDrift> getDrifts() {
+        return Collections.unmodifiableMap(new TreeMap<>(drifts));
+    }
+
+    /**
+     * Log the drift of the pauses measured during the test, then reset it
+     * @since 5.2
+     */
+    public void logAndResetDrifts() {
+        if (!measureDrift) {
+            return;
+        }
+        getDrifts().forEach((timerType, drift) ->
+            log.info("Pause drift of {}: pauses={} mean={}ms max={}ms", timerType, drift.getCount(),
+                    String.format("%.3f", drift.getMeanMillis()), // $NON-NLS-1$
+                    String.format("%.3f", drift.getMaxMillis()))); // $NON-NLS-1$
+        drifts.clear();
+    }
+
+    /**
+     * Difference between the actual and the requested duration of pauses
+     * @since 5.2
+     */
+    public static final class DelayDrift {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        private DelayDrift() {
+            super();
+        }
+
+        private void add(long driftNanos) {
+            count.increment();
+            totalNanos.add(driftNanos);
+            maxNanos.accumulate(driftNanos);
+        }
+
+        /**
+         * @return number of measured pauses
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return mean drift in milliseconds, positive when pauses last longer than requested
+         */
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (n * 1_000_000.0);
+        }
+
+        /**
+         * @return maximum drift in milliseconds
+         */
+        public double getMaxMillis() {
+            return count.sum() == 0 ? 0 : maxNanos.get() / 1_000_000.0;
+        }
+    }
 }
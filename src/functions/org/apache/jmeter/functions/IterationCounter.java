@@ -39,7 +39,8 @@ public class IterationCounter extends AbstractFunction {
 
     private static final String KEY = "__counter"; //$NON-NLS-1$
 
-    private ThreadLocal<Integer> perThreadInt;
+    // Held in an array to avoid boxing at each call
+    private ThreadLocal<int[]> perThreadInt;
 
     private Object[] variables;
 
@@ -49,12 +50,7 @@ public class IterationCounter extends AbstractFunction {
        synchronized(this){
            globalCounter=0;
        }
-       perThreadInt = new ThreadLocal<Integer>(){
-            @Override
-            protected Integer initialValue() {
-                return Integer.valueOf(0);
-            }
-        };
+       perThreadInt = ThreadLocal.withInitial(() -> new int[1]);
     }
 
     static {
@@ -83,10 +79,9 @@ public class IterationCounter extends AbstractFunction {
         String counterString = ""; //$NON-NLS-1$
 
         if (perThread) {
-            int threadCounter;
-            threadCounter = perThreadInt.get().intValue() + 1;
-            perThreadInt.set(Integer.valueOf(threadCounter));
-            counterString = String.valueOf(threadCounter);
+            int[] threadCounter = perThreadInt.get();
+            threadCounter[0]++;
+            counterString = String.valueOf(threadCounter[0]);
         } else {
             synchronized (this) {
                 globalCounter++;
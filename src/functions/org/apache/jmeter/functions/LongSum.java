@@ -64,7 +64,7 @@ public class LongSum extends AbstractFunction {
         String varName = ((CompoundVariable) values[values.length - 1]).execute().trim();
 
         for (int i = 0; i < values.length - 1; i++) {
-            sum += Long.parseLong(((CompoundVariable) values[i]).execute());
+            sum += getLong((CompoundVariable) values[i], vars);
         }
 
         try {
@@ -85,6 +85,19 @@ public class LongSum extends AbstractFunction {
 
     }
 
+    // A reference to a variable holding a long, such as a counter, is read without conversion
+    private static long getLong(CompoundVariable value, JMeterVariables vars) {
+        String referencedVariable = value.getReferencedVariableName();
+        if (vars != null && referencedVariable != null) {
+            long result = vars.getLong(referencedVariable, Long.MIN_VALUE);
+            if (result != Long.MIN_VALUE) {
+                return result;
+            }
+            // Undefined variable: evaluate it to fail as before
+        }
+        return Long.parseLong(value.execute());
+    }
+
     /** {@inheritDoc} */
     @Override
     public void setParameters(Collection<CompoundVariable> parameters) throws InvalidVariableException {
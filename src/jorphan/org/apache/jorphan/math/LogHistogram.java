@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.math;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Histogram of non negative long values (e.g. response times) with
+ * logarithmic buckets, used to compute percentiles over any number of values
+ * with a bounded memory and a bounded relative error.
+ * <p>
+ * The values are counted in buckets whose width doubles with each power of
+ * two, so that the values counted in a bucket share the given number of
+ * significant decimal digits, the same way as
+ * <a href="http://hdrhistogram.org/">HdrHistogram</a> does. The values lower
+ * than <code>2 * 10^significantDigits</code> are counted exactly. Only the
+ * buckets between the lowest and the highest value are allocated, and there
+ * are never more than a few thousand of them for 2 significant digits.
+ * <p>
+ * Histograms with the same number of significant digits can be merged, which
+ * gives the same histogram as if all the values had been added to one of
+ * them.
+ * <p>
+ * Negative values are counted as 0, but are still taken into account by
+ * {@link #getMin()} and {@link #getMean()}.
+ * <p>
+ * It is not threadsafe.
+ *
+ * @since 5.2
+ */
+public class LogHistogram {
+
+    /**
+     * Receives the buckets of a histogram
+     *
+     * @see LogHistogram#forEachBucket(BucketConsumer)
+     */
+    @FunctionalInterface
+    public interface BucketConsumer {
+        /**
+         * @param value
+         *            the value representing the bucket
+         * @param count
+         *            the number of values counted in the bucket, greater than 0
+         */
+        void accept(long value, long count);
+    }
+
+    private static final int MIN_DIGITS = 1;
+
+    private static final int MAX_DIGITS = 5;
+
+    private static final int INITIAL_BUCKETS = 16;
+
+    private final int significantDigits;
+
+    /** Number of bits of the values counted exactly */
+    private final int subBucketBits;
+
+    /** Number of buckets of width 1, whose index is the value */
+    private final int subBucketCount;
+
+    /** Number of buckets between two powers of two above subBucketCount */
+    private final int subBucketHalfCount;
+
+    /** Counts of the buckets from firstIndex, null when empty */
+    private long[] counts;
+
+    private int firstIndex;
+
+    private long count;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max = Long.MIN_VALUE;
+
+    private double sum;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param significantDigits
+     *            number of significant decimal digits kept for each value,
+     *            between 1 and 5. With 2 digits, percentiles are computed with
+     *            a relative error lower than 1%
+     */
+    public LogHistogram(int significantDigits) {
+        Validate.inclusiveBetween(MIN_DIGITS, MAX_DIGITS, significantDigits,
+                "significantDigits must be between %d and %d", MIN_DIGITS, MAX_DIGITS);
+        this.significantDigits = significantDigits;
+        long largestExactValue = 2L * (long) Math.pow(10, significantDigits);
+        subBucketBits = 64 - Long.numberOfLeadingZeros(largestExactValue - 1);
+        subBucketCount = 1 << subBucketBits;
+        subBucketHalfCount = subBucketCount >> 1;
+    }
+
+    /**
+     * @return the number of significant decimal digits kept for each value
+     */
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    private int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) Math.max(0, value);
+        }
+        // The subBucketBits highest bits of the value select the bucket
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits + 1;
+        return subBucketCount + ((shift - 1) << (subBucketBits - 1))
+                + (int) (value >>> shift) - subBucketHalfCount;
+    }
+
+    private long lowestValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int offset = index - subBucketCount;
+        int shift = (offset >> (subBucketBits - 1)) + 1;
+        return ((long) (offset & (subBucketHalfCount - 1)) + subBucketHalfCount) << shift;
+    }
+
+    private long widthAt(int index) {
+        if (index < subBucketCount) {
+            return 1;
+        }
+        return 1L << (((index - subBucketCount) >> (subBucketBits - 1)) + 1);
+    }
+
+    /**
+     * Make sure the bucket of index is allocated
+     */
+    private void ensureBucket(int index) {
+        if (counts == null) {
+            counts = new long[INITIAL_BUCKETS];
+            firstIndex = index;
+        } else if (index < firstIndex) {
+            int newFirstIndex = Math.max(0, Math.min(index, firstIndex - counts.length / 2));
+            long[] newCounts = new long[counts.length + firstIndex - newFirstIndex];
+            System.arraycopy(counts, 0, newCounts, firstIndex - newFirstIndex, counts.length);
+            counts = newCounts;
+            firstIndex = newFirstIndex;
+        } else if (index >= firstIndex + counts.length) {
+            int length = Math.max(index - firstIndex + 1, counts.length + counts.length / 2);
+            counts = Arrays.copyOf(counts, length);
+        }
+    }
+
+    /**
+     * Add a value to the histogram
+     *
+     * @param value
+     *            the value to add
+     */
+    public void addValue(long value) {
+        addValue(value, 1);
+    }
+
+    /**
+     * Add a value several times to the histogram
+     *
+     * @param value
+     *            the value to add
+     * @param times
+     *            the number of times the value is added
+     */
+    public void addValue(long value, long times) {
+        if (times <= 0) {
+            return;
+        }
+        int index = indexOf(value);
+        ensureBucket(index);
+        counts[index - firstIndex] += times;
+        count += times;
+        sum += (double) value * times;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add all the values of another histogram to this one
+     *
+     * @param other
+     *            the histogram to merge, must have the same number of
+     *            significant digits
+     * @throws IllegalArgumentException
+     *             if the histograms don't have the same number of significant
+     *             digits
+     */
+    public void merge(LogHistogram other) {
+        Validate.isTrue(other.significantDigits == significantDigits,
+                "Cannot merge histograms with %d and %d significant digits",
+                significantDigits, other.significantDigits);
+        if (other.counts == null) {
+            return;
+        }
+        ensureBucket(other.firstIndex);
+        ensureBucket(other.firstIndex + other.counts.length - 1);
+        int offset = other.firstIndex - firstIndex;
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[offset + i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Remove all the values
+     */
+    public void clear() {
+        counts = null;
+        firstIndex = 0;
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    /**
+     * @return the number of values added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the lowest value, or {@link Double#NaN} if there is no value
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return the highest value, or {@link Double#NaN} if there is no value
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return the arithmetic mean of the values, or {@link Double#NaN} if
+     *         there is no value
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * Returns an estimate of the percentile of the values, using the same
+     * estimation as
+     * {@link org.apache.commons.math3.stat.descriptive.DescriptiveStatistics#getPercentile(double)}.
+     * The values lower than <code>2 * 10^significantDigits</code> are exact,
+     * so the result is the same as the one of DescriptiveStatistics for them.
+     *
+     * @param percentile
+     *            the requested percentile (scaled from 0 - 100)
+     * @return the estimate of the percentile, or {@link Double#NaN} if there
+     *         is no value
+     * @throws IllegalArgumentException
+     *             if percentile is not in ]0, 100]
+     */
+    public double getPercentile(double percentile) {
+        Validate.isTrue(percentile > 0 && percentile <= 100,
+                "percentile must be in ]0, 100] but was %s", percentile);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double position = percentile * (count + 1) / 100;
+        if (position < 1) {
+            return getMin();
+        }
+        if (position >= count) {
+            return getMax();
+        }
+        long rank = (long) position;
+        double lower = valueAtRank(rank);
+        double upper = valueAtRank(rank + 1);
+        return lower + (position - rank) * (upper - lower);
+    }
+
+    /**
+     * @param rank
+     *            rank of the value, from 1 to count
+     * @return the value of rank, within the precision of its bucket
+     */
+    private double valueAtRank(long rank) {
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return valueAt(firstIndex + i);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the middle of the bucket of index, within the lowest and highest values
+     */
+    private long valueAt(int index) {
+        long value = lowestValueAt(index) + widthAt(index) / 2;
+        return Math.min(max, Math.max(min, value));
+    }
+
+    /**
+     * Gives the non empty buckets of the histogram, by increasing values.
+     * Adding the given values with their counts to an empty histogram with
+     * the same number of significant digits gives the same buckets.
+     *
+     * @param consumer
+     *            receives the value representing each bucket, within the
+     *            precision of the bucket, and the number of values counted in
+     *            it
+     */
+    public void forEachBucket(BucketConsumer consumer) {
+        if (counts == null) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                consumer.accept(valueAt(firstIndex + i), counts[i]);
+            }
+        }
+    }
+}
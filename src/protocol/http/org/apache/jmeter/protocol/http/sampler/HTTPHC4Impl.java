@@ -462,7 +462,7 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
      */
     private static final ThreadLocal<Map<HttpClientKey, MutableTriple<CloseableHttpClient, AuthState, PoolingHttpClientConnectionManager>>>
         HTTPCLIENTS_CACHE_PER_THREAD_AND_HTTPCLIENTKEY = 
-            InheritableThreadLocal.withInitial(() -> new HashMap<>(5));
+            ThreadLocal.withInitial(() -> new HashMap<>(5));
 
     /**
      * CONNECTION_SOCKET_FACTORY changes if we want to simulate Slow connection
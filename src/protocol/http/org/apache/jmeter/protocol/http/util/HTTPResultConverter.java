@@ -25,7 +25,9 @@ package org.apache.jmeter.protocol.http.util;
 import java.net.URL;
 
 import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
+import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.XmlResultWriter;
 import org.apache.jmeter.save.converters.SampleResultConverter;
 
 import com.thoughtworks.xstream.converters.MarshallingContext;
@@ -89,6 +91,21 @@ public class HTTPResultConverter extends SampleResultConverter {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeSamplerData(XmlResultWriter writer, SampleResult res, SampleSaveConfiguration save) {
+        HTTPSampleResult httpResult = (HTTPSampleResult) res;
+        if (save.saveSamplerData(res)) {
+            writeString(writer, TAG_COOKIES, httpResult.getCookies());
+            writeString(writer, TAG_METHOD, httpResult.getHTTPMethod());
+            writeString(writer, TAG_QUERY_STRING, httpResult.getQueryString());
+            writeString(writer, TAG_REDIRECT_LOCATION, httpResult.getRedirectLocation());
+        }
+        if (save.saveUrl()) {
+            writeUrl(writer, res.getURL());
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
@@ -97,36 +114,39 @@ public class HTTPResultConverter extends SampleResultConverter {
         while (reader.hasMoreChildren()) {
             reader.moveDown();
             Object subItem = readItem(reader, context, res);
-            if (!retrieveItem(reader, context, res, subItem)) {
-                retrieveHTTPItem(reader, res, subItem);
+            if (!retrieveItem(reader, context, res, subItem) && subItem instanceof URL) {
+                readUrl(res, (URL) subItem);
             }
             reader.moveUp();
         }
-
-        // If we have a file, but no data, then read the file
-        String resultFileName = res.getResultFileName();
-        if (resultFileName.length()>0
-        &&  res.getResponseData().length == 0) {
-            readFile(resultFileName,res);
-        }
+        readResponseFile(res);
         return res;
     }
 
-    private void retrieveHTTPItem(HierarchicalStreamReader reader, 
-            HTTPSampleResult res, Object subItem) {
-        if (subItem instanceof URL) {
-            res.setURL((URL) subItem);
+    /** {@inheritDoc} */
+    @Override
+    public boolean readElement(SampleResult res, String nodeName, String value) {
+        if (super.readElement(res, nodeName, value)) {
+            return true;
+        }
+        HTTPSampleResult httpResult = (HTTPSampleResult) res;
+        if (nodeName.equals(TAG_COOKIES)) {
+            httpResult.setCookies(value);
+        } else if (nodeName.equals(TAG_METHOD)) {
+            httpResult.setHTTPMethod(value);
+        } else if (nodeName.equals(TAG_QUERY_STRING)) {
+            httpResult.setQueryString(value);
+        } else if (nodeName.equals(TAG_REDIRECT_LOCATION)) {
+            httpResult.setRedirectLocation(value);
         } else {
-            String nodeName = reader.getNodeName();
-            if (nodeName.equals(TAG_COOKIES)) {
-                res.setCookies((String) subItem);
-            } else if (nodeName.equals(TAG_METHOD)) {
-                res.setHTTPMethod((String) subItem);
-            } else if (nodeName.equals(TAG_QUERY_STRING)) {
-                res.setQueryString((String) subItem);
-            } else if (nodeName.equals(TAG_REDIRECT_LOCATION)) {
-                res.setRedirectLocation((String) subItem);
-            }
+            return false;
         }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void readUrl(SampleResult res, URL url) {
+        res.setURL(url);
     }
 }
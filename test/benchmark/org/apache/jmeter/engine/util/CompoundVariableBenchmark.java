@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine.util;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of evaluating the variable references found in typical sampler fields.
+ * <p>
+ * Run with: <code>ant benchmark -Dbenchmark.includes=CompoundVariableBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompoundVariableBenchmark {
+
+    private CompoundVariable singleVariable;
+
+    private CompoundVariable path;
+
+    @Setup
+    public void setup() {
+        // Benchmarks are run from the bin directory
+        JMeterUtils.setJMeterHome(new File(System.getProperty("user.dir")).getParent()); // $NON-NLS-1$
+        JMeterUtils.loadJMeterProperties("jmeter.properties"); // $NON-NLS-1$
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("host", "jmeter.apache.org");
+        vars.put("version", "v2");
+        vars.put("id", "42");
+        vars.put("page", "3");
+        JMeterContextService.getContext().setVariables(vars);
+        singleVariable = new CompoundVariable("${host}");
+        path = new CompoundVariable("/api/${version}/users/${id}/orders?page=${page}&size=20");
+    }
+
+    @Benchmark
+    public String singleVariable() {
+        return singleVariable.execute();
+    }
+
+    @Benchmark
+    public String pathWithVariables() {
+        return path.execute();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.util.JMeterUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of writing a sample result as a CSV line, with {@link CSVResultFormatter}
+ * and with the previous {@link CSVSaveService#resultToDelimitedString(SampleEvent, SampleResult, SampleSaveConfiguration, String)}
+ * followed by a <code>println</code>.
+ * <p>
+ * Run with: <code>ant benchmark -Dbenchmark.includes=CSVSaveServiceBenchmark -Dbenchmark.args="-f 1 -wi 5 -i 5 -prof gc"</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CSVSaveServiceBenchmark {
+
+    /** Timestamps in milliseconds or formatted */
+    @Param({ "ms", "yyyy/MM/dd HH:mm:ss.SSS" }) // $NON-NLS-1$ // $NON-NLS-2$
+    public String timestampFormat;
+
+    private SampleEvent event;
+
+    private SampleSaveConfiguration config;
+
+    private CSVResultFormatter formatter;
+
+    private PrintWriter out;
+
+    @Setup
+    public void setup() {
+        JMeterUtils.loadJMeterProperties("jmeter.properties"); // $NON-NLS-1$
+        config = new SampleSaveConfiguration(true);
+        config.setAsXml(false);
+        config.setDateFormat("ms".equals(timestampFormat) ? null : timestampFormat); // $NON-NLS-1$
+        SampleResult result = SampleResult.createTestSample(1_500_000_000_000L, 1_500_000_000_123L);
+        result.setSampleLabel("HTTP Request - home page"); // $NON-NLS-1$
+        result.setThreadName("Thread Group 1-10"); // $NON-NLS-1$
+        result.setResponseCode("200"); // $NON-NLS-1$
+        result.setResponseMessage("OK"); // $NON-NLS-1$
+        result.setDataType(SampleResult.TEXT);
+        result.setBytes(12345L);
+        result.setSentBytes(678L);
+        result.setLatency(45L);
+        result.setConnectTime(12L);
+        event = new SampleEvent(result, "Thread Group"); // $NON-NLS-1$
+        formatter = new CSVResultFormatter();
+        out = new PrintWriter(new NullWriter());
+    }
+
+    @Benchmark
+    public void resultToDelimitedString() {
+        out.println(CSVSaveService.resultToDelimitedString(event, event.getResult(), config, config.getDelimiter()));
+    }
+
+    @Benchmark
+    public void formatter() {
+        formatter.write(event, config, out);
+    }
+
+    /** Discards the characters, so that only the formatting is measured */
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            // NOOP
+        }
+
+        @Override
+        public void flush() {
+            // NOOP
+        }
+
+        @Override
+        public void close() {
+            // NOOP
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.save;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.samplers.BatchSampleSender;
+import org.apache.jmeter.samplers.BinarySampleBatch;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.util.JMeterUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of sending a batch of sample events to a client, as RMI does for
+ * {@link org.apache.jmeter.samplers.RemoteSampleListener#processBatch(List)}: the batch is serialized
+ * to bytes, then deserialized.
+ * Compares the Java serialization of the list of events sent by {@link BatchSampleSender}
+ * with the {@link BinarySampleBatch} encoding.
+ * <p>
+ * Run with: <code>ant benchmark -Dbenchmark.includes=SampleBatchSerializationBenchmark -Dbenchmark.args="-f 1 -wi 5 -i 5 -prof gc"</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SampleBatchSerializationBenchmark {
+
+    /** Number of events in a batch, 100 being the default of {@link BatchSampleSender} */
+    @Param({ "100", "1000" }) // $NON-NLS-1$ // $NON-NLS-2$
+    public int batchSize;
+
+    private List<SampleEvent> events;
+
+    private byte[] serializedList;
+
+    private byte[] serializedBatch;
+
+    @Setup
+    public void setup() throws IOException {
+        JMeterUtils.loadJMeterProperties("jmeter.properties"); // $NON-NLS-1$
+        events = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            SampleResult result = SampleResult.createTestSample(1_500_000_000_000L + i, 1_500_000_000_123L + i);
+            result.setSampleLabel("HTTP Request - page " + (i % 10)); // $NON-NLS-1$
+            result.setThreadName("Thread Group 1-" + (i % 50)); // $NON-NLS-1$
+            result.setResponseCode("200"); // $NON-NLS-1$
+            result.setResponseMessage("OK"); // $NON-NLS-1$
+            result.setDataType(SampleResult.TEXT);
+            result.setSuccessful(true);
+            result.setBytes(12345L);
+            result.setSentBytes(678L);
+            result.setLatency(45L);
+            result.setConnectTime(12L);
+            result.setAllThreads(50);
+            result.setGroupThreads(50);
+            events.add(new SampleEvent(result, "Thread Group", "server-1")); // $NON-NLS-1$ // $NON-NLS-2$
+        }
+        serializedList = serialize(new ArrayList<>(events));
+        serializedBatch = serialize(new BinarySampleBatch(events));
+    }
+
+    @Benchmark
+    public Object javaSerialization() throws IOException, ClassNotFoundException {
+        return deserialize(serialize(new ArrayList<>(events)));
+    }
+
+    @Benchmark
+    public Object binaryBatch() throws IOException, ClassNotFoundException {
+        return deserialize(serialize(new BinarySampleBatch(events)));
+    }
+
+    @Benchmark
+    public byte[] javaSerializationWrite() throws IOException {
+        return serialize(new ArrayList<>(events));
+    }
+
+    @Benchmark
+    public byte[] binaryBatchWrite() throws IOException {
+        return serialize(new BinarySampleBatch(events));
+    }
+
+    @Benchmark
+    public Object javaSerializationRead() throws IOException, ClassNotFoundException {
+        return deserialize(serializedList);
+    }
+
+    @Benchmark
+    public Object binaryBatchRead() throws IOException, ClassNotFoundException {
+        return deserialize(serializedBatch);
+    }
+
+    private static byte[] serialize(Object batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(batch);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.testelement;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of reading the properties an HTTP sampler uses for each sample,
+ * with {@link PropertyStore} and with the synchronized map previously used by {@link AbstractTestElement}.
+ * <p>
+ * Run with: <code>ant benchmark -Dbenchmark.includes=PropertyReadBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyReadBenchmark {
+
+    /** Properties read by HTTPSamplerBase#sample and HTTPHC4Impl for each request */
+    private static final String[] SAMPLING_PROPERTIES = {
+            HTTPSamplerBase.DOMAIN, HTTPSamplerBase.PORT, HTTPSamplerBase.PROTOCOL,
+            HTTPSamplerBase.PATH, HTTPSamplerBase.METHOD, HTTPSamplerBase.CONTENT_ENCODING,
+            HTTPSamplerBase.FOLLOW_REDIRECTS, HTTPSamplerBase.USE_KEEPALIVE,
+            HTTPSamplerBase.CONNECT_TIMEOUT, HTTPSamplerBase.RESPONSE_TIMEOUT,
+            HTTPSamplerBase.IMAGE_PARSER, HTTPSamplerBase.CONCURRENT_DWN,
+            HTTPSamplerBase.DO_MULTIPART_POST, HTTPSamplerBase.IP_SOURCE
+    };
+
+    private HTTPSamplerProxy sampler;
+
+    private PropertyStore store;
+
+    private Map<String, JMeterProperty> synchronizedMap;
+
+    @Setup
+    public void setup() {
+        sampler = new HTTPSamplerProxy();
+        sampler.setName("HTTP Request");
+        sampler.setDomain("jmeter.apache.org");
+        sampler.setPort(443);
+        sampler.setProtocol("https");
+        sampler.setPath("/usermanual/index.html");
+        sampler.setMethod("GET");
+        sampler.setContentEncoding("UTF-8");
+        sampler.setFollowRedirects(true);
+        sampler.setUseKeepAlive(true);
+        sampler.setConnectTimeout("5000");
+        sampler.setResponseTimeout("10000");
+        sampler.setImageParser(true);
+        sampler.setConcurrentDwn(true);
+        sampler.addArgument("q", "jmeter");
+        sampler.setRunningVersion(true);
+
+        store = new PropertyStore();
+        synchronizedMap = Collections.synchronizedMap(new LinkedHashMap<String, JMeterProperty>());
+        PropertyIterator iter = sampler.propertyIterator();
+        while (iter.hasNext()) {
+            JMeterProperty property = iter.next();
+            store.put(property.getName(), property);
+            synchronizedMap.put(property.getName(), property);
+        }
+    }
+
+    @Benchmark
+    public void samplerGetters(Blackhole bh) {
+        bh.consume(sampler.getDomain());
+        bh.consume(sampler.getPort());
+        bh.consume(sampler.getProtocol());
+        bh.consume(sampler.getPath());
+        bh.consume(sampler.getMethod());
+        bh.consume(sampler.getContentEncoding());
+        bh.consume(sampler.getFollowRedirects());
+        bh.consume(sampler.getUseKeepAlive());
+        bh.consume(sampler.getConnectTimeout());
+        bh.consume(sampler.getResponseTimeout());
+        bh.consume(sampler.isImageParser());
+        bh.consume(sampler.isConcurrentDwn());
+        bh.consume(sampler.getDoMultipart());
+        bh.consume(sampler.getIpSource());
+    }
+
+    @Benchmark
+    public void propertyStore(Blackhole bh) {
+        for (String name : SAMPLING_PROPERTIES) {
+            bh.consume(store.get(name));
+        }
+    }
+
+    @Benchmark
+    public void synchronizedLinkedHashMap(Blackhole bh) {
+        for (String name : SAMPLING_PROPERTIES) {
+            bh.consume(synchronizedMap.get(name));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the variable accesses done for each iteration by a counter and the references to it,
+ * with slots and with the map previously used by {@link JMeterVariables}.
+ * <p>
+ * Run with: <code>ant benchmark -Dbenchmark.includes=JMeterVariablesBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JMeterVariablesBenchmark {
+
+    private JMeterVariables vars;
+
+    private Map<String, Object> map;
+
+    private int slot;
+
+    private long counter;
+
+    @Setup
+    public void setup() {
+        slot = JMeterVariables.slotOf("counter"); // $NON-NLS-1$
+        vars = new JMeterVariables();
+        map = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            vars.put("var" + i, "value" + i); // $NON-NLS-1$ // $NON-NLS-2$
+            map.put("var" + i, "value" + i); // $NON-NLS-1$ // $NON-NLS-2$
+        }
+    }
+
+    /** Counter set once per iteration and read by a single reference */
+    @Benchmark
+    public String slotCounter() {
+        vars.putLong("counter", counter++); // $NON-NLS-1$
+        return vars.get(slot);
+    }
+
+    @Benchmark
+    public String mapCounter() {
+        map.put("counter", Long.toString(counter++)); // $NON-NLS-1$
+        return (String) map.get("counter"); // $NON-NLS-1$
+    }
+
+    /** Counter set once per iteration but not read */
+    @Benchmark
+    public void slotCounterNotRead() {
+        vars.putLong("counter", counter++); // $NON-NLS-1$
+    }
+
+    @Benchmark
+    public Object mapCounterNotRead() {
+        return map.put("counter", Long.toString(counter++)); // $NON-NLS-1$
+    }
+}
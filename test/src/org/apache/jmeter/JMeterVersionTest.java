@@ -121,8 +121,9 @@ public class JMeterVersionTest extends JMeterTestCase {
         propNames.remove("rat-tasks");
         versions.remove("rat-tasks");
         // remove optional hsqldb, jacoco and sonar jars (required for coverage reporting, not required for jmeter)
+        // remove optional JMH jars (required for benchmarks, not required for jmeter)
         for (String optLib : Arrays.asList("jacocoant", "sonarqube-ant-task", "hsqldb", "activemq-all",
-                "mina-core", "ftplet-api", "ftpserver-core")) {
+                "mina-core", "ftplet-api", "ftpserver-core", "jmh-core", "jmh-generator-annprocess", "jopt-simple")) {
             propNames.remove(optLib);
             versions.remove(optLib);
         }
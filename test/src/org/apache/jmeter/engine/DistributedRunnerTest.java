@@ -18,6 +18,9 @@
 
 package org.apache.jmeter.engine;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
@@ -29,6 +32,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
@@ -81,6 +86,81 @@ public class DistributedRunnerTest {
         obj.exit(hosts);
     }
 
+    @Test
+    public void testEnginesAreConfiguredAndStartedConcurrently() throws Exception {
+        createJmeterEnv();
+        JMeterUtils.setProperty(DistributedRunner.RETRIES_NUMBER, "1");
+        JMeterUtils.setProperty(DistributedRunner.CONTINUE_ON_FAIL, "false");
+        List<String> hosts = Arrays.asList("test1", "test2", "test3", "test4");
+        // Each engine waits for all the other ones, which never happens if they are called in turn
+        CountDownLatch configured = new CountDownLatch(hosts.size());
+        CountDownLatch started = new CountDownLatch(hosts.size());
+        DistributedRunnerEmul obj = new DistributedRunnerEmul();
+        for (int i = 0; i < hosts.size(); i++) {
+            obj.engines.add(new EmulatorEngine() {
+                @Override
+                public void configure(HashTree testPlan) {
+                    awaitOthers(configured);
+                }
+
+                @Override
+                public void runTest() {
+                    awaitOthers(started);
+                }
+            });
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        obj.setStdout(new PrintStream(output, true));
+        obj.init(hosts, new HashTree());
+        obj.start();
+        assertEquals(0, configured.getCount());
+        assertEquals(0, started.getCount());
+        String log = output.toString();
+        for (String host : hosts) {
+            assertTrue(log, log.contains("Configured remote engine: " + host + " in "));
+            assertTrue(log, log.contains("Started remote engine: " + host + " in "));
+        }
+    }
+
+    @Test
+    public void testUnexpectedFailureIsReported() throws Exception {
+        createJmeterEnv();
+        JMeterUtils.setProperty(DistributedRunner.RETRIES_NUMBER, "1");
+        JMeterUtils.setProperty(DistributedRunner.CONTINUE_ON_FAIL, "false");
+        List<String> hosts = Arrays.asList("test1", "test2", "test3");
+        DistributedRunnerEmul obj = new DistributedRunnerEmul();
+        for (int i = 0; i < hosts.size(); i++) {
+            obj.engines.add(new EmulatorEngine() {
+                @Override
+                public void runTest() {
+                    if ("test2".equals(host)) {
+                        throw new UnsupportedOperationException("Unexpected failure");
+                    }
+                }
+            });
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        obj.setStdout(new PrintStream(output, true));
+        obj.init(hosts, new HashTree());
+        obj.start();
+        String log = output.toString();
+        assertTrue(log, log.contains("Started remote engine: test1 in "));
+        assertFalse(log, log.contains("Started remote engine: test2 in "));
+        assertTrue(log, log.contains("Started remote engine: test3 in "));
+        assertTrue(log, log.contains("Remote engines have been started, except: [test2]"));
+    }
+
+    private static void awaitOthers(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Engines were not called concurrently");
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private void initRunner(DistributedRunnerEmul runner, List<String> hosts) {
         PrintStream origSystemOut = System.out;
         ByteArrayOutputStream catchingOut = new ByteArrayOutputStream();
@@ -123,7 +203,7 @@ public class DistributedRunnerTest {
         public List<EmulatorEngine> engines = new LinkedList<>();
 
         @Override
-        protected JMeterEngine createEngine(String address) {
+        protected synchronized JMeterEngine createEngine(String address) {
             if (engines.isEmpty()) {
                 throw new IllegalArgumentException("Throwing on Engine creation to simulate failure");
             }
@@ -135,7 +215,7 @@ public class DistributedRunnerTest {
 
     private static class EmulatorEngine implements JMeterEngine {
         private static final Logger log = LoggerFactory.getLogger(EmulatorEngine.class);
-        private String host;
+        String host;
 
         public EmulatorEngine() {
             log.debug("Creating emulator");
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.RemoteSampleListener;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jorphan.collections.HashTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SocketRemoteJMeterEngineTest extends JMeterTestCase {
+
+    /** Frames queued by the server for the client, small so that the client quickly blocks the sender */
+    private static final int QUEUE_SIZE = 2;
+
+    /** Batches of 64 KB, more than the socket buffers can hold */
+    private static final int LARGE_BATCH_COUNT = 500;
+
+    private EmulatorRemoteEngine serverEngine;
+
+    private SocketJMeterEngineServer server;
+
+    private SocketRemoteJMeterEngine client;
+
+    @Before
+    public void setUp() throws Exception {
+        serverEngine = new EmulatorRemoteEngine();
+        server = new SocketJMeterEngineServer(serverEngine,
+                new ServerSocket(0, 0, InetAddress.getLoopbackAddress()), QUEUE_SIZE);
+        server.start();
+        client = new SocketRemoteJMeterEngine("localhost:" + server.getPort(),
+                new Socket(InetAddress.getLoopbackAddress(), server.getPort()));
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testResultsFlowBackToTheListeners() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        HashTree tree = new HashTree();
+        tree.add(listener);
+        client.rconfigure(tree, "host", new File("base"), "script.jmx");
+        HashMap<String, String> properties = new HashMap<>();
+        properties.put("key", "value");
+        client.rsetProperties(properties);
+        client.rrunTest();
+
+        assertTrue("Test should end", listener.ended.await(10, TimeUnit.SECONDS));
+        assertEquals("host", serverEngine.host);
+        assertEquals(new File("base"), serverEngine.jmxBase);
+        assertEquals("script.jmx", serverEngine.scriptName);
+        assertEquals(properties, serverEngine.properties);
+        Object remoteListener = serverEngine.tree.list().iterator().next();
+        assertTrue(remoteListener instanceof RemoteSampleListener);
+        assertNotSame(listener, remoteListener);
+        assertEquals(EmulatorRemoteEngine.SAMPLE_COUNT, listener.labels.size());
+        for (int i = 0; i < EmulatorRemoteEngine.SAMPLE_COUNT; i++) {
+            assertEquals("sample " + i, listener.labels.get(i));
+        }
+        assertEquals("host", listener.endedHost);
+    }
+
+    @Test
+    public void testServerErrorsAreReported() throws Exception {
+        client.rconfigure(new HashTree(), "host", null, null);
+        serverEngine.busy = true;
+        try {
+            client.rconfigure(new HashTree(), "host", null, null);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertEquals("Engine is busy", expected.getMessage());
+        }
+        try {
+            client.rrunTest();
+            fail("Expected JMeterEngineException");
+        } catch (JMeterEngineException expected) {
+            assertEquals("Cannot run", expected.getMessage());
+        }
+        // the connection is still usable
+        client.rreset();
+        assertTrue(serverEngine.reset);
+    }
+
+    @Test
+    public void testOversizedFrameClosesConnection() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(Integer.MAX_VALUE - 8);
+            out.flush();
+            socket.setSoTimeout(10000);
+            assertEquals("Server should close the connection without reading the frame",
+                    -1, socket.getInputStream().read());
+        }
+        // Other clients are still served
+        client.rreset();
+        assertTrue(serverEngine.reset);
+    }
+
+    @Test
+    public void testSlowListenerBlocksSender() throws Exception {
+        BlockingListener listener = new BlockingListener();
+        HashTree tree = new HashTree();
+        tree.add(listener);
+        client.rconfigure(tree, "host", null, null);
+        RemoteSampleListener remoteListener = (RemoteSampleListener) serverEngine.tree.list().iterator().next();
+        AtomicInteger sent = new AtomicInteger();
+        Thread sender = new Thread(() -> {
+            try {
+                for (int i = 0; i < LARGE_BATCH_COUNT; i++) {
+                    SampleResult result = SampleResult.createTestSample(i);
+                    result.setSampleLabel("sample " + i);
+                    result.setResponseData(new byte[64 * 1024]);
+                    remoteListener.processBatch(Collections.singletonList(new SampleEvent(result, "Thread Group")));
+                    sent.incrementAndGet();
+                }
+            } catch (RemoteException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        sender.start();
+
+        // The listener holds the client, so the socket buffers and the queue of the server fill up
+        long deadline = System.currentTimeMillis() + 10000;
+        int sentWhileBlocked = -1;
+        while (sent.get() != sentWhileBlocked && System.currentTimeMillis() < deadline) {
+            sentWhileBlocked = sent.get();
+            Thread.sleep(200);
+        }
+        assertEquals("Sender should wait for room in the queue", Thread.State.TIMED_WAITING, sender.getState());
+        assertEquals(sentWhileBlocked, sent.get());
+        assertTrue("Only " + sentWhileBlocked + " batches should be sent", sentWhileBlocked < LARGE_BATCH_COUNT);
+        assertEquals(1, listener.labels.size());
+
+        listener.released.countDown();
+        sender.join(30000);
+        assertEquals(LARGE_BATCH_COUNT, sent.get());
+        deadline = System.currentTimeMillis() + 30000;
+        while (listener.labels.size() < LARGE_BATCH_COUNT && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(LARGE_BATCH_COUNT, listener.labels.size());
+        for (int i = 0; i < LARGE_BATCH_COUNT; i++) {
+            assertEquals("sample " + i, listener.labels.get(i));
+        }
+    }
+
+    @Test
+    public void testSenderFailsWhenClientDisconnects() throws Exception {
+        BlockingListener listener = new BlockingListener();
+        HashTree tree = new HashTree();
+        tree.add(listener);
+        client.rconfigure(tree, "host", null, null);
+        RemoteSampleListener remoteListener = (RemoteSampleListener) serverEngine.tree.list().iterator().next();
+        AtomicInteger sent = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread sender = new Thread(() -> {
+            try {
+                for (int i = 0; i < LARGE_BATCH_COUNT; i++) {
+                    SampleResult result = SampleResult.createTestSample(i);
+                    result.setResponseData(new byte[64 * 1024]);
+                    remoteListener.processBatch(Collections.singletonList(new SampleEvent(result, "Thread Group")));
+                    sent.incrementAndGet();
+                }
+            } catch (RemoteException e) {
+                failure.set(e);
+            }
+        });
+        sender.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        int sentWhileBlocked = -1;
+        while (sent.get() != sentWhileBlocked && System.currentTimeMillis() < deadline) {
+            sentWhileBlocked = sent.get();
+            Thread.sleep(200);
+        }
+        assertTrue(sentWhileBlocked < LARGE_BATCH_COUNT);
+
+        client.close();
+        listener.released.countDown();
+        sender.join(10000);
+        assertFalse("Sender should not wait for a closed connection", sender.isAlive());
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof RemoteException);
+    }
+
+    private static class EmulatorRemoteEngine implements RemoteJMeterEngine {
+        static final int SAMPLE_COUNT = 250;
+
+        volatile HashTree tree;
+        volatile String host;
+        volatile File jmxBase;
+        volatile String scriptName;
+        volatile HashMap<String, String> properties;
+        volatile boolean busy;
+        volatile boolean reset;
+
+        @Override
+        public void rconfigure(HashTree testTree, String host, File jmxBase, String scriptName) {
+            if (busy) {
+                throw new IllegalStateException("Engine is busy");
+            }
+            this.tree = testTree;
+            this.host = host;
+            this.jmxBase = jmxBase;
+            this.scriptName = scriptName;
+        }
+
+        @Override
+        public void rrunTest() throws JMeterEngineException {
+            if (busy) {
+                throw new JMeterEngineException("Cannot run");
+            }
+            // Sends the samples from another thread, as the threads of a test would
+            new Thread(() -> {
+                try {
+                    RemoteSampleListener listener = (RemoteSampleListener) tree.list().iterator().next();
+                    listener.testStarted(host);
+                    for (int i = 0; i < SAMPLE_COUNT; i += 10) {
+                        List<SampleEvent> batch = new ArrayList<>();
+                        for (int j = i; j < i + 10; j++) {
+                            SampleResult result = SampleResult.createTestSample(j);
+                            result.setSampleLabel("sample " + j);
+                            batch.add(new SampleEvent(result, "Thread Group"));
+                        }
+                        listener.processBatch(batch);
+                    }
+                    listener.testEnded(host);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).start();
+        }
+
+        @Override
+        public void rstopTest(boolean now) {
+            // NOOP
+        }
+
+        @Override
+        public void rreset() {
+            reset = true;
+        }
+
+        @Override
+        public void rsetProperties(HashMap<String, String> p) {
+            properties = p;
+        }
+
+        @Override
+        public void rexit() {
+            // NOOP
+        }
+    }
+
+    /**
+     * Waits to be released in the first batch, as a client too slow to read the samples
+     */
+    private static class BlockingListener extends RecordingListener {
+        final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public void processBatch(List<SampleEvent> samples) {
+            super.processBatch(samples);
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class RecordingListener implements RemoteSampleListener {
+        final List<String> labels = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch ended = new CountDownLatch(1);
+        volatile String endedHost;
+
+        @Override
+        public void testStarted() {
+            // NOOP
+        }
+
+        @Override
+        public void testStarted(String host) {
+            // NOOP
+        }
+
+        @Override
+        public void testEnded() {
+            ended.countDown();
+        }
+
+        @Override
+        public void testEnded(String host) {
+            endedHost = host;
+            ended.countDown();
+        }
+
+        @Override
+        public void processBatch(List<SampleEvent> samples) {
+            for (SampleEvent sample : samples) {
+                sampleOccurred(sample);
+            }
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            labels.add(e.getResult().getSampleLabel());
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+            // NOOP
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+            // NOOP
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package org.apache.jmeter.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.rmi.Remote;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.control.GenericController;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.junit.Test;
+
+public class TestClientJMeterEngine extends JMeterTestCase {
+
+    /** Stands for a listener of the client, exported to the servers */
+    private static final class Listener implements Remote, Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    @Test
+    public void testPlansAreSentToSeveralServersAtOnce() throws Exception {
+        GenericController controller = new GenericController();
+        controller.setName("controller");
+        Listener listener = new Listener();
+        HashTree testTree = new ListedHashTree();
+        testTree.add(controller, listener);
+
+        int engineCount = 2;
+        CountDownLatch configuring = new CountDownLatch(engineCount);
+        List<HashTree> received = Collections.synchronizedList(new ArrayList<>());
+        RemoteJMeterEngine remote = (RemoteJMeterEngine) Proxy.newProxyInstance(
+                RemoteJMeterEngine.class.getClassLoader(), new Class<?>[] { RemoteJMeterEngine.class },
+                (proxy, method, args) -> {
+                    if ("rconfigure".equals(method.getName())) {
+                        received.add((HashTree) args[0]);
+                        configuring.countDown();
+                        // Only returns when the other engines are sending their plans as well
+                        assertTrue("Plans were not sent at once", configuring.await(10, TimeUnit.SECONDS));
+                    }
+                    return null;
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(engineCount);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < engineCount; i++) {
+                ClientJMeterEngine engine = new ClientJMeterEngine("host" + i, remote);
+                engine.configure(testTree);
+                sends.add(executor.submit(() -> {
+                    engine.sendTest();
+                    return null;
+                }));
+            }
+            for (Future<?> send : sends) {
+                send.get(20, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(engineCount, received.size());
+        for (HashTree tree : received) {
+            Object copiedController = tree.getArray()[0];
+            assertNotSame(controller, copiedController);
+            assertEquals("controller", ((GenericController) copiedController).getName());
+            assertSame("Remote objects must not be copied", listener, tree.getArray(copiedController)[0]);
+        }
+    }
+}
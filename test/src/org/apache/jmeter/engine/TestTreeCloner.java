@@ -19,11 +19,13 @@
 package org.apache.jmeter.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.jmeter.config.Argument;
 import org.apache.jmeter.config.Arguments;
+import org.apache.jmeter.config.ConfigTestElement;
 import org.apache.jmeter.control.GenericController;
 import org.apache.jmeter.junit.JMeterTestCase;
 import org.apache.jmeter.reporters.ResultCollector;
@@ -31,6 +33,7 @@ import org.apache.jmeter.testelement.TestPlan;
 import org.apache.jmeter.testelement.property.CollectionProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.PropertyIterator;
+import org.apache.jmeter.testelement.property.TestElementProperty;
 import org.apache.jorphan.collections.ListedHashTree;
 import org.junit.Test;
 
@@ -82,4 +85,40 @@ public class TestTreeCloner extends JMeterTestCase {
                 assertTrue(iter.next().isRunningVersion());
             }
         }
+
+        @Test
+        public void testCloningSharesImmutableProperties() throws Exception {
+            ListedHashTree original = new ListedHashTree();
+            ConfigTestElement config = new ConfigTestElement();
+            config.setName("config");
+            config.setProperty("path", "/index.html");
+            Arguments args = new Arguments();
+            args.addArgument("arg1", "val1");
+            config.setProperty(new TestElementProperty("args", args));
+            original.add(config);
+            original.traverse(new TurnElementsOn());
+            original.traverse(new ShareImmutableProperties());
+
+            TreeCloner cloner = new TreeCloner();
+            original.traverse(cloner);
+            ConfigTestElement clone1 = (ConfigTestElement) cloner.getClonedTree().getArray()[0];
+            cloner = new TreeCloner();
+            original.traverse(cloner);
+            ConfigTestElement clone2 = (ConfigTestElement) cloner.getClonedTree().getArray()[0];
+
+            assertSame(config.getProperty("path"), clone1.getProperty("path"));
+            assertSame(clone1.getProperty("path"), clone2.getProperty("path"));
+            Argument arg1 = ((Arguments) clone1.getProperty("args").getObjectValue()).getArgument(0);
+            Argument arg2 = ((Arguments) clone2.getProperty("args").getObjectValue()).getArgument(0);
+            assertNotSame(arg1, arg2);
+            assertSame(arg1.getProperty(Argument.VALUE), arg2.getProperty(Argument.VALUE));
+
+            // Copy on write: a clone modifying a shared property does not affect the others
+            clone1.setProperty("path", "/changed.html");
+            assertEquals("/changed.html", clone1.getPropertyAsString("path"));
+            assertEquals("/index.html", clone2.getPropertyAsString("path"));
+            assertEquals("/index.html", config.getPropertyAsString("path"));
+            clone1.recoverRunningVersion();
+            assertEquals("/index.html", clone1.getPropertyAsString("path"));
+        }
 }
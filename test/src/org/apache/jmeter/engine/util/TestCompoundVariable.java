@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.engine.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCompoundVariable extends JMeterTestCase {
+
+    private JMeterVariables vars;
+
+    @Before
+    public void setUp() {
+        vars = new JMeterVariables();
+        JMeterContextService.getContext().setVariables(vars);
+    }
+
+    @Test
+    public void testLiteral() {
+        CompoundVariable cv = new CompoundVariable("just some text");
+        assertFalse(cv.hasFunction());
+        assertEquals("just some text", cv.execute());
+        assertEquals("just some text", cv.execute());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals("", new CompoundVariable("").execute());
+        assertEquals("", new CompoundVariable().execute());
+    }
+
+    @Test
+    public void testSingleVariable() {
+        CompoundVariable cv = new CompoundVariable("${user}");
+        assertTrue(cv.hasFunction());
+        assertEquals("${user}", cv.execute());
+        vars.put("user", "u1");
+        assertEquals("u1", cv.execute());
+        vars.put("user", "u2");
+        assertEquals("u2", cv.execute());
+    }
+
+    @Test
+    public void testVariablesAndLiterals() {
+        CompoundVariable cv = new CompoundVariable("/api/${version}/users/${id}?q=\\${x}");
+        vars.put("version", "v2");
+        vars.put("id", "42");
+        assertEquals("/api/v2/users/42?q=${x}", cv.execute());
+        vars.put("id", "43");
+        assertEquals("/api/v2/users/43?q=${x}", cv.execute());
+    }
+
+    @Test
+    public void testAdjacentLiteralsAreMerged() {
+        // Unterminated reference is kept as literal text next to the leading text
+        CompoundVariable cv = new CompoundVariable("a ${ z");
+        assertEquals("a  z", cv.execute());
+    }
+
+    @Test
+    public void testFunctionAndVariable() {
+        CompoundVariable cv = new CompoundVariable("${__intSum(1,2)}-${user}");
+        vars.put("user", "u1");
+        assertEquals("3-u1", cv.execute());
+    }
+
+    @Test
+    public void testGetFunctionSharesPlan() {
+        CompoundVariable cv = new CompoundVariable("id=${id}");
+        CompoundVariable copy = cv.getFunction();
+        vars.put("id", "7");
+        assertEquals("id=7", copy.execute());
+        cv.clear();
+        assertEquals("", cv.execute());
+        assertEquals("id=7", copy.execute());
+    }
+}
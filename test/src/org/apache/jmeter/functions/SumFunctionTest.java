@@ -75,6 +75,20 @@ public class SumFunctionTest extends JMeterTestCase {
         checkSum(longSum,minLongVal, new String[]{maxLongVal,"1"}); // wrap-round check
     }
 
+    @Test
+    public void longSumOfVariables() throws Exception {
+        vars.putLong("counter", 41L);
+        vars.put("step", "1");
+        checkSum(new LongSum(), "42", new String[]{"${counter}", "${step}"});
+        vars.putLong("counter", Long.MIN_VALUE);
+        checkSum(new LongSum(), Long.toString(Long.MIN_VALUE + 1), new String[]{"${counter}", "${step}"});
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void longSumOfUndefinedVariable() throws Exception {
+        checkSum(new LongSum(), "1", new String[]{"${undefined}", "1"});
+    }
+
     // Perform a sum and check the results
     private void checkSum(AbstractFunction func, String value, String[] addends)  throws Exception {
         Collection<CompoundVariable> parms = Arrays.stream(addends)
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedCsvSampleReaderTest extends JMeterTestCase {
+
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,success";
+
+    /** Enough rows to split the file into several ranges */
+    private static final int NR_ROWS = 60000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeFile(String... extraLines) throws IOException {
+        File file = folder.newFile("results.csv");
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (int i = 0; i < NR_ROWS; i++) {
+                writer.write(Long.toString(1_500_000_000_000L + i));
+                writer.write(',');
+                writer.write(Integer.toString(i % 1000));
+                writer.write(',');
+                switch (i % 7) {
+                    case 0:
+                        writer.write("\"label, with separator " + i + "\"");
+                        break;
+                    case 1:
+                        writer.write("\"label\nwith newline " + i + "\"");
+                        break;
+                    case 2:
+                        writer.write("\"label \"\"quoted\"\" " + i + "\"");
+                        break;
+                    case 3:
+                        writer.write("label été " + i);
+                        break;
+                    default:
+                        writer.write("label " + i);
+                        break;
+                }
+                writer.write(",200,true");
+                writer.write(i % 5 == 0 ? "\r\n" : "\n");
+            }
+            for (String line : extraLines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Read the file with both readers and check that they return the same samples
+     * @return the error thrown by both readers, or null
+     */
+    private static SampleException assertSameSamples(File file) {
+        SampleException expectedError = null;
+        SampleException actualError = null;
+        try (CsvSampleReader expected = new CsvSampleReader(file, ',', true);
+                MappedCsvSampleReader actual = new MappedCsvSampleReader(file, ',', true, 3)) {
+            assertEquals(expected.getMetadata().toString(), actual.getMetadata().toString());
+            long count = 0;
+            while (expectedError == null && actualError == null) {
+                Sample expectedSample = null;
+                Sample actualSample = null;
+                try {
+                    expectedSample = expected.readSample();
+                } catch (SampleException e) {
+                    expectedError = e;
+                }
+                try {
+                    actualSample = actual.readSample();
+                } catch (SampleException e) {
+                    actualError = e;
+                }
+                if (expectedSample == null && actualSample == null) {
+                    break;
+                }
+                assertNotNull("Missing sample " + count, actualSample);
+                assertNotNull("Unexpected sample " + count, expectedSample);
+                assertEquals(expectedSample.getSampleRow(), actualSample.getSampleRow());
+                assertEquals(expectedSample.toString(), actualSample.toString());
+                assertEquals(expectedSample.getStartTime(), actualSample.getStartTime());
+                count++;
+            }
+        }
+        if (expectedError == null) {
+            assertNull(actualError);
+            return null;
+        }
+        assertNotNull(actualError);
+        assertEquals(expectedError.getMessage(), actualError.getMessage());
+        assertEquals(String.valueOf(expectedError.getCause()), String.valueOf(actualError.getCause()));
+        return actualError;
+    }
+
+    @Test
+    public void testReadsSameSamplesAsCsvSampleReader() throws Exception {
+        File file = writeFile();
+        assertTrue(file.length() > 2 * 1024 * 1024);
+        assertNull(assertSameSamples(file));
+    }
+
+    @Test
+    public void testPeekAndHasNext() throws Exception {
+        File file = writeFile();
+        try (MappedCsvSampleReader reader = new MappedCsvSampleReader(file, ',', true, 2)) {
+            int count = 0;
+            while (reader.hasNext()) {
+                Sample peeked = reader.peek();
+                assertEquals(peeked.toString(), reader.readSample().toString());
+                count++;
+            }
+            assertEquals(NR_ROWS, count);
+            assertNull(reader.readSample());
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testColumnMismatchFailsLikeCsvSampleReader() throws Exception {
+        assertNotNull(assertSameSamples(writeFile("1,2,3")));
+    }
+
+    @Test
+    public void testQuoteInPlainFieldFailsLikeCsvSampleReader() throws Exception {
+        assertNotNull(assertSameSamples(writeFile("1500000000000,1,lab\"el,200,true")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorWithInvalidFile() throws Exception {
+        try (MappedCsvSampleReader reader = new MappedCsvSampleReader(
+                new File(folder.getRoot(), "not-available.csv"), ',', true, 1)) {
+            reader.readSample();
+        }
+    }
+}
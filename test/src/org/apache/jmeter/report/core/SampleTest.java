@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.save.CSVSaveService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SampleTest extends JMeterTestCase {
+
+    private static final SampleMetadata METADATA = new SampleMetadata(',',
+            CSVSaveService.TIME_STAMP, CSVSaveService.CSV_ELAPSED, CSVSaveService.LABEL,
+            CSVSaveService.SUCCESSFUL, CSVSaveService.CSV_BYTES, CSVSaveService.CSV_THREAD_COUNT1,
+            CSVSaveService.CSV_CONNECT_TIME);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTypedColumnsAreParsed() {
+        Sample sample = new Sample(0, METADATA, "1500000000000", " 42 ", "label", "true", "-7",
+                "2147483647", "+3");
+        assertEquals(1500000000000L, sample.getTimestamp());
+        assertEquals(42, sample.getElapsedTime());
+        assertEquals("label", sample.getName());
+        assertTrue(sample.getSuccess());
+        assertEquals(-7, sample.getReceivedBytes());
+        assertEquals(Integer.MAX_VALUE, sample.getGroupThreads());
+        assertEquals(3, sample.getConnectTime());
+        assertEquals(0, sample.getSentBytes());
+        assertFalse(sample.hasCorrectedTime());
+        assertEquals(42, sample.getCorrectedTime());
+        assertEquals(42, sample.getEndTime() - sample.getStartTime());
+    }
+
+    @Test
+    public void testInvalidValueFailsWhenRead() {
+        Sample sample = new Sample(0, METADATA, "1500000000000", "1.5", "label", "false", "0",
+                "2147483648", "1");
+        assertFalse(sample.getSuccess());
+        try {
+            sample.getElapsedTime();
+            fail("Expected SampleException");
+        } catch (SampleException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("fieldValue:'1.5'"));
+        }
+        try {
+            sample.getGroupThreads();
+            fail("Expected SampleException");
+        } catch (SampleException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("fieldValue:'2147483648'"));
+        }
+    }
+
+    @Test(expected = SampleException.class)
+    public void testMissingColumnFailsWhenRead() {
+        new Sample(0, METADATA, "1", "2", "label", "true", "0", "1", "1").getLatency();
+    }
+
+    @Test
+    public void testParseLongLikeConverters() throws Exception {
+        String[] values = { "0", "-0", "+12", " 12\t", "-9223372036854775808", "9223372036854775807",
+                "123456789012345678", "١٢" };
+        for (String value : values) {
+            assertEquals(value, Converters.convert(long.class, value).longValue(), Sample.parseLong(value));
+        }
+        String[] invalidValues = { "", " ", "-", "+", "1.0", "1e3", "12a", "9223372036854775808", null };
+        for (String value : invalidValues) {
+            assertEquals(value, Long.MIN_VALUE, Sample.parseLong(value));
+        }
+    }
+
+    @Test
+    public void testReaderSharesRepeatedValues() throws Exception {
+        File file = folder.newFile("results.csv");
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("timeStamp,elapsed,label,responseCode,success\n");
+            for (int i = 0; i < 10; i++) {
+                writer.write("15000000000" + i + "," + i + ",label " + (i % 2) + ",200,true\n");
+            }
+        }
+        try (CsvSampleReader reader = new CsvSampleReader(file, ',', true)) {
+            Sample first = reader.readSample();
+            Sample second = reader.readSample();
+            Sample third = reader.readSample();
+            assertEquals("label 0", first.getName());
+            assertSame(first.getName(), third.getName());
+            assertSame(first.getResponseCode(), second.getResponseCode());
+            assertEquals(150000000002L, third.getTimestamp());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.save.CSVSaveService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExternalSampleSorterTest extends JMeterTestCase {
+
+    private static final int NR_SAMPLES = 120000;
+
+    private static final long START = 1_500_000_000_000L;
+
+    private static final SampleMetadata METADATA = new SampleMetadata(',',
+            CSVSaveService.TIME_STAMP, CSVSaveService.CSV_ELAPSED, CSVSaveService.LABEL);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExternalSampleSorter sorter;
+
+    /**
+     * @param late
+     *            index of samples consumed 10 minutes after their time stamp,
+     *            the other ones being consumed at most 1 second late
+     */
+    private static List<Sample> createSamples(int... late) {
+        List<Sample> samples = new ArrayList<>(NR_SAMPLES);
+        Random random = new Random(42);
+        for (int i = 0; i < NR_SAMPLES; i++) {
+            long timestamp = START + i * 10L - random.nextInt(1000);
+            for (int index : late) {
+                if (i == index) {
+                    timestamp -= 600000;
+                }
+            }
+            samples.add(new Sample(i, METADATA, Long.toString(timestamp), "1", "label " + i));
+        }
+        return samples;
+    }
+
+    private List<Sample> sort(List<Sample> samples, long maxLateness) {
+        List<Sample> sorted = new ArrayList<>();
+        sorter = new ExternalSampleSorter(new FieldSampleComparator(CSVSaveService.TIME_STAMP));
+        sorter.setName("sorter");
+        sorter.setMaxLateness(maxLateness);
+        sorter.addSampleConsumer(new AbstractSampleConsumer() {
+            @Override
+            public void startConsuming() {
+                // Nothing to do
+            }
+
+            @Override
+            public void consume(Sample sample, int channel) {
+                sorted.add(sample);
+            }
+
+            @Override
+            public void stopConsuming() {
+                // Nothing to do
+            }
+        });
+        SampleContext context = new SampleContext();
+        context.setWorkingDirectory(folder.getRoot());
+        sorter.setSampleContext(context);
+        sorter.setConsumedMetadata(METADATA, 0);
+        sorter.startConsuming();
+        for (Sample sample : samples) {
+            sorter.consume(sample, 0);
+        }
+        sorter.stopConsuming();
+        return sorted;
+    }
+
+    private static void assertSorted(List<Sample> expected, List<Sample> sorted) {
+        assertEquals(expected.size(), sorted.size());
+        for (int i = 1; i < sorted.size(); i++) {
+            assertTrue("Sample " + i + " is not sorted",
+                    sorted.get(i - 1).getTimestamp() <= sorted.get(i).getTimestamp());
+        }
+    }
+
+    @Test
+    public void testSortsNearlyOrderedSamplesWithinWindow() {
+        List<Sample> samples = createSamples();
+        assertSorted(samples, sort(samples, 60000));
+        assertEquals(0, sorter.getLateSampleCount());
+        assertTrue(sorter.getMaxDisorder() > 500);
+        assertTrue(sorter.getMaxDisorder() < 1000);
+    }
+
+    @Test
+    public void testFallsBackToChunksForLateSamples() {
+        List<Sample> samples = createSamples(70000, 110000);
+        assertSorted(samples, sort(samples, 60000));
+        assertEquals(2, sorter.getLateSampleCount());
+        assertTrue(sorter.getMaxDisorder() > 600000);
+    }
+
+    @Test
+    public void testSortsAllSamplesByChunks() {
+        List<Sample> samples = createSamples(70000);
+        assertSorted(samples, sort(samples, -1));
+        assertEquals(0, sorter.getLateSampleCount());
+        assertEquals(0, sorter.getMaxDisorder());
+    }
+
+    @Test
+    public void testSortsNoSample() {
+        assertTrue(sort(new ArrayList<>(), 60000).isEmpty());
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleException;
+import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.report.processor.graph.impl.ResponseTimeOverTimeGraphConsumer;
+import org.apache.jmeter.report.processor.graph.impl.ResponseTimePerSampleGraphConsumer;
+import org.apache.jmeter.report.processor.graph.impl.TotalTPSGraphConsumer;
+import org.apache.jmeter.save.CSVSaveService;
+import org.junit.Test;
+
+public class ShardedSampleConsumerTest extends JMeterTestCase {
+
+    private static final int NR_SAMPLES = 10000;
+
+    private static final SampleMetadata METADATA = new SampleMetadata(',',
+            CSVSaveService.TIME_STAMP, CSVSaveService.CSV_ELAPSED, CSVSaveService.LABEL,
+            CSVSaveService.RESPONSE_CODE, CSVSaveService.RESPONSE_MESSAGE, CSVSaveService.SUCCESSFUL,
+            CSVSaveService.FAILURE_MESSAGE, CSVSaveService.CSV_BYTES, CSVSaveService.CSV_SENT_BYTES,
+            CSVSaveService.CSV_THREAD_COUNT1, CSVSaveService.CSV_THREAD_COUNT2,
+            CSVSaveService.CSV_LATENCY, CSVSaveService.CSV_CONNECT_TIME);
+
+    private static final String[] CONSUMER_NAMES = { "statistics", "errors", "requests",
+            "responseTimeOverTime", "totalTPS" };
+
+    private static List<Sample> createSamples() {
+        List<Sample> samples = new ArrayList<>(NR_SAMPLES);
+        for (int i = 0; i < NR_SAMPLES; i++) {
+            boolean success = i % 13 != 0;
+            samples.add(new Sample(i, METADATA,
+                    Long.toString(1_500_000_000_000L + i * 37L), Integer.toString((i * 7919) % 2000),
+                    "label " + (i % 11), success ? "200" : "500", success ? "OK" : "Error " + (i % 3),
+                    Boolean.toString(success), "", Integer.toString(i % 4096), "120", "10", "10",
+                    "5", "1"));
+        }
+        return samples;
+    }
+
+    private static AbstractSampleConsumer createChain() {
+        FilterConsumer filter = new FilterConsumer();
+        filter.setReverseFilter(true);
+        StatisticsSummaryConsumer statistics = new StatisticsSummaryConsumer();
+        statistics.setName(CONSUMER_NAMES[0]);
+        statistics.setHasOverallResult(true);
+        filter.addSampleConsumer(statistics);
+        ErrorsSummaryConsumer errors = new ErrorsSummaryConsumer();
+        errors.setName(CONSUMER_NAMES[1]);
+        filter.addSampleConsumer(errors);
+        RequestsSummaryConsumer requests = new RequestsSummaryConsumer();
+        requests.setName(CONSUMER_NAMES[2]);
+        filter.addSampleConsumer(requests);
+        ResponseTimeOverTimeGraphConsumer responseTime = new ResponseTimeOverTimeGraphConsumer();
+        responseTime.setName(CONSUMER_NAMES[3]);
+        responseTime.setGranularity(10000);
+        responseTime.initialize();
+        filter.addSampleConsumer(responseTime);
+        TotalTPSGraphConsumer totalTps = new TotalTPSGraphConsumer();
+        totalTps.setName(CONSUMER_NAMES[4]);
+        totalTps.setGranularity(10000);
+        totalTps.initialize();
+        filter.addSampleConsumer(totalTps);
+        return filter;
+    }
+
+    private static Map<String, Object> consume(SampleConsumer consumer, List<Sample> samples) {
+        SampleContext context = new SampleContext();
+        consumer.setSampleContext(context);
+        consumer.setConsumedMetadata(METADATA, 0);
+        consumer.startConsuming();
+        for (Sample sample : samples) {
+            consumer.consume(sample, 0);
+        }
+        consumer.stopConsuming();
+        return context.getData();
+    }
+
+    private static void assertSameResult(String path, ResultData expected, ResultData actual) {
+        assertEquals(path, expected.getClass(), actual.getClass());
+        if (expected instanceof MapResultData) {
+            MapResultData expectedMap = (MapResultData) expected;
+            MapResultData actualMap = (MapResultData) actual;
+            assertEquals(path, expectedMap.entrySet().size(), actualMap.entrySet().size());
+            for (Map.Entry<String, ResultData> entry : expectedMap.entrySet()) {
+                assertSameResult(path + "." + entry.getKey(), entry.getValue(),
+                        actualMap.getResult(entry.getKey()));
+            }
+        } else if (expected instanceof ListResultData) {
+            ListResultData expectedList = (ListResultData) expected;
+            ListResultData actualList = (ListResultData) actual;
+            assertEquals(path, expectedList.getSize(), actualList.getSize());
+            for (int i = 0; i < expectedList.getSize(); i++) {
+                assertSameResult(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+            }
+        } else {
+            Object expectedValue = ((ValueResultData) expected).getValue();
+            Object actualValue = ((ValueResultData) actual).getValue();
+            if (expectedValue instanceof Double) {
+                // Means are merged, so they can differ by rounding errors
+                double value = ((Double) expectedValue).doubleValue();
+                assertEquals(path, value, ((Double) actualValue).doubleValue(), Math.abs(value) * 1e-9);
+            } else {
+                assertEquals(path, expectedValue, actualValue);
+            }
+        }
+    }
+
+    @Test
+    public void testShardsGiveSameResultsAsSingleChain() {
+        List<Sample> samples = createSamples();
+        Map<String, Object> expected = consume(createChain(), samples);
+
+        List<AbstractSampleConsumer> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(createChain());
+        }
+        Map<String, Object> actual = consume(new ShardedSampleConsumer(shards), samples);
+
+        for (String name : CONSUMER_NAMES) {
+            assertTrue(name, expected.containsKey(name));
+            assertSameResult(name, (ResultData) expected.get(name), (ResultData) actual.get(name));
+        }
+    }
+
+    @Test
+    public void testSamplesAreProducedToConsumers() {
+        List<AbstractSampleConsumer> shards = new ArrayList<>();
+        shards.add(createChain());
+        shards.add(createChain());
+        ShardedSampleConsumer sharded = new ShardedSampleConsumer(shards);
+        RequestsSummaryConsumer requests = new RequestsSummaryConsumer();
+        requests.setName("sequentialRequests");
+        sharded.addSampleConsumer(requests);
+
+        Map<String, Object> results = consume(sharded, createSamples());
+        assertSameResult("requests", (ResultData) results.get(CONSUMER_NAMES[2]),
+                (ResultData) results.get("sequentialRequests"));
+    }
+
+    @Test
+    public void testOrderDependentGraphCannotBeMerged() {
+        ResponseTimePerSampleGraphConsumer graph = new ResponseTimePerSampleGraphConsumer();
+        graph.initialize();
+        assertFalse(graph.canMerge());
+        AbstractSampleConsumer chain = createChain();
+        chain.addSampleConsumer(graph);
+        assertFalse(ShardedSampleConsumer.canMerge(chain));
+        assertTrue(ShardedSampleConsumer.canMerge(createChain()));
+        try {
+            new ShardedSampleConsumer(Collections.singletonList(chain));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // OK
+        }
+    }
+
+    @Test
+    public void testShardFailureIsRethrown() {
+        List<AbstractSampleConsumer> shards = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            FilterConsumer failing = new FilterConsumer();
+            failing.setSamplePredicate(sample -> {
+                throw new IllegalStateException("Failing " + sample.getName());
+            });
+            shards.add(failing);
+        }
+        try {
+            consume(new ShardedSampleConsumer(shards), createSamples());
+            fail("Expected SampleException");
+        } catch (SampleException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Failing label"));
+        }
+    }
+}
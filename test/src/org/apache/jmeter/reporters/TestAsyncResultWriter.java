@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.junit.Test;
+
+public class TestAsyncResultWriter extends JMeterTestCase {
+
+    private static final int THREADS = 4;
+
+    private static final int SAMPLES = 1000;
+
+    private static SampleSaveConfiguration csvConfig() {
+        SampleSaveConfiguration config = new SampleSaveConfiguration(false);
+        config.setAsXml(false);
+        config.setLabel(true);
+        config.setThreadName(true);
+        return config;
+    }
+
+    private static SampleEvent event(String label) {
+        SampleResult result = new SampleResult();
+        result.setSampleLabel(label);
+        result.setThreadName("thread");
+        return new SampleEvent(result, "group");
+    }
+
+    @Test
+    public void testWritesAllSamplesInOrderOfEachThread() throws Exception {
+        StringWriter file = new StringWriter();
+        AsyncResultWriter writer = new AsyncResultWriter("test", new PrintWriter(file), null, 16, 1000L, false, false, 0L);
+        SampleSaveConfiguration config = csvConfig();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int threadNumber = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < SAMPLES; i++) {
+                    try {
+                        writer.write(event(threadNumber + "-" + i), config);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+
+        assertEquals(THREADS * SAMPLES, writer.getWrittenCount());
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(0, writer.getQueueDepth());
+        String[] lines = file.toString().split("\r?\n");
+        assertEquals(THREADS * SAMPLES, lines.length);
+        int[] next = new int[THREADS];
+        for (String line : lines) {
+            String[] fields = line.split(",");
+            assertEquals("thread", fields[1]);
+            String[] label = fields[0].split("-");
+            int threadNumber = Integer.parseInt(label[0]);
+            assertEquals(next[threadNumber]++, Integer.parseInt(label[1]));
+        }
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        StringWriter file = new StringWriter();
+        // Buffered file and long flush interval, so that only flush() makes the samples visible
+        AsyncResultWriter writer = new AsyncResultWriter("test", new PrintWriter(new BufferedWriter(file)), null,
+                10, 60000L, false, false, 0L);
+        writer.write(event("first"), csvConfig());
+        writer.flush();
+        assertEquals("first,thread", file.toString().trim());
+        writer.close();
+    }
+
+    @Test
+    public void testDropOnOverflow() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        StringWriter file = new StringWriter();
+        // The writer thread waits in the first write, so the queue of one sample fills up
+        Writer blockingFile = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                writing.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                file.write(cbuf, off, len);
+            }
+
+            @Override
+            public void flush() {
+                // NOOP
+            }
+
+            @Override
+            public void close() {
+                // NOOP
+            }
+        };
+        AsyncResultWriter writer = new AsyncResultWriter("test", new PrintWriter(blockingFile), null,
+                1, 1000L, false, true, 0L);
+        SampleSaveConfiguration config = csvConfig();
+        writer.write(event("0"), config);
+        writing.await();
+        for (int i = 1; i < 10; i++) {
+            writer.write(event(Integer.toString(i)), config);
+        }
+        // Counts are available while the writer is running
+        assertEquals(1, writer.getQueueDepth());
+        assertEquals(8, writer.getDroppedCount());
+        assertEquals(0, writer.getBlockedCount());
+        released.countDown();
+        writer.close();
+
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(8, writer.getDroppedCount());
+        String[] lines = file.toString().split("\r?\n");
+        assertEquals(2, lines.length);
+        assertEquals("0,thread", lines[0]);
+        assertEquals("1,thread", lines[1]);
+    }
+
+    @Test(timeout = 30000)
+    public void testDropsSamplesWhenWriterThreadDies() throws Exception {
+        Writer failingFile = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                throw new AssertionError("Writer thread stops"); // NOSONAR not caught by the writer thread
+            }
+
+            @Override
+            public void flush() {
+                // NOOP
+            }
+
+            @Override
+            public void close() {
+                // NOOP
+            }
+        };
+        AsyncResultWriter writer = new AsyncResultWriter("test", new PrintWriter(failingFile), null,
+                1, 1000L, false, false, 0L);
+        SampleSaveConfiguration config = csvConfig();
+        // Waiting for room in the full queue ends when the writer thread has died
+        for (int i = 0; i < 5; i++) {
+            writer.write(event(Integer.toString(i)), config);
+        }
+        writer.flush();
+        writer.close();
+
+        assertEquals(0, writer.getWrittenCount());
+        // The dead writer thread took at most two samples, and one more stays in the queue
+        assertTrue("dropped=" + writer.getDroppedCount(), writer.getDroppedCount() >= 2);
+    }
+
+    @Test
+    public void testXml() throws Exception {
+        StringWriter file = new StringWriter();
+        AsyncResultWriter writer = new AsyncResultWriter("test", new PrintWriter(file), null, 10, 1000L, true, false, 0L);
+        SampleSaveConfiguration config = new SampleSaveConfiguration(false);
+        config.setAsXml(true);
+        config.setLabel(true);
+        SampleEvent event = event("xml");
+        event.getResult().setSaveConfig(config);
+        writer.write(event, config);
+        writer.close();
+        assertTrue(file.toString(), file.toString().contains("lb=\"xml\""));
+    }
+}
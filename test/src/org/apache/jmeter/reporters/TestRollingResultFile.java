@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.report.core.BinarySampleReader;
+import org.apache.jmeter.report.core.CsvSampleReader;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleReader;
+import org.apache.jmeter.report.core.SegmentedSampleReader;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BinaryResultReader;
+import org.apache.jmeter.save.BinaryResultWriter;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.ResultFileSegments;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestRollingResultFile extends JMeterTestCase {
+
+    private static final int SAMPLES = 5000;
+
+    private static final long MAX_BYTES = 20000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SampleSaveConfiguration config(boolean xml) {
+        SampleSaveConfiguration config = new SampleSaveConfiguration(false);
+        config.setAsXml(xml);
+        config.setFieldNames(true);
+        config.setTimestamp(true);
+        config.setLabel(true);
+        config.setTime(true);
+        config.setSuccess(true);
+        return config;
+    }
+
+    private static SampleEvent event(int i) {
+        SampleResult result = new SampleResult(1_500_000_000_000L + i, i % 100);
+        result.setSampleLabel("sample " + i);
+        result.setSuccessful(true);
+        return new SampleEvent(result, "group");
+    }
+
+    private static File writeSamples(File file, SampleSaveConfiguration config, boolean compress) throws Exception {
+        String filename = file.getCanonicalPath();
+        RollingResultFile rolling = new RollingResultFile(filename, ResultCollector.openFile(filename, config),
+                MAX_BYTES, 0, compress);
+        for (int i = 0; i < SAMPLES; i++) {
+            SampleEvent event = event(i);
+            event.getResult().setSaveConfig(config);
+            rolling.write(event, config);
+        }
+        rolling.close();
+        return file;
+    }
+
+    private static int countSamples(List<File> segments) {
+        int count = 0;
+        try (SampleReader reader = new SegmentedSampleReader(segments,
+                segment -> new CsvSampleReader(segment, ',', true))) {
+            Sample sample;
+            while ((sample = reader.readSample()) != null) {
+                assertEquals("sample " + count, sample.getName());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testCsvSegmentsAreCompleteFiles() throws Exception {
+        SampleSaveConfiguration config = config(false);
+        File file = writeSamples(new File(folder.getRoot(), "results.csv"), config, false);
+
+        List<File> segments = ResultFileSegments.resolve(file);
+        assertTrue("Expected several segments but got " + segments, segments.size() > 2);
+        assertEquals(file, segments.get(segments.size() - 1));
+        String header = CSVSaveService.printableFieldNamesToString(config);
+        for (int i = 0; i < segments.size(); i++) {
+            File segment = segments.get(i);
+            if (i < segments.size() - 1) {
+                assertEquals(ResultFileSegments.segment(file, i + 1), segment);
+            }
+            List<String> lines = Files.readAllLines(segment.toPath(), StandardCharsets.UTF_8);
+            assertEquals(header, lines.get(0));
+        }
+        assertEquals(SAMPLES, countSamples(segments));
+    }
+
+    @Test
+    public void testCompressesClosedSegments() throws Exception {
+        File file = writeSamples(new File(folder.getRoot(), "results.csv"), config(false), true);
+
+        List<File> segments = ResultFileSegments.resolve(file);
+        assertTrue("Expected several segments but got " + segments, segments.size() > 2);
+        for (File segment : segments.subList(0, segments.size() - 1)) {
+            assertTrue(segment + " is not compressed", ResultFileSegments.isCompressed(segment));
+        }
+        assertFalse(ResultFileSegments.segment(file, 1).exists());
+        assertEquals(SAMPLES, countSamples(segments));
+    }
+
+    @Test
+    public void testXmlSegmentsAreCompleteFiles() throws Exception {
+        File file = writeSamples(new File(folder.getRoot(), "results.jtl"), config(true), false);
+
+        List<File> segments = ResultFileSegments.resolve(file);
+        assertTrue("Expected several segments but got " + segments, segments.size() > 2);
+        int samples = 0;
+        for (File segment : segments) {
+            String xml = new String(Files.readAllBytes(segment.toPath()), StandardCharsets.UTF_8);
+            assertTrue(xml.startsWith("<?xml "));
+            assertTrue(xml.endsWith("</testResults>\n"));
+            samples += xml.split("<sample ", -1).length - 1;
+        }
+        assertEquals(SAMPLES, samples);
+    }
+
+    @Test
+    public void testContinuesNumberingOfExistingSegments() throws Exception {
+        File file = new File(folder.getRoot(), "results.csv");
+        assertTrue(ResultFileSegments.segment(file, 1).createNewFile());
+        assertTrue(new File(ResultFileSegments.segment(file, 7).getPath()
+                + ResultFileSegments.COMPRESSED_SUFFIX).createNewFile());
+        assertEquals(7, ResultFileSegments.lastSegmentIndex(file));
+
+        writeSamples(file, config(false), false);
+        assertFalse(ResultFileSegments.segment(file, 2).exists());
+        assertTrue(ResultFileSegments.segment(file, 8).exists());
+        // The segments that were there before are not part of the file
+        List<File> segments = ResultFileSegments.resolve(file);
+        assertEquals(ResultFileSegments.segment(file, 8), segments.get(0));
+        assertEquals(SAMPLES, countSamples(segments));
+    }
+
+    @Test
+    public void testCompressedBinarySegmentsAreRead() throws Exception {
+        SampleSaveConfiguration config = config(false);
+        File segment = folder.newFile("results.1.jtl");
+        try (BinaryResultWriter writer = BinaryResultWriter.create(new FileOutputStream(segment), config, false)) {
+            for (int i = 0; i < SAMPLES; i++) {
+                writer.write(event(i), config);
+            }
+        }
+        RollingResultFile.gzip(segment);
+        File compressed = new File(segment.getPath() + ResultFileSegments.COMPRESSED_SUFFIX);
+        assertTrue(compressed.isFile());
+
+        assertTrue(BinaryResultReader.isBinaryResultFile(compressed));
+        int count = 0;
+        try (SampleReader reader = new BinarySampleReader(compressed)) {
+            Sample sample;
+            while ((sample = reader.readSample()) != null) {
+                assertEquals("sample " + count, sample.getName());
+                count++;
+            }
+        }
+        assertEquals(SAMPLES, count);
+    }
+}
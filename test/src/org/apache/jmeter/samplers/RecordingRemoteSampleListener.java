@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the batches sent to a remote listener, serializing them as soon as
+ * they are sent like RMI does
+ */
+class RecordingRemoteSampleListener implements RemoteSampleListener {
+
+    final List<Class<?>> batchClasses = new ArrayList<>();
+
+    final List<byte[]> batches = new ArrayList<>();
+
+    String endedHost;
+
+    static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * @return the events of all the batches, as received by the client
+     */
+    @SuppressWarnings("unchecked")
+    List<SampleEvent> getReceivedEvents() throws IOException, ClassNotFoundException {
+        List<SampleEvent> events = new ArrayList<>();
+        for (byte[] batch : batches) {
+            events.addAll((List<SampleEvent>) deserialize(batch));
+        }
+        return events;
+    }
+
+    @Override
+    public void testStarted() {
+        // not used
+    }
+
+    @Override
+    public void testStarted(String host) {
+        // not used
+    }
+
+    @Override
+    public void testEnded() {
+        // not used
+    }
+
+    @Override
+    public void testEnded(String host) {
+        endedHost = host;
+    }
+
+    @Override
+    public void processBatch(List<SampleEvent> samples) {
+        batchClasses.add(samples.getClass());
+        try {
+            batches.add(serialize(samples));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        // not used
+    }
+
+    @Override
+    public void sampleStarted(SampleEvent e) {
+        // not used
+    }
+
+    @Override
+    public void sampleStopped(SampleEvent e) {
+        // not used
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.apache.jmeter.samplers.RecordingRemoteSampleListener.deserialize;
+import static org.apache.jmeter.samplers.RecordingRemoteSampleListener.serialize;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Test;
+
+public class TestBinarySampleBatch extends JMeterTestCase {
+
+    private static SampleResult createResult(int i) throws Exception {
+        SampleResult result = new SampleResult(1_500_000_000_000L + i * 13L, 100 + i % 50);
+        result.setSampleLabel("label " + (i % 5));
+        result.setThreadName("Thread Group 1-" + (i % 3));
+        result.setSuccessful(i % 7 != 0);
+        result.setResponseCode(result.isSuccessful() ? "200" : "500");
+        result.setResponseMessage(result.isSuccessful() ? "OK" : "Internal Server Error");
+        result.setDataType(SampleResult.TEXT);
+        result.setContentType("text/html; charset=UTF-8");
+        result.setDataEncoding("UTF-8");
+        result.setURL(new URL("http://example.org/path/" + (i % 5) + "?q=été"));
+        result.setRequestHeaders("Accept: */*");
+        result.setResponseHeaders("HTTP/1.1 200 OK\nContent-Type: text/html");
+        result.setResponseData("response été " + i, "UTF-8");
+        result.setIdleTime(i % 3);
+        result.setLatency(40 + i % 10);
+        result.setConnectTime(i % 4);
+        result.setBytes(1000L + i);
+        result.setSentBytes(200L + i);
+        result.setHeadersSize(50);
+        result.setBodySize(950L + i);
+        result.setGroupThreads(3);
+        result.setAllThreads(6);
+        if (i % 4 == 0) {
+            result.setIntendedStartTime(result.getStartTime() - 25);
+        }
+        if (!result.isSuccessful()) {
+            AssertionResult assertion = new AssertionResult("Response Assertion");
+            assertion.setFailure(true);
+            assertion.setFailureMessage("Test failed: code expected to equal 200");
+            result.addAssertionResult(assertion);
+        }
+        if (i % 10 == 0) {
+            SampleResult subResult = new SampleResult(result.getStartTime() + 5, 20);
+            subResult.setSampleLabel("sub " + i);
+            subResult.setSuccessful(true);
+            subResult.setSamplerData("GET http://example.org/sub");
+            result.storeSubResult(subResult, false);
+        }
+        return result;
+    }
+
+    private static List<SampleEvent> createEvents(int count) throws Exception {
+        List<SampleEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new SampleEvent(createResult(i), "Thread Group " + (i % 2), "host-" + (i % 2)));
+        }
+        return events;
+    }
+
+    private static void assertSameResult(SampleResult expected, SampleResult actual) {
+        String label = expected.getSampleLabel();
+        assertEquals(label, expected.getSampleLabel(), actual.getSampleLabel());
+        assertEquals(label, expected.getTimeStamp(), actual.getTimeStamp());
+        assertEquals(label, expected.getStartTime(), actual.getStartTime());
+        assertEquals(label, expected.getEndTime(), actual.getEndTime());
+        assertEquals(label, expected.getTime(), actual.getTime());
+        assertEquals(label, expected.getIdleTime(), actual.getIdleTime());
+        assertEquals(label, expected.getIntendedStartTime(), actual.getIntendedStartTime());
+        assertEquals(label, expected.getLatency(), actual.getLatency());
+        assertEquals(label, expected.getConnectTime(), actual.getConnectTime());
+        assertEquals(label, expected.isSuccessful(), actual.isSuccessful());
+        assertEquals(label, expected.getThreadName(), actual.getThreadName());
+        assertEquals(label, expected.getResponseCode(), actual.getResponseCode());
+        assertEquals(label, expected.getResponseMessage(), actual.getResponseMessage());
+        assertEquals(label, expected.getDataType(), actual.getDataType());
+        assertEquals(label, expected.getContentType(), actual.getContentType());
+        assertEquals(label, expected.getDataEncodingNoDefault(), actual.getDataEncodingNoDefault());
+        assertEquals(label, expected.getUrlAsString(), actual.getUrlAsString());
+        assertEquals(label, expected.getSamplerData(), actual.getSamplerData());
+        assertEquals(label, expected.getRequestHeaders(), actual.getRequestHeaders());
+        assertEquals(label, expected.getResponseHeaders(), actual.getResponseHeaders());
+        assertArrayEquals(label, expected.getResponseData(), actual.getResponseData());
+        assertEquals(label, expected.getSampleCount(), actual.getSampleCount());
+        assertEquals(label, expected.getErrorCount(), actual.getErrorCount());
+        assertEquals(label, expected.getBytesAsLong(), actual.getBytesAsLong());
+        assertEquals(label, expected.getSentBytes(), actual.getSentBytes());
+        assertEquals(label, expected.getHeadersSize(), actual.getHeadersSize());
+        assertEquals(label, expected.getBodySizeAsLong(), actual.getBodySizeAsLong());
+        assertEquals(label, expected.getGroupThreads(), actual.getGroupThreads());
+        assertEquals(label, expected.getAllThreads(), actual.getAllThreads());
+        assertEquals(label, Arrays.toString(expected.getAssertionResults()),
+                Arrays.toString(actual.getAssertionResults()));
+        assertEquals(label, expected.getFirstAssertionFailureMessage(), actual.getFirstAssertionFailureMessage());
+        SampleResult[] expectedSubResults = expected.getSubResults();
+        SampleResult[] actualSubResults = actual.getSubResults();
+        assertEquals(label, expectedSubResults.length, actualSubResults.length);
+        for (int i = 0; i < expectedSubResults.length; i++) {
+            assertSameResult(expectedSubResults[i], actualSubResults[i]);
+            assertEquals(actual, actualSubResults[i].getParent());
+        }
+    }
+
+    @Test
+    public void testSerializationKeepsEvents() throws Exception {
+        List<SampleEvent> events = createEvents(200);
+        @SuppressWarnings("unchecked")
+        List<SampleEvent> decoded = (List<SampleEvent>) deserialize(serialize(new BinarySampleBatch(events)));
+        assertEquals(events.size(), decoded.size());
+        for (int i = 0; i < events.size(); i++) {
+            SampleEvent expected = events.get(i);
+            SampleEvent actual = decoded.get(i);
+            assertEquals(expected.getThreadGroup(), actual.getThreadGroup());
+            assertEquals(expected.getHostname(), actual.getHostname());
+            assertEquals(expected.isTransactionSampleEvent(), actual.isTransactionSampleEvent());
+            assertSameResult(expected.getResult(), actual.getResult());
+        }
+    }
+
+    @Test
+    public void testSerializationIsSmallerThanJavaSerialization() throws Exception {
+        List<SampleEvent> events = createEvents(100);
+        int javaSize = serialize(new ArrayList<>(events)).length;
+        int binarySize = serialize(new BinarySampleBatch(events)).length;
+        assertTrue("Binary batch of " + binarySize + " bytes should be much smaller than " + javaSize,
+                binarySize * 3 < javaSize);
+    }
+
+    @Test
+    public void testTruncatedBatchIsRejected() throws Exception {
+        byte[] data = BinarySampleCodec.encode(createEvents(10));
+        try {
+            BinarySampleCodec.decode(Arrays.copyOf(data, data.length - 3));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("Truncated"));
+        }
+    }
+
+    @Test
+    public void testHugeCountsAreRejectedBeforeAllocating() throws Exception {
+        byte[] maxInt = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        // version, number of events
+        assertCorrupted(concat(new byte[] {1}, maxInt));
+        // version, 1 event, flags, thread group, hostname, number of variables
+        assertCorrupted(concat(new byte[] {1, 1, 0, 0, 0}, maxInt));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] data = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, data, first.length, second.length);
+        return data;
+    }
+
+    private static void assertCorrupted(byte[] data) {
+        try {
+            BinarySampleCodec.decode(data);
+            fail("Expected StreamCorruptedException");
+        } catch (StreamCorruptedException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("Invalid number of elements"));
+        } catch (IOException e) {
+            fail("Expected StreamCorruptedException, got " + e);
+        }
+    }
+
+    @Test
+    public void testSenderSendsBinaryBatches() throws Exception {
+        RecordingRemoteSampleListener listener = new RecordingRemoteSampleListener();
+        BinarySampleSender sender = new BinarySampleSender(listener);
+        sender.readResolve();
+        List<SampleEvent> events = createEvents(3);
+        for (SampleEvent event : events) {
+            sender.sampleOccurred(event);
+        }
+        sender.testEnded("host");
+        assertEquals(1, listener.batches.size());
+        assertEquals(BinarySampleBatch.class, listener.batchClasses.get(0));
+        assertEquals(3, listener.getReceivedEvents().size());
+        assertEquals("host", listener.endedHost);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.apache.jmeter.samplers.RecordingRemoteSampleListener.serialize;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Test;
+
+public class TestHistogramSampleSender extends JMeterTestCase {
+
+    private static final int NR_SAMPLES = 20000;
+
+    private static final long START = 1_500_000_000_000L;
+
+    private static List<SampleEvent> createEvents() {
+        Random random = new Random(42);
+        List<SampleEvent> events = new ArrayList<>(NR_SAMPLES);
+        for (int i = 0; i < NR_SAMPLES; i++) {
+            long elapsed = (long) Math.exp(random.nextGaussian() + 5);
+            SampleResult result = new SampleResult(START + i, elapsed);
+            result.setSampleLabel("label " + (i % 3));
+            result.setThreadName("Thread Group 1-" + (i % 10));
+            boolean success = i % 50 != 0;
+            result.setSuccessful(success);
+            result.setResponseCode(success ? "200" : "500");
+            result.setResponseMessage(success ? "OK" : "Internal Server Error");
+            if (!success && i % 100 == 0) {
+                AssertionResult assertion = new AssertionResult("Response Assertion");
+                assertion.setFailure(true);
+                assertion.setFailureMessage("Test failed");
+                result.addAssertionResult(assertion);
+            }
+            result.setLatency(elapsed / 2);
+            result.setBytes(1000L + i % 7);
+            result.setSentBytes(100L);
+            result.setGroupThreads(6 + i % 5);
+            result.setAllThreads(11 + i % 5);
+            events.add(new SampleEvent(result, "Thread Group", "host"));
+        }
+        return events;
+    }
+
+    private static RecordingRemoteSampleListener send(List<SampleEvent> events) throws Exception {
+        RecordingRemoteSampleListener listener = new RecordingRemoteSampleListener();
+        HistogramSampleSender sender = new HistogramSampleSender(listener);
+        sender.readResolve();
+        for (SampleEvent event : events) {
+            sender.sampleOccurred(event);
+        }
+        sender.testEnded("host");
+        return listener;
+    }
+
+    private static Map<String, DescriptiveStatistics> statisticsByLabel(List<SampleEvent> events) {
+        Map<String, DescriptiveStatistics> statistics = new HashMap<>();
+        for (SampleEvent event : events) {
+            statistics.computeIfAbsent(event.getResult().getSampleLabel(), k -> new DescriptiveStatistics())
+                .addValue(event.getResult().getTime());
+        }
+        return statistics;
+    }
+
+    private static long[] totals(List<SampleEvent> events) {
+        long[] totals = new long[4];
+        for (SampleEvent event : events) {
+            SampleResult result = event.getResult();
+            totals[0] += result.getSampleCount();
+            totals[1] += result.getErrorCount();
+            totals[2] += result.getBytesAsLong();
+            totals[3] += result.getSentBytes();
+        }
+        return totals;
+    }
+
+    @Test
+    public void testClientComputesSamePercentiles() throws Exception {
+        List<SampleEvent> events = createEvents();
+        RecordingRemoteSampleListener listener = send(events);
+        assertEquals(HistogramSampleBatch.class, listener.batchClasses.get(0));
+        List<SampleEvent> received = listener.getReceivedEvents();
+
+        assertEquals(events.size(), received.size());
+        assertArrayEquals(totals(events), totals(received));
+        Map<String, DescriptiveStatistics> expected = statisticsByLabel(events);
+        Map<String, DescriptiveStatistics> actual = statisticsByLabel(received);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, DescriptiveStatistics> entry : expected.entrySet()) {
+            DescriptiveStatistics expectedStatistics = entry.getValue();
+            DescriptiveStatistics actualStatistics = actual.get(entry.getKey());
+            assertEquals(expectedStatistics.getN(), actualStatistics.getN());
+            assertEquals(expectedStatistics.getMin(), actualStatistics.getMin(), 0);
+            assertEquals(expectedStatistics.getMax(), actualStatistics.getMax(), 0);
+            for (double percentile : new double[] { 50, 90, 95, 99 }) {
+                double value = expectedStatistics.getPercentile(percentile);
+                assertEquals(entry.getKey() + " " + percentile, value,
+                        actualStatistics.getPercentile(percentile), value * 0.001);
+            }
+            assertEquals(expectedStatistics.getMean(), actualStatistics.getMean(),
+                    expectedStatistics.getMean() * 0.001);
+        }
+    }
+
+    @Test
+    public void testFailuresKeepTheirMessages() throws Exception {
+        List<SampleEvent> events = createEvents();
+        // The start times depend on sampleresult.timestamp.start, read once by SampleResult
+        long firstStart = Long.MAX_VALUE;
+        long lastStart = Long.MIN_VALUE;
+        for (SampleEvent event : events) {
+            firstStart = Math.min(firstStart, event.getResult().getStartTime());
+            lastStart = Math.max(lastStart, event.getResult().getStartTime());
+        }
+        List<SampleEvent> received = send(events).getReceivedEvents();
+        int failures = 0;
+        int assertionFailures = 0;
+        int maxGroupThreads = 0;
+        for (SampleEvent event : received) {
+            SampleResult result = event.getResult();
+            assertTrue(result.isSynthetic());
+            assertEquals("Thread Group", event.getThreadGroup());
+            assertEquals("host", event.getHostname());
+            // Thread of the last sample and highest numbers of active threads of the aggregate
+            assertTrue(result.getThreadName(), result.getThreadName().startsWith("Thread Group 1-"));
+            assertTrue(result.getGroupThreads() >= 6 && result.getGroupThreads() <= 10);
+            assertEquals(result.getGroupThreads() + 5, result.getAllThreads());
+            maxGroupThreads = Math.max(maxGroupThreads, result.getGroupThreads());
+            assertTrue(result.getLatency() <= result.getTime());
+            assertTrue(result.getConnectTime() <= result.getTime());
+            assertTrue(result.getStartTime() >= firstStart && result.getStartTime() <= lastStart);
+            assertEquals(result.getStartTime() + result.getTime(), result.getEndTime());
+            if (!result.isSuccessful()) {
+                failures++;
+                assertEquals("500", result.getResponseCode());
+                assertEquals("Internal Server Error", result.getResponseMessage());
+                if ("Test failed".equals(result.getFirstAssertionFailureMessage())) {
+                    assertionFailures++;
+                }
+            } else {
+                assertEquals("200", result.getResponseCode());
+                assertEquals(0, result.getAssertionResults().length);
+            }
+        }
+        assertEquals(NR_SAMPLES / 50, failures);
+        assertEquals(NR_SAMPLES / 100, assertionFailures);
+        assertEquals(10, maxGroupThreads);
+    }
+
+    @Test
+    public void testElapsedTimesDoNotFollowStartTimes() throws Exception {
+        List<SampleEvent> received = send(createEvents()).getReceivedEvents();
+        DescriptiveStatistics first = new DescriptiveStatistics();
+        DescriptiveStatistics second = new DescriptiveStatistics();
+        long previousStart = Long.MIN_VALUE;
+        List<SampleResult> results = new ArrayList<>();
+        for (SampleEvent event : received) {
+            SampleResult result = event.getResult();
+            if ("label 0".equals(result.getSampleLabel()) && result.isSuccessful()) {
+                results.add(result);
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            SampleResult result = results.get(i);
+            assertTrue("Samples of an aggregate are in the order of their start times",
+                    result.getStartTime() >= previousStart);
+            previousStart = result.getStartTime();
+            (i < results.size() / 2 ? first : second).addValue(result.getTime());
+        }
+        assertEquals(first.getMean(), second.getMean(), first.getMean() * 0.2);
+    }
+
+    @Test
+    public void testAggregatesAreMuchSmallerThanSamples() throws Exception {
+        List<SampleEvent> events = createEvents();
+        RecordingRemoteSampleListener listener = send(events);
+        long size = 0;
+        for (byte[] batch : listener.batches) {
+            size += batch.length;
+        }
+        long samplesSize = serialize(new BinarySampleBatch(events)).length;
+        assertTrue("Aggregates of " + size + " bytes should be much smaller than samples of " + samplesSize,
+                size * 5 < samplesSize);
+    }
+
+    /**
+     * @return a batch of one aggregate of samples values, with one bucket
+     *         of bucketCount values
+     */
+    private static byte[] createBatch(int samples, long bucketCount) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(3); // version
+            out.writeInt(1); // aggregates
+            for (int i = 0; i < 3; i++) {
+                out.writeInt(-1); // label, thread group and hostname
+            }
+            out.writeBoolean(false);
+            out.writeBoolean(true);
+            for (int i = 0; i < 4; i++) {
+                out.writeInt(-1); // response code and message, data type and failure message
+            }
+            for (int i = 0; i < 7; i++) {
+                out.writeLong(1); // start times and sums
+            }
+            out.writeInt(-1); // thread name
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeLong(10); // min
+            out.writeLong(10); // max
+            out.writeInt(samples);
+            out.writeInt(1); // buckets
+            out.writeLong(10);
+            out.writeLong(bucketCount);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static HistogramSampleBatch readBatch(byte[] data) throws IOException {
+        HistogramSampleBatch batch = new HistogramSampleBatch();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            batch.readExternal(in);
+        }
+        return batch;
+    }
+
+    @Test
+    public void testBucketCountsMustMatchSamples() throws Exception {
+        assertEquals(2, readBatch(createBatch(2, 2)).size());
+        for (long[] invalid : new long[][] { { 2, 3 }, { 2, 1L << 32 }, { 2, -1 }, { -1, 1 }, { 0, 1 } }) {
+            try {
+                readBatch(createBatch((int) invalid[0], invalid[1]));
+                fail("Batch of " + invalid[0] + " samples with " + invalid[1] + " in its bucket should be rejected");
+            } catch (StreamCorruptedException expected) {
+                // expected
+            }
+        }
+    }
+}
@@ -382,5 +382,24 @@ public class TestSampleResult implements JMeterSerialTest {
             assertFalse("Expected false on first call of markFile with null", secondResult.markFile(null));
             assertTrue("Expected true on second call of markFile with null", secondResult.markFile(null));
         }
-}
 
+        @Test
+        public void testCorrectedTime() {
+            SampleResult res = new SampleResult();
+            res.setStampAndTime(1000L, 50L);
+            long start = res.getStartTime();
+            assertEquals("Unpaced sample is not corrected", 50L, res.getCorrectedTime());
+            res.setIntendedStartTime(start - 100L);
+            assertEquals(150L, res.getCorrectedTime());
+            assertEquals(50L, res.getTime());
+            res.setIntendedStartTime(start + 100L);
+            assertEquals("Early start is not corrected", 50L, res.getCorrectedTime());
+
+            SampleResult read = new SampleResult();
+            read.setStampAndTime(1000L, 50L);
+            read.setCorrectedTime(150L);
+            assertEquals(read.getStartTime() - 100L, read.getIntendedStartTime());
+            read.setCorrectedTime(50L);
+            assertEquals(0L, read.getIntendedStartTime());
+        }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import static org.apache.jmeter.samplers.RecordingRemoteSampleListener.deserialize;
+import static org.apache.jmeter.samplers.RecordingRemoteSampleListener.serialize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Test;
+
+public class TestSpoolSampleSender extends JMeterTestCase {
+
+    private static final int NR_SAMPLES = 1050;
+
+    private static List<SampleEvent> createEvents(int count) {
+        List<SampleEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SampleResult result = new SampleResult(1_500_000_000_000L + i, i % 500);
+            result.setSampleLabel("label " + i);
+            result.setThreadName("Thread Group 1-" + (i % 10));
+            result.setResponseCode("200");
+            result.setSuccessful(true);
+            events.add(new SampleEvent(result, "Thread Group", "host"));
+        }
+        return events;
+    }
+
+    private static void send(RemoteSampleListener listener, List<SampleEvent> events) throws Exception {
+        SpoolSampleSender sender = new SpoolSampleSender(listener);
+        sender.readResolve();
+        for (SampleEvent event : events) {
+            sender.sampleOccurred(event);
+        }
+        sender.testEnded("host");
+    }
+
+    private static void assertReceived(List<SampleEvent> expected, List<SampleEvent> received) {
+        assertEquals(expected.size(), received.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SampleResult expectedResult = expected.get(i).getResult();
+            SampleResult receivedResult = received.get(i).getResult();
+            assertEquals(expectedResult.getSampleLabel(), receivedResult.getSampleLabel());
+            assertEquals(expectedResult.getTimeStamp(), receivedResult.getTimeStamp());
+            assertEquals(expectedResult.getTime(), receivedResult.getTime());
+            assertEquals(expectedResult.getThreadName(), receivedResult.getThreadName());
+        }
+    }
+
+    @Test
+    public void testSamplesAreStreamedInOrder() throws Exception {
+        List<SampleEvent> events = createEvents(NR_SAMPLES);
+        RecordingRemoteSampleListener listener = new RecordingRemoteSampleListener();
+        send(listener, events);
+
+        assertEquals("host", listener.endedHost);
+        assertEquals(11, listener.batches.size());
+        for (Class<?> batchClass : listener.batchClasses) {
+            assertEquals(SpooledSampleBatch.class, batchClass);
+        }
+        assertReceived(events, listener.getReceivedEvents());
+    }
+
+    @Test
+    public void testSamplesAreResentAfterFailures() throws Exception {
+        List<SampleEvent> events = createEvents(NR_SAMPLES);
+        UnreliableListener unreliable = new UnreliableListener(3);
+        send(unreliable, events);
+        RecordingRemoteSampleListener listener = unreliable.recorder;
+
+        assertEquals("host", listener.endedHost);
+        assertEquals(12, listener.batches.size());
+        assertReceived(events, listener.getReceivedEvents());
+    }
+
+    @Test
+    public void testResentBatchesAreDropped() throws Exception {
+        byte[] data = serialize(new SpooledSampleBatch("spool", 1, compress(createEvents(10))));
+        assertEquals(10, ((List<?>) deserialize(data)).size());
+        assertEquals(0, ((List<?>) deserialize(data)).size());
+        byte[] next = serialize(new SpooledSampleBatch("spool", 2, compress(createEvents(5))));
+        assertEquals(5, ((List<?>) deserialize(next)).size());
+    }
+
+    @Test
+    public void testBatchesThatFailToDecodeAreAcceptedAgain() throws Exception {
+        byte[] compressed = compress(createEvents(10));
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        try {
+            deserialize(serialize(new SpooledSampleBatch("retried", 1, truncated)));
+            fail("Truncated data should not be decoded");
+        } catch (IOException e) {
+            // expected
+        }
+        byte[] data = serialize(new SpooledSampleBatch("retried", 1, compressed));
+        assertEquals(10, ((List<?>) deserialize(data)).size());
+        assertEquals(0, ((List<?>) deserialize(data)).size());
+    }
+
+    @Test
+    public void testSegmentsAreDeletedOnceSent() throws Exception {
+        File directory = Files.createTempDirectory("TestSpoolSampleSender").toFile();
+        SampleSpool spool = new SampleSpool(directory, 1);
+        for (int i = 0; i < 3; i++) {
+            spool.append(createEvents(10));
+        }
+        spool.close();
+        assertEquals(3, directory.list().length);
+        assertEquals(30, spool.getPendingSampleCount());
+
+        for (int i = 0; i < 3; i++) {
+            SampleSpool.Record record = spool.next(0);
+            assertEquals(i + 1, record.sequence);
+            assertEquals(10, new SpooledSampleBatch("spool", record.sequence, spool.read(record)).size());
+            spool.acknowledge(record);
+            assertEquals(3 - i, directory.list().length);
+        }
+        assertNull(spool.next(0));
+        assertTrue(spool.isDrained());
+        spool.delete();
+        assertFalse(directory.exists());
+    }
+
+    private static byte[] compress(List<SampleEvent> events) throws Exception {
+        File directory = Files.createTempDirectory("TestSpoolSampleSender").toFile();
+        SampleSpool spool = new SampleSpool(directory, Long.MAX_VALUE);
+        try {
+            spool.append(events);
+            spool.close();
+            return spool.read(spool.next(0));
+        } finally {
+            spool.delete();
+        }
+    }
+
+    /**
+     * Fails the first calls to processBatch like RMI does when the client
+     * cannot be reached, the last failing call being received by the client
+     */
+    private static class UnreliableListener implements RemoteSampleListener {
+        final RecordingRemoteSampleListener recorder = new RecordingRemoteSampleListener();
+
+        private final int failures;
+
+        private int calls;
+
+        UnreliableListener(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public void processBatch(List<SampleEvent> samples) throws RemoteException {
+            calls++;
+            if (calls == failures) {
+                // the client got the batch, but its answer is lost
+                recorder.processBatch(samples);
+            }
+            if (calls <= failures) {
+                throw new ConnectException("Connection refused");
+            }
+            recorder.processBatch(samples);
+        }
+
+        @Override
+        public void testStarted() {
+            // not used
+        }
+
+        @Override
+        public void testStarted(String host) {
+            // not used
+        }
+
+        @Override
+        public void testEnded() {
+            // not used
+        }
+
+        @Override
+        public void testEnded(String host) {
+            recorder.testEnded(host);
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            // not used
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+            // not used
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+            // not used
+        }
+    }
+}
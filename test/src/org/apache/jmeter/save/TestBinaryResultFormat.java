@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.report.core.BinarySampleReader;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.junit.Test;
+
+public class TestBinaryResultFormat extends JMeterTestCase {
+
+    private static final int SAMPLES = 5000;
+
+    private static SampleEvent event(int i) {
+        SampleResult result = SampleResult.createTestSample(1_500_000_000_000L + i * 7L, 1_500_000_000_100L + i * 11L);
+        result.setSampleLabel("label " + (i % 10));
+        result.setThreadName("Thread Group 1-" + (i % 4));
+        result.setResponseCode(i % 100 == 0 ? "500" : "200");
+        result.setResponseMessage(i % 3 == 0 ? "with \"quotes\", commas\nand new line" : "OK");
+        result.setSuccessful(i % 100 != 0);
+        result.setBytes(i * 1000L);
+        result.setLatency(-i);
+        return new SampleEvent(result, "group");
+    }
+
+    private static SampleSaveConfiguration config() {
+        SampleSaveConfiguration config = new SampleSaveConfiguration();
+        config.setAsXml(false);
+        return config;
+    }
+
+    private static List<String[]> expectedRecords(SampleSaveConfiguration config) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            String line = CSVSaveService.resultToDelimitedString(event(i), event(i).getResult(), config, ",");
+            records.add(CSVSaveService.csvSplitString(line, ','));
+        }
+        return records;
+    }
+
+    private static byte[] write(SampleSaveConfiguration config, boolean compress) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryResultWriter writer = BinaryResultWriter.create(bytes, config, compress)) {
+            for (int i = 0; i < SAMPLES; i++) {
+                writer.write(event(i), config);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertRecords(List<String[]> expected, BinaryResultReader reader) throws IOException {
+        for (String[] record : expected) {
+            assertArrayEquals(record, reader.readRecord());
+        }
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void testSameColumnsAsCsv() throws IOException {
+        SampleSaveConfiguration config = config();
+        List<String[]> expected = expectedRecords(config);
+        for (boolean compress : new boolean[] { false, true }) {
+            byte[] bytes = write(config, compress);
+            try (BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(bytes))) {
+                assertEquals(CSVSaveService.printableFieldNamesToString(config), reader.getHeader());
+                assertEquals(expected.get(0).length, reader.getColumnCount());
+                assertRecords(expected, reader);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallerThanCsv() throws IOException {
+        SampleSaveConfiguration config = config();
+        int csvLength = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            csvLength += CSVSaveService.resultToDelimitedString(event(i), event(i).getResult(), config, ",").length() + 1;
+        }
+        int rawLength = write(config, false).length;
+        int compressedLength = write(config, true).length;
+        assertTrue("Binary: " + rawLength + ", CSV: " + csvLength, rawLength < csvLength / 2);
+        assertTrue("Compressed: " + compressedLength + ", binary: " + rawLength, compressedLength < rawLength);
+    }
+
+    @Test
+    public void testAppendedHeaderAndTruncatedBlock() throws IOException {
+        SampleSaveConfiguration config = config();
+        List<String[]> expected = expectedRecords(config);
+        byte[] bytes = write(config, true);
+        ByteArrayOutputStream appended = new ByteArrayOutputStream();
+        appended.write(bytes);
+        appended.write(bytes);
+        // Incomplete last block, as left by a crash
+        appended.write(bytes, 0, bytes.length - 10);
+        try (BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(appended.toByteArray()))) {
+            List<String[]> twice = new ArrayList<>(expected);
+            twice.addAll(expected);
+            for (String[] record : twice) {
+                assertArrayEquals(record, reader.readRecord());
+            }
+            // Complete blocks of the last copy
+            int remaining = 0;
+            String[] record;
+            while ((record = reader.readRecord()) != null) {
+                assertArrayEquals(expected.get(remaining++), record);
+            }
+            assertTrue("Records of the incomplete block must be ignored", remaining < SAMPLES);
+        }
+    }
+
+    @Test
+    public void testAppendAfterTruncatedBlock() throws IOException {
+        SampleSaveConfiguration config = config();
+        List<String[]> expected = expectedRecords(config);
+        byte[] bytes = write(config, true);
+        File file = File.createTempFile("TestBinaryResultFormat", ".jtl");
+        try {
+            // Incomplete last block, as left by a crash
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(bytes, 0, bytes.length - 10);
+            }
+            BinaryResultWriter.prepareAppend(file, config);
+            assertTrue(file.length() < bytes.length - 10);
+            try (BinaryResultWriter writer = BinaryResultWriter.create(new FileOutputStream(file, true), config, true)) {
+                for (int i = 0; i < SAMPLES; i++) {
+                    writer.write(event(i), config);
+                }
+            }
+            List<String[]> records = new ArrayList<>();
+            try (BinaryResultReader reader = new BinaryResultReader(file)) {
+                String[] record;
+                while ((record = reader.readRecord()) != null) {
+                    records.add(record);
+                }
+            }
+            // Complete blocks written before the crash, then the appended records
+            int kept = records.size() - SAMPLES;
+            assertTrue("Records of the incomplete block must be removed", kept >= 0 && kept < SAMPLES);
+            for (int i = 0; i < kept; i++) {
+                assertArrayEquals(expected.get(i), records.get(i));
+            }
+            for (int i = 0; i < SAMPLES; i++) {
+                assertArrayEquals(expected.get(i), records.get(kept + i));
+            }
+
+            SampleSaveConfiguration other = config();
+            other.setLatency(!config.saveLatency());
+            try {
+                BinaryResultWriter.prepareAppend(file, other);
+                fail("Appending other columns must be rejected");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testRecordNumbers() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        String[][] records = {
+                { "1500000000000", "0", "label", "-5", "9223372036854775807" },
+                { "2019/05/01 10:00:00", "007", "", "-0", "-9223372036854775808" },
+                { "-1500000000000", "", "null", "+1", "92233720368547758070" },
+        };
+        try (BinaryResultWriter writer = new BinaryResultWriter(bytes, "timeStamp,elapsed,label,Latency,bytes", ',', false)) {
+            for (String[] record : records) {
+                writer.writeRecord(record);
+            }
+            try {
+                writer.writeRecord(new String[] { "1", "2" });
+                fail("Record with missing columns must be rejected");
+            } catch (IOException e) {
+                // expected
+            }
+            writer.writeRecord(records[0]);
+        }
+        try (BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (String[] record : records) {
+                assertArrayEquals(record, reader.readRecord());
+            }
+            assertArrayEquals(records[0], reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void testConverterRoundTrip() throws IOException {
+        SampleSaveConfiguration config = config();
+        File csv = File.createTempFile("results", ".csv");
+        File binary = File.createTempFile("results", ".jtlb");
+        File back = File.createTempFile("results-back", ".csv");
+        try {
+            try (PrintWriter writer = new PrintWriter(csv, StandardCharsets.UTF_8.name())) {
+                writer.println(CSVSaveService.printableFieldNamesToString(config));
+                for (int i = 0; i < SAMPLES; i++) {
+                    CSVSaveService.saveSampleResult(event(i), config, writer);
+                }
+            }
+            assertFalse(BinaryResultReader.isBinaryResultFile(csv));
+            assertEquals(SAMPLES, BinaryResultConverter.toBinary(csv, binary, StandardCharsets.UTF_8, ',', true));
+            assertTrue(BinaryResultReader.isBinaryResultFile(binary));
+            assertEquals(SAMPLES, BinaryResultConverter.toCsv(binary, back, StandardCharsets.UTF_8));
+            assertEquals(Files.readAllLines(csv.toPath()), Files.readAllLines(back.toPath()));
+
+            try (BinarySampleReader reader = new BinarySampleReader(binary)) {
+                assertEquals(Arrays.asList(CSVSaveService.printableFieldNamesToString(config).split(",")).size(),
+                        reader.getMetadata().getColumnCount());
+                Sample sample = reader.readSample();
+                assertEquals(event(0).getResult().getTimeStamp(), sample.getTimestamp());
+                assertEquals("label 0", sample.getName());
+                assertFalse(sample.getSuccess());
+                int count = 1;
+                while (reader.readSample() != null) {
+                    count++;
+                }
+                assertEquals(SAMPLES, count);
+            }
+        } finally {
+            Files.deleteIfExists(csv.toPath());
+            Files.deleteIfExists(binary.toPath());
+            Files.deleteIfExists(back.toPath());
+        }
+    }
+}
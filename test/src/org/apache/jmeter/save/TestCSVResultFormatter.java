@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.junit.Test;
+
+public class TestCSVResultFormatter extends JMeterTestCase {
+
+    private static SampleResult result(String label, long start) throws Exception {
+        SampleResult result = SampleResult.createTestSample(start, start + 123);
+        result.setSampleLabel(label);
+        result.setThreadName("Thread Group 1-1");
+        result.setResponseCode("200");
+        result.setResponseMessage("with \"quotes\", commas\r\nand new lines");
+        result.setDataType(SampleResult.TEXT);
+        result.setBytes(Long.MAX_VALUE);
+        result.setSentBytes(-42);
+        result.setLatency(Long.MIN_VALUE);
+        result.setConnectTime(0);
+        result.setIdleTime(7);
+        result.setGroupThreads(3);
+        result.setURL(new URL("http://jmeter.apache.org/a,b"));
+        result.setResultFileName("file\tname");
+        result.setDataEncoding("UTF-8");
+        return result;
+    }
+
+    private static SampleSaveConfiguration allFields() {
+        SampleSaveConfiguration config = new SampleSaveConfiguration(true);
+        config.setAsXml(false);
+        return config;
+    }
+
+    private static void assertSameLine(CSVResultFormatter formatter, SampleEvent event,
+            SampleSaveConfiguration config) {
+        assertEquals(
+                CSVSaveService.resultToDelimitedString(event, event.getResult(), config, config.getDelimiter()),
+                formatter.format(event, event.getResult(), config));
+    }
+
+    @Test
+    public void testSameLineAsResultToDelimitedString() throws Exception {
+        CSVResultFormatter formatter = new CSVResultFormatter();
+        SampleEvent event = new SampleEvent(result("label", 1_500_000_000_000L), "group");
+        SampleSaveConfiguration config = allFields();
+        assertSameLine(formatter, event, config);
+
+        config.setDelimiter("\t");
+        assertSameLine(formatter, event, config);
+
+        config.setDateFormat("yyyy/MM/dd, HH:mm:ss.SSS");
+        assertSameLine(formatter, event, config);
+
+        event.getResult().setSampleLabel(null);
+        event.getResult().setThreadName("");
+        assertSameLine(formatter, event, config);
+    }
+
+    @Test
+    public void testEachFieldAlone() throws Exception {
+        CSVResultFormatter formatter = new CSVResultFormatter();
+        SampleEvent event = new SampleEvent(result("label", -1), "group");
+        String[] setters = { "Timestamp", "Time", "Label", "Code", "Message", "ThreadName", "DataType",
+                "Success", "AssertionResultsFailureMessage", "Bytes", "SentBytes", "ThreadCounts", "Url",
+                "FileName", "Latency", "Encoding", "SampleCount", "Hostname", "IdleTime", "ConnectTime",
+                "CorrectedTime" };
+        SampleSaveConfiguration config = new SampleSaveConfiguration(false);
+        config.setAsXml(false);
+        for (String setter : setters) {
+            SampleSaveConfiguration.class.getMethod("set" + setter, boolean.class).invoke(config, true);
+            assertSameLine(formatter, event, config);
+            SampleSaveConfiguration.class.getMethod("set" + setter, boolean.class).invoke(config, false);
+        }
+        assertSameLine(formatter, event, config);
+    }
+
+    @Test
+    public void testQuotingFollowsLabelChanges() throws Exception {
+        CSVResultFormatter formatter = new CSVResultFormatter();
+        SampleSaveConfiguration config = allFields();
+        for (String label : new String[] { "plain", "plain", "with,comma", "with,comma", "plain", "with\"quote" }) {
+            assertSameLine(formatter, new SampleEvent(result(label, 1L), "group"), config);
+        }
+    }
+
+    @Test
+    public void testAlternatingConfigurations() throws Exception {
+        CSVResultFormatter formatter = new CSVResultFormatter();
+        SampleEvent event = new SampleEvent(result("with,comma;semicolon", 1_500_000_000_000L), "group");
+        SampleSaveConfiguration[] configs = new SampleSaveConfiguration[6];
+        for (int i = 0; i < configs.length; i++) {
+            configs[i] = allFields();
+            configs[i].setDelimiter(i % 2 == 0 ? "," : ";");
+            if (i % 3 == 0) {
+                configs[i].setDateFormat("yyyy/MM/dd HH:mm:ss." + StringUtils.repeat('S', i / 3 + 1));
+            }
+        }
+        for (int round = 0; round < 3; round++) {
+            for (SampleSaveConfiguration config : configs) {
+                assertSameLine(formatter, event, config);
+            }
+        }
+    }
+
+    @Test
+    public void testAutoflushWritesEachSample() throws Exception {
+        File file = File.createTempFile("TestCSVResultFormatter", ".csv");
+        file.deleteOnExit();
+        SampleSaveConfiguration config = allFields();
+        SampleEvent event = new SampleEvent(result("label", 1_500_000_000_000L), "group");
+        // Buffered like the files of ResultCollector
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new BufferedOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8), true)) {
+            CSVSaveService.saveSampleResult(event, config, out);
+            assertEquals(CSVSaveService.resultToDelimitedString(event, event.getResult(), config, config.getDelimiter())
+                    + System.lineSeparator(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testWriteWithSubResults() throws Exception {
+        SampleResult parent = result("parent", 1_500_000_000_000L);
+        parent.addSubResult(result("child", 1_500_000_000_001L));
+        parent.addSubResult(result("other, child", 1_500_000_000_002L));
+        SampleEvent event = new SampleEvent(parent, "group");
+        SampleSaveConfiguration config = allFields();
+        config.setSubresults(true);
+
+        StringWriter expected = new StringWriter();
+        try (PrintWriter out = new PrintWriter(expected)) {
+            out.println(CSVSaveService.resultToDelimitedString(event, parent, config, config.getDelimiter()));
+            for (SampleResult child : parent.getSubResults()) {
+                out.println(CSVSaveService.resultToDelimitedString(event, child, config, config.getDelimiter()));
+            }
+        }
+        StringWriter actual = new StringWriter();
+        try (PrintWriter out = new PrintWriter(actual)) {
+            new CSVResultFormatter().write(event, config, out);
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testThreadsSharingAWriterDoNotInterleaveLines() throws Exception {
+        final int threads = 8;
+        final int samples = 5000;
+        SampleSaveConfiguration config = new SampleSaveConfiguration(false);
+        config.setAsXml(false);
+        config.setLabel(true);
+        config.setThreadName(true);
+        config.setCode(true);
+        StringWriter file = new StringWriter();
+        PrintWriter out = new PrintWriter(file);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final String threadName = "Thread Group 1-" + t;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < samples; i++) {
+                    SampleResult result = new SampleResult();
+                    result.setSampleLabel("label " + i);
+                    result.setThreadName(threadName);
+                    result.setResponseCode("200");
+                    CSVSaveService.saveSampleResult(new SampleEvent(result, "group"), config, out);
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        out.flush();
+
+        String[] lines = file.toString().split(System.lineSeparator(), -1);
+        assertEquals("", lines[lines.length - 1]);
+        assertEquals(threads * samples, lines.length - 1);
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < lines.length - 1; i++) {
+            String line = lines[i];
+            assertTrue(line, line.matches("label \\d+,200,Thread Group 1-\\d"));
+            distinct.add(line);
+        }
+        assertEquals(threads * samples, distinct.size());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestResultFileSegments extends JMeterTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File create(String name) throws Exception {
+        return folder.newFile(name);
+    }
+
+    @Test
+    public void testSegmentNames() {
+        assertEquals(new File("dir", "results.3.jtl"), ResultFileSegments.segment(new File("dir", "results.jtl"), 3));
+        assertEquals(new File("dir", "results.3"), ResultFileSegments.segment(new File("dir", "results"), 3));
+    }
+
+    @Test
+    public void testResolveOrdersSegmentsAsWritten() throws Exception {
+        File results = create("results.jtl");
+        File second = create("results.2.jtl");
+        File tenth = create("results.10.jtl.gz");
+        File first = create("results.1.jtl.gz");
+        create("results-1.jtl");
+        create("results.x.jtl");
+        create("other.1.jtl");
+        // Left by a previous run
+        create("results.3.jtl");
+        ResultFileSegments.addSegment(results, ResultFileSegments.segment(results, 1));
+        ResultFileSegments.addSegment(results, ResultFileSegments.segment(results, 2));
+        ResultFileSegments.addSegment(results, ResultFileSegments.segment(results, 10));
+
+        assertEquals(Arrays.asList(first, second, tenth, results), ResultFileSegments.resolve(results));
+        assertEquals(10, ResultFileSegments.lastSegmentIndex(results));
+    }
+
+    @Test
+    public void testResolveIgnoresSegmentsWithoutManifest() throws Exception {
+        File results = create("results.jtl");
+        create("results.1.jtl");
+        create("results.2.jtl.gz");
+
+        assertEquals(Collections.singletonList(results), ResultFileSegments.resolve(results));
+
+        ResultFileSegments.addSegment(results, ResultFileSegments.segment(results, 2));
+        ResultFileSegments.clearSegments(results);
+        assertEquals(Collections.singletonList(results), ResultFileSegments.resolve(results));
+    }
+
+    @Test
+    public void testResolveWithoutSegments() throws Exception {
+        File results = new File(folder.getRoot(), "results.csv");
+        assertEquals(Collections.singletonList(results), ResultFileSegments.resolve(results));
+        assertEquals(0, ResultFileSegments.lastSegmentIndex(results));
+    }
+
+    @Test
+    public void testResolveGlob() throws Exception {
+        File node10 = create("node-10.csv");
+        File node2 = create("node-2.csv");
+        File node1 = create("node-1.csv");
+        create("node-1.jtl");
+
+        assertEquals(Arrays.asList(node1, node2, node10),
+                ResultFileSegments.resolve(new File(folder.getRoot(), "node-*.csv")));
+    }
+}
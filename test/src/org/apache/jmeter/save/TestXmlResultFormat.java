@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.save;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.samplers.StatisticalSampleResult;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.test.JMeterSerialTest;
+import org.junit.Test;
+
+public class TestXmlResultFormat extends JMeterTestCase implements JMeterSerialTest {
+
+    private static final String TRICKY = "a \"quoted\" <tag> & 'apos'\r\n\ttab\0nul\u0001ctl￿ été 😀";
+
+    private static SampleSaveConfiguration allFields() {
+        SampleSaveConfiguration config = new SampleSaveConfiguration(true);
+        config.setAsXml(true);
+        return config;
+    }
+
+    private static <T extends SampleResult> T fill(T result, String label) throws Exception {
+        result.setStampAndTime(1_500_000_000_000L, 123);
+        result.setSampleLabel(label);
+        result.setThreadName("Thread Group 1-1");
+        result.setResponseCode("200");
+        result.setResponseMessage(TRICKY);
+        result.setDataType(SampleResult.TEXT);
+        result.setDataEncoding("UTF-8");
+        result.setResponseData(TRICKY, "UTF-8");
+        result.setResponseHeaders("HTTP/1.1 200 OK\nContent-Type: text/plain\n");
+        result.setRequestHeaders("Accept: */*\n");
+        result.setSamplerData(TRICKY);
+        result.setBytes(12345L);
+        result.setSentBytes(678L);
+        result.setLatency(45L);
+        result.setConnectTime(12L);
+        result.setIdleTime(7L);
+        result.setGroupThreads(3);
+        result.setAllThreads(5);
+        result.setURL(new URL("http://jmeter.apache.org/path?a=1&b=2"));
+        AssertionResult failed = new AssertionResult("Response Assertion");
+        failed.setFailure(true);
+        failed.setFailureMessage(TRICKY);
+        result.addAssertionResult(failed);
+        result.addAssertionResult(new AssertionResult(null));
+        return result;
+    }
+
+    private static HTTPSampleResult httpResult(String label) throws Exception {
+        HTTPSampleResult result = fill(new HTTPSampleResult(), label);
+        result.setHTTPMethod("POST");
+        result.setCookies("a=b; c=d");
+        result.setQueryString("x=<1>&y=2");
+        result.setRedirectLocation(null);
+        return result;
+    }
+
+    private static String withXStream(SampleEvent event) throws IOException {
+        StringWriter writer = new StringWriter();
+        SaveService.saveSampleResultWithXStream(event, writer);
+        return writer.toString();
+    }
+
+    private static String withWriter(SampleEvent event) throws IOException {
+        StringWriter writer = new StringWriter();
+        SaveService.saveSampleResult(event, writer);
+        return writer.toString();
+    }
+
+    private static void assertSameXml(SampleResult result, SampleSaveConfiguration config) throws IOException {
+        result.setSaveConfig(config);
+        SampleEvent event = new SampleEvent(result, "group");
+        assertTrue(XmlResultWriter.canWrite(result));
+        assertEquals(withXStream(event), withWriter(event));
+    }
+
+    @Test
+    public void testSameOutputAsXStream() throws Exception {
+        SampleResult parent = fill(new SampleResult(), "parent");
+        parent.addSubResult(fill(new SampleResult(), "child <1>"));
+        parent.addSubResult(httpResult("http child"));
+        SampleResult empty = new SampleResult();
+        empty.setURL(null);
+        parent.addSubResult(empty);
+
+        assertSameXml(parent, allFields());
+        SampleSaveConfiguration config = new SampleSaveConfiguration(false);
+        config.setAsXml(true);
+        assertSameXml(parent, config);
+        assertSameXml(new SampleResult(), allFields());
+        assertSameXml(new SampleResult(), config);
+    }
+
+    @Test
+    public void testSameHttpOutputAsXStream() throws Exception {
+        HTTPSampleResult result = httpResult("http");
+        result.addSubResult(httpResult("redirected"));
+        assertSameXml(result, allFields());
+
+        HTTPSampleResult noUrl = new HTTPSampleResult();
+        noUrl.setURL(null);
+        assertSameXml(noUrl, allFields());
+    }
+
+    @Test
+    public void testSameVariableNamesAsXStream() throws Exception {
+        String previous = JMeterUtils.getProperty(SampleEvent.SAMPLE_VARIABLES);
+        JMeterUtils.setProperty(SampleEvent.SAMPLE_VARIABLES, "my var,x$y,a_b,1st");
+        SampleEvent.initSampleVariables();
+        try {
+            SampleResult result = fill(new SampleResult(), "variables");
+            result.setSaveConfig(allFields());
+            JMeterVariables variables = new JMeterVariables();
+            variables.put("my var", "value 1");
+            variables.put("x$y", TRICKY);
+            variables.put("a_b", "value_3");
+            variables.put("1st", "4");
+            SampleEvent event = new SampleEvent(result, "group", variables);
+            String xml = withXStream(event);
+            assertTrue(xml, xml.contains(" my var=\"value 1\""));
+            assertEquals(xml, withWriter(event));
+        } finally {
+            if (previous == null) {
+                JMeterUtils.getJMeterProperties().remove(SampleEvent.SAMPLE_VARIABLES);
+            } else {
+                JMeterUtils.setProperty(SampleEvent.SAMPLE_VARIABLES, previous);
+            }
+            SampleEvent.initSampleVariables();
+        }
+    }
+
+    @Test
+    public void testStatisticalResultsUseXStream() throws Exception {
+        StatisticalSampleResult result = new StatisticalSampleResult(fill(new SampleResult(), "stats"));
+        result.setSaveConfig(allFields());
+        assertFalse(XmlResultWriter.canWrite(result));
+        SampleEvent event = new SampleEvent(result, "group");
+        assertEquals(withXStream(event), withWriter(event));
+    }
+
+    @Test
+    public void testReadBack() throws Exception {
+        SampleSaveConfiguration config = allFields();
+        SampleResult parent = fill(new SampleResult(), "parent");
+        parent.addSubResult(httpResult("http child"));
+        parent.setSaveConfig(config);
+        HTTPSampleResult http = httpResult("http");
+        http.setSaveConfig(config);
+        StatisticalSampleResult stats = new StatisticalSampleResult(fill(new SampleResult(), "stats"));
+        stats.setSaveConfig(config);
+
+        StringWriter file = new StringWriter();
+        file.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testResults version=\"1.2\">\n");
+        SaveService.saveSampleResult(new SampleEvent(parent, "group"), file);
+        SaveService.saveSampleResult(new SampleEvent(http, "group"), file);
+        SaveService.saveSampleResult(new SampleEvent(stats, "group"), file);
+        file.write("\n</testResults>\n");
+
+        try (XmlResultReader reader = new XmlResultReader(
+                new ByteArrayInputStream(file.toString().getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals("1.2", reader.getVersion());
+
+            SampleResult read = reader.readSample();
+            SampleResult expected = readWithXStream(parent);
+            assertEquals(SampleResult.class, read.getClass());
+            assertSameFields(expected, read);
+            assertEquals(1, read.getSubResults().length);
+            assertSameHttpFields((HTTPSampleResult) expected.getSubResults()[0],
+                    (HTTPSampleResult) read.getSubResults()[0]);
+            assertNull("URL of sample results is not restored", read.getURL());
+            AssertionResult[] assertions = read.getAssertionResults();
+            assertEquals(2, assertions.length);
+            assertEquals("Response Assertion", assertions[0].getName());
+            assertTrue(assertions[0].isFailure());
+            assertFalse(assertions[0].isError());
+            assertEquals(TRICKY, assertions[0].getFailureMessage());
+            assertNull(assertions[1].getName());
+            assertNull(assertions[1].getFailureMessage());
+
+            read = reader.readSample();
+            assertSameHttpFields((HTTPSampleResult) readWithXStream(http), (HTTPSampleResult) read);
+            assertEquals("http", read.getSampleLabel());
+            assertEquals(new URL("http://jmeter.apache.org/path?a=1&b=2"), read.getURL());
+
+            read = reader.readSample();
+            assertEquals(StatisticalSampleResult.class, read.getClass());
+            assertEquals("stats", read.getSampleLabel());
+
+            assertNull(reader.readSample());
+        }
+    }
+
+    private static SampleResult readWithXStream(SampleResult result) throws IOException {
+        return SaveService.loadSampleResult(withXStream(new SampleEvent(result, "group")));
+    }
+
+    private static void assertSameFields(SampleResult expected, SampleResult actual) {
+        assertEquals(expected.getSampleLabel(), actual.getSampleLabel());
+        assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getLatency(), actual.getLatency());
+        assertEquals(expected.getConnectTime(), actual.getConnectTime());
+        assertEquals(expected.getIdleTime(), actual.getIdleTime());
+        assertEquals(expected.getBytesAsLong(), actual.getBytesAsLong());
+        assertEquals(expected.getSentBytes(), actual.getSentBytes());
+        assertEquals(expected.getThreadName(), actual.getThreadName());
+        assertEquals(expected.getResponseCode(), actual.getResponseCode());
+        assertEquals(expected.isSuccessful(), actual.isSuccessful());
+        assertEquals(expected.getGroupThreads(), actual.getGroupThreads());
+        assertEquals(expected.getAllThreads(), actual.getAllThreads());
+        assertEquals(expected.getResponseHeaders(), actual.getResponseHeaders());
+        assertEquals(expected.getRequestHeaders(), actual.getRequestHeaders());
+        assertEquals(expected.getDataEncodingNoDefault(), actual.getDataEncodingNoDefault());
+    }
+
+    private static void assertSameHttpFields(HTTPSampleResult expected, HTTPSampleResult actual) {
+        assertSameFields(expected, actual);
+        assertEquals(expected.getURL(), actual.getURL());
+        assertEquals(expected.getHTTPMethod(), actual.getHTTPMethod());
+        assertEquals(expected.getCookies(), actual.getCookies());
+        assertEquals(expected.getQueryString(), actual.getQueryString());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.testelement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.jmeter.testelement.property.IntegerProperty;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
+import org.apache.jmeter.testelement.property.StringProperty;
+import org.junit.Test;
+
+public class TestPropertyStore {
+
+    private static List<String> names(PropertyStore store) {
+        List<String> names = new ArrayList<>();
+        PropertyIterator iter = store.iterator();
+        while (iter.hasNext()) {
+            names.add(iter.next().getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testPutKeepsInsertionOrder() {
+        PropertyStore store = new PropertyStore();
+        for (int i = 0; i < 10; i++) {
+            store.put("prop" + i, new IntegerProperty("prop" + i, i));
+        }
+        JMeterProperty replacement = new StringProperty("prop3", "replaced");
+        store.put(new String("prop3"), replacement); // not the interned instance
+        assertEquals(10, store.size());
+        assertSame(replacement, store.get("prop3"));
+        assertEquals("[prop0, prop1, prop2, prop3, prop4, prop5, prop6, prop7, prop8, prop9]",
+                names(store).toString());
+        assertNull(store.get("missing"));
+    }
+
+    @Test
+    public void testRemove() {
+        PropertyStore store = new PropertyStore();
+        store.put("a", new StringProperty("a", "1"));
+        store.put("b", new StringProperty("b", "2"));
+        store.put("c", new StringProperty("c", "3"));
+        store.remove("b");
+        store.remove("missing");
+        assertEquals("[a, c]", names(store).toString());
+        PropertyIterator iter = store.iterator();
+        while (iter.hasNext()) {
+            if ("a".equals(iter.next().getName())) {
+                iter.remove();
+            }
+        }
+        assertEquals("[c]", names(store).toString());
+        assertNull(store.get("a"));
+        store.clear();
+        assertEquals(0, store.size());
+        assertFalse(store.iterator().hasNext());
+    }
+
+    @Test
+    public void testConcurrentChanges() throws Exception {
+        PropertyStore store = new PropertyStore();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final String prefix = "thread" + t + "-";
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    store.put(prefix + i, new IntegerProperty(prefix + i, i));
+                    if (i % 2 == 1) {
+                        store.remove(prefix + (i - 1));
+                    }
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            try {
+                while (writing.get()) {
+                    int count = 0;
+                    PropertyIterator iter = store.iterator();
+                    while (iter.hasNext()) {
+                        String name = iter.next().getName();
+                        assertTrue(name, name.startsWith("thread"));
+                        count++;
+                    }
+                    assertTrue(count <= 4 * 200);
+                    store.get("thread0-0");
+                }
+            } catch (Throwable e) { // NOSONAR reported by the test thread
+                failure.set(e);
+            }
+        });
+        reader.start();
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        reader.join();
+
+        assertNull(String.valueOf(failure.get()), failure.get());
+        assertEquals(4 * 100, store.size());
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i % 2 == 1, store.get("thread" + t + "-" + i) != null);
+            }
+        }
+    }
+
+    @Test
+    public void testSameProperties() {
+        PropertyStore store1 = new PropertyStore();
+        store1.put("a", new StringProperty("a", "1"));
+        store1.put("b", new StringProperty("b", "2"));
+        PropertyStore store2 = new PropertyStore();
+        store2.put("b", new StringProperty("b", "2"));
+        store2.put("a", new StringProperty("a", "1"));
+        assertTrue(store1.sameProperties(store2));
+        store2.put("a", new StringProperty("a", "other"));
+        assertFalse(store1.sameProperties(store2));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.sampler.DebugSampler;
+import org.apache.jmeter.sampler.TestAction;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.apache.jorphan.util.JMeterStopTestException;
+import org.junit.Test;
+
+public class TestArrivalsThreadGroup extends JMeterTestCase {
+
+    /**
+     * Clock whose sleeps return at once, so that the arrivals of several seconds are scheduled without waiting
+     */
+    private static class SimulatedClock implements ArrivalsThreadGroup.Clock {
+        private final long start = System.currentTimeMillis();
+
+        private final AtomicLong now = new AtomicLong(start);
+
+        @Override
+        public long currentTimeMillis() {
+            return now.get();
+        }
+
+        @Override
+        public void sleep(long millis) {
+            now.addAndGet(millis);
+        }
+
+        long elapsed() {
+            return now.get() - start;
+        }
+    }
+
+    private static ArrivalsThreadGroup createGroup(int maxConcurrency, SimulatedClock clock) {
+        ArrivalsThreadGroup group = new ArrivalsThreadGroup();
+        group.setClock(clock);
+        group.setName("Arrivals");
+        LoopController looper = new LoopController();
+        looper.setLoops(1);
+        group.setSamplerController(looper);
+        group.setTargetThroughput(600);
+        group.setThroughputPeriod(60);
+        group.setDuration(5);
+        group.setNumThreads(maxConcurrency);
+        group.setRandomSeed(42);
+        return group;
+    }
+
+    private static void run(ArrivalsThreadGroup group, Sampler sampler) {
+        ListedHashTree tree = new ListedHashTree();
+        tree.add(group);
+        tree.add(group, sampler);
+        JMeterContextService.getContext().setVariables(new JMeterVariables());
+        group.start(1, new ListenerNotifier(), tree, null);
+        group.waitThreadsStopped();
+    }
+
+    @Test
+    public void testArrivalRate() {
+        SimulatedClock clock = new SimulatedClock();
+        // Enough concurrency for all the arrivals, as they are scheduled at once
+        ArrivalsThreadGroup group = createGroup(100, clock);
+        DebugSampler sampler = new DebugSampler();
+        sampler.setName("debug");
+        run(group, sampler);
+        // 10 arrivals per second during 5 seconds, with the 1% surplus allowed by the generator
+        assertTrue("Arrivals: " + group.getArrivals(), group.getArrivals() >= 49 && group.getArrivals() <= 51);
+        assertEquals(0, group.getMissedArrivals());
+        assertEquals(0, group.numberOfActiveThreads());
+        // The scheduler waited for the arrivals up to the end of the duration
+        assertTrue("Elapsed: " + clock.elapsed(), clock.elapsed() > 4000 && clock.elapsed() <= 5000);
+    }
+
+    @Test
+    public void testMissedArrivals() {
+        ArrivalsThreadGroup group = createGroup(1, new SimulatedClock());
+        CountedPause pause = new CountedPause();
+        pause.setName("pause");
+        pause.setAction(TestAction.PAUSE);
+        pause.setDuration("1000");
+        CountedPause.CLONES.set(0);
+        JMeterContextService.clearTotalThreads();
+        run(group, pause);
+        // A single iteration at a time, lasting one second, while all the arrivals are scheduled at once
+        assertTrue("Missed: " + group.getMissedArrivals(), group.getMissedArrivals() >= 45);
+        assertTrue(group.getArrivals() > group.getMissedArrivals());
+        assertEquals(0, group.numberOfActiveThreads());
+        // Only the iterations that were run clone the tree
+        assertEquals(group.getArrivals() - group.getMissedArrivals(), CountedPause.CLONES.get());
+        assertEquals(group.getMissedArrivals(), JMeterContextService.getThreadCounts().missedArrivals);
+    }
+
+    @Test(expected = JMeterStopTestException.class)
+    public void testInvalidDuration() {
+        ArrivalsThreadGroup group = createGroup(1, new SimulatedClock());
+        group.setDuration(1);
+        run(group, new DebugSampler());
+    }
+
+    /**
+     * Pause counting its clones
+     */
+    public static class CountedPause extends TestAction {
+        private static final long serialVersionUID = 1L;
+
+        static final AtomicInteger CLONES = new AtomicInteger();
+
+        @Override
+        public Object clone() {
+            CLONES.incrementAndGet();
+            return super.clone();
+        }
+    }
+}
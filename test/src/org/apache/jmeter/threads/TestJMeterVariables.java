@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.jorphan.test.JMeterSerialTest;
+import org.junit.Test;
+
+public class TestJMeterVariables implements JMeterSerialTest {
+
+    @Test
+    public void testSlotAndNameAccessAgree() {
+        JMeterVariables vars = new JMeterVariables();
+        int slot = JMeterVariables.slotOf("TestJMeterVariables.slot");
+        assertTrue(slot >= 0);
+        assertEquals(slot, JMeterVariables.slotOf("TestJMeterVariables.slot"));
+        assertNull(vars.get(slot));
+        vars.put("TestJMeterVariables.slot", "value");
+        assertEquals("value", vars.get(slot));
+        assertEquals("value", vars.get("TestJMeterVariables.slot"));
+        assertEquals("value", vars.remove("TestJMeterVariables.slot"));
+        assertNull(vars.get(slot));
+    }
+
+    @Test
+    public void testNameRegisteredAfterPut() {
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("TestJMeterVariables.late", "before");
+        vars.putObject("TestJMeterVariables.lateNull", null);
+        int slot = JMeterVariables.slotOf("TestJMeterVariables.late");
+        JMeterVariables.slotOf("TestJMeterVariables.lateNull");
+        assertEquals("before", vars.get(slot));
+        assertEquals("before", vars.get("TestJMeterVariables.late"));
+        assertTrue(toMap(vars).containsKey("TestJMeterVariables.lateNull"));
+        assertNull(vars.getObject("TestJMeterVariables.lateNull"));
+        vars.put("TestJMeterVariables.late", "after");
+        assertEquals("after", vars.get(slot));
+        assertEquals("after", toMap(vars).get("TestJMeterVariables.late"));
+    }
+
+    @Test
+    public void testLongValues() {
+        JMeterVariables vars = new JMeterVariables();
+        assertEquals(-1L, vars.getLong("TestJMeterVariables.long", -1L));
+        vars.putLong("TestJMeterVariables.long", 42L);
+        assertEquals(42L, vars.getLong("TestJMeterVariables.long", -1L));
+        assertEquals(42, vars.getInt("TestJMeterVariables.long", -1));
+        assertEquals("42", vars.get("TestJMeterVariables.long"));
+        assertEquals("42", vars.getObject("TestJMeterVariables.long"));
+        vars.putInt("TestJMeterVariables.long", 43);
+        assertEquals("43", vars.get("TestJMeterVariables.long"));
+        vars.put("TestJMeterVariables.long", "44");
+        assertEquals(44L, vars.getLong("TestJMeterVariables.long", -1L));
+        vars.put("TestJMeterVariables.string", "45");
+        assertEquals(45, vars.getInt("TestJMeterVariables.string", -1));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testGetLongNotANumber() {
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("TestJMeterVariables.nan", "abc");
+        vars.getLong("TestJMeterVariables.nan", 0L);
+    }
+
+    @Test
+    public void testPutAllAndEntrySet() {
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("TestJMeterVariables.unindexed", "a");
+        JMeterVariables.slotOf("TestJMeterVariables.indexed");
+        vars.put("TestJMeterVariables.indexed", "b");
+        vars.putLong("TestJMeterVariables.counter", 3L);
+        JMeterVariables copy = new JMeterVariables();
+        copy.putAll(vars);
+        Map<String, Object> entries = toMap(copy);
+        assertEquals("a", entries.get("TestJMeterVariables.unindexed"));
+        assertEquals("b", entries.get("TestJMeterVariables.indexed"));
+        assertEquals("3", entries.get("TestJMeterVariables.counter"));
+        assertEquals(3L, copy.getLong("TestJMeterVariables.counter", -1L));
+        assertEquals(toMap(vars), entries);
+    }
+
+    @Test
+    public void testSlotsAreClearedWhenTestStarts() {
+        JMeterVariables vars = new JMeterVariables();
+        JMeterVariables.slotOf("TestJMeterVariables.reset");
+        vars.put("TestJMeterVariables.reset", "value");
+        vars.putLong("TestJMeterVariables.resetLong", 5L);
+        int generation = JMeterVariables.slotGeneration();
+        VariableSlots.reset();
+
+        assertNotEquals(generation, JMeterVariables.slotGeneration());
+        assertEquals(-1, VariableSlots.indexOf("TestJMeterVariables.reset"));
+        assertEquals("value", vars.get("TestJMeterVariables.reset"));
+        assertEquals(5L, vars.getLong("TestJMeterVariables.resetLong", -1L));
+        int slot = JMeterVariables.slotOf("TestJMeterVariables.reset");
+        assertEquals(0, slot);
+        assertEquals("value", vars.get(slot));
+        assertEquals("value", toMap(vars).get("TestJMeterVariables.reset"));
+    }
+
+    @Test
+    public void testPutAllAfterSlotsAreCleared() {
+        JMeterVariables.slotOf("TestJMeterVariables.copied");
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("TestJMeterVariables.copied", "value");
+        vars.putLong("TestJMeterVariables.copiedLong", 7L);
+        vars.put("TestJMeterVariables.copiedUnindexed", "other");
+        VariableSlots.reset();
+        JMeterVariables.slotOf("TestJMeterVariables.copiedLong");
+
+        JMeterVariables copy = new JMeterVariables();
+        copy.putAll(vars);
+        assertEquals("value", copy.get("TestJMeterVariables.copied"));
+        assertEquals(7L, copy.getLong("TestJMeterVariables.copiedLong", -1L));
+        assertEquals("other", copy.get("TestJMeterVariables.copiedUnindexed"));
+        assertEquals(toMap(vars), toMap(copy));
+        // The source is read with its stale slots
+        assertEquals("value", vars.get("TestJMeterVariables.copied"));
+        assertEquals(7L, vars.getLong("TestJMeterVariables.copiedLong", -1L));
+    }
+
+    @Test
+    public void testReadsOfSlotsRegisteredLater() {
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("TestJMeterVariables.readLater", "value");
+        int slot = JMeterVariables.slotOf("TestJMeterVariables.readLater");
+        // Read from the map, as the value is only moved to its slot by the next change
+        assertEquals("value", vars.get(slot));
+        assertEquals("value", new UnmodifiableJMeterVariables(vars).get(slot));
+        assertEquals("value", vars.getObject("TestJMeterVariables.readLater"));
+        vars.put("TestJMeterVariables.other", "other");
+        assertEquals("value", vars.get(slot));
+    }
+
+    @Test
+    public void testSlotsAreCapped() {
+        VariableSlots.reset();
+        try {
+            for (int i = 0; i < VariableSlots.MAX_SLOTS; i++) {
+                assertEquals(i, JMeterVariables.slotOf("TestJMeterVariables.capped" + i));
+            }
+            assertEquals(-1, JMeterVariables.slotOf("TestJMeterVariables.overCap"));
+            JMeterVariables vars = new JMeterVariables();
+            vars.put("TestJMeterVariables.overCap", "value");
+            assertEquals("value", vars.get("TestJMeterVariables.overCap"));
+        } finally {
+            VariableSlots.reset();
+        }
+        assertEquals(0, JMeterVariables.slotOf("TestJMeterVariables.overCap"));
+    }
+
+    private static Map<String, Object> toMap(JMeterVariables vars) {
+        Map<String, Object> map = new HashMap<>();
+        for (Entry<String, Object> entry : vars.entrySet()) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.ThreadIndependentSampleListener;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.junit.Test;
+
+public class TestListenerNotifier extends JMeterTestCase {
+
+    private static final int THREADS = 4;
+
+    private static final int SAMPLES = 2000;
+
+    private static class RecordingListener extends AbstractTestElement implements SampleListener {
+        private static final long serialVersionUID = 1L;
+        final Queue<String> labels = new ConcurrentLinkedQueue<>();
+        final Queue<String> threads = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            labels.add(e.getResult().getSampleLabel());
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+            // NOOP
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+            // NOOP
+        }
+    }
+
+    private static class IndependentListener extends RecordingListener implements ThreadIndependentSampleListener {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class DependentSubclassListener extends IndependentListener {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean isThreadIndependent() {
+            return false;
+        }
+    }
+
+    private static class SlowListener extends IndependentListener {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            super.sampleOccurred(e);
+            if (labels.size() % 100 == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static void sample(ListenerNotifier notifier, List<SampleListener> listeners) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int threadNumber = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < SAMPLES; i++) {
+                    SampleResult result = new SampleResult();
+                    result.setSampleLabel(threadNumber + "-" + i);
+                    notifier.notifyListeners(new SampleEvent(result, "group"), listeners);
+                }
+            }, "sampler-" + t));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        notifier.close();
+    }
+
+    @Test
+    public void testSynchronous() throws InterruptedException {
+        ListenerNotifier notifier = new ListenerNotifier();
+        IndependentListener independent = new IndependentListener();
+        sample(notifier, Arrays.asList(independent));
+        assertFalse(notifier.isAsynchronous());
+        assertEquals(THREADS * SAMPLES, independent.labels.size());
+        assertTrue(independent.threads.stream().allMatch(name -> name.startsWith("sampler-")));
+    }
+
+    @Test
+    public void testAsynchronousKeepsOrderOfEachThread() throws InterruptedException {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        IndependentListener independent = new IndependentListener();
+        RecordingListener dependent = new RecordingListener();
+        sample(notifier, Arrays.asList(independent, dependent));
+
+        assertEquals("All events must be delivered when closing", THREADS * SAMPLES, independent.labels.size());
+        assertEquals(THREADS * SAMPLES, notifier.getDispatchedCount());
+        assertEquals(0, notifier.getDroppedCount());
+        assertTrue(independent.threads.stream().allMatch(name -> name.startsWith("ListenerNotifier-")));
+        // Listeners depending on the thread context are still notified by the sampling thread
+        assertEquals(THREADS * SAMPLES, dependent.labels.size());
+        assertTrue(dependent.threads.stream().allMatch(name -> name.startsWith("sampler-")));
+
+        Map<String, Integer> lastSampleOfThread = new HashMap<>();
+        for (String label : independent.labels) {
+            String[] parts = label.split("-");
+            int previous = lastSampleOfThread.getOrDefault(parts[0], -1);
+            int current = Integer.parseInt(parts[1]);
+            assertEquals("Events of thread " + parts[0] + " out of order", previous + 1, current);
+            lastSampleOfThread.put(parts[0], current);
+        }
+    }
+
+    @Test
+    public void testSubclassCanDependOnThread() throws InterruptedException {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        DependentSubclassListener dependent = new DependentSubclassListener();
+        sample(notifier, Arrays.asList(dependent));
+        assertEquals(THREADS * SAMPLES, dependent.labels.size());
+        assertEquals(0, notifier.getDispatchedCount());
+        assertTrue(dependent.threads.stream().allMatch(name -> name.startsWith("sampler-")));
+    }
+
+    @Test
+    public void testFullBufferBlocksSamplingThread() throws InterruptedException {
+        SampleEventDispatcher dispatcher = new SampleEventDispatcher(1, 64, false);
+        SlowListener slow = new SlowListener();
+        List<SampleListener> listeners = Arrays.asList(slow);
+        for (int i = 0; i < SAMPLES; i++) {
+            SampleResult result = new SampleResult();
+            result.setSampleLabel("0-" + i);
+            assertTrue(dispatcher.dispatch(new SampleEvent(result, "group"), listeners));
+        }
+        dispatcher.close();
+        assertEquals(SAMPLES, dispatcher.getDispatchedCount());
+        assertEquals(0, dispatcher.getDroppedCount());
+        assertTrue("Sampling thread should have waited for room", dispatcher.getBlockedCount() > 0);
+        int expected = 0;
+        for (String label : slow.labels) {
+            assertEquals("0-" + expected++, label);
+        }
+        assertEquals(SAMPLES, expected);
+    }
+
+    @Test
+    public void testNotifiedInCallingThreadOnceClosed() {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        notifier.close();
+        IndependentListener independent = new IndependentListener();
+        notifier.notifyListeners(new SampleEvent(new SampleResult(), "group"), Arrays.asList(independent));
+        assertEquals(1, independent.labels.size());
+        assertEquals(Thread.currentThread().getName(), independent.threads.peek());
+    }
+}
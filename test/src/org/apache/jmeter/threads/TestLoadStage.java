@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.sampler.TestAction;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.apache.jorphan.util.JMeterStopTestException;
+import org.junit.Test;
+
+public class TestLoadStage extends JMeterTestCase {
+
+    @Test
+    public void testParse() {
+        List<LoadStage> stages = LoadStage.parse(" 10,30,60 ;50, 60, 300\n20,0,60");
+        assertEquals(3, stages.size());
+        assertEquals(10, stages.get(0).getTargetThreads());
+        assertEquals(30000L, stages.get(0).getRampMillis());
+        assertEquals(60000L, stages.get(0).getHoldMillis());
+        assertEquals("50,60,300", stages.get(1).toString());
+        assertEquals(50, LoadStage.maxThreads(stages));
+    }
+
+    @Test
+    public void testParseEmpty() {
+        assertTrue(LoadStage.parse("").isEmpty());
+        assertTrue(LoadStage.parse(null).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMissingHold() {
+        LoadStage.parse("10,30");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseNegative() {
+        LoadStage.parse("10,-1,30");
+    }
+
+    private static ThreadGroup createGroup(String stages) {
+        ThreadGroup group = new ThreadGroup();
+        group.setName("Staged");
+        LoopController looper = new LoopController();
+        looper.setLoops(-1);
+        looper.setContinueForever(true);
+        group.setSamplerController(looper);
+        group.setNumThreads(1);
+        group.setRampUp(0);
+        group.setStages(stages);
+        group.setRampDown(0);
+        return group;
+    }
+
+    private static void start(ThreadGroup group) {
+        TestAction pause = new TestAction();
+        pause.setName("pause");
+        pause.setAction(TestAction.PAUSE);
+        pause.setDuration("50");
+        ListedHashTree tree = new ListedHashTree();
+        tree.add(group);
+        tree.add(group, pause);
+        JMeterContextService.getContext().setVariables(new JMeterVariables());
+        group.start(1, new ListenerNotifier(), tree, null);
+    }
+
+    @Test
+    public void testStagedThreadGroup() throws InterruptedException {
+        ThreadGroup group = createGroup("2,0,1;1,0,1");
+        start(group);
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(2, group.numberOfActiveThreads());
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertEquals(1, group.numberOfActiveThreads());
+        group.waitThreadsStopped();
+        assertEquals(0, group.numberOfActiveThreads());
+    }
+
+    @Test(expected = JMeterStopTestException.class)
+    public void testInvalidStages() {
+        start(createGroup("2,0"));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.jmeter.control.LoopController;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.sampler.DebugSampler;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.junit.Test;
+
+public class TestThreadGroup extends JMeterTestCase {
+
+    @Test
+    public void testTargetThreadsFollowEndedThreads() {
+        ThreadGroup group = new ThreadGroup();
+        group.setName("Group");
+        LoopController looper = new LoopController();
+        looper.setLoops(1);
+        group.setSamplerController(looper);
+        group.setNumThreads(3);
+        group.setRampUp(0);
+        ListedHashTree tree = new ListedHashTree();
+        tree.add(group);
+        tree.add(group, new DebugSampler());
+        JMeterContextService.clearTotalThreads();
+        JMeterContextService.getContext().setVariables(new JMeterVariables());
+
+        group.start(1, new ListenerNotifier(), tree, null);
+        group.waitThreadsStopped();
+        assertEquals(0, group.numberOfActiveThreads());
+        assertEquals(0, JMeterContextService.getTargetThreads());
+    }
+}
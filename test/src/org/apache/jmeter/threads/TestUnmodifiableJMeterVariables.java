@@ -26,11 +26,13 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.util.JMeterUtils;
 import org.hamcrest.CoreMatchers;
 import org.junit.Before;
 import org.junit.Test;
 
-public class TestUnmodifiableJMeterVariables {
+public class TestUnmodifiableJMeterVariables extends JMeterTestCase {
 
     private static final String MY_OBJECT_KEY = "my.objectKey";
     private static final String MY_KEY = "my.key";
@@ -45,6 +47,22 @@ public class TestUnmodifiableJMeterVariables {
         unmodifiables = new UnmodifiableJMeterVariables(vars);
     }
 
+    @Test
+    public void testCreateWithPreloadedVariables() {
+        Object previous = JMeterUtils.setProperty("START.MS", "1500000000000");
+        try {
+            JMeterVariables preloaded = new JMeterVariables();
+            assertThat(new UnmodifiableJMeterVariables(preloaded).get("START.MS"),
+                    CoreMatchers.is("1500000000000"));
+        } finally {
+            if (previous == null) {
+                JMeterUtils.getJMeterProperties().remove("START.MS");
+            } else {
+                JMeterUtils.setProperty("START.MS", previous.toString());
+            }
+        }
+    }
+
     @Test
     public void testGetThreadName() {
         assertThat(unmodifiables.getThreadName(), CoreMatchers.is(vars.getThreadName()));
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class TestVirtualThreadSupport {
+
+    @Test
+    public void testPlatformThread() throws InterruptedException {
+        AtomicReference<String> ranIn = new AtomicReference<>();
+        Thread thread = VirtualThreadSupport.newThread(
+                () -> ranIn.set(Thread.currentThread().getName()), "Thread Group 1-1", false);
+        assertFalse(thread.isDaemon());
+        assertFalse(thread.isAlive());
+        thread.start();
+        thread.join();
+        assertEquals("Thread Group 1-1", ranIn.get());
+    }
+
+    @Test
+    public void testVirtualThreadOrFallback() throws InterruptedException {
+        AtomicReference<String> ranIn = new AtomicReference<>();
+        Thread thread = VirtualThreadSupport.newThread(
+                () -> ranIn.set(Thread.currentThread().getName()), "Thread Group 1-2", true);
+        if (!VirtualThreadSupport.isAvailable()) {
+            assertFalse("Fallback platform thread must not be a daemon", thread.isDaemon());
+        }
+        thread.start();
+        thread.join();
+        assertEquals("Thread Group 1-2", ranIn.get());
+    }
+
+    @Test
+    public void testThreadGroupProperty() {
+        ThreadGroup threadGroup = new ThreadGroup();
+        assertEquals(VirtualThreadSupport.isEnabledByDefault(), threadGroup.isVirtualThreads());
+        threadGroup.setVirtualThreads(true);
+        assertTrue(threadGroup.isVirtualThreads());
+        threadGroup.setVirtualThreads(false);
+        assertFalse(threadGroup.isVirtualThreads());
+    }
+
+    @Test
+    public void testThreadGroupOverridesGlobalDefault() {
+        ThreadGroup threadGroup = new ThreadGroup();
+        threadGroup.setProperty(ThreadGroup.VIRTUAL_THREADS, false);
+        assertFalse(threadGroup.isVirtualThreads());
+        threadGroup.setProperty(ThreadGroup.VIRTUAL_THREADS, true);
+        assertTrue(threadGroup.isVirtualThreads());
+    }
+}
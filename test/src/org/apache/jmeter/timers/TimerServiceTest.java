@@ -18,6 +18,10 @@
 
 package org.apache.jmeter.timers;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
 import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
 import org.junit.Test;
@@ -34,4 +38,44 @@ public class TimerServiceTest {
         Assert.assertThat(Math.abs(adjustedDelay - 1000L) < 150L, CoreMatchers.is(true));
     }
 
+    @Test
+    public void testPause() throws InterruptedException {
+        TimerService service = new TimerService(false);
+        long start = System.nanoTime();
+        service.pause(20L, "ConstantTimer");
+        Assert.assertThat(System.nanoTime() - start >= 20_000_000L, CoreMatchers.is(true));
+        Assert.assertThat(service.getDrifts().isEmpty(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void testPauseMeasuresDrift() throws InterruptedException {
+        TimerService service = new TimerService(true);
+        Assert.assertThat(service.isMeasuringDrift(), CoreMatchers.is(true));
+        long start = System.nanoTime();
+        service.pause(20L, "ConstantTimer");
+        service.pause(10L, "ConstantTimer");
+        service.pause(5L, "UniformRandomTimer");
+        double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        Map<String, TimerService.DelayDrift> drifts = service.getDrifts();
+        Assert.assertEquals(Arrays.asList("ConstantTimer", "UniformRandomTimer"), new ArrayList<>(drifts.keySet()));
+        TimerService.DelayDrift constant = drifts.get("ConstantTimer");
+        Assert.assertEquals(2, constant.getCount());
+        Assert.assertEquals(1, drifts.get("UniformRandomTimer").getCount());
+        // Pauses do not end early, and the drifts cannot exceed the time spent beyond the requested pauses
+        Assert.assertThat(constant.getMeanMillis() >= 0, CoreMatchers.is(true));
+        Assert.assertThat(constant.getMaxMillis() >= constant.getMeanMillis(), CoreMatchers.is(true));
+        Assert.assertThat(constant.getMaxMillis() <= elapsedMillis - 35, CoreMatchers.is(true));
+
+        service.logAndResetDrifts();
+        Assert.assertThat(service.getDrifts().isEmpty(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void testPauseWithoutTimerType() throws InterruptedException {
+        TimerService service = new TimerService(true);
+        service.pause(1L, null);
+        Assert.assertEquals(1, service.getDrifts().get(TimerService.UNKNOWN_TIMER_TYPE).getCount());
+    }
+
 }
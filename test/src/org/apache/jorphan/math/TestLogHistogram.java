@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.Test;
+
+public class TestLogHistogram {
+
+    private static final double[] PERCENTILES = { 0.1, 1, 25, 50, 90, 95, 99, 99.9, 100 };
+
+    @Test
+    public void testEmpty() {
+        LogHistogram histogram = new LogHistogram(2);
+        assertEquals(0, histogram.getCount());
+        assertTrue(Double.isNaN(histogram.getPercentile(50)));
+        assertTrue(Double.isNaN(histogram.getMin()));
+        assertTrue(Double.isNaN(histogram.getMax()));
+        assertTrue(Double.isNaN(histogram.getMean()));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LogHistogram histogram = new LogHistogram(2);
+        DescriptiveStatistics statistics = new DescriptiveStatistics();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextInt(200);
+            histogram.addValue(value);
+            statistics.addValue(value);
+        }
+        for (double percentile : PERCENTILES) {
+            assertEquals("percentile " + percentile, statistics.getPercentile(percentile),
+                    histogram.getPercentile(percentile), 1e-9);
+        }
+        assertEquals(statistics.getMin(), histogram.getMin(), 0);
+        assertEquals(statistics.getMax(), histogram.getMax(), 0);
+        assertEquals(statistics.getMean(), histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void testRelativeErrorIsBounded() {
+        for (int digits = 1; digits <= 3; digits++) {
+            LogHistogram histogram = new LogHistogram(digits);
+            DescriptiveStatistics statistics = new DescriptiveStatistics();
+            Random random = new Random(digits);
+            for (int i = 0; i < 100000; i++) {
+                // Log-normal response times, from a few ms to minutes
+                long value = (long) Math.exp(5 + 1.5 * random.nextGaussian());
+                histogram.addValue(value);
+                statistics.addValue(value);
+            }
+            double maxError = Math.pow(10, -digits);
+            for (double percentile : PERCENTILES) {
+                double expected = statistics.getPercentile(percentile);
+                double actual = histogram.getPercentile(percentile);
+                assertTrue("percentile " + percentile + " with " + digits + " digits: expected "
+                        + expected + " but was " + actual,
+                        Math.abs(actual - expected) <= Math.max(1, expected * maxError));
+            }
+        }
+    }
+
+    @Test
+    public void testMergeGivesSameResultAsSingleHistogram() {
+        LogHistogram all = new LogHistogram(2);
+        LogHistogram[] parts = { new LogHistogram(2), new LogHistogram(2), new LogHistogram(2) };
+        Random random = new Random(7);
+        for (int i = 0; i < 30000; i++) {
+            // Each part gets values of its own range, to test buckets allocated on both sides
+            int part = i % parts.length;
+            long value = (long) ((part == 1 ? 10 : part == 2 ? 100_000 : 1000) * (1 + random.nextDouble()));
+            all.addValue(value);
+            parts[part].addValue(value);
+        }
+        LogHistogram merged = new LogHistogram(2);
+        merged.merge(parts[1]);
+        merged.merge(parts[0]);
+        merged.merge(new LogHistogram(2));
+        merged.merge(parts[2]);
+        assertEquals(all.getCount(), merged.getCount());
+        assertEquals(all.getMin(), merged.getMin(), 0);
+        assertEquals(all.getMax(), merged.getMax(), 0);
+        assertEquals(all.getMean(), merged.getMean(), 1e-6);
+        for (double percentile : PERCENTILES) {
+            assertEquals("percentile " + percentile, all.getPercentile(percentile),
+                    merged.getPercentile(percentile), 0);
+        }
+    }
+
+    @Test
+    public void testAddValueSeveralTimes() {
+        LogHistogram histogram = new LogHistogram(2);
+        histogram.addValue(1000, 99);
+        histogram.addValue(1_000_000);
+        assertEquals(100, histogram.getCount());
+        assertEquals(1000, histogram.getPercentile(50), 10);
+        assertEquals(1_000_000, histogram.getPercentile(100), 0);
+        histogram.clear();
+        assertEquals(0, histogram.getCount());
+        assertTrue(Double.isNaN(histogram.getPercentile(50)));
+    }
+
+    @Test
+    public void testBucketsRebuildSameHistogram() {
+        LogHistogram histogram = new LogHistogram(2);
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            histogram.addValue((long) (Math.exp(random.nextGaussian() * 2 + 6)));
+        }
+        LogHistogram copy = new LogHistogram(2);
+        long[] previous = { Long.MIN_VALUE };
+        histogram.forEachBucket((value, count) -> {
+            assertTrue(value > previous[0]);
+            previous[0] = value;
+            copy.addValue(value, count);
+        });
+        assertEquals(histogram.getCount(), copy.getCount());
+        assertEquals(histogram.getMin(), copy.getMin(), 0);
+        assertEquals(histogram.getMax(), copy.getMax(), 0);
+        for (double percentile : PERCENTILES) {
+            assertEquals(histogram.getPercentile(percentile), copy.getPercentile(percentile), 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeWithOtherPrecision() {
+        new LogHistogram(2).merge(new LogHistogram(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPrecision() {
+        new LogHistogram(6);
+    }
+}